@@ -95,6 +95,13 @@ object Deps {
     }
   }
 
+  object Jmh {
+    private const val version = "1.37"
+
+    const val Core = "org.openjdk.jmh:jmh-core:$version"
+    const val AnnotationProcessor = "org.openjdk.jmh:jmh-generator-annprocess:$version"
+  }
+
   object JUnit {
     private const val version = "4.13.2"
 
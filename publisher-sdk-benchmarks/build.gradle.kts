@@ -0,0 +1,70 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+plugins {
+  id("com.android.library")
+  kotlin("android")
+  id("io.gitlab.arturbosch.detekt")
+}
+
+androidLibModule()
+
+android {
+  defaultConfig {
+    multiDexEnabled = true
+  }
+
+  testOptions {
+    unitTests.all {
+      val jmhTaskPath = "${project.path}:jmh"
+      val resultFile = project.buildDir.resolve("reports/jmh/${sdkVersion()}.json")
+
+      // Benchmarks are long: they only run through the jmh task, never during a normal build.
+      outputs.upToDateWhen { !project.gradle.taskGraph.hasTask(jmhTaskPath) }
+
+      doFirst {
+        val test = this as Test
+        test.systemProperty("jmh.enabled", project.gradle.taskGraph.hasTask(jmhTaskPath))
+        test.systemProperty("jmh.include", project.findProperty("jmh.include") ?: "")
+        test.systemProperty("jmh.resultFile", resultFile.absolutePath)
+        // JMH forks a new JVM for each benchmark: it needs the full test classpath.
+        test.systemProperty("jmh.classpath", test.classpath.asPath)
+      }
+    }
+  }
+}
+
+tasks.register("jmh") {
+  group = "verification"
+  description = "Run the JMH benchmarks and write their results as JSON in build/reports/jmh. " +
+      "A subset can be selected with -Pjmh.include=<regex>."
+  dependsOn("testDebugUnitTest")
+}
+
+dependencies {
+  implementation(project(":publisher-sdk"))
+  implementation(Deps.Kotlin.Stdlib)
+
+  testImplementation(Deps.JUnit.JUnit)
+  testImplementation(Deps.Jmh.Core)
+  testAnnotationProcessor(Deps.Jmh.AnnotationProcessor)
+  testImplementation(Deps.Mockito.Core)
+  testImplementation(Deps.Json.Json)
+  testImplementation(Deps.Square.Tape.Tape)
+
+  detektPlugins(Deps.Detekt.DetektFormatting)
+}
@@ -0,0 +1,51 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.criteo.publisher;
+
+import androidx.annotation.NonNull;
+import com.criteo.publisher.logging.LoggerFactory;
+import java.util.Collections;
+
+/**
+ * Dependency provider used by the benchmarks.
+ * <p>
+ * There is no application in the benchmarks, so only the dependencies that do not need one are
+ * taken from it. Logs are dropped, so they do not weigh on the measures.
+ */
+public class BenchmarkDependencyProvider extends DependencyProvider {
+
+  private BenchmarkDependencyProvider() {
+  }
+
+  /**
+   * Install this provider as the global one, used by the classes getting their dependencies by
+   * themselves, such as the loggers.
+   */
+  @NonNull
+  public static synchronized DependencyProvider install() {
+    BenchmarkDependencyProvider dependencyProvider = new BenchmarkDependencyProvider();
+    setInstance(dependencyProvider);
+    return dependencyProvider;
+  }
+
+  @NonNull
+  @Override
+  public LoggerFactory provideLoggerFactory() {
+    return getOrCreate(LoggerFactory.class, () -> new LoggerFactory(Collections.emptyList()));
+  }
+}
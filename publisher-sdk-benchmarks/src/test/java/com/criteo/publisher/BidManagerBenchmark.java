@@ -0,0 +1,155 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.criteo.publisher;
+
+import static com.criteo.publisher.benchmark.Stubs.stub;
+import static java.util.Collections.singletonList;
+import static org.mockito.Mockito.when;
+
+import androidx.annotation.NonNull;
+import com.criteo.publisher.benchmark.Payloads;
+import com.criteo.publisher.benchmark.Payloads.AdFormat;
+import com.criteo.publisher.bid.BidLifecycleListener;
+import com.criteo.publisher.cache.AdUnitUsageHistogram;
+import com.criteo.publisher.cache.BidCacheSnapshotStore;
+import com.criteo.publisher.cache.BidRefreshScheduler;
+import com.criteo.publisher.cache.SdkCache;
+import com.criteo.publisher.context.ContextData;
+import com.criteo.publisher.csm.MetricSendingQueueConsumer;
+import com.criteo.publisher.integration.Integration;
+import com.criteo.publisher.integration.IntegrationRegistry;
+import com.criteo.publisher.logging.RemoteLogSendingQueueConsumer;
+import com.criteo.publisher.model.AdSize;
+import com.criteo.publisher.model.AdUnit;
+import com.criteo.publisher.model.AdUnitMapper;
+import com.criteo.publisher.model.CacheAdUnitInterner;
+import com.criteo.publisher.model.CdbResponseSlot;
+import com.criteo.publisher.model.Config;
+import com.criteo.publisher.network.BidRequestSender;
+import com.criteo.publisher.network.LiveBidRequestSender;
+import com.criteo.publisher.privacy.ConsentData;
+import com.criteo.publisher.util.DeviceUtil;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measure {@link BidManager#getBidForAdUnit(AdUnit, ContextData, BidListener)} in cache mode, when
+ * a bid is in cache and when there is none.
+ * <p>
+ * The network is stubbed: only the work done on the caller thread is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class BidManagerBenchmark {
+
+  @Param({"BANNER", "NATIVE"})
+  public AdFormat format;
+
+  @Param({"false", "true"})
+  public boolean withContextData;
+
+  private BidManager bidManager;
+
+  private AdUnit adUnit;
+
+  private ContextData contextData;
+
+  private CdbResponseSlot slot;
+
+  @Setup
+  public void setUp() throws JSONException {
+    BenchmarkDependencyProvider.install();
+
+    DeviceUtil deviceUtil = stub(DeviceUtil.class);
+    when(deviceUtil.getCurrentScreenSize()).thenReturn(new AdSize(360, 640));
+    CacheAdUnitInterner cacheAdUnitInterner = new CacheAdUnitInterner(deviceUtil);
+
+    IntegrationRegistry integrationRegistry = stub(IntegrationRegistry.class);
+    when(integrationRegistry.readIntegration()).thenReturn(Integration.IN_HOUSE);
+
+    Config config = new Config();
+    Clock clock = new EpochClock();
+    BidLifecycleListener bidLifecycleListener = stub(BidLifecycleListener.class);
+
+    bidManager = new BidManager(
+        new SdkCache(cacheAdUnitInterner, config, clock, bidLifecycleListener),
+        config,
+        clock,
+        new AdUnitMapper(cacheAdUnitInterner, integrationRegistry),
+        stub(BidRequestSender.class),
+        stub(LiveBidRequestSender.class),
+        bidLifecycleListener,
+        stub(MetricSendingQueueConsumer.class),
+        stub(RemoteLogSendingQueueConsumer.class),
+        stub(ConsentData.class),
+        stub(BidRefreshScheduler.class),
+        stub(BidCacheSnapshotStore.class),
+        stub(AdUnitUsageHistogram.class),
+        Runnable::run,
+        Runnable::run
+    );
+
+    adUnit = Payloads.adUnit(format, 0);
+    contextData = withContextData ? Payloads.contextData() : new ContextData();
+
+    slot = CdbResponseSlot.fromJson(new JSONObject(Payloads.cdbResponseSlot(format, 0)));
+    slot.setTimeOfDownload(System.currentTimeMillis());
+  }
+
+  @Benchmark
+  public void getBidForAdUnit_GivenCachedBid(Blackhole blackhole) {
+    bidManager.setCacheAdUnits(singletonList(slot));
+    bidManager.getBidForAdUnit(adUnit, contextData, new BlackholeBidListener(blackhole));
+  }
+
+  @Benchmark
+  public void getBidForAdUnit_GivenNoCachedBid(Blackhole blackhole) {
+    bidManager.getBidForAdUnit(adUnit, contextData, new BlackholeBidListener(blackhole));
+  }
+
+  private static class BlackholeBidListener implements BidListener {
+
+    @NonNull
+    private final Blackhole blackhole;
+
+    private BlackholeBidListener(@NonNull Blackhole blackhole) {
+      this.blackhole = blackhole;
+    }
+
+    @Override
+    public void onBidResponse(@NonNull CdbResponseSlot cdbResponseSlot) {
+      blackhole.consume(cdbResponseSlot);
+    }
+
+    @Override
+    public void onNoBid() {
+      blackhole.consume(false);
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.criteo.publisher.benchmark;
+
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import org.junit.Test;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Entry point of the benchmarks, run by the <code>jmh</code> Gradle task.
+ * <p>
+ * Results are written as JSON, in a file named after the SDK version, so they can be compared
+ * between versions. Allocations are measured along with the latency (see the
+ * <code>gc.alloc.rate.norm</code> secondary metric).
+ */
+public class BenchmarkRunner {
+
+  @Test
+  public void runBenchmarks() throws RunnerException {
+    assumeTrue("Benchmarks are only run by the jmh task", Boolean.getBoolean("jmh.enabled"));
+
+    // JMH forks a JVM with the class path of the current one, which is not the test class path when
+    // running from Gradle.
+    String classpath = System.getProperty("jmh.classpath");
+    if (classpath != null) {
+      System.setProperty("java.class.path", classpath);
+    }
+
+    File resultFile = new File(System.getProperty("jmh.resultFile", "jmh-results.json"));
+    File resultDirectory = resultFile.getParentFile();
+    if (resultDirectory != null && !resultDirectory.exists() && !resultDirectory.mkdirs()) {
+      throw new IllegalStateException("Could not create directory " + resultDirectory);
+    }
+
+    ChainedOptionsBuilder options = new OptionsBuilder()
+        .warmupIterations(3)
+        .warmupTime(TimeValue.seconds(1))
+        .measurementIterations(5)
+        .measurementTime(TimeValue.seconds(1))
+        .timeout(TimeValue.minutes(1))
+        .forks(1)
+        .addProfiler(GCProfiler.class)
+        .resultFormat(ResultFormatType.JSON)
+        .result(resultFile.getAbsolutePath());
+
+    String include = System.getProperty("jmh.include", "");
+    options.include(include.isEmpty() ? "com\\.criteo\\.publisher\\..*Benchmark" : include);
+
+    new Runner(options.build()).run();
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.criteo.publisher.benchmark;
+
+import android.util.AtomicFile;
+import androidx.annotation.NonNull;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * {@link AtomicFile} doing real I/O on the JVM.
+ * <p>
+ * The Android stub does nothing outside of a device. This mimics the device implementation: a write
+ * goes to a new file, that is synced and then renamed over the base file.
+ */
+public class FileBackedAtomicFile extends AtomicFile {
+
+  @NonNull
+  private final File baseFile;
+
+  @NonNull
+  private final File newFile;
+
+  public FileBackedAtomicFile(@NonNull File baseFile) {
+    super(baseFile);
+    this.baseFile = baseFile;
+    this.newFile = new File(baseFile.getPath() + ".new");
+  }
+
+  @Override
+  public File getBaseFile() {
+    return baseFile;
+  }
+
+  @Override
+  public void delete() {
+    baseFile.delete();
+    newFile.delete();
+  }
+
+  @Override
+  public FileOutputStream startWrite() throws IOException {
+    return new FileOutputStream(newFile);
+  }
+
+  @Override
+  public void finishWrite(FileOutputStream str) {
+    try {
+      str.getFD().sync();
+      str.close();
+      if (!newFile.renameTo(baseFile)) {
+        throw new IOException("Impossible to rename " + newFile + " to " + baseFile);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  public void failWrite(FileOutputStream str) {
+    try {
+      str.close();
+    } catch (IOException ignored) {
+      // The new file is deleted anyway
+    }
+    newFile.delete();
+  }
+
+  @Override
+  public FileInputStream openRead() throws FileNotFoundException {
+    return new FileInputStream(baseFile);
+  }
+}
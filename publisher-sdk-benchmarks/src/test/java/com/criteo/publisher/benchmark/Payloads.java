@@ -0,0 +1,198 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.criteo.publisher.benchmark;
+
+import androidx.annotation.NonNull;
+import com.criteo.publisher.context.ContextData;
+import com.criteo.publisher.context.UserData;
+import com.criteo.publisher.model.AdSize;
+import com.criteo.publisher.model.AdUnit;
+import com.criteo.publisher.model.BannerAdUnit;
+import com.criteo.publisher.model.CacheAdUnit;
+import com.criteo.publisher.model.NativeAdUnit;
+import com.criteo.publisher.util.AdUnitType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Realistic payloads shared by the benchmarks, so that all of them measure the same shapes of ad
+ * units, context data and CDB responses.
+ */
+public final class Payloads {
+
+  private static final AdSize BANNER_SIZE = new AdSize(320, 50);
+  private static final AdSize NATIVE_SIZE = new AdSize(2, 2);
+
+  private Payloads() {
+  }
+
+  public enum AdFormat {
+    BANNER,
+    NATIVE
+  }
+
+  @NonNull
+  public static List<AdUnit> adUnits(@NonNull AdFormat format, int count) {
+    List<AdUnit> adUnits = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      adUnits.add(adUnit(format, i));
+    }
+    return adUnits;
+  }
+
+  @NonNull
+  public static AdUnit adUnit(@NonNull AdFormat format, int index) {
+    switch (format) {
+      case BANNER:
+        return new BannerAdUnit(placementId(format, index), BANNER_SIZE);
+      case NATIVE:
+        return new NativeAdUnit(placementId(format, index));
+      default:
+        throw new IllegalArgumentException("Unknown format: " + format);
+    }
+  }
+
+  @NonNull
+  public static List<CacheAdUnit> cacheAdUnits(@NonNull AdFormat format, int count) {
+    List<CacheAdUnit> cacheAdUnits = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      cacheAdUnits.add(cacheAdUnit(format, i));
+    }
+    return cacheAdUnits;
+  }
+
+  @NonNull
+  public static CacheAdUnit cacheAdUnit(@NonNull AdFormat format, int index) {
+    switch (format) {
+      case BANNER:
+        return new CacheAdUnit(BANNER_SIZE, placementId(format, index), AdUnitType.CRITEO_BANNER);
+      case NATIVE:
+        return new CacheAdUnit(NATIVE_SIZE, placementId(format, index), AdUnitType.CRITEO_CUSTOM_NATIVE);
+      default:
+        throw new IllegalArgumentException("Unknown format: " + format);
+    }
+  }
+
+  /**
+   * Context data as a publisher would typically give it: an URL and a few custom keys.
+   */
+  @NonNull
+  public static ContextData contextData() {
+    return new ContextData()
+        .set(ContextData.CONTENT_URL, "https://www.criteo.com/news/2020/10/some-article")
+        .set("data.section", "sport")
+        .set("data.keywords", Arrays.asList("football", "results", "league"))
+        .set("data.pageIndex", 3);
+  }
+
+  @NonNull
+  public static UserData userData() {
+    return new UserData()
+        .set(UserData.DEV_USER_ID, "a1b2c3d4-e5f6-7890-abcd-ef1234567890")
+        .set("data.segment", "premium")
+        .set("data.age", 42);
+  }
+
+  @NonNull
+  public static String cdbResponse(@NonNull AdFormat format, int slotCount) {
+    StringBuilder builder = new StringBuilder("{\"slots\":[");
+    for (int i = 0; i < slotCount; i++) {
+      if (i > 0) {
+        builder.append(',');
+      }
+      builder.append(cdbResponseSlot(format, i));
+    }
+    return builder.append("],\"timeToNextCall\":0,\"consentGiven\":true}").toString();
+  }
+
+  @NonNull
+  public static String cdbResponseSlot(@NonNull AdFormat format, int index) {
+    switch (format) {
+      case BANNER:
+        return bannerSlot(index);
+      case NATIVE:
+        return nativeSlot(index);
+      default:
+        throw new IllegalArgumentException("Unknown format: " + format);
+    }
+  }
+
+  @NonNull
+  private static String placementId(@NonNull AdFormat format, int index) {
+    return format == AdFormat.BANNER
+        ? "/140800857/Endeavour_320x50_" + index
+        : "/140800857/Endeavour_Native_" + index;
+  }
+
+  @NonNull
+  private static String bannerSlot(int index) {
+    return "{"
+        + "\"impId\":\"5def5cbbab53a9a7dea0639f43924c7" + index + "\","
+        + "\"placementId\":\"" + placementId(AdFormat.BANNER, index) + "\","
+        + "\"zoneId\":" + (1000 + index) + ","
+        + "\"cpm\":\"1.12\","
+        + "\"currency\":\"EUR\","
+        + "\"width\":320,"
+        + "\"height\":50,"
+        + "\"ttl\":3600,"
+        + "\"displayUrl\":\"https://publisherdirect.criteo.com/publishertag/preprodtest/"
+        + "FakeAJS.js?slot=" + index + "&cb=4927463518\""
+        + "}";
+  }
+
+  @NonNull
+  private static String nativeSlot(int index) {
+    return "{"
+        + "\"impId\":\"5def5cbbab53a9a7dea0639f43924c7" + index + "\","
+        + "\"placementId\":\"" + placementId(AdFormat.NATIVE, index) + "\","
+        + "\"cpm\":\"0.04\","
+        + "\"currency\":\"USD\","
+        + "\"width\":2,"
+        + "\"height\":2,"
+        + "\"ttl\":3600,"
+        + "\"native\":{"
+        + "\"products\":[{"
+        + "\"title\":\"\\\"Stripe Pima Dress\\\" - $99\","
+        + "\"description\":\"We're All About Comfort.\","
+        + "\"price\":\"$99\","
+        + "\"clickUrl\":\"https://cat.sv.us.criteo.com/delivery/ckn.php?cppv=1&cpp=ZONVfHxMdHJGZ0JpSTh\","
+        + "\"callToAction\":\"Buy now\","
+        + "\"image\":{\"url\":\"https://pix.us.criteo.net/img/img?c=3&cq=256&h=400&v=3&w=400\","
+        + "\"height\":400,\"width\":400}"
+        + "}],"
+        + "\"advertiser\":{"
+        + "\"description\":\"The Company Store\","
+        + "\"domain\":\"thecompanystore.com\","
+        + "\"logo\":{\"url\":\"https://pix.us.criteo.net/img/img?c=3&cq=256&h=200&v=3&w=200\","
+        + "\"height\":200,\"width\":200},"
+        + "\"logoClickUrl\":\"https://cat.sv.us.criteo.com/delivery/ckn.php?cppv=1&cpp=3QxVFBKY2tXcUtjOH\""
+        + "},"
+        + "\"privacy\":{"
+        + "\"optoutClickUrl\":\"https://privacy.us.criteo.com/adcenter?cppv=1&cpp=Lu3mPBsNGCtKSUZBYQ\","
+        + "\"optoutImageUrl\":\"https://static.criteo.net/flash/icon/nai_small.png\","
+        + "\"longLegalText\":\"\""
+        + "},"
+        + "\"impressionPixels\":["
+        + "{\"url\":\"https://cat.sv.us.criteo.com/delivery/lgn.php?cppv=1&cpp=rGfONw9Ld0ZD\"},"
+        + "{\"url\":\"https://dog.da.us.criteo.com/delivery/lgn.php?cppv=1&cpp=BqYvqLNDCWTU\"}"
+        + "]"
+        + "}"
+        + "}";
+  }
+}
@@ -0,0 +1,40 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.criteo.publisher.benchmark;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import androidx.annotation.NonNull;
+
+public final class Stubs {
+
+  private Stubs() {
+  }
+
+  /**
+   * Create a stub of the given class.
+   * <p>
+   * Benchmarks invoke the stubs millions of times: contrary to usual mocks, they do not record
+   * their invocations, so they neither fill the memory nor put pressure on the GC.
+   */
+  @NonNull
+  public static <T> T stub(@NonNull Class<T> klass) {
+    return mock(klass, withSettings().stubOnly());
+  }
+}
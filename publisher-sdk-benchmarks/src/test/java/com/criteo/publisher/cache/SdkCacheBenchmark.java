@@ -0,0 +1,118 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.criteo.publisher.cache;
+
+import static com.criteo.publisher.benchmark.Stubs.stub;
+import static org.mockito.Mockito.when;
+
+import com.criteo.publisher.BenchmarkDependencyProvider;
+import com.criteo.publisher.EpochClock;
+import com.criteo.publisher.benchmark.Payloads;
+import com.criteo.publisher.benchmark.Payloads.AdFormat;
+import com.criteo.publisher.bid.BidLifecycleListener;
+import com.criteo.publisher.model.AdSize;
+import com.criteo.publisher.model.CacheAdUnit;
+import com.criteo.publisher.model.CacheAdUnitInterner;
+import com.criteo.publisher.model.CdbResponseSlot;
+import com.criteo.publisher.model.Config;
+import com.criteo.publisher.util.DeviceUtil;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Measure the throughput of the bid cache when several threads are working on unrelated ad units.
+ * <p>
+ * The cache is compared against the same cache guarded by a single global lock, as it was done
+ * before in the bid manager. Without the global lock, the throughput is expected to scale with the
+ * number of threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Threads(4)
+public class SdkCacheBenchmark {
+
+  private final Object globalLock = new Object();
+
+  private SdkCache cache;
+
+  @Setup
+  public void setUp() {
+    BenchmarkDependencyProvider.install();
+
+    DeviceUtil deviceUtil = stub(DeviceUtil.class);
+    when(deviceUtil.getCurrentScreenSize()).thenReturn(new AdSize(360, 640));
+
+    cache = new SdkCache(
+        new CacheAdUnitInterner(deviceUtil),
+        new Config(),
+        new EpochClock(),
+        stub(BidLifecycleListener.class)
+    );
+  }
+
+  @Benchmark
+  public CdbResponseSlot replaceThenConsume(AdUnitState state) {
+    return doReplaceThenConsume(state);
+  }
+
+  @Benchmark
+  public CdbResponseSlot replaceThenConsume_GivenGlobalLock(AdUnitState state) {
+    synchronized (globalLock) {
+      return doReplaceThenConsume(state);
+    }
+  }
+
+  private CdbResponseSlot doReplaceThenConsume(AdUnitState state) {
+    cache.peekAdUnit(state.cacheAdUnit);
+    cache.add(state.slot, cachedSlot -> true);
+    return cache.consume(state.cacheAdUnit, cachedSlot -> true);
+  }
+
+  /**
+   * Ad unit, and its bid, of a single benchmark thread. Each thread works on its own ad unit.
+   */
+  @State(Scope.Thread)
+  public static class AdUnitState {
+
+    private static final AtomicInteger nextIndex = new AtomicInteger();
+
+    private CacheAdUnit cacheAdUnit;
+
+    private CdbResponseSlot slot;
+
+    @Setup
+    public void setUp() throws JSONException {
+      int index = nextIndex.getAndIncrement();
+      cacheAdUnit = Payloads.cacheAdUnit(AdFormat.BANNER, index);
+      String slotPayload = Payloads.cdbResponseSlot(AdFormat.BANNER, index);
+      slot = CdbResponseSlot.fromJson(new JSONObject(slotPayload));
+      slot.setTimeOfDownload(System.currentTimeMillis());
+    }
+  }
+}
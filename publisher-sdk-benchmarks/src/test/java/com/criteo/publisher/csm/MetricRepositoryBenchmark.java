@@ -0,0 +1,132 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.criteo.publisher.csm;
+
+import static com.criteo.publisher.benchmark.Stubs.stub;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import com.criteo.publisher.BenchmarkDependencyProvider;
+import com.criteo.publisher.DependencyProvider;
+import com.criteo.publisher.benchmark.FileBackedAtomicFile;
+import com.criteo.publisher.util.BuildConfigWrapper;
+import com.criteo.publisher.util.JsonSerializer;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Compare the metric updates of the file per impression store and of the journal store, on the
+ * local file system.
+ * <p>
+ * Each operation simulates a bid going through the usual lifecycle: the CDB call is started and
+ * finished, the bid is consumed, the metric is marked as ready to send, and it is finally moved to
+ * the sending queue. So each operation does five updates of the store.
+ * <p>
+ * The file per impression store relies on the Android <code>AtomicFile</code>, which does nothing
+ * outside of a device. It is replaced by a {@link FileBackedAtomicFile} doing the same I/O.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class MetricRepositoryBenchmark {
+
+  private static final String METRIC_FILE_EXTENSION = ".csm";
+
+  @Param({"file", "journal"})
+  public String store;
+
+  private File directoryFile;
+
+  private MetricRepository repository;
+
+  private long nextImpressionId;
+
+  @Setup
+  public void setUp() throws IOException {
+    DependencyProvider dependencyProvider = BenchmarkDependencyProvider.install();
+    JsonSerializer jsonSerializer = dependencyProvider.provideJsonSerializer();
+
+    directoryFile = Files.createTempDirectory("csm").toFile();
+    Context context = stub(Context.class);
+    when(context.getDir(anyString(), anyInt())).thenReturn(directoryFile);
+
+    MetricDirectory directory = new MetricDirectory(
+        context,
+        new BuildConfigWrapper(),
+        jsonSerializer
+    ) {
+      @Override
+      SyncMetricFile createSyncMetricFile(File metricFile) {
+        String filename = metricFile.getName();
+        String impressionId = filename.substring(
+            0,
+            filename.length() - METRIC_FILE_EXTENSION.length()
+        );
+        return new SyncMetricFile(impressionId, new FileBackedAtomicFile(metricFile), jsonSerializer);
+      }
+    };
+
+    if ("journal".equals(store)) {
+      repository = new JournalMetricRepository(directory.getJournalFile(), directory, jsonSerializer);
+    } else {
+      repository = new FileMetricRepository(directory);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    File[] files = directoryFile.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    directoryFile.delete();
+  }
+
+  @Benchmark
+  public void updateMetricsOfBid() {
+    String impressionId = "impression" + nextImpressionId++;
+
+    repository.addOrUpdateById(impressionId, builder -> builder
+        .setCdbCallStartTimestamp(1000L)
+        .setRequestGroupId("requestGroupId")
+        .setProfileId(235));
+    repository.addOrUpdateById(impressionId, builder -> builder
+        .setCdbCallEndTimestamp(1100L)
+        .setZoneId(1337));
+    repository.addOrUpdateById(impressionId, builder -> builder
+        .setElapsedTimestamp(2000L)
+        .setCachedBidUsed(true));
+    repository.addOrUpdateById(impressionId, builder -> builder.setReadyToSend(true));
+    repository.moveById(impressionId, metric -> true);
+  }
+}
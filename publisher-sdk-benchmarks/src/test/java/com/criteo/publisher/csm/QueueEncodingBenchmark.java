@@ -0,0 +1,149 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.criteo.publisher.csm;
+
+import static com.criteo.publisher.benchmark.Stubs.stub;
+import static org.mockito.Mockito.when;
+
+import androidx.annotation.NonNull;
+import com.criteo.publisher.BenchmarkDependencyProvider;
+import com.criteo.publisher.csm.ObjectQueueFactory.AdapterConverter;
+import com.criteo.publisher.logging.RemoteLogRecords;
+import com.criteo.publisher.logging.RemoteLogRecords.RemoteLogContext;
+import com.criteo.publisher.logging.RemoteLogRecords.RemoteLogLevel;
+import com.criteo.publisher.logging.RemoteLogRecords.RemoteLogRecord;
+import com.criteo.publisher.logging.RemoteLogRecordsQueueCodec;
+import com.criteo.publisher.model.Config;
+import com.criteo.publisher.util.JsonSerializer;
+import com.squareup.tape.FileObjectQueue;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measure the writing then the reading of an element of the sending queues, with the JSON and with
+ * the compact encodings.
+ * <p>
+ * The sizes of the encoded elements are checked by the unit tests of
+ * {@link CompactQueueConverter}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class QueueEncodingBenchmark {
+
+  @Param({"false", "true"})
+  public boolean compactEncoding;
+
+  private FileObjectQueue.Converter<Metric> metricConverter;
+
+  private FileObjectQueue.Converter<RemoteLogRecords> remoteLogConverter;
+
+  private Metric metric;
+
+  private RemoteLogRecords remoteLogs;
+
+  @Setup
+  public void setUp() {
+    JsonSerializer jsonSerializer = BenchmarkDependencyProvider.install().provideJsonSerializer();
+
+    Config config = stub(Config.class);
+    when(config.isCompactQueueEncodingEnabled()).thenReturn(compactEncoding);
+
+    metricConverter = new CompactQueueConverter<>(
+        new AdapterConverter<>(jsonSerializer, Metric.class),
+        new MetricQueueCodec(),
+        config
+    );
+    remoteLogConverter = new CompactQueueConverter<>(
+        new AdapterConverter<>(jsonSerializer, RemoteLogRecords.class),
+        new RemoteLogRecordsQueueCodec(),
+        config
+    );
+
+    metric = Metric.builder("5def5cbbab53a9a7dea0639f43924c7a")
+        .setRequestGroupId("2ad1c37c4e5a4a4b9a6c4b1c82b9f7e1")
+        .setCdbCallStartTimestamp(1600000000000L)
+        .setCdbCallEndTimestamp(1600000000100L)
+        .setElapsedTimestamp(1600000000200L)
+        .setZoneId(1337)
+        .setProfileId(235)
+        .setCachedBidUsed(true)
+        .setReadyToSend(true)
+        .build();
+
+    remoteLogs = new RemoteLogRecords(
+        new RemoteLogContext(
+            "4.4.0",
+            "com.criteo.testapp",
+            "c3f1b5c8-5a7e-4f4e-9d3a-0e8b7c6d5e4f",
+            "5def5cbbab53a9a7dea0639f43924c7a",
+            235,
+            "java.lang.IllegalStateException",
+            "onUncaughtErrorAtPublicApi",
+            "android-29"
+        ),
+        Collections.singletonList(new RemoteLogRecord(
+            RemoteLogLevel.ERROR,
+            Arrays.asList("Something went wrong", stackTrace())
+        ))
+    );
+  }
+
+  @Benchmark
+  public Metric writeThenReadMetric() throws IOException {
+    return writeThenRead(metric, metricConverter);
+  }
+
+  @Benchmark
+  public RemoteLogRecords writeThenReadRemoteLogs() throws IOException {
+    return writeThenRead(remoteLogs, remoteLogConverter);
+  }
+
+  private static <T> T writeThenRead(
+      @NonNull T element,
+      @NonNull FileObjectQueue.Converter<T> converter
+  ) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    converter.toStream(element, output);
+    return converter.from(output.toByteArray());
+  }
+
+  @NonNull
+  private static String stackTrace() {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 1; i <= 30; i++) {
+      if (i > 1) {
+        builder.append('\n');
+      }
+      builder.append("at com.criteo.publisher.SomeClass.someMethod").append(i)
+          .append("(SomeClass.java:").append(i).append(')');
+    }
+    return builder.toString();
+  }
+}
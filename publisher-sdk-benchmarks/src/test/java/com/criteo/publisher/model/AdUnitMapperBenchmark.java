@@ -0,0 +1,85 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.criteo.publisher.model;
+
+import static com.criteo.publisher.benchmark.Stubs.stub;
+import static org.mockito.Mockito.when;
+
+import com.criteo.publisher.BenchmarkDependencyProvider;
+import com.criteo.publisher.benchmark.Payloads;
+import com.criteo.publisher.benchmark.Payloads.AdFormat;
+import com.criteo.publisher.integration.Integration;
+import com.criteo.publisher.integration.IntegrationRegistry;
+import com.criteo.publisher.util.DeviceUtil;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measure the mapping of public ad units to internal ones, for a single ad unit (as done on each
+ * bid) and for a list of them (as done on prefetch).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class AdUnitMapperBenchmark {
+
+  @Param({"BANNER", "NATIVE"})
+  public AdFormat format;
+
+  @Param({"1", "8", "32"})
+  public int adUnitCount;
+
+  private AdUnitMapper adUnitMapper;
+
+  private AdUnit adUnit;
+
+  private List<AdUnit> adUnits;
+
+  @Setup
+  public void setUp() {
+    BenchmarkDependencyProvider.install();
+
+    DeviceUtil deviceUtil = stub(DeviceUtil.class);
+    when(deviceUtil.getCurrentScreenSize()).thenReturn(new AdSize(360, 640));
+
+    IntegrationRegistry integrationRegistry = stub(IntegrationRegistry.class);
+    when(integrationRegistry.readIntegration()).thenReturn(Integration.IN_HOUSE);
+
+    adUnitMapper = new AdUnitMapper(new CacheAdUnitInterner(deviceUtil), integrationRegistry);
+    adUnit = Payloads.adUnit(format, 0);
+    adUnits = Payloads.adUnits(format, adUnitCount);
+  }
+
+  @Benchmark
+  public CacheAdUnit map() {
+    return adUnitMapper.map(adUnit);
+  }
+
+  @Benchmark
+  public List<List<CacheAdUnit>> mapToChunks() {
+    return adUnitMapper.mapToChunks(adUnits);
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.criteo.publisher.model;
+
+import static com.criteo.publisher.benchmark.Stubs.stub;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import com.criteo.publisher.BenchmarkDependencyProvider;
+import com.criteo.publisher.EpochClock;
+import com.criteo.publisher.benchmark.Payloads;
+import com.criteo.publisher.benchmark.Payloads.AdFormat;
+import com.criteo.publisher.bid.UniqueIdGenerator;
+import com.criteo.publisher.context.ContextData;
+import com.criteo.publisher.context.ContextProvider;
+import com.criteo.publisher.context.UserData;
+import com.criteo.publisher.context.UserDataHolder;
+import com.criteo.publisher.integration.IntegrationRegistry;
+import com.criteo.publisher.privacy.UserPrivacyUtil;
+import com.criteo.publisher.util.AdvertisingInfo;
+import com.criteo.publisher.util.BuildConfigWrapper;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measure the creation of bid requests, with and without context and user data given by the
+ * publisher.
+ * <p>
+ * Requests are usually built on top of a snapshot of their static sections. Invalidating it before
+ * each request gives the cost of a request built from scratch, as after a configuration or consent
+ * change.
+ * <p>
+ * The device context is stubbed with typical values, so the cost of reading it from the Android
+ * framework is not measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class CdbRequestFactoryBenchmark {
+
+  @Param({"BANNER", "NATIVE"})
+  public AdFormat format;
+
+  @Param({"1", "8", "32"})
+  public int slotCount;
+
+  @Param({"false", "true"})
+  public boolean withContextData;
+
+  private CdbRequestFactory cdbRequestFactory;
+
+  private List<CacheAdUnit> cacheAdUnits;
+
+  private ContextData contextData;
+
+  @Setup
+  public void setUp() {
+    BenchmarkDependencyProvider.install();
+
+    Context context = stub(Context.class);
+    when(context.getPackageName()).thenReturn("com.criteo.publisher.benchmarks");
+
+    AdvertisingInfo advertisingInfo = stub(AdvertisingInfo.class);
+    when(advertisingInfo.getAdvertisingId()).thenReturn("2f3d4c5b-6a79-8e01-b2c3-d4e5f6a7b8c9");
+
+    UserPrivacyUtil userPrivacyUtil = stub(UserPrivacyUtil.class);
+    when(userPrivacyUtil.getIabUsPrivacyString()).thenReturn("1YNN");
+
+    ContextProvider contextProvider = stub(ContextProvider.class);
+    when(contextProvider.fetchConfigurationUserContext()).thenReturn(configurationUserContext());
+    when(contextProvider.fetchVolatileUserContext()).thenReturn(volatileUserContext());
+
+    UserDataHolder userDataHolder = new UserDataHolder();
+    userDataHolder.set(withContextData ? Payloads.userData() : new UserData());
+
+    cdbRequestFactory = new CdbRequestFactory(
+        context,
+        "B-000001",
+        null,
+        stub(DeviceInfo.class),
+        advertisingInfo,
+        userPrivacyUtil,
+        new UniqueIdGenerator(new EpochClock()),
+        new BuildConfigWrapper(),
+        stub(IntegrationRegistry.class),
+        contextProvider,
+        userDataHolder,
+        new Config()
+    );
+
+    cacheAdUnits = Payloads.cacheAdUnits(format, slotCount);
+    contextData = withContextData ? Payloads.contextData() : new ContextData();
+  }
+
+  @Benchmark
+  public CdbRequest createRequest() {
+    return cdbRequestFactory.createRequest(cacheAdUnits, contextData);
+  }
+
+  @Benchmark
+  public CdbRequest createRequest_GivenInvalidatedStaticSections() {
+    cdbRequestFactory.invalidateStaticSections();
+    return cdbRequestFactory.createRequest(cacheAdUnits, contextData);
+  }
+
+  private static Map<String, Object> configurationUserContext() {
+    Map<String, Object> userContext = new LinkedHashMap<>();
+    userContext.put("device.make", "Google");
+    userContext.put("device.model", "Pixel 7");
+    userContext.put("device.w", 1080);
+    userContext.put("device.h", 2400);
+    userContext.put("data.orientation", "Portrait");
+    userContext.put("user.geo.country", "FR");
+    userContext.put("data.inputLanguage", Arrays.asList("fr", "en"));
+    return userContext;
+  }
+
+  private static Map<String, Object> volatileUserContext() {
+    Map<String, Object> userContext = new LinkedHashMap<>();
+    userContext.put("device.contype", 2);
+    userContext.put("data.sessionDuration", 120);
+    return userContext;
+  }
+}
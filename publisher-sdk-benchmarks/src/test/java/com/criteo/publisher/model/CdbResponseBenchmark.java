@@ -0,0 +1,77 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.criteo.publisher.model;
+
+import com.criteo.publisher.BenchmarkDependencyProvider;
+import com.criteo.publisher.benchmark.Payloads;
+import com.criteo.publisher.benchmark.Payloads.AdFormat;
+import com.criteo.publisher.util.StreamUtil;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measure the parsing of CDB responses, with the legacy path and with the streaming reader used by
+ * the SDK.
+ * <p>
+ * The legacy path was reading the whole body as a string, parsing it with org.json, and then
+ * parsing each slot again.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class CdbResponseBenchmark {
+
+  @Param({"BANNER", "NATIVE"})
+  public AdFormat format;
+
+  @Param({"1", "8", "32"})
+  public int slotCount;
+
+  private CdbResponseReader reader;
+
+  private byte[] payloadBytes;
+
+  @Setup
+  public void setUp() {
+    reader = BenchmarkDependencyProvider.install().provideCdbResponseReader();
+    payloadBytes = Payloads.cdbResponse(format, slotCount).getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public CdbResponse fromJson() throws IOException, JSONException {
+    String body = StreamUtil.readStream(new ByteArrayInputStream(payloadBytes));
+    return CdbResponse.fromJson(new JSONObject(body));
+  }
+
+  @Benchmark
+  public CdbResponse read() throws IOException {
+    return reader.read(new ByteArrayInputStream(payloadBytes));
+  }
+}
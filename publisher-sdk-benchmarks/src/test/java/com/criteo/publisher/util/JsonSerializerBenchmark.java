@@ -0,0 +1,79 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.criteo.publisher.util;
+
+import com.criteo.publisher.BenchmarkDependencyProvider;
+import com.criteo.publisher.benchmark.Payloads;
+import com.criteo.publisher.benchmark.Payloads.AdFormat;
+import com.criteo.publisher.model.CdbResponseSlot;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measure the Moshi based serialization of the SDK, on CDB response slots as they are written in
+ * and read from the bid cache snapshot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class JsonSerializerBenchmark {
+
+  @Param({"BANNER", "NATIVE"})
+  public AdFormat format;
+
+  private JsonSerializer jsonSerializer;
+
+  private CdbResponseSlot slot;
+
+  private byte[] serializedSlot;
+
+  @Setup
+  public void setUp() throws IOException {
+    jsonSerializer = BenchmarkDependencyProvider.install().provideJsonSerializer();
+
+    byte[] payload = Payloads.cdbResponseSlot(format, 0).getBytes(StandardCharsets.UTF_8);
+    slot = jsonSerializer.read(CdbResponseSlot.class, new ByteArrayInputStream(payload));
+
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    jsonSerializer.write(slot, outputStream);
+    serializedSlot = outputStream.toByteArray();
+  }
+
+  @Benchmark
+  public byte[] write() throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream(serializedSlot.length);
+    jsonSerializer.write(slot, outputStream);
+    return outputStream.toByteArray();
+  }
+
+  @Benchmark
+  public CdbResponseSlot read() throws IOException {
+    return jsonSerializer.read(CdbResponseSlot.class, new ByteArrayInputStream(serializedSlot));
+  }
+}
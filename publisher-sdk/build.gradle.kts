@@ -59,6 +59,10 @@ androidLibModule {
     addBuildConfigField<Int>("maxSizeOfRemoteLogSendingQueue")
     addBuildConfigField<Int>("estimatedSizeOfRemoteLog")
 
+    // Bid cache
+    addBuildConfigField<String>("bidCacheSnapshotFilename")
+    addBuildConfigField<String>("adUnitUsageFilename")
+
     // Misc
     addBuildConfigField<String>("pubSdkSharedPreferences")
     addBuildConfigField<Int>("defaultMinLogLevel")
@@ -114,6 +118,8 @@ dependencies {
     implementation(Deps.Square.Moshi.Adapter)
     kapt(Deps.Square.Moshi.Kapt)
 
+    // OkHttp is not forced on publishers: it is only used when it is already on the classpath
+    compileOnly(Deps.Square.OkHttp.OkHttp)
     implementation(Deps.Square.Picasso.Picasso)
 
     releaseImplementation(Deps.Criteo.MraidBridge.Release)
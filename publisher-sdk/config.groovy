@@ -92,6 +92,16 @@ remoteLogQueueFilename = 'criteo_remote_logs_queue'
 estimatedSizeOfRemoteLog = 5000
 maxSizeOfRemoteLogSendingQueue = 250 * 1024
 
+/**
+ * Bid cache configuration
+ */
+
+// The relative path in application folder of the file storing the bid cache between two sessions
+bidCacheSnapshotFilename = 'criteo_bid_cache_snapshot'
+
+// The relative path in application folder of the file storing the usage of ad units between sessions
+adUnitUsageFilename = 'criteo_ad_unit_usage'
+
 environments {
     debug {
         eventUrl = 'https://an.url.that.does.not.exist'
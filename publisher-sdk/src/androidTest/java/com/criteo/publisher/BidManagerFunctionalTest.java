@@ -39,6 +39,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -46,6 +47,9 @@ import static org.mockito.Mockito.when;
 import android.content.Context;
 import androidx.annotation.NonNull;
 import com.criteo.publisher.bid.BidLifecycleListener;
+import com.criteo.publisher.cache.AdUnitUsage;
+import com.criteo.publisher.cache.AdUnitUsageStore;
+import com.criteo.publisher.cache.BidCacheSnapshotStore;
 import com.criteo.publisher.cache.SdkCache;
 import com.criteo.publisher.context.ContextData;
 import com.criteo.publisher.context.ContextProvider;
@@ -129,6 +133,12 @@ public class BidManagerFunctionalTest {
   @MockBean
   private BidLifecycleListener bidLifecycleListener;
 
+  @MockBean
+  private BidCacheSnapshotStore bidCacheSnapshotStore;
+
+  @MockBean
+  private AdUnitUsageStore adUnitUsageStore;
+
   @SpyBean
   private BuildConfigWrapper buildConfigWrapper;
 
@@ -159,6 +169,9 @@ public class BidManagerFunctionalTest {
   @Mock
   private ContextData contextData;
 
+  @Mock
+  private Runnable onRestored;
+
   @MockBean
   private ContextProvider contextProvider;
 
@@ -368,6 +381,82 @@ public class BidManagerFunctionalTest {
     assertShouldCallCdbAndPopulateCacheOnlyOnce(mappedAdUnitsChunks.get(0), slot);
   }
 
+  @Test
+  public void prefetch_GivenCacheDepth_ShouldNotSendMoreSlotsThanChunkSizePerRequest() throws Exception {
+    when(config.getBidCacheDepth()).thenReturn(2);
+    List<AdUnit> prefetchAdUnits = singletonList(mock(AdUnit.class));
+
+    List<CacheAdUnit> cacheAdUnits = new ArrayList<>();
+    for (int i = 0; i < AdUnitMapper.CHUNK_SIZE; i++) {
+      cacheAdUnits.add(sampleAdUnit());
+    }
+    doReturn(singletonList(cacheAdUnits)).when(adUnitMapper).mapToChunks(prefetchAdUnits);
+    givenMockedCdbRespondingSlot();
+
+    bidManager.prefetch(prefetchAdUnits);
+    waitForIdleState();
+
+    verify(api, times(2)).loadCdb(
+        argThat(cdb -> getRequestedAdUnits(cdb).size() == AdUnitMapper.CHUNK_SIZE),
+        any()
+    );
+  }
+
+  @Test
+  public void prefetch_GivenAdaptivePrefetchAndKnownUsage_ShouldPrefetchMostUsedAdUnitsUpToBudget() throws Exception {
+    when(config.isAdaptivePrefetchEnabled()).thenReturn(true);
+    when(config.getPrefetchOnInitMaxAdUnitCount()).thenReturn(2);
+
+    List<AdUnit> prefetchAdUnits = Arrays.asList(
+        mock(AdUnit.class),
+        mock(AdUnit.class),
+        mock(AdUnit.class)
+    );
+
+    CacheAdUnit coldAdUnit = sampleAdUnit();
+    CacheAdUnit warmAdUnit = sampleAdUnit();
+    CacheAdUnit hotAdUnit = sampleAdUnit();
+    doReturn(singletonList(Arrays.asList(coldAdUnit, warmAdUnit, hotAdUnit)))
+        .when(adUnitMapper).mapToChunks(prefetchAdUnits);
+
+    when(adUnitUsageStore.load()).thenReturn(Arrays.asList(
+        givenUsage(warmAdUnit, 1),
+        givenUsage(hotAdUnit, 5)
+    ));
+
+    CdbResponseSlot slot = givenMockedCdbRespondingSlot();
+
+    bidManager.prefetch(prefetchAdUnits);
+    waitForIdleState();
+
+    assertShouldCallCdbAndPopulateCacheOnlyOnce(Arrays.asList(hotAdUnit, warmAdUnit), slot);
+  }
+
+  @Test
+  public void prefetch_GivenAdaptivePrefetchAndUnknownUsage_ShouldPrefetchAllAdUnits() throws Exception {
+    when(config.isAdaptivePrefetchEnabled()).thenReturn(true);
+    when(config.getPrefetchOnInitMaxAdUnitCount()).thenReturn(1);
+    when(adUnitUsageStore.load()).thenReturn(emptyList());
+
+    List<AdUnit> prefetchAdUnits = Arrays.asList(
+        mock(AdUnit.class),
+        mock(AdUnit.class)
+    );
+
+    List<List<CacheAdUnit>> mappedAdUnitsChunks = singletonList(Arrays.asList(
+        sampleAdUnit(),
+        sampleAdUnit()
+    ));
+    doReturn(mappedAdUnitsChunks).when(adUnitMapper).mapToChunks(prefetchAdUnits);
+
+    CdbResponseSlot slot = givenMockedCdbRespondingSlot();
+
+    bidManager.prefetch(prefetchAdUnits);
+    waitForIdleState();
+
+    assertShouldCallCdbAndPopulateCacheOnlyOnce(mappedAdUnitsChunks.get(0), slot);
+  }
+
   @Test
   public void prefetch_GivenMapperSplittingIntoChunks_ExecuteChunksIndependently()
       throws Exception {
@@ -422,7 +511,7 @@ public class BidManagerFunctionalTest {
     inOrder.verify(config, never()).refreshConfig(any());
     inOrder.verify(api)
         .loadCdb(argThat(cdb -> requestedAdUnits1.equals(getRequestedAdUnits(cdb))), any());
-    response1.getSlots().forEach(inOrder.verify(cache)::add);
+    response1.getSlots().forEach(slot -> inOrder.verify(cache).add(eq(slot), any()));
     inOrder.verify(bidManager).setTimeToNextCall(1);
 
     // Second call with error
@@ -433,7 +522,7 @@ public class BidManagerFunctionalTest {
     inOrder.verify(config, never()).refreshConfig(any());
     inOrder.verify(api)
         .loadCdb(argThat(cdb -> requestedAdUnits3.equals(getRequestedAdUnits(cdb))), any());
-    response3.getSlots().forEach(inOrder.verify(cache)::add);
+    response3.getSlots().forEach(slot -> inOrder.verify(cache).add(eq(slot), any()));
     inOrder.verify(bidManager).setTimeToNextCall(3);
 
     inOrder.verifyNoMoreInteractions();
@@ -516,7 +605,8 @@ public class BidManagerFunctionalTest {
 
     when(buildConfigWrapper.getSdkVersion()).thenReturn("1.2.3");
     doReturn(42).when(integrationRegistry).getProfileId();
-    when(contextProvider.fetchUserContext()).thenReturn(new HashMap<>());
+    when(contextProvider.fetchConfigurationUserContext()).thenReturn(new HashMap<>());
+    when(contextProvider.fetchVolatileUserContext()).thenReturn(new HashMap<>());
 
     CacheAdUnit cacheAdUnit = sampleAdUnit();
     AdUnit adUnit = givenMockedAdUnitMappingTo(cacheAdUnit);
@@ -572,6 +662,67 @@ public class BidManagerFunctionalTest {
     verify(api, never()).loadCdb(any(), any());
   }
 
+  @Test
+  public void getBidsForAdUnitsAndPrefetch_GivenCachedAndMissingBids_ReturnThemInOrderAndCallCdbOnce()
+      throws Exception {
+    CacheAdUnit cacheAdUnit1 = sampleAdUnit();
+    CacheAdUnit cacheAdUnit2 = sampleAdUnit();
+    AdUnit adUnit1 = givenMockedAdUnitMappingTo(cacheAdUnit1);
+    AdUnit adUnit2 = givenMockedAdUnitMappingTo(cacheAdUnit2);
+    AdUnit invalidAdUnit = givenMockedAdUnitMappingTo(null);
+    CdbResponseSlot slot1 = givenNotExpiredValidCachedBid(cacheAdUnit1);
+    givenNoLastBid(cacheAdUnit2);
+    givenMockedCdbRespondingSlot();
+
+    List<CdbResponseSlot> bids = bidManager.getBidsForAdUnitsAndPrefetch(
+        Arrays.asList(adUnit1, invalidAdUnit, adUnit2),
+        contextData
+    );
+    waitForIdleState();
+
+    assertThat(bids).containsExactly(slot1, null, null);
+    assertListenerIsNotifyForBidConsumed(cacheAdUnit1, slot1);
+    assertShouldCallCdb(Arrays.asList(cacheAdUnit1, cacheAdUnit2));
+  }
+
+  @Test
+  public void getBidsForAdUnitsAndPrefetch_GivenSameAdUnitTwice_ConsumeTwoBidsAndCallCdbOnlyOnceForIt()
+      throws Exception {
+    when(config.getBidCacheDepth()).thenReturn(2);
+    CacheAdUnit cacheAdUnit = sampleAdUnit();
+    AdUnit adUnit = givenMockedAdUnitMappingTo(cacheAdUnit);
+    CdbResponseSlot slot1 = givenNotExpiredValidCachedBid(cacheAdUnit);
+    givenMockedCdbRespondingSlot();
+
+    List<CdbResponseSlot> bids = bidManager.getBidsForAdUnitsAndPrefetch(
+        Arrays.asList(adUnit, adUnit),
+        contextData
+    );
+    waitForIdleState();
+
+    assertThat(bids).containsExactly(slot1, null);
+    assertShouldCallCdb(Arrays.asList(cacheAdUnit, cacheAdUnit));
+  }
+
+  @Test
+  public void getBidsForAdUnitsAndPrefetch_GivenKillSwitchEnabled_ReturnNoBidsAndDoNotCallCdb()
+      throws Exception {
+    givenKillSwitchIs(true);
+    CacheAdUnit cacheAdUnit = sampleAdUnit();
+    AdUnit adUnit = givenMockedAdUnitMappingTo(cacheAdUnit);
+    givenNotExpiredValidCachedBid(cacheAdUnit);
+
+    List<CdbResponseSlot> bids = bidManager.getBidsForAdUnitsAndPrefetch(
+        Arrays.asList(adUnit, adUnit),
+        contextData
+    );
+    waitForIdleState();
+
+    assertThat(bids).containsExactly(null, null);
+    assertShouldNotCallCdbAndNotPopulateCache();
+    assertListenerIsNotNotifyForBidConsumed();
+  }
+
   @Test
   public void getBidForAdUnitAndPrefetch_GivenNotExpiredValidCachedBid_ReturnItAndRemoveItFromCache()
       throws Exception {
@@ -582,7 +733,7 @@ public class BidManagerFunctionalTest {
     CdbResponseSlot bid = bidManager.getBidForAdUnitAndPrefetch(adUnit, contextData);
 
     assertEquals(slot, bid);
-    verify(cache).remove(cacheAdUnit);
+    verify(cache).consume(eq(cacheAdUnit), any());
     assertListenerIsNotifyForBidConsumed(cacheAdUnit, bid);
   }
 
@@ -600,6 +751,21 @@ public class BidManagerFunctionalTest {
     assertShouldCallCdbAndPopulateCacheOnlyOnce(singletonList(cacheAdUnit), slot);
   }
 
+  @Test
+  public void getBidForAdUnitAndPrefetch_GivenCacheDepthAndNotExpiredValidCachedBid_ShouldCallCdbToRefillCache()
+      throws Exception {
+    when(config.getBidCacheDepth()).thenReturn(3);
+    CacheAdUnit cacheAdUnit = sampleAdUnit();
+    AdUnit adUnit = givenMockedAdUnitMappingTo(cacheAdUnit);
+    givenNotExpiredValidCachedBid(cacheAdUnit);
+    givenMockedCdbRespondingSlot();
+
+    bidManager.getBidForAdUnitAndPrefetch(adUnit, contextData);
+    waitForIdleState();
+
+    assertShouldCallCdb(Arrays.asList(cacheAdUnit, cacheAdUnit, cacheAdUnit));
+  }
+
   @Test
   public void getBidForAdUnitAndPrefetch_GivenAdUnitBeingLoaded_ShouldCallCdbAndPopulateCacheOnlyOnceForThePendingCall()
       throws Exception {
@@ -640,7 +806,7 @@ public class BidManagerFunctionalTest {
     inOrder.verify(bidManager).getBidForAdUnitAndPrefetch(adUnit, contextData);
     inOrder.verify(api).loadCdb(any(), any());
     inOrder.verify(bidManager).getBidForAdUnitAndPrefetch(adUnit, contextData);
-    inOrder.verify(cache).add(slot);
+    inOrder.verify(cache).add(eq(slot), any());
     inOrder.verify(bidManager).setTimeToNextCall(anyInt());
     inOrder.verifyNoMoreInteractions();
   }
@@ -671,7 +837,7 @@ public class BidManagerFunctionalTest {
     inOrder.verify(bidManager).getBidForAdUnitAndPrefetch(adUnit, contextData);
     inOrder.verify(bidManager).getBidForAdUnitAndPrefetch(adUnit, contextData);
     inOrder.verify(api, timeout(1000)).loadCdb(any(), any());
-    inOrder.verify(cache).add(slot);
+    inOrder.verify(cache).add(eq(slot), any());
     inOrder.verify(bidManager).setTimeToNextCall(anyInt());
     inOrder.verifyNoMoreInteractions();
   }
@@ -734,7 +900,7 @@ public class BidManagerFunctionalTest {
 
     InOrder inOrder = inOrder(cache, slot);
     inOrder.verify(slot).setTimeOfDownload(42);
-    inOrder.verify(cache).add(slot);
+    inOrder.verify(cache).add(eq(slot), any());
   }
 
   @Test
@@ -799,7 +965,7 @@ public class BidManagerFunctionalTest {
     CdbResponseSlot bid = bidManager.getBidForAdUnitAndPrefetch(adUnit, contextData);
 
     assertNull(bid);
-    verify(cache, never()).remove(cacheAdUnit);
+    assertThat(cache.peekAdUnit(cacheAdUnit)).isNotNull();
     assertListenerIsNotNotifyForBidConsumed();
   }
 
@@ -934,7 +1100,7 @@ public class BidManagerFunctionalTest {
 
     InOrder inOrder = inOrder(cache, slot);
     inOrder.verify(slot).setTtlInSeconds(DEFAULT_TTL_IN_SECONDS);
-    inOrder.verify(cache).add(slot);
+    inOrder.verify(cache).add(eq(slot), any());
   }
 
   @Test
@@ -948,7 +1114,7 @@ public class BidManagerFunctionalTest {
     bidManager.getBidForAdUnitAndPrefetch(adUnit, contextData);
     waitForIdleState();
 
-    verify(cache, never()).add(slot);
+    verify(cache, never()).add(eq(slot), any());
   }
 
   @Test
@@ -1233,10 +1399,10 @@ public class BidManagerFunctionalTest {
     assertLiveBidIsCached(newSlot);
     assertLiveBidIsConsumedFromCache(cacheAdUnit, cachedSlot);
 
-    InOrder inOrder = inOrder(cache, newSlot);
-    inOrder.verify(cache).remove(cacheAdUnit);
+    InOrder inOrder = inOrder(bidLifecycleListener, cache, newSlot);
+    inOrder.verify(bidLifecycleListener).onBidConsumed(cacheAdUnit, cachedSlot);
     inOrder.verify(newSlot).setTimeOfDownload(42);
-    inOrder.verify(cache).add(newSlot);
+    inOrder.verify(cache).add(eq(newSlot), any());
   }
 
   @Test
@@ -1552,6 +1718,120 @@ public class BidManagerFunctionalTest {
     verify(bidLifecycleListener, never()).onBidCached(any());
   }
 
+  @Test
+  public void refreshCachedBids_GivenEnabledAndExpiringCachedBid_ShouldCallCdb() throws Exception {
+    when(config.isBidRefreshEnabled()).thenReturn(true);
+    CacheAdUnit cacheAdUnit = sampleAdUnit();
+    CdbResponseSlot cachedSlot = givenNotExpiredValidCachedBid(cacheAdUnit);
+    when(cachedSlot.getExpiryTimeInMillis()).thenReturn(2L);
+    givenMockedCdbRespondingSlot();
+
+    bidManager.refreshCachedBids(singletonList(cacheAdUnit));
+    waitForIdleState();
+
+    assertShouldCallCdb(singletonList(cacheAdUnit));
+  }
+
+  @Test
+  public void refreshCachedBids_GivenEnabledAndFreshCachedBid_ShouldNotCallCdb() throws Exception {
+    when(config.isBidRefreshEnabled()).thenReturn(true);
+    CacheAdUnit cacheAdUnit = sampleAdUnit();
+    CdbResponseSlot cachedSlot = givenNotExpiredValidCachedBid(cacheAdUnit);
+    when(cachedSlot.getExpiryTimeInMillis()).thenReturn(Long.MAX_VALUE);
+
+    bidManager.refreshCachedBids(singletonList(cacheAdUnit));
+    waitForIdleState();
+
+    assertShouldNotCallCdbAndNotPopulateCache();
+  }
+
+  @Test
+  public void refreshCachedBids_GivenEnabledAndSilentCachedBid_ShouldNotCallCdb() throws Exception {
+    when(config.isBidRefreshEnabled()).thenReturn(true);
+    CacheAdUnit cacheAdUnit = sampleAdUnit();
+    givenNotExpiredSilentModeBidCached(cacheAdUnit);
+
+    bidManager.refreshCachedBids(singletonList(cacheAdUnit));
+    waitForIdleState();
+
+    assertShouldNotCallCdbAndNotPopulateCache();
+  }
+
+  @Test
+  public void refreshCachedBids_GivenDisabled_ShouldNotCallCdb() throws Exception {
+    when(config.isBidRefreshEnabled()).thenReturn(false);
+    CacheAdUnit cacheAdUnit = sampleAdUnit();
+    givenNoLastBid(cacheAdUnit);
+
+    bidManager.refreshCachedBids(singletonList(cacheAdUnit));
+    waitForIdleState();
+
+    assertShouldNotCallCdbAndNotPopulateCache();
+  }
+
+  @Test
+  public void refreshCachedBids_GivenKillSwitchEngaged_ShouldNotCallCdb() throws Exception {
+    when(config.isBidRefreshEnabled()).thenReturn(true);
+    givenKillSwitchIs(true);
+    CacheAdUnit cacheAdUnit = sampleAdUnit();
+    givenNoLastBid(cacheAdUnit);
+
+    bidManager.refreshCachedBids(singletonList(cacheAdUnit));
+    waitForIdleState();
+
+    assertShouldNotCallCdbAndNotPopulateCache();
+  }
+
+  @Test
+  public void restoreCachedBids_GivenEnabledAndValidSavedBid_RestoreItInCache() throws Exception {
+    when(config.isBidCachePersistenceEnabled()).thenReturn(true);
+    CdbResponseSlot slot = givenSavedBid(42);
+
+    bidManager.restoreCachedBids(onRestored);
+    waitForIdleState();
+
+    verify(cache).add(eq(slot), any());
+    verify(bidLifecycleListener).onBidRestored(slot);
+    verify(onRestored).run();
+  }
+
+  @Test
+  public void restoreCachedBids_GivenEnabledAndExpiredSavedBid_IgnoreIt() throws Exception {
+    when(config.isBidCachePersistenceEnabled()).thenReturn(true);
+    givenSavedBid(0);
+
+    bidManager.restoreCachedBids(onRestored);
+    waitForIdleState();
+
+    verify(cache, never()).add(any(), any());
+    verify(bidLifecycleListener, never()).onBidRestored(any());
+    verify(onRestored).run();
+  }
+
+  @Test
+  public void restoreCachedBids_GivenDisabled_DeleteSnapshotWithoutRestoringIt() throws Exception {
+    when(config.isBidCachePersistenceEnabled()).thenReturn(false);
+    givenSavedBid(42);
+
+    bidManager.restoreCachedBids(onRestored);
+    waitForIdleState();
+
+    verify(bidCacheSnapshotStore).delete();
+    verify(bidCacheSnapshotStore, never()).loadAndDelete();
+    verify(cache, never()).add(any(), any());
+    verify(onRestored).run();
+  }
+
+  @Test
+  public void restoreCachedBids_GivenDisabled_RunCallbackWithoutWaitingForBackgroundTasks()
+      throws Exception {
+    when(config.isBidCachePersistenceEnabled()).thenReturn(false);
+
+    bidManager.restoreCachedBids(onRestored);
+
+    verify(onRestored).run();
+  }
+
   private BidManager givenGlobalSilenceMode(boolean enabled) {
     BidManager bidManagerSpy = spy(bidManager);
     doReturn(enabled).when(bidManagerSpy).isGlobalSilenceEnabled();
@@ -1562,7 +1842,7 @@ public class BidManagerFunctionalTest {
       List<CacheAdUnit> requestedAdUnits,
       CdbResponseSlot slot
   ) throws Exception {
-    verify(cache).add(slot);
+    verify(cache).add(eq(slot), any());
     assertShouldCallCdb(requestedAdUnits);
   }
 
@@ -1578,7 +1858,7 @@ public class BidManagerFunctionalTest {
   }
 
   private void assertShouldNotCallCdbAndNotPopulateCache() throws Exception {
-    verify(cache, never()).add(any());
+    verify(cache, never()).add(any(), any());
     verify(api, never()).loadCdb(any(), any());
     verify(bidLifecycleListener, never()).onCdbCallStarted(any());
     verify(bidLifecycleListener, never()).onCdbCallFinished(any(), any());
@@ -1595,28 +1875,26 @@ public class BidManagerFunctionalTest {
 
   private void assertLiveBidIsCached(@NonNull CdbResponseSlot cachedSlot) {
     verify(cachedSlot).setTimeOfDownload(anyLong());
-    verify(cache).add(cachedSlot);
+    verify(cache).add(eq(cachedSlot), any());
     verify(bidLifecycleListener).onBidCached(cachedSlot);
   }
 
   private void assertNoLiveBidIsCached() {
-    verify(cache, never()).add(any());
+    verify(cache, never()).add(any(), any());
     verify(bidLifecycleListener, never()).onBidCached(any());
   }
 
   private void assertLiveBidIsConsumedFromCache(@NonNull CacheAdUnit cacheAdUnit, @NonNull CdbResponseSlot cachedSlot) {
-    verify(cache).remove(cacheAdUnit);
+    assertThat(cache.peekAdUnit(cacheAdUnit)).isNotSameAs(cachedSlot);
     verify(bidLifecycleListener).onBidConsumed(cacheAdUnit, cachedSlot);
   }
 
   private void assertNoLiveBidIsConsumedFromCache() {
-    verify(cache, never()).remove(any());
     verify(bidLifecycleListener, never()).onBidConsumed(any(), any());
   }
 
   private void assertLiveBidIsConsumedDirectly(@NonNull CacheAdUnit cacheAdUnit, @NonNull CdbResponseSlot directSlot) {
     verify(directSlot).setTimeOfDownload(anyLong());
-    verify(cache, never()).remove(any());
     verify(bidLifecycleListener).onBidConsumed(cacheAdUnit, directSlot);
   }
 
@@ -1675,6 +1953,17 @@ public class BidManagerFunctionalTest {
     return new CacheAdUnit(new AdSize(1, 1), "adUnit" + adUnitId++, CRITEO_BANNER);
   }
 
+  private AdUnitUsage givenUsage(CacheAdUnit cacheAdUnit, double usage) {
+    return new AdUnitUsage(
+        cacheAdUnit.getPlacementId(),
+        cacheAdUnit.getSize().getWidth(),
+        cacheAdUnit.getSize().getHeight(),
+        cacheAdUnit.getAdUnitType(),
+        usage,
+        clock.getCurrentTimeInMillis()
+    );
+  }
+
   private void givenKillSwitchIs(boolean isEnabled) {
     when(config.isKillSwitchEnabled()).thenReturn(isEnabled);
   }
@@ -1733,6 +2022,15 @@ public class BidManagerFunctionalTest {
     return slot;
   }
 
+  private CdbResponseSlot givenSavedBid(int ttlInSeconds) {
+    CdbResponseSlot slot = spy(CdbResponseSlot.class);
+    when(slot.getCpmAsNumber()).thenReturn(1337.);
+    when(slot.getTtlInSeconds()).thenReturn(ttlInSeconds);
+    when(slot.getDisplayUrl()).thenReturn("http://foo.bar");
+    when(bidCacheSnapshotStore.loadAndDelete()).thenReturn(singletonList(slot));
+    return slot;
+  }
+
   private CdbResponseSlot givenSilentBidFetched() throws Exception {
     CdbResponseSlot slot = spy(CdbResponseSlot.class);
     when(slot.getCpmAsNumber()).thenReturn(0.);
@@ -35,9 +35,12 @@ import com.criteo.publisher.csm.MetricRepository.MetricUpdater;
 import com.criteo.publisher.mock.MockedDependenciesRule;
 import com.criteo.publisher.util.BuildConfigWrapper;
 import com.criteo.publisher.util.JsonSerializer;
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutionException;
@@ -129,6 +132,43 @@ public class FileMetricRepositoryTest {
     assertTrue(size >= 100 * estimatedSizePerMetric);
   }
 
+  @Test
+  public void getTotalSize_GivenSomeOperations_ReturnSizeOfDirectory() throws Exception {
+    repository.addOrUpdateById("id1", builder -> builder.setCdbCallStartTimestamp(42L));
+    repository.addOrUpdateById("id2", builder -> {});
+
+    givenNewRepository();
+
+    repository.addOrUpdateById("id1", builder -> builder.setCdbCallEndTimestamp(1337L));
+    repository.addOrUpdateById("id3", builder -> builder.setReadyToSend(true));
+    repository.moveById("id2", metric -> true);
+    repository.moveById("id3", metric -> false);
+
+    int directorySize = 0;
+    for (File file : directory.listFiles()) {
+      directorySize += file.length();
+    }
+
+    assertEquals(directorySize, repository.getTotalSize());
+  }
+
+  @Test
+  public void contains_GivenManyOperations_ListDirectoryOnlyOnce() throws Exception {
+    repository.addOrUpdateById("id1", builder -> {});
+    directory = spy(directory);
+    repository = new FileMetricRepository(directory);
+
+    for (int i = 0; i < 10; i++) {
+      repository.addOrUpdateById("id" + i, builder -> {});
+      assertTrue(repository.contains("id" + i));
+      repository.getTotalSize();
+    }
+    repository.moveById("id1", metric -> true);
+
+    assertFalse(repository.contains("id1"));
+    verify(directory, times(1)).listFiles();
+  }
+
   @Test
   public void contains_GivenEmptyRepository_ReturnFalse() throws Exception {
     boolean contained = repository.contains("id");
@@ -600,6 +640,46 @@ public class FileMetricRepositoryTest {
     assertTrue(metrics.isEmpty());
   }
 
+  @Test
+  public void moveAll_GivenExcludedIds_MoveOthersAtOnceAndKeepExcludedOnes() throws Exception {
+    repository.addOrUpdateById("id1", builder -> builder.setReadyToSend(true));
+    repository.addOrUpdateById("id2", builder -> builder.setCdbCallStartTimestamp(42L));
+    repository.addOrUpdateById("id3", builder -> builder.setCdbCallTimeout(true));
+    givenNewRepository();
+
+    List<Metric> movedMetrics = new ArrayList<>();
+    MetricBulkMover mover = metrics -> {
+      movedMetrics.addAll(metrics);
+      return metrics.size();
+    };
+
+    repository.moveAll(Collections.singleton("id2"), mover);
+
+    assertEquals(2, movedMetrics.size());
+    assertTrue(movedMetrics.contains(Metric.builder("id1").setReadyToSend(true).build()));
+    assertTrue(movedMetrics.contains(Metric.builder("id3").setCdbCallTimeout(true).build()));
+    assertEquals(1, directory.listFiles().size());
+    assertTrue(repository.contains("id2"));
+    assertFalse(repository.contains("id1"));
+    assertFalse(repository.contains("id3"));
+  }
+
+  @Test
+  public void moveAll_GivenPartiallyAcceptedMove_RollbackNotMovedMetrics() throws Exception {
+    repository.addOrUpdateById("id1", builder -> builder.setReadyToSend(true));
+    repository.addOrUpdateById("id2", builder -> builder.setReadyToSend(true));
+
+    List<Metric> notMovedMetrics = new ArrayList<>();
+    repository.moveAll(Collections.emptySet(), metrics -> {
+      notMovedMetrics.addAll(metrics.subList(1, metrics.size()));
+      return 1;
+    });
+
+    givenNewRepository();
+
+    assertEquals(notMovedMetrics, new ArrayList<>(repository.getAllStoredMetrics()));
+  }
+
   @Test
   public void moveById_GivenRepositoryWithMetricAndUnsuccessfulMove_RollbackMetric() throws Exception {
     MetricMover mover = mock(MetricMover.class);
@@ -19,6 +19,7 @@ package com.criteo.publisher.csm
 import android.content.Context
 import com.criteo.publisher.mock.MockedDependenciesRule
 import com.criteo.publisher.mock.SpyBean
+import com.criteo.publisher.model.Config
 import com.criteo.publisher.util.JsonSerializer
 import com.squareup.tape.QueueFile
 import org.assertj.core.api.Assertions.assertThat
@@ -49,6 +50,9 @@ class MetricObjectQueueFactoryTest {
   @SpyBean
   private lateinit var configuration: MetricSendingQueueConfiguration
 
+  @SpyBean
+  private lateinit var config: Config
+
   private lateinit var factory: ObjectQueueFactory<Metric>
 
   @Before
@@ -57,7 +61,7 @@ class MetricObjectQueueFactoryTest {
 
     queueFile = File(context.filesDir, "queueFile")
 
-    factory = spy(ObjectQueueFactory(context, jsonSerializer, configuration)) {
+    factory = spy(ObjectQueueFactory(context, jsonSerializer, configuration, config)) {
       doReturn(queueFile).whenever(mock).queueFile
     }
   }
@@ -97,4 +101,33 @@ class MetricObjectQueueFactoryTest {
     // Verify that the queue can contain, at least, an expected number of elements
     assertThat(QueueFile(queueFile).size()).isGreaterThanOrEqualTo(300)
   }
+
+  @Test
+  fun offer_GivenCompactEncodingAndSameMetricsThanJson_TakeLessThanHalfOfTheSize() {
+    val metrics = (0 until 100).map {
+      Metric.builder("5def5cbbab53a9a7dea0639f43924c7$it")
+          .setRequestGroupId("2ad1c37c4e5a4a4b9a6c4b1c82b9f7e1")
+          .setCdbCallStartTimestamp(1600000000000L + it)
+          .setCdbCallEndTimestamp(1600000000100L + it)
+          .setElapsedTimestamp(1600000000200L + it)
+          .setZoneId(1337)
+          .setProfileId(235)
+          .setReadyToSend(true)
+          .build()
+    }
+
+    whenever(config.isCompactQueueEncodingEnabled).thenReturn(false)
+    val jsonQueue = SendingQueueFactory(factory, configuration).create()
+    metrics.forEach { jsonQueue.offer(it) }
+    val jsonSize = jsonQueue.totalSize
+    queueFile.delete()
+
+    whenever(config.isCompactQueueEncodingEnabled).thenReturn(true)
+    val compactQueue = SendingQueueFactory(factory, configuration).create()
+    metrics.forEach { compactQueue.offer(it) }
+    val compactSize = compactQueue.totalSize
+
+    assertThat(compactSize * 2).isLessThan(jsonSize)
+    assertThat(compactQueue.poll(100)).containsExactlyElementsOf(metrics)
+  }
 }
@@ -16,6 +16,7 @@
 
 package com.criteo.publisher.csm;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.when;
@@ -23,8 +24,10 @@ import static org.mockito.Mockito.when;
 import android.content.Context;
 import com.criteo.publisher.mock.MockedDependenciesRule;
 import com.criteo.publisher.mock.SpyBean;
+import com.criteo.publisher.model.Config;
 import com.criteo.publisher.util.BuildConfigWrapper;
 import com.criteo.publisher.util.JsonSerializer;
+import java.util.concurrent.ScheduledExecutorService;
 import javax.inject.Inject;
 import org.junit.After;
 import org.junit.Before;
@@ -42,9 +45,15 @@ public class MetricRepositoryFactoryTest {
   @Inject
   private JsonSerializer jsonSerializer;
 
+  @Inject
+  private ScheduledExecutorService scheduledExecutorService;
+
   @SpyBean
   private BuildConfigWrapper buildConfigWrapper;
 
+  @SpyBean
+  private Config config;
+
   private MetricRepositoryFactory factory;
 
   @Before
@@ -54,7 +63,10 @@ public class MetricRepositoryFactoryTest {
     factory = new MetricRepositoryFactory(
         context,
         jsonSerializer,
-        buildConfigWrapper
+        buildConfigWrapper,
+        config,
+        scheduledExecutorService,
+        Runnable::run
     );
   }
 
@@ -75,6 +87,57 @@ public class MetricRepositoryFactoryTest {
     assertFalse(repository.contains("id"));
   }
 
+  @Test
+  public void create_GivenJournalEnabled_RepositoryIsWorking() throws Exception {
+    when(config.isCsmJournalEnabled()).thenReturn(true);
+
+    create_GivenNewDirectory_RepositoryIsWorking();
+  }
+
+  @Test
+  public void create_GivenJournalEnabledAfterFiles_ImportMetricsOfFiles() throws Exception {
+    factory.create().addOrUpdateById("id", builder -> builder.setCdbCallStartTimestamp(42L));
+    when(config.isCsmJournalEnabled()).thenReturn(true);
+
+    MetricRepository repository = factory.create();
+
+    assertTrue(repository.contains("id"));
+    assertTrue(new MetricDirectory(context, buildConfigWrapper, jsonSerializer).listFiles().isEmpty());
+  }
+
+  @Test
+  public void create_GivenJournalDisabledAfterJournal_MoveMetricsOfJournalBackIntoFiles()
+      throws Exception {
+    MetricDirectory directory = new MetricDirectory(context, buildConfigWrapper, jsonSerializer);
+    when(config.isCsmJournalEnabled()).thenReturn(true);
+    factory.create().addOrUpdateById("id", builder -> builder.setCdbCallStartTimestamp(42L));
+    when(config.isCsmJournalEnabled()).thenReturn(false);
+
+    MetricRepository repository = factory.create();
+
+    assertTrue(repository.contains("id"));
+    assertEquals(1, directory.listFiles().size());
+    assertFalse(directory.getJournalFile().exists());
+  }
+
+  @Test
+  public void create_GivenWriteBackEnabled_RepositoryIsWorking() throws Exception {
+    when(config.isCsmWriteBackEnabled()).thenReturn(true);
+
+    create_GivenNewDirectory_RepositoryIsWorking();
+  }
+
+  @Test
+  public void create_GivenWriteBackEnabledAndApplicationStopped_MetricsAreWritten() throws Exception {
+    when(config.isCsmWriteBackEnabled()).thenReturn(true);
+
+    MetricRepository repository = factory.create();
+    repository.addOrUpdateById("id", builder -> builder.setCdbCallStartTimestamp(42L));
+    repository.onApplicationStopped();
+
+    assertTrue(factory.create().contains("id"));
+  }
+
   @Test
   public void addOrUpdateById_GivenTonsOfMetrics_SizeStaysAroundMemoryLimit() throws Exception {
     int smallSizeEstimationPerMetrics = 150;
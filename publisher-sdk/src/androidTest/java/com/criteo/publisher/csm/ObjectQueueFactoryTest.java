@@ -26,6 +26,7 @@ import static org.mockito.Mockito.when;
 import android.content.Context;
 import com.criteo.publisher.mock.MockedDependenciesRule;
 import com.criteo.publisher.mock.SpyBean;
+import com.criteo.publisher.model.Config;
 import com.criteo.publisher.util.BuildConfigWrapper;
 import com.criteo.publisher.util.JsonSerializer;
 import com.squareup.tape.ObjectQueue;
@@ -53,6 +54,9 @@ public class ObjectQueueFactoryTest {
   @Inject
   private JsonSerializer jsonSerializer;
 
+  @Inject
+  private Config config;
+
   @SpyBean
   private MetricSendingQueueConfiguration configuration;
 
@@ -67,7 +71,7 @@ public class ObjectQueueFactoryTest {
 
     queueFile = new File(context.getFilesDir(), "queueFile");
 
-    factory = spy(new ObjectQueueFactory<>(context, jsonSerializer, configuration));
+    factory = spy(new ObjectQueueFactory<>(context, jsonSerializer, configuration, config));
 
     doReturn(queueFile).when(factory).getQueueFile();
   }
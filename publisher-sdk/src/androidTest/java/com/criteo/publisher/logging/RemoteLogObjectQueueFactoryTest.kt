@@ -20,6 +20,7 @@ import android.content.Context
 import com.criteo.publisher.csm.ObjectQueueFactory
 import com.criteo.publisher.csm.SendingQueueFactory
 import com.criteo.publisher.mock.MockedDependenciesRule
+import com.criteo.publisher.model.Config
 import com.criteo.publisher.util.JsonSerializer
 import com.squareup.tape.QueueFile
 import org.assertj.core.api.Assertions.assertThat
@@ -47,6 +48,9 @@ class RemoteLogObjectQueueFactoryTest {
   @Inject
   private lateinit var jsonSerializer: JsonSerializer
 
+  @Inject
+  private lateinit var config: Config
+
   @Inject
   private lateinit var configuration: RemoteLogSendingQueueConfiguration
 
@@ -59,7 +63,7 @@ class RemoteLogObjectQueueFactoryTest {
   fun setUp() {
     queueFile = File(context.filesDir, configuration.queueFilename)
 
-    factory = spy(ObjectQueueFactory(context, jsonSerializer, configuration)) {
+    factory = spy(ObjectQueueFactory(context, jsonSerializer, configuration, config)) {
       doReturn(queueFile).whenever(mock).queueFile
     }
   }
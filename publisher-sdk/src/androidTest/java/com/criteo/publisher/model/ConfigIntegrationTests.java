@@ -315,6 +315,20 @@ public class ConfigIntegrationTests {
         true,
         RemoteLogLevel.DEBUG,
         true,
+        true,
+        2,
+        true,
+        true,
+        5,
+        false,
+        true,
+        16,
+        true,
+        4,
+        false,
+        true,
+        true,
+        true,
         true
     );
 
@@ -344,6 +358,20 @@ public class ConfigIntegrationTests {
         null,
         null,
         null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
         null
     );
 
@@ -359,7 +387,21 @@ public class ConfigIntegrationTests {
         false,
         RemoteLogLevel.INFO,
         false,
-        false
+        false,
+        3,
+        false,
+        false,
+        10,
+        true,
+        false,
+        32,
+        true,
+        4,
+        true,
+        true,
+        true,
+        true,
+        true
     );
 
     RemoteConfigResponse expectedRemoteConfig = new RemoteConfigResponse(
@@ -374,7 +416,21 @@ public class ConfigIntegrationTests {
         false,
         RemoteLogLevel.INFO,
         false,
-        false
+        false,
+        3,
+        false,
+        false,
+        10,
+        true,
+        false,
+        32,
+        true,
+        4,
+        true,
+        true,
+        true,
+        true,
+        true
     );
 
     givenRemoteConfigInLocalStorage(oldPersistedConfig);
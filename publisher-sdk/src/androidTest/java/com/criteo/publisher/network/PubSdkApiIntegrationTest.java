@@ -50,6 +50,7 @@ import com.criteo.publisher.model.CacheAdUnit;
 import com.criteo.publisher.model.CdbRequest;
 import com.criteo.publisher.model.CdbRequestFactory;
 import com.criteo.publisher.model.CdbResponse;
+import com.criteo.publisher.model.Config;
 import com.criteo.publisher.model.Config.DefaultConfig;
 import com.criteo.publisher.model.RemoteConfigRequest;
 import com.criteo.publisher.model.RemoteConfigRequestFactory;
@@ -99,6 +100,12 @@ public class PubSdkApiIntegrationTest {
   @Inject
   private SharedPreferencesFactory sharedPreferencesFactory;
 
+  @Inject
+  private CdbMock cdbMock;
+
+  @SpyBean
+  private Config config;
+
   @Before
   public void setup() {
     appId = context.getApplicationContext().getPackageName();
@@ -215,6 +222,52 @@ public class PubSdkApiIntegrationTest {
     });
   }
 
+  @Test
+  public void loadCdb_GivenGzipEnabled_SendCompressedRequestAndReadCompressedResponse() throws Exception {
+    when(config.isGzipCompressionEnabled()).thenReturn(true);
+
+    CacheAdUnit validAdUnit = adUnitMapper.map(BANNER_320_50);
+    CdbRequest request = cdbRequestFactory.createRequest(singletonList(validAdUnit), new ContextData());
+
+    CdbResponse response = api.loadCdb(request, "myUserAgent");
+
+    assertThat(response.getSlots()).hasSize(1).allSatisfy(slot -> {
+      assertThat(slot.getPlacementId()).isEqualTo(BANNER_320_50.getAdUnitId());
+      assertThat(slot.isValid()).isTrue();
+    });
+    assertThat(cdbMock.getReceivedCompressedRequests()).isEqualTo(1);
+    assertThat(cdbMock.getSentCompressedResponses()).isEqualTo(1);
+  }
+
+  @Test
+  public void loadCdb_GivenGzipDisabled_SendPlainRequestAndReadCompressedResponse() throws Exception {
+    when(config.isGzipCompressionEnabled()).thenReturn(false);
+
+    CacheAdUnit validAdUnit = adUnitMapper.map(BANNER_320_50);
+    CdbRequest request = cdbRequestFactory.createRequest(singletonList(validAdUnit), new ContextData());
+
+    CdbResponse response = api.loadCdb(request, "myUserAgent");
+
+    assertThat(response.getSlots()).hasSize(1);
+    assertThat(cdbMock.getReceivedCompressedRequests()).isZero();
+    assertThat(cdbMock.getSentCompressedResponses()).isEqualTo(1);
+  }
+
+  @Test
+  public void postCsmAndLogs_GivenGzipEnabled_SendCompressedRequests() throws Exception {
+    when(config.isGzipCompressionEnabled()).thenReturn(true);
+
+    api.postCsm(new MetricRequest(new ArrayList<Metric>(), "1.2.3", 88));
+    api.postLogs(singletonList(remoteLogRecordsFactory.createLogRecords(new LogMessage(
+        Log.INFO,
+        "dummy message",
+        null,
+        null
+    ))));
+
+    assertThat(cdbMock.getReceivedCompressedRequests()).isEqualTo(2);
+  }
+
   @Test
   public void loadCdb_GivenValidInterstitialAdUnit_ReturnBid() throws Exception {
     when(deviceUtil.getCurrentScreenSize()).thenReturn(new AdSize(42, 1337));
@@ -383,7 +436,21 @@ public class PubSdkApiIntegrationTest {
         DefaultConfig.PREFETCH_ON_INIT_ENABLED,
         DefaultConfig.REMOTE_LOG_LEVEL,
         DefaultConfig.IS_MRAID_ENABLED,
-        DefaultConfig.IS_MRAID2_ENABLED
+        DefaultConfig.IS_MRAID2_ENABLED,
+        DefaultConfig.BID_CACHE_DEPTH,
+        DefaultConfig.IS_BID_REFRESH_ENABLED,
+        DefaultConfig.IS_BID_CACHE_PERSISTENCE_ENABLED,
+        DefaultConfig.BID_REQUEST_BATCHING_WINDOW_IN_MILLIS,
+        DefaultConfig.IS_OK_HTTP_TRANSPORT_ENABLED,
+        DefaultConfig.IS_GZIP_COMPRESSION_ENABLED,
+        DefaultConfig.BID_CACHE_MAX_AD_UNIT_COUNT,
+        DefaultConfig.IS_ADAPTIVE_PREFETCH_ENABLED,
+        DefaultConfig.PREFETCH_ON_INIT_MAX_AD_UNIT_COUNT,
+        DefaultConfig.IS_ADAPTIVE_NETWORK_TIMEOUTS_ENABLED,
+        DefaultConfig.IS_CSM_JOURNAL_ENABLED,
+        DefaultConfig.IS_CSM_WRITE_BACK_ENABLED,
+        DefaultConfig.IS_COMPACT_QUEUE_ENCODING_ENABLED,
+        DefaultConfig.IS_CONNECTION_WARM_UP_ENABLED
     );
   }
 }
@@ -19,6 +19,8 @@ package com.criteo.publisher.AppEvents;
 import android.content.Context;
 import androidx.annotation.NonNull;
 import com.criteo.publisher.Clock;
+import com.criteo.publisher.SafeRunnable;
+import com.criteo.publisher.context.ConnectivityMonitor;
 import com.criteo.publisher.model.DeviceInfo;
 import com.criteo.publisher.network.AppEventTask;
 import com.criteo.publisher.network.PubSdkApi;
@@ -26,10 +28,15 @@ import com.criteo.publisher.privacy.UserPrivacyUtil;
 import com.criteo.publisher.util.AdvertisingInfo;
 import com.criteo.publisher.util.AppEventResponseListener;
 import com.criteo.publisher.util.ApplicationStoppedListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicLong;
 
-public class AppEvents implements AppEventResponseListener, ApplicationStoppedListener {
+public class AppEvents implements AppEventResponseListener, ApplicationStoppedListener,
+    ConnectivityMonitor.Listener {
 
   private static final String EVENT_INACTIVE = "Inactive";
   private static final String EVENT_ACTIVE = "Active";
@@ -48,8 +55,18 @@ public class AppEvents implements AppEventResponseListener, ApplicationStoppedLi
   @NonNull
   private final Executor executor;
 
+  @NonNull
+  private final ConnectivityMonitor connectivityMonitor;
+
   private final AtomicLong silencedUntilTimeInMillis = new AtomicLong(-1);
 
+  /**
+   * Types of the events posted while the device was offline. They are sent once the network is
+   * back.
+   */
+  @NonNull
+  private final Queue<String> parkedEventTypes = new ConcurrentLinkedQueue<>();
+
   public AppEvents(
       @NonNull Context context,
       @NonNull AdvertisingInfo advertisingInfo,
@@ -57,7 +74,8 @@ public class AppEvents implements AppEventResponseListener, ApplicationStoppedLi
       @NonNull PubSdkApi api,
       @NonNull UserPrivacyUtil userPrivacyUtil,
       @NonNull DeviceInfo deviceInfo,
-      @NonNull Executor executor
+      @NonNull Executor executor,
+      @NonNull ConnectivityMonitor connectivityMonitor
   ) {
     this.mContext = context;
     this.advertisingInfo = advertisingInfo;
@@ -66,6 +84,7 @@ public class AppEvents implements AppEventResponseListener, ApplicationStoppedLi
     this.userPrivacyUtil = userPrivacyUtil;
     this.deviceInfo = deviceInfo;
     this.executor = executor;
+    this.connectivityMonitor = connectivityMonitor;
   }
 
   private void postAppEvent(String eventType) {
@@ -78,7 +97,51 @@ public class AppEvents implements AppEventResponseListener, ApplicationStoppedLi
       return;
     }
 
-    executor.execute(new AppEventTask(
+    if (!connectivityMonitor.isConnected()) {
+      parkedEventTypes.add(eventType);
+
+      // The network may have come back before the event was parked
+      if (connectivityMonitor.isConnected()) {
+        sendParkedEvents();
+      }
+      return;
+    }
+
+    executor.execute(createAppEventTask(eventType));
+  }
+
+  @Override
+  public void onConnectivityChanged(boolean isConnected) {
+    if (isConnected) {
+      sendParkedEvents();
+    }
+  }
+
+  private void sendParkedEvents() {
+    List<AppEventTask> appEventTasks = new ArrayList<>();
+    String parkedEventType;
+    while ((parkedEventType = parkedEventTypes.poll()) != null) {
+      appEventTasks.add(createAppEventTask(parkedEventType));
+    }
+
+    if (appEventTasks.isEmpty()) {
+      return;
+    }
+
+    executor.execute(new SafeRunnable() {
+      @Override
+      public void runSafely() {
+        // Events are sent in their posting order, each task catching its own error
+        for (AppEventTask appEventTask : appEventTasks) {
+          appEventTask.run();
+        }
+      }
+    });
+  }
+
+  @NonNull
+  private AppEventTask createAppEventTask(@NonNull String eventType) {
+    return new AppEventTask(
         mContext,
         this,
         advertisingInfo,
@@ -86,7 +149,7 @@ public class AppEvents implements AppEventResponseListener, ApplicationStoppedLi
         deviceInfo,
         userPrivacyUtil,
         eventType
-    ));
+    );
   }
 
   @Override
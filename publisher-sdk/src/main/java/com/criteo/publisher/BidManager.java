@@ -16,11 +16,13 @@
 
 package com.criteo.publisher;
 
-import androidx.annotation.GuardedBy;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import com.criteo.publisher.bid.BidLifecycleListener;
+import com.criteo.publisher.cache.AdUnitUsageHistogram;
+import com.criteo.publisher.cache.BidCacheSnapshotStore;
+import com.criteo.publisher.cache.BidRefreshScheduler;
 import com.criteo.publisher.cache.SdkCache;
 import com.criteo.publisher.context.ContextData;
 import com.criteo.publisher.csm.MetricSendingQueueConsumer;
@@ -38,9 +40,16 @@ import com.criteo.publisher.network.BidRequestSender;
 import com.criteo.publisher.network.LiveBidRequestSender;
 import com.criteo.publisher.privacy.ConsentData;
 import com.criteo.publisher.util.ApplicationStoppedListener;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public class BidManager implements ApplicationStoppedListener {
 
@@ -52,10 +61,14 @@ public class BidManager implements ApplicationStoppedListener {
   @NonNull
   private final Logger logger = LoggerFactory.getLogger(getClass());
 
+  /**
+   * Cache of bids, shared by all ad units.
+   * <p>
+   * There is no global lock on it: each operation is atomic for a given ad unit only, so that
+   * requests on unrelated ad units never block each other.
+   */
   @NonNull
-  @GuardedBy("cacheLock")
   private final SdkCache cache;
-  private final Object cacheLock = new Object();
 
   private final AtomicLong cdbTimeToNextCall = new AtomicLong(0);
 
@@ -86,6 +99,26 @@ public class BidManager implements ApplicationStoppedListener {
   @NonNull
   private final ConsentData consentData;
 
+  @NonNull
+  private final BidRefreshScheduler bidRefreshScheduler;
+
+  @NonNull
+  private final BidCacheSnapshotStore bidCacheSnapshotStore;
+
+  @NonNull
+  private final AdUnitUsageHistogram adUnitUsageHistogram;
+
+  @NonNull
+  private final Executor executor;
+
+  /**
+   * Executor of the tasks delaying the first bids, such as the restoration of the cached bids
+   */
+  @NonNull
+  private final Executor userFacingExecutor;
+
+  private volatile boolean isInForeground = true;
+
   BidManager(
       @NonNull SdkCache sdkCache,
       @NonNull Config config,
@@ -96,7 +129,12 @@ public class BidManager implements ApplicationStoppedListener {
       @NonNull BidLifecycleListener bidLifecycleListener,
       @NonNull MetricSendingQueueConsumer metricSendingQueueConsumer,
       @NonNull RemoteLogSendingQueueConsumer remoteLogSendingQueueConsumer,
-      @NonNull ConsentData consentData
+      @NonNull ConsentData consentData,
+      @NonNull BidRefreshScheduler bidRefreshScheduler,
+      @NonNull BidCacheSnapshotStore bidCacheSnapshotStore,
+      @NonNull AdUnitUsageHistogram adUnitUsageHistogram,
+      @NonNull Executor executor,
+      @NonNull Executor userFacingExecutor
   ) {
     this.cache = sdkCache;
     this.config = config;
@@ -108,6 +146,11 @@ public class BidManager implements ApplicationStoppedListener {
     this.metricSendingQueueConsumer = metricSendingQueueConsumer;
     this.remoteLogSendingQueueConsumer = remoteLogSendingQueueConsumer;
     this.consentData = consentData;
+    this.bidRefreshScheduler = bidRefreshScheduler;
+    this.bidCacheSnapshotStore = bidCacheSnapshotStore;
+    this.adUnitUsageHistogram = adUnitUsageHistogram;
+    this.executor = executor;
+    this.userFacingExecutor = userFacingExecutor;
   }
 
   /**
@@ -142,6 +185,114 @@ public class BidManager implements ApplicationStoppedListener {
     }
   }
 
+  /**
+   * Notify the given listener once, with the bids of all the given ad units.
+   * <p>
+   * Without live bidding, the cached bids of all the ad units are consumed in a single pass, and
+   * new bids are fetched for all of them in a single chunked CDB request. With live bidding, the
+   * live bid calls of all the ad units are sent concurrently, and the listener is notified when the
+   * last one is answered.
+   *
+   * @param adUnits ad units to get bids from (elements are nullable only to accommodate callers)
+   * @param contextData context data provided by the publisher
+   * @param bidsListener listener to notify, with one bid per given ad unit, in the same order
+   */
+  public void getBidsForAdUnits(
+      @NonNull List<AdUnit> adUnits,
+      @NonNull ContextData contextData,
+      @NonNull BidsListener bidsListener
+  ) {
+    if (config.isLiveBiddingEnabled()) {
+      getLiveBidsForAdUnits(adUnits, contextData, bidsListener);
+    } else {
+      bidsListener.onBidsResponse(getBidsForAdUnitsAndPrefetch(adUnits, contextData));
+    }
+  }
+
+  /**
+   * Batch version of {@link #getBidForAdUnitAndPrefetch(AdUnit, ContextData)}.
+   * <p>
+   * Ad units given several times are only fetched once.
+   */
+  @NonNull
+  @VisibleForTesting
+  List<CdbResponseSlot> getBidsForAdUnitsAndPrefetch(
+      @NonNull List<AdUnit> adUnits,
+      @NonNull ContextData contextData
+  ) {
+    if (killSwitchEngaged()) {
+      return Arrays.asList(new CdbResponseSlot[adUnits.size()]);
+    }
+
+    List<CdbResponseSlot> cdbResponseSlots = new ArrayList<>(adUnits.size());
+    Set<CacheAdUnit> fetchedAdUnits = new HashSet<>();
+    List<CacheAdUnit> requestedAdUnits = new ArrayList<>();
+
+    for (AdUnit adUnit : adUnits) {
+      CacheAdUnit cacheAdUnit = mapToCacheAdUnit(adUnit);
+      if (cacheAdUnit == null) {
+        cdbResponseSlots.add(null);
+        continue;
+      }
+
+      bidRefreshScheduler.onAdUnitRequested(cacheAdUnit);
+      adUnitUsageHistogram.onAdUnitRequested(cacheAdUnit);
+
+      if (fetchedAdUnits.add(cacheAdUnit) && !isSilencedFor(cacheAdUnit)) {
+        requestedAdUnits.addAll(getSlotsToFetchForCache(cacheAdUnit));
+      }
+
+      cdbResponseSlots.add(consumeCachedBid(cacheAdUnit));
+    }
+
+    for (List<CacheAdUnit> requestedAdUnitsChunk : adUnitMapper.splitIntoChunks(requestedAdUnits)) {
+      sendBidRequest(requestedAdUnitsChunk, contextData);
+    }
+
+    return cdbResponseSlots;
+  }
+
+  private void getLiveBidsForAdUnits(
+      @NonNull List<AdUnit> adUnits,
+      @NonNull ContextData contextData,
+      @NonNull BidsListener bidsListener
+  ) {
+    int size = adUnits.size();
+    if (size == 0) {
+      bidsListener.onBidsResponse(Collections.emptyList());
+      return;
+    }
+
+    AtomicReferenceArray<CdbResponseSlot> cdbResponseSlots = new AtomicReferenceArray<>(size);
+    AtomicInteger remainingResponses = new AtomicInteger(size);
+
+    for (int i = 0; i < size; i++) {
+      int index = i;
+      getBidForAdUnit(adUnits.get(i), contextData, new BidListener() {
+        @Override
+        public void onBidResponse(@NonNull CdbResponseSlot cdbResponseSlot) {
+          cdbResponseSlots.set(index, cdbResponseSlot);
+          onResponse();
+        }
+
+        @Override
+        public void onNoBid() {
+          onResponse();
+        }
+
+        private void onResponse() {
+          if (remainingResponses.decrementAndGet() == 0) {
+            CdbResponseSlot[] responses = new CdbResponseSlot[size];
+            for (int j = 0; j < size; j++) {
+              responses[j] = cdbResponseSlots.get(j);
+            }
+            bidsListener.onBidsResponse(Arrays.asList(responses));
+          }
+        }
+      });
+    }
+  }
+
   /**
    * Returns the last fetched bid a fetch a new one for the next invocation.
    * <p>
@@ -186,13 +337,14 @@ public class BidManager implements ApplicationStoppedListener {
       return null;
     }
 
-    synchronized (cacheLock) {
-      if (!isSilencedFor(cacheAdUnit)) {
-        fetchForCache(cacheAdUnit, contextData);
-      }
+    bidRefreshScheduler.onAdUnitRequested(cacheAdUnit);
+    adUnitUsageHistogram.onAdUnitRequested(cacheAdUnit);
 
-      return consumeCachedBid(cacheAdUnit);
+    if (!isSilencedFor(cacheAdUnit)) {
+      fetchForCache(cacheAdUnit, contextData);
     }
+
+    return consumeCachedBid(cacheAdUnit);
   }
 
   private boolean isSilencedFor(@NonNull CacheAdUnit cacheAdUnit) {
@@ -200,41 +352,36 @@ public class BidManager implements ApplicationStoppedListener {
       return true;
     }
 
-    synchronized (cacheLock) {
-      CdbResponseSlot cdbResponseSlot = cache.peekAdUnit(cacheAdUnit);
-      return isBidCurrentlySilent(cdbResponseSlot);
-    }
+    // A silence may be queued behind other bids: it still applies to new requests
+    return cache.containsMatching(cacheAdUnit, this::isBidCurrentlySilent);
   }
 
   private void consumeCachedBidIfExpired(@NonNull CacheAdUnit cacheAdUnit) {
-    synchronized (cacheLock) {
-      CdbResponseSlot cdbResponseSlot = cache.peekAdUnit(cacheAdUnit);
-      if (cdbResponseSlot != null && hasBidExpired(cdbResponseSlot)) {
-        cache.remove(cacheAdUnit);
-        bidLifecycleListener.onBidConsumed(cacheAdUnit, cdbResponseSlot);
-      }
+    CdbResponseSlot cdbResponseSlot;
+    while ((cdbResponseSlot = cache.consume(cacheAdUnit, this::hasBidExpired)) != null) {
+      bidLifecycleListener.onBidConsumed(cacheAdUnit, cdbResponseSlot);
     }
   }
 
+  @Nullable
   private CdbResponseSlot consumeCachedBid(@NonNull CacheAdUnit cacheAdUnit) {
-    synchronized (cacheLock) {
-      CdbResponseSlot cdbResponseSlot = cache.peekAdUnit(cacheAdUnit);
-
-      if (cdbResponseSlot != null) {
-        boolean isBidSilent = isBidCurrentlySilent(cdbResponseSlot);
-        boolean hasBidExpired = hasBidExpired(cdbResponseSlot);
+    while (true) {
+      // Silent bids are kept in cache until their expiration
+      CdbResponseSlot cdbResponseSlot = cache.consume(
+          cacheAdUnit,
+          slot -> !isBidCurrentlySilent(slot)
+      );
+
+      if (cdbResponseSlot == null) {
+        return null;
+      }
 
-        if (!isBidSilent) {
-          cache.remove(cacheAdUnit);
-          bidLifecycleListener.onBidConsumed(cacheAdUnit, cdbResponseSlot);
-        }
+      bidLifecycleListener.onBidConsumed(cacheAdUnit, cdbResponseSlot);
 
-        if (!isBidSilent && !hasBidExpired) {
-          return cdbResponseSlot;
-        }
+      // Expired bids are dropped, the next cached one may still be valid
+      if (!hasBidExpired(cdbResponseSlot)) {
+        return cdbResponseSlot;
       }
-
-      return null;
     }
   }
 
@@ -249,9 +396,19 @@ public class BidManager implements ApplicationStoppedListener {
 
   /**
    * load data for next time
+   * <p>
+   * Enough bids are requested to refill the cache up to its depth, given that the next cached bid
+   * is about to be consumed.
    */
   private void fetchForCache(@NonNull CacheAdUnit cacheAdUnit, @NonNull ContextData contextData) {
-    sendBidRequest(Collections.singletonList(cacheAdUnit), contextData);
+    sendBidRequest(getSlotsToFetchForCache(cacheAdUnit), contextData);
+  }
+
+  @NonNull
+  private List<CacheAdUnit> getSlotsToFetchForCache(@NonNull CacheAdUnit cacheAdUnit) {
+    int remainingSlotCount = Math.max(cache.countSlots(cacheAdUnit) - 1, 0);
+    int requestedSlotCount = Math.max(cache.getCacheDepth() - remainingSlotCount, 1);
+    return Collections.nCopies(requestedSlotCount, cacheAdUnit);
   }
 
   @VisibleForTesting
@@ -271,28 +428,27 @@ public class BidManager implements ApplicationStoppedListener {
       return;
     }
 
-    synchronized (cacheLock) {
-      consumeCachedBidIfExpired(cacheAdUnit);
-
-      if (isSilencedFor(cacheAdUnit)) {
-        consumeCachedBid(cacheAdUnit, bidListener);
-      } else {
-        liveBidRequestSender.sendLiveBidRequest(
-            cacheAdUnit,
-            contextData,
-            new LiveCdbCallListener(
-                bidListener,
-                bidLifecycleListener,
-                this,
-                cacheAdUnit,
-                consentData
-            )
-        );
-      }
+    adUnitUsageHistogram.onAdUnitRequested(cacheAdUnit);
+    consumeCachedBidIfExpired(cacheAdUnit);
 
-      metricSendingQueueConsumer.sendMetricBatch();
-      remoteLogSendingQueueConsumer.sendRemoteLogBatch();
+    if (isSilencedFor(cacheAdUnit)) {
+      consumeCachedBid(cacheAdUnit, bidListener);
+    } else {
+      liveBidRequestSender.sendLiveBidRequest(
+          cacheAdUnit,
+          contextData,
+          new LiveCdbCallListener(
+              bidListener,
+              bidLifecycleListener,
+              this,
+              cacheAdUnit,
+              consentData
+          )
+      );
     }
+
+    metricSendingQueueConsumer.sendMetricBatch();
+    remoteLogSendingQueueConsumer.sendRemoteLogBatch();
   }
 
   private void sendBidRequest(
@@ -313,27 +469,78 @@ public class BidManager implements ApplicationStoppedListener {
   }
 
   void setCacheAdUnits(@NonNull List<CdbResponseSlot> slots) {
-    synchronized (cacheLock) {
-      for (CdbResponseSlot slot : slots) {
-        CdbResponseSlot cachedSlot = cache.peekAdUnit(cache.detectCacheAdUnit(slot));
-        if (isBidCurrentlySilent(cachedSlot)) {
-          // Do not override silence bid that was concurrently cached.
-          continue;
-        }
+    for (CdbResponseSlot slot : slots) {
+      if (!slot.isValid()) {
+        continue;
+      }
 
-        if (slot.isValid()) {
-          boolean isImmediateBid = getCpm(slot) > 0 && slot.getTtlInSeconds() == 0;
-          if (isImmediateBid) {
-            slot.setTtlInSeconds(DEFAULT_TTL_IN_SECONDS);
-          }
+      boolean isImmediateBid = getCpm(slot) > 0 && slot.getTtlInSeconds() == 0;
+      if (isImmediateBid) {
+        slot.setTtlInSeconds(DEFAULT_TTL_IN_SECONDS);
+      }
 
-          cache.add(slot);
-          bidLifecycleListener.onBidCached(slot);
-        }
+      // Do not override silence bid that was concurrently cached.
+      boolean isCached = cache.add(slot, cachedSlot -> !isBidCurrentlySilent(cachedSlot));
+      if (isCached) {
+        bidLifecycleListener.onBidCached(slot);
+        scheduleRefresh(slot);
       }
     }
   }
 
+  private void scheduleRefresh(@NonNull CdbResponseSlot slot) {
+    if (!isBidRefreshEnabled()) {
+      return;
+    }
+
+    CacheAdUnit cacheAdUnit = cache.detectCacheAdUnit(slot);
+    if (cacheAdUnit != null) {
+      bidRefreshScheduler.scheduleRefresh(
+          cacheAdUnit,
+          slot.getExpiryTimeInMillis(),
+          slot.getTtlInSeconds() * 1000L,
+          this::refreshCachedBids
+      );
+    }
+  }
+
+  /**
+   * Fetch new bids for the given ad units if their next cached bid is missing or about to expire.
+   * <p>
+   * Nothing is fetched for silenced ad units, or if the kill switch is engaged.
+   *
+   * @param cacheAdUnits ad units to refresh
+   */
+  @VisibleForTesting
+  void refreshCachedBids(@NonNull List<CacheAdUnit> cacheAdUnits) {
+    if (!isBidRefreshEnabled() || killSwitchEngaged()) {
+      return;
+    }
+
+    long refreshDeadline = clock.getCurrentTimeInMillis()
+        + bidRefreshScheduler.getRefreshLeadTimeInMillis();
+
+    List<CacheAdUnit> staleAdUnits = new ArrayList<>();
+    for (CacheAdUnit cacheAdUnit : cacheAdUnits) {
+      if (isSilencedFor(cacheAdUnit)) {
+        continue;
+      }
+
+      CdbResponseSlot nextSlot = cache.peekAdUnit(cacheAdUnit);
+      if (nextSlot == null || nextSlot.getExpiryTimeInMillis() <= refreshDeadline) {
+        staleAdUnits.add(cacheAdUnit);
+      }
+    }
+
+    for (List<CacheAdUnit> requestedAdUnits : adUnitMapper.splitIntoChunks(staleAdUnits)) {
+      sendBidRequest(requestedAdUnits, new ContextData());
+    }
+  }
+
+  private boolean isBidRefreshEnabled() {
+    return config.isBidRefreshEnabled() && !config.isLiveBiddingEnabled();
+  }
+
   @Nullable
   @VisibleForTesting
   CacheAdUnit mapToCacheAdUnit(@Nullable AdUnit adUnit) {
@@ -365,9 +572,144 @@ public class BidManager implements ApplicationStoppedListener {
     return cdbTimeToNextCall.get() > clock.getCurrentTimeInMillis();
   }
 
+  /**
+   * Restore in cache, in background, the bids saved during a previous session of the application.
+   * <p>
+   * Only valid and not expired bids are restored, and they never override bids that are already
+   * cached. This should be called once, during the SDK initialization.
+   * <p>
+   * If the persistence is disabled, there is nothing to wait for: the given callback is run
+   * directly, and the outdated snapshot is deleted in background.
+   *
+   * @param onRestored callback run once the restoration is over, even if it failed
+   */
+  public void restoreCachedBids(@NonNull Runnable onRestored) {
+    if (!config.isBidCachePersistenceEnabled()) {
+      deleteOutdatedCachedBidsSnapshot();
+      onRestored.run();
+      return;
+    }
+
+    userFacingExecutor.execute(new SafeRunnable() {
+      @Override
+      public void runSafely() {
+        try {
+          doRestoreCachedBids();
+        } finally {
+          onRestored.run();
+        }
+      }
+    });
+  }
+
+  private void doRestoreCachedBids() {
+    for (CdbResponseSlot slot : bidCacheSnapshotStore.loadAndDelete()) {
+      if (!slot.isValid() || hasBidExpired(slot)) {
+        continue;
+      }
+
+      boolean isCached = cache.add(slot, cachedSlot -> !isBidCurrentlySilent(cachedSlot));
+      if (isCached) {
+        bidLifecycleListener.onBidRestored(slot);
+      }
+    }
+  }
+
+  private void deleteOutdatedCachedBidsSnapshot() {
+    executor.execute(new SafeRunnable() {
+      @Override
+      public void runSafely() {
+        // Do not keep a snapshot that may be restored later, when it would be outdated
+        bidCacheSnapshotStore.delete();
+      }
+    });
+  }
+
+  /**
+   * Save a snapshot of the not expired cached bids, so they can be restored if the application is
+   * killed while in background.
+   */
+  private void saveCachedBids() {
+    if (!config.isBidCachePersistenceEnabled()) {
+      return;
+    }
+
+    executor.execute(new SafeRunnable() {
+      @Override
+      public void runSafely() {
+        if (isInForeground) {
+          // Application was started again meanwhile, the snapshot would be outdated
+          return;
+        }
+
+        List<CdbResponseSlot> slots = new ArrayList<>();
+        for (CdbResponseSlot slot : cache.getAllSlots()) {
+          if (!hasBidExpired(slot)) {
+            slots.add(slot);
+          }
+        }
+        bidCacheSnapshotStore.save(slots);
+      }
+    });
+  }
+
+  /**
+   * Delete the snapshot saved when the application was stopped, because the cached bids are going
+   * to be consumed.
+   */
+  private void deleteCachedBidsSnapshot() {
+    if (!config.isBidCachePersistenceEnabled()) {
+      return;
+    }
+
+    executor.execute(new SafeRunnable() {
+      @Override
+      public void runSafely() {
+        if (isInForeground) {
+          bidCacheSnapshotStore.delete();
+        }
+      }
+    });
+  }
+
   @Override
   public void onApplicationStopped() {
+    isInForeground = false;
+    bidRefreshScheduler.onApplicationStopped();
     bidRequestSender.cancelAllPendingTasks();
+    liveBidRequestSender.cancelAllPendingTasks();
+    saveCachedBids();
+    saveAdUnitUsage();
+  }
+
+  /**
+   * Save the usage of the ad units, so the next sessions prefetch first the ones that are really
+   * used.
+   */
+  private void saveAdUnitUsage() {
+    if (!config.isAdaptivePrefetchEnabled()) {
+      return;
+    }
+
+    executor.execute(new SafeRunnable() {
+      @Override
+      public void runSafely() {
+        adUnitUsageHistogram.save();
+      }
+    });
+  }
+
+  /**
+   * Called when the application goes back to foreground.
+   * <p>
+   * Bids of hot ad units may have expired meanwhile, they are refreshed so that the cache is warm
+   * for the next displays.
+   */
+  public void onApplicationStarted() {
+    isInForeground = true;
+    deleteCachedBidsSnapshot();
+    bidRefreshScheduler.onApplicationStarted();
+    refreshCachedBids(bidRefreshScheduler.getHotAdUnits());
   }
 
   /**
@@ -379,14 +721,71 @@ public class BidManager implements ApplicationStoppedListener {
     bidRequestSender.sendRemoteConfigRequest(config);
 
     if (config.isPrefetchOnInitEnabled()) {
-      List<List<CacheAdUnit>> requestedAdUnitsChunks = adUnitMapper.mapToChunks(adUnits);
+      List<List<CacheAdUnit>> requestedAdUnitsChunks = getAdUnitChunksToPrefetch(adUnits);
 
       for (List<CacheAdUnit> requestedAdUnits : requestedAdUnitsChunks) {
-        sendBidRequest(requestedAdUnits, new ContextData());
+        // Repetitions are split again, so requests do not carry more slots than a chunk
+        List<CacheAdUnit> repeatedAdUnits = withCacheDepth(requestedAdUnits);
+        for (List<CacheAdUnit> repeatedAdUnitsChunk : adUnitMapper.splitIntoChunks(repeatedAdUnits)) {
+          sendBidRequest(repeatedAdUnitsChunk, new ContextData());
+        }
       }
     }
   }
 
+  /**
+   * Return the chunks of ad units to prefetch on init.
+   * <p>
+   * By default, all the given ad units are prefetched. With adaptive prefetch, and if the usage of
+   * ad units is known from previous sessions, the most used ad units are prefetched first, in
+   * priority chunks, up to the {@linkplain Config#getPrefetchOnInitMaxAdUnitCount() prefetch
+   * budget}. Other ones are skipped: they are fetched on their first request.
+   */
+  @NonNull
+  private List<List<CacheAdUnit>> getAdUnitChunksToPrefetch(@NonNull List<AdUnit> adUnits) {
+    List<List<CacheAdUnit>> cacheAdUnitsChunks = adUnitMapper.mapToChunks(adUnits);
+    if (!config.isAdaptivePrefetchEnabled()) {
+      return cacheAdUnitsChunks;
+    }
+
+    adUnitUsageHistogram.load();
+    if (adUnitUsageHistogram.isEmpty()) {
+      // Nothing is known yet about the usage, so nothing should be skipped
+      return cacheAdUnitsChunks;
+    }
+
+    List<CacheAdUnit> cacheAdUnits = new ArrayList<>();
+    for (List<CacheAdUnit> cacheAdUnitsChunk : cacheAdUnitsChunks) {
+      cacheAdUnits.addAll(cacheAdUnitsChunk);
+    }
+
+    List<CacheAdUnit> prioritizedAdUnits = adUnitUsageHistogram.sortByUsage(cacheAdUnits);
+    int maxAdUnitCount = config.getPrefetchOnInitMaxAdUnitCount();
+    if (maxAdUnitCount > 0 && prioritizedAdUnits.size() > maxAdUnitCount) {
+      prioritizedAdUnits = prioritizedAdUnits.subList(0, maxAdUnitCount);
+    }
+
+    return adUnitMapper.splitIntoChunks(prioritizedAdUnits);
+  }
+
+  /**
+   * Repeat each given ad unit so that CDB answers with enough bids to fill the cache up to its
+   * depth. Each repetition is sent as a distinct slot of the same request.
+   */
+  @NonNull
+  private List<CacheAdUnit> withCacheDepth(@NonNull List<CacheAdUnit> cacheAdUnits) {
+    int cacheDepth = cache.getCacheDepth();
+    if (cacheDepth <= 1) {
+      return cacheAdUnits;
+    }
+
+    List<CacheAdUnit> repeatedAdUnits = new ArrayList<>(cacheAdUnits.size() * cacheDepth);
+    for (CacheAdUnit cacheAdUnit : cacheAdUnits) {
+      repeatedAdUnits.addAll(Collections.nCopies(cacheDepth, cacheAdUnit));
+    }
+    return repeatedAdUnits;
+  }
+
   private boolean killSwitchEngaged() {
     return config.isKillSwitchEnabled();
   }
@@ -0,0 +1,30 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher
+
+import com.criteo.publisher.model.CdbResponseSlot
+
+/**
+ * Callback through which the bid responses of several ad units are served asynchronously, at once.
+ */
+interface BidsListener {
+
+  /**
+   * @param cdbResponseSlots one bid per requested ad unit, in the same order, or `null` in case of no bid
+   */
+  fun onBidsResponse(cdbResponseSlots: List<CdbResponseSlot?>)
+}
@@ -0,0 +1,44 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher;
+
+import androidx.annotation.Keep;
+import androidx.annotation.NonNull;
+import androidx.annotation.UiThread;
+import com.criteo.publisher.model.AdUnit;
+import java.util.List;
+
+@Keep
+public interface BidsResponseListener {
+
+  /**
+   * Callback invoked once, when the responses for all the bids asked with
+   * {@link Criteo#loadBids(List, BidsResponseListener)} are given to the publisher.
+   * <p>
+   * The given list has one element per requested {@link AdUnit}, in the same order. Each element
+   * has the same meaning than the response given to {@link BidResponseListener#onResponse(Bid)}:
+   * it is <code>null</code> in case of no bid for the matching ad unit.
+   * <p>
+   * As all responses are given at once, the app can run a single auction for all its placements.
+   * Memory considerations of {@link BidResponseListener} also apply to this listener.
+   *
+   * @param bids responses for the requested ad units, in the same order
+   */
+  @UiThread
+  void onResponse(@NonNull List<Bid> bids);
+
+}
@@ -24,6 +24,8 @@ import com.criteo.publisher.logging.Logger;
 import com.criteo.publisher.logging.LoggerFactory;
 import com.criteo.publisher.model.AdUnit;
 import com.criteo.publisher.model.CdbResponseSlot;
+import java.util.ArrayList;
+import java.util.List;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -82,4 +84,25 @@ public class ConsumableBidLoader {
     });
   }
 
+  public void loadBids(
+      @NonNull List<AdUnit> adUnits,
+      @NonNull ContextData contextData,
+      @NonNull BidsResponseListener bidsResponseListener
+  ) {
+    bidManager.getBidsForAdUnits(adUnits, contextData, cdbResponseSlots -> {
+      List<Bid> bids = new ArrayList<>(cdbResponseSlots.size());
+      for (int i = 0; i < cdbResponseSlots.size(); i++) {
+        AdUnit adUnit = adUnits.get(i);
+        CdbResponseSlot cdbResponseSlot = cdbResponseSlots.get(i);
+        Bid bid = cdbResponseSlot == null ? null : new Bid(adUnit.getAdUnitType(), clock, cdbResponseSlot);
+
+        logger.log(BiddingLogMessage.onConsumableBidLoaded(adUnit, bid));
+        bids.add(bid);
+      }
+
+      // All bids are given at once, so the publisher can run a single auction
+      runOnUiThreadExecutor.executeAsync(() -> bidsResponseListener.onResponse(bids));
+    });
+  }
+
 }
@@ -201,6 +201,25 @@ public abstract class Criteo {
       @NonNull BidResponseListener bidResponseListener
   );
 
+  /**
+   * Load the bids of all the given ad units at once.
+   * <p>
+   * The given listener is notified once, with one response per given ad unit, in the same order.
+   * See {@link BidsResponseListener} for more details.
+   */
+  public void loadBids(
+      @NonNull List<AdUnit> adUnits,
+      @NonNull BidsResponseListener bidsResponseListener
+  ) {
+    loadBids(adUnits, new ContextData(), bidsResponseListener);
+  }
+
+  public abstract void loadBids(
+      @NonNull List<AdUnit> adUnits,
+      @NonNull ContextData contextData,
+      @NonNull BidsResponseListener bidsResponseListener
+  );
+
   /**
    * Return the version of this SDK.
    */
@@ -22,6 +22,7 @@ import android.app.Application;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import com.criteo.publisher.bid.BidLifecycleListener;
+import com.criteo.publisher.context.ConnectivityMonitor;
 import com.criteo.publisher.context.ContextData;
 import com.criteo.publisher.context.UserData;
 import com.criteo.publisher.headerbidding.HeaderBidding;
@@ -29,9 +30,11 @@ import com.criteo.publisher.interstitial.InterstitialActivityHelper;
 import com.criteo.publisher.logging.Logger;
 import com.criteo.publisher.logging.LoggerFactory;
 import com.criteo.publisher.model.AdUnit;
+import com.criteo.publisher.model.CdbRequestFactory;
 import com.criteo.publisher.model.Config;
 import com.criteo.publisher.model.DeviceInfo;
 import com.criteo.publisher.privacy.UserPrivacyUtil;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.Executor;
 
@@ -98,10 +101,38 @@ class CriteoInternal extends Criteo {
 
     dependencyProvider.provideTopActivityFinder().registerActivityLifecycleFor(application);
 
+    // Static sections of bid requests are rebuilt on configuration or consent changes
+    CdbRequestFactory cdbRequestFactory = dependencyProvider.provideCdbRequestFactory();
+    application.registerComponentCallbacks(cdbRequestFactory);
+    dependencyProvider.provideSharedPreferencesFactory().getApplication()
+        .registerOnSharedPreferenceChangeListener(cdbRequestFactory);
+
+    // Memoized ad unit mapping depends on the screen size and on the declared integration
+    application.registerComponentCallbacks(dependencyProvider.provideCacheAdUnitInterner());
+    dependencyProvider.provideSharedPreferencesFactory().getInternal()
+        .registerOnSharedPreferenceChangeListener(dependencyProvider.provideAdUnitMapper());
+
+    // Network timeouts are estimated separately for each connection type, and sends requested
+    // while offline are parked until the network is back
+    ConnectivityMonitor connectivityMonitor = dependencyProvider.provideConnectivityMonitor();
+    connectivityMonitor.addListener(dependencyProvider.provideNetworkQualityEstimator());
+    connectivityMonitor.addListener(dependencyProvider.provideMetricSendingQueueConsumer());
+    connectivityMonitor.addListener(dependencyProvider.provideRemoteLogSendingQueueConsumer());
+    connectivityMonitor.addListener(dependencyProvider.provideImpressionHelper());
+    connectivityMonitor.addListener(dependencyProvider.provideAppEvents());
+    connectivityMonitor.register();
+
+    // Connection to CDB is opened in background, so the first calls do not pay for its setup
+    dependencyProvider.provideConnectionWarmer().warmUp();
+
+    // Restored bids should be known before the SDK initialization is notified. Without persistence,
+    // this is done directly.
     BidLifecycleListener bidLifecycleListener = dependencyProvider.provideBidLifecycleListener();
-    bidLifecycleListener.onSdkInitialized();
-
-    prefetchAdUnits(dependencyProvider.provideRunOnUiThreadExecutor(), adUnits);
+    Executor runOnUiThreadExecutor = dependencyProvider.provideRunOnUiThreadExecutor();
+    bidManager.restoreCachedBids(() -> {
+      bidLifecycleListener.onSdkInitialized();
+      prefetchAdUnits(runOnUiThreadExecutor, adUnits);
+    });
   }
 
   private void prefetchAdUnits(Executor executor, List<AdUnit> adUnits) {
@@ -148,6 +179,20 @@ class CriteoInternal extends Criteo {
     }
   }
 
+  @Override
+  public void loadBids(
+      @NonNull List<AdUnit> adUnits,
+      @NonNull ContextData contextData,
+      @NonNull BidsResponseListener bidsResponseListener
+  ) {
+    try {
+      consumableBidLoader.loadBids(adUnits, contextData, bidsResponseListener);
+    } catch (Throwable e) {
+      logger.log(onUncaughtErrorAtPublicApi(e));
+      bidsResponseListener.onResponse(Arrays.asList(new Bid[adUnits.size()]));
+    }
+  }
+
   @NonNull
   @Override
   DeviceInfo getDeviceInfo() {
@@ -48,12 +48,19 @@ import com.criteo.publisher.bid.BidLifecycleListener;
 import com.criteo.publisher.bid.CompositeBidLifecycleListener;
 import com.criteo.publisher.bid.LoggingBidLifecycleListener;
 import com.criteo.publisher.bid.UniqueIdGenerator;
+import com.criteo.publisher.cache.AdUnitUsageHistogram;
+import com.criteo.publisher.cache.AdUnitUsageStore;
+import com.criteo.publisher.cache.BidCacheSnapshotStore;
+import com.criteo.publisher.cache.BidRefreshScheduler;
 import com.criteo.publisher.cache.SdkCache;
 import com.criteo.publisher.concurrent.AsyncResources;
 import com.criteo.publisher.concurrent.NoOpAsyncResources;
+import com.criteo.publisher.concurrent.LaneExecutors;
+import com.criteo.publisher.concurrent.LaneExecutorsFactory;
 import com.criteo.publisher.concurrent.RunOnUiThreadExecutor;
-import com.criteo.publisher.concurrent.ThreadPoolExecutorFactory;
+import com.criteo.publisher.concurrent.TaskLane;
 import com.criteo.publisher.context.ConnectionTypeFetcher;
+import com.criteo.publisher.context.ConnectivityMonitor;
 import com.criteo.publisher.context.ContextProvider;
 import com.criteo.publisher.context.UserDataHolder;
 import com.criteo.publisher.csm.ConcurrentSendingQueue;
@@ -88,12 +95,22 @@ import com.criteo.publisher.logging.RemoteLogSendingQueue.AdapterRemoteLogSendin
 import com.criteo.publisher.logging.RemoteLogSendingQueueConfiguration;
 import com.criteo.publisher.logging.RemoteLogSendingQueueConsumer;
 import com.criteo.publisher.model.AdUnitMapper;
+import com.criteo.publisher.model.CacheAdUnitInterner;
 import com.criteo.publisher.model.CdbRequestFactory;
+import com.criteo.publisher.model.CdbResponseReader;
 import com.criteo.publisher.model.Config;
 import com.criteo.publisher.model.DeviceInfo;
 import com.criteo.publisher.model.RemoteConfigRequestFactory;
 import com.criteo.publisher.network.BidRequestSender;
+import com.criteo.publisher.network.ConnectionWarmer;
+import com.criteo.publisher.network.HttpCallTimingsListener;
+import com.criteo.publisher.network.HttpTransport;
+import com.criteo.publisher.network.HttpUrlConnectionTransport;
 import com.criteo.publisher.network.LiveBidRequestSender;
+import com.criteo.publisher.network.LiveBiddingStats;
+import com.criteo.publisher.network.NetworkQualityEstimator;
+import com.criteo.publisher.network.LoggingHttpCallTimingsListener;
+import com.criteo.publisher.network.OkHttpTransport;
 import com.criteo.publisher.network.PubSdkApi;
 import com.criteo.publisher.privacy.ConsentData;
 import com.criteo.publisher.privacy.UserPrivacyUtil;
@@ -108,6 +125,7 @@ import com.criteo.publisher.util.DeviceUtil;
 import com.criteo.publisher.util.ExternalVideoPlayer;
 import com.criteo.publisher.util.JsonSerializer;
 import com.criteo.publisher.util.MapUtilKt;
+import com.criteo.publisher.util.ReflectionUtil;
 import com.criteo.publisher.util.SafeSharedPreferences;
 import com.criteo.publisher.util.SharedPreferencesFactory;
 import com.criteo.publisher.util.TextUtils;
@@ -221,10 +239,60 @@ public class DependencyProvider {
   public PubSdkApi providePubSdkApi() {
     return getOrCreate(PubSdkApi.class, () -> new PubSdkApi(
         provideBuildConfigWrapper(),
-        provideJsonSerializer()
+        provideJsonSerializer(),
+        provideCdbResponseReader(),
+        provideHttpTransport(),
+        provideConfig(),
+        provideClock(),
+        provideNetworkQualityEstimator(),
+        provideConnectionWarmer()
+    ));
+  }
+
+  @NonNull
+  public HttpTransport provideHttpTransport() {
+    return getOrCreate(HttpTransport.class, () -> {
+      // The transport is chosen once, from the config persisted during the previous session. OkHttp
+      // is not a runtime dependency of the SDK, so it is only used if the application brings it.
+      if (provideConfig().isOkHttpTransportEnabled()
+          && ReflectionUtil.isClassPresent("okhttp3.OkHttpClient")) {
+        return new OkHttpTransport(provideNetworkQualityEstimator(), provideHttpCallTimingsListener());
+      }
+      return new HttpUrlConnectionTransport(provideNetworkQualityEstimator());
+    });
+  }
+
+  @NonNull
+  public NetworkQualityEstimator provideNetworkQualityEstimator() {
+    return getOrCreate(NetworkQualityEstimator.class, () -> new NetworkQualityEstimator(
+        provideConnectionTypeFetcher(),
+        provideBuildConfigWrapper(),
+        provideConfig()
+    ));
+  }
+
+  @NonNull
+  public ConnectionWarmer provideConnectionWarmer() {
+    return getOrCreate(ConnectionWarmer.class, () -> new ConnectionWarmer(
+        provideBuildConfigWrapper(),
+        provideHttpTransport(),
+        provideConfig(),
+        provideConnectivityMonitor(),
+        provideClock(),
+        provideThreadPoolExecutor()
     ));
   }
 
+  @NonNull
+  public HttpCallTimingsListener provideHttpCallTimingsListener() {
+    return getOrCreate(HttpCallTimingsListener.class, LoggingHttpCallTimingsListener::new);
+  }
+
+  @NonNull
+  public CdbResponseReader provideCdbResponseReader() {
+    return getOrCreate(CdbResponseReader.class, () -> new CdbResponseReader(provideMoshi()));
+  }
+
   @NonNull
   public AdvertisingInfo provideAdvertisingInfo() {
     return getOrCreate(AdvertisingInfo.class, () -> new AdvertisingInfo(
@@ -256,7 +324,12 @@ public class DependencyProvider {
 
   @NonNull
   public Executor provideThreadPoolExecutor() {
-    return getOrCreate(Executor.class, new ThreadPoolExecutorFactory());
+    return getOrCreate(Executor.class, () -> provideLaneExecutors().get(TaskLane.USER_FACING));
+  }
+
+  @NonNull
+  public LaneExecutors provideLaneExecutors() {
+    return getOrCreate(LaneExecutors.class, new LaneExecutorsFactory());
   }
 
   @NonNull
@@ -303,14 +376,56 @@ public class DependencyProvider {
         provideBidLifecycleListener(),
         provideMetricSendingQueueConsumer(),
         provideRemoteLogSendingQueueConsumer(),
-        provideConsentData()
+        provideConsentData(),
+        provideBidRefreshScheduler(),
+        provideBidCacheSnapshotStore(),
+        provideAdUnitUsageHistogram(),
+        provideLaneExecutors().get(TaskLane.TELEMETRY),
+        provideLaneExecutors().get(TaskLane.USER_FACING)
+    ));
+  }
+
+  @NonNull
+  public AdUnitUsageHistogram provideAdUnitUsageHistogram() {
+    return getOrCreate(AdUnitUsageHistogram.class, () -> new AdUnitUsageHistogram(
+        provideAdUnitUsageStore(),
+        provideClock()
+    ));
+  }
+
+  @NonNull
+  public AdUnitUsageStore provideAdUnitUsageStore() {
+    return getOrCreate(AdUnitUsageStore.class, () -> new AdUnitUsageStore(
+        provideContext(),
+        provideBuildConfigWrapper(),
+        provideJsonSerializer()
+    ));
+  }
+
+  @NonNull
+  public BidCacheSnapshotStore provideBidCacheSnapshotStore() {
+    return getOrCreate(BidCacheSnapshotStore.class, () -> new BidCacheSnapshotStore(
+        provideContext(),
+        provideBuildConfigWrapper(),
+        provideJsonSerializer()
+    ));
+  }
+
+  @NonNull
+  public BidRefreshScheduler provideBidRefreshScheduler() {
+    return getOrCreate(BidRefreshScheduler.class, () -> new BidRefreshScheduler(
+        provideScheduledExecutorService(),
+        provideClock()
     ));
   }
 
   @NonNull
   public SdkCache provideSdkCache() {
     return getOrCreate(SdkCache.class, () -> new SdkCache(
-        provideDeviceUtil()
+        provideCacheAdUnitInterner(),
+        provideConfig(),
+        provideClock(),
+        provideBidLifecycleListener()
     ));
   }
 
@@ -325,11 +440,18 @@ public class DependencyProvider {
   @NonNull
   public AdUnitMapper provideAdUnitMapper() {
     return getOrCreate(AdUnitMapper.class, () -> new AdUnitMapper(
-        provideDeviceUtil(),
+        provideCacheAdUnitInterner(),
         provideIntegrationRegistry()
     ));
   }
 
+  @NonNull
+  public CacheAdUnitInterner provideCacheAdUnitInterner() {
+    return getOrCreate(CacheAdUnitInterner.class, () -> new CacheAdUnitInterner(
+        provideDeviceUtil()
+    ));
+  }
+
   @NonNull
   public AppEvents provideAppEvents() {
     return getOrCreate(AppEvents.class, () -> new AppEvents(
@@ -339,7 +461,8 @@ public class DependencyProvider {
         providePubSdkApi(),
         provideUserPrivacyUtil(),
         provideDeviceInfo(),
-        provideThreadPoolExecutor()
+        provideLaneExecutors().get(TaskLane.PIXEL),
+        provideConnectivityMonitor()
     ));
   }
 
@@ -347,7 +470,8 @@ public class DependencyProvider {
   public AppLifecycleUtil provideAppLifecycleUtil() {
     return getOrCreate(AppLifecycleUtil.class, () -> new AppLifecycleUtil(
         provideAppEvents(),
-        provideBidManager()
+        provideBidManager(),
+        provideMetricRepository()
     ));
   }
 
@@ -399,7 +523,10 @@ public class DependencyProvider {
         provideRemoteConfigRequestFactory(),
         provideClock(),
         providePubSdkApi(),
-        provideThreadPoolExecutor()
+        provideThreadPoolExecutor(),
+        provideScheduledExecutorService(),
+        provideConfig(),
+        provideConnectivityMonitor()
     ));
   }
 
@@ -411,10 +538,18 @@ public class DependencyProvider {
         provideClock(),
         provideThreadPoolExecutor(),
         provideScheduledExecutorService(),
-        provideConfig()
+        provideNetworkQualityEstimator(),
+        provideLiveBiddingStats(),
+        provideConnectivityMonitor(),
+        provideSdkCache()
     ));
   }
 
+  @NonNull
+  public LiveBiddingStats provideLiveBiddingStats() {
+    return getOrCreate(LiveBiddingStats.class, LiveBiddingStats::new);
+  }
+
   @NonNull
   public BidLifecycleListener provideBidLifecycleListener() {
     return getOrCreate(BidLifecycleListener.class, () -> {
@@ -427,7 +562,7 @@ public class DependencyProvider {
           provideClock(),
           provideConfig(),
           provideConsentData(),
-          provideThreadPoolExecutor()
+          provideLaneExecutors().get(TaskLane.TELEMETRY)
       ));
 
       return listener;
@@ -438,11 +573,7 @@ public class DependencyProvider {
   public NativeAdMapper provideNativeAdMapper() {
     return getOrCreate(NativeAdMapper.class, () -> new NativeAdMapper(
         provideVisibilityTracker(),
-        new ImpressionHelper(
-            providePubSdkApi(),
-            provideThreadPoolExecutor(),
-            provideRunOnUiThreadExecutor()
-        ),
+        provideImpressionHelper(),
         provideClickDetection(),
         new ClickHelper(
             provideRedirection(),
@@ -580,6 +711,16 @@ public class DependencyProvider {
     ));
   }
 
+  @NonNull
+  public ImpressionHelper provideImpressionHelper() {
+    return getOrCreate(ImpressionHelper.class, () -> new ImpressionHelper(
+        providePubSdkApi(),
+        provideLaneExecutors().get(TaskLane.PIXEL),
+        provideRunOnUiThreadExecutor(),
+        provideConnectivityMonitor()
+    ));
+  }
+
   @NonNull
   public MetricSendingQueueConsumer provideMetricSendingQueueConsumer() {
     return getOrCreate(MetricSendingQueueConsumer.class, () -> new MetricSendingQueueConsumer(
@@ -587,7 +728,8 @@ public class DependencyProvider {
         providePubSdkApi(),
         provideBuildConfigWrapper(),
         provideConfig(),
-        provideThreadPoolExecutor()
+        provideLaneExecutors().get(TaskLane.TELEMETRY),
+        provideConnectivityMonitor()
     ));
   }
 
@@ -611,7 +753,8 @@ public class DependencyProvider {
         new ObjectQueueFactory<>(
             provideContext(),
             provideJsonSerializer(),
-            configuration
+            configuration,
+            provideConfig()
         ),
         configuration
     ).create();
@@ -632,7 +775,10 @@ public class DependencyProvider {
     return getOrCreate(MetricRepository.class, new MetricRepositoryFactory(
         provideContext(),
         provideJsonSerializer(),
-        provideBuildConfigWrapper()
+        provideBuildConfigWrapper(),
+        provideConfig(),
+        provideScheduledExecutorService(),
+        provideLaneExecutors().get(TaskLane.TELEMETRY)
     ));
   }
 
@@ -685,6 +831,13 @@ public class DependencyProvider {
     ));
   }
 
+  @NonNull
+  public ConnectivityMonitor provideConnectivityMonitor() {
+    return getOrCreate(ConnectivityMonitor.class, () -> new ConnectivityMonitor(
+        provideContext()
+    ));
+  }
+
   @NonNull
   public ConnectionTypeFetcher provideConnectionTypeFetcher() {
     return getOrCreate(ConnectionTypeFetcher.class, () -> new ConnectionTypeFetcher(
@@ -746,7 +899,7 @@ public class DependencyProvider {
         provideRemoteLogRecordsFactory(),
         provideRemoteLogSendingQueue(),
         provideConfig(),
-        provideThreadPoolExecutor(),
+        provideLaneExecutors().get(TaskLane.TELEMETRY),
         provideConsentData()
     ));
   }
@@ -758,7 +911,8 @@ public class DependencyProvider {
         providePubSdkApi(),
         provideBuildConfigWrapper(),
         provideAdvertisingInfo(),
-        provideThreadPoolExecutor()
+        provideLaneExecutors().get(TaskLane.TELEMETRY),
+        provideConnectivityMonitor()
     ));
   }
 
@@ -28,6 +28,8 @@ import com.criteo.publisher.model.AdUnit;
 import com.criteo.publisher.model.Config;
 import com.criteo.publisher.model.DeviceInfo;
 import com.criteo.publisher.tasks.InterstitialListenerNotifier;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.Future;
 
 public class DummyCriteo extends Criteo {
@@ -55,6 +57,15 @@ public class DummyCriteo extends Criteo {
     bidResponseListener.onResponse(null);
   }
 
+  @Override
+  public void loadBids(
+      @NonNull List<AdUnit> adUnits,
+      @NonNull ContextData contextData,
+      @NonNull BidsResponseListener bidsResponseListener
+  ) {
+    bidsResponseListener.onResponse(Arrays.asList(new Bid[adUnits.size()]));
+  }
+
   @NonNull
   @Override
   DeviceInfo getDeviceInfo() {
@@ -19,13 +19,18 @@ package com.criteo.publisher.advancednative;
 import androidx.annotation.NonNull;
 import com.criteo.publisher.SafeRunnable;
 import com.criteo.publisher.concurrent.RunOnUiThreadExecutor;
+import com.criteo.publisher.context.ConnectivityMonitor;
 import com.criteo.publisher.network.PubSdkApi;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
 
-public class ImpressionHelper {
+public class ImpressionHelper implements ConnectivityMonitor.Listener {
 
   @NonNull
   private final PubSdkApi api;
@@ -36,13 +41,24 @@ public class ImpressionHelper {
   @NonNull
   private final RunOnUiThreadExecutor runOnUiThreadExecutor;
 
+  @NonNull
+  private final ConnectivityMonitor connectivityMonitor;
+
+  /**
+   * Pixels fired while the device was offline. They are fired once the network is back.
+   */
+  @NonNull
+  private final Queue<URL> parkedPixels = new ConcurrentLinkedQueue<>();
+
   public ImpressionHelper(
       @NonNull PubSdkApi api,
       @NonNull Executor executor,
-      @NonNull RunOnUiThreadExecutor runOnUiThreadExecutor) {
+      @NonNull RunOnUiThreadExecutor runOnUiThreadExecutor,
+      @NonNull ConnectivityMonitor connectivityMonitor) {
     this.api = api;
     this.executor = executor;
     this.runOnUiThreadExecutor = runOnUiThreadExecutor;
+    this.connectivityMonitor = connectivityMonitor;
   }
 
   /**
@@ -50,15 +66,59 @@ public class ImpressionHelper {
    * <p>
    * Each pixel are fired in asynchronously independently. This means that if one fail, it fails
    * silently and other continues.
+   * <p>
+   * While the device is offline, pixels are parked. They are all fired in a single task when the
+   * network is back.
    *
    * @param pixels list of pixels to fire
    */
   void firePixels(@NonNull Iterable<URL> pixels) {
+    if (!connectivityMonitor.isConnected()) {
+      for (URL impressionPixel : pixels) {
+        parkedPixels.add(impressionPixel);
+      }
+
+      // The network may have come back before the pixels were parked
+      if (connectivityMonitor.isConnected()) {
+        fireParkedPixels();
+      }
+      return;
+    }
+
     for (URL impressionPixel : pixels) {
       executor.execute(new PixelTask(impressionPixel, api));
     }
   }
 
+  @Override
+  public void onConnectivityChanged(boolean isConnected) {
+    if (isConnected) {
+      fireParkedPixels();
+    }
+  }
+
+  private void fireParkedPixels() {
+    List<PixelTask> pixelTasks = new ArrayList<>();
+    URL parkedPixel;
+    while ((parkedPixel = parkedPixels.poll()) != null) {
+      pixelTasks.add(new PixelTask(parkedPixel, api));
+    }
+
+    if (pixelTasks.isEmpty()) {
+      return;
+    }
+
+    executor.execute(new SafeRunnable() {
+      @Override
+      public void runSafely() {
+        // Each task catches its own error, so a failing pixel does not prevent the other ones
+        for (PixelTask pixelTask : pixelTasks) {
+          pixelTask.run();
+        }
+      }
+    });
+  }
+
   /**
    * Notify the given listener for {@linkplain CriteoNativeAdListener#onAdImpression() impression}.
    * <p>
@@ -80,10 +80,31 @@ public interface BidLifecycleListener {
    */
   void onBidConsumed(@NonNull CacheAdUnit adUnit, @NonNull CdbResponseSlot consumedBid);
 
+  /**
+   * Callback invoked when a bid is evicted from the bid cache without being consumed.
+   * <p>
+   * Eviction happens when the bid cache drops expired bids, or makes room for newer bids. So the
+   * bid was never given to publishers.
+   *
+   * @param adUnit ad unit representing the bid
+   * @param evictedBid bid that was evicted
+   */
+  void onBidEvicted(@NonNull CacheAdUnit adUnit, @NonNull CdbResponseSlot evictedBid);
+
   /**
    * Callback invoked when a bid is cached.
    *
    * @param cachedBid bid that was cached
    */
   void onBidCached(@NonNull CdbResponseSlot cachedBid);
+
+  /**
+   * Callback invoked when a bid, cached during a previous session of the application, is restored
+   * in the bid cache.
+   * <p>
+   * Restoration happens during the SDK initialization, before {@link #onSdkInitialized()}.
+   *
+   * @param restoredBid bid that was restored
+   */
+  void onBidRestored(@NonNull CdbResponseSlot restoredBid);
 }
@@ -68,10 +68,24 @@ public class CompositeBidLifecycleListener implements BidLifecycleListener {
     }
   }
 
+  @Override
+  public void onBidEvicted(@NonNull CacheAdUnit adUnit, @NonNull CdbResponseSlot evictedBid) {
+    for (BidLifecycleListener delegate : delegates) {
+      delegate.onBidEvicted(adUnit, evictedBid);
+    }
+  }
+
   @Override
   public void onBidCached(@NonNull CdbResponseSlot cachedBid) {
     for (BidLifecycleListener delegate : delegates) {
       delegate.onBidCached(cachedBid);
     }
   }
+
+  @Override
+  public void onBidRestored(@NonNull CdbResponseSlot restoredBid) {
+    for (BidLifecycleListener delegate : delegates) {
+      delegate.onBidRestored(restoredBid);
+    }
+  }
 }
@@ -65,9 +65,19 @@ public class LoggingBidLifecycleListener implements BidLifecycleListener {
     logger.debug("onBidConsumed: %s", consumedBid);
   }
 
+  @Override
+  public void onBidEvicted(@NonNull CacheAdUnit adUnit, @NonNull CdbResponseSlot evictedBid) {
+    logger.debug("onBidEvicted: %s", evictedBid);
+  }
+
   @Override
   public void onBidCached(@NonNull CdbResponseSlot cachedBid) {
     logger.debug("onBidCached: %s", cachedBid);
   }
 
+  @Override
+  public void onBidRestored(@NonNull CdbResponseSlot restoredBid) {
+    logger.debug("onBidRestored: %s", restoredBid);
+  }
+
 }
@@ -0,0 +1,184 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.cache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import com.criteo.publisher.Clock;
+import com.criteo.publisher.model.AdSize;
+import com.criteo.publisher.model.CacheAdUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Histogram of the requests of each ad unit, kept across sessions, so that the ad units that are
+ * really used are prefetched first when the SDK is initialized.
+ * <p>
+ * The usage of an ad unit is a request count that decays with time: it is halved every
+ * {@link #HALF_LIFE_IN_MILLIS}. So a single number per ad unit reflects both how often and how
+ * recently it was requested.
+ */
+public class AdUnitUsageHistogram {
+
+  @VisibleForTesting
+  static final long HALF_LIFE_IN_MILLIS = 7L * 24 * 60 * 60 * 1000;
+
+  /**
+   * Usage under which an ad unit is forgotten when the histogram is saved. This is reached about
+   * seven weeks after a single request.
+   */
+  @VisibleForTesting
+  static final double MIN_USAGE = 0.01;
+
+  @NonNull
+  private final ConcurrentMap<CacheAdUnit, Usage> usages = new ConcurrentHashMap<>();
+
+  @NonNull
+  private final AdUnitUsageStore store;
+
+  @NonNull
+  private final Clock clock;
+
+  public AdUnitUsageHistogram(@NonNull AdUnitUsageStore store, @NonNull Clock clock) {
+    this.store = store;
+    this.clock = clock;
+  }
+
+  /**
+   * Count a new request of the given ad unit.
+   *
+   * @param cacheAdUnit ad unit requested by the publisher
+   */
+  public void onAdUnitRequested(@NonNull CacheAdUnit cacheAdUnit) {
+    long now = clock.getCurrentTimeInMillis();
+    while (true) {
+      Usage usage = usages.get(cacheAdUnit);
+      if (usage == null) {
+        if (usages.putIfAbsent(cacheAdUnit, new Usage(1, now)) == null) {
+          return;
+        }
+      } else if (usages.replace(cacheAdUnit, usage, new Usage(usage.decayedAt(now) + 1, now))) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Return the current usage of the given ad unit, or <code>0</code> if it was never requested.
+   */
+  @VisibleForTesting
+  double getUsage(@NonNull CacheAdUnit cacheAdUnit) {
+    Usage usage = usages.get(cacheAdUnit);
+    return usage == null ? 0 : usage.decayedAt(clock.getCurrentTimeInMillis());
+  }
+
+  public boolean isEmpty() {
+    return usages.isEmpty();
+  }
+
+  /**
+   * Return the given ad units sorted by decreasing usage. Ad units with the same usage, such as
+   * the ones that were never requested, keep their relative order.
+   */
+  @NonNull
+  public List<CacheAdUnit> sortByUsage(@NonNull List<CacheAdUnit> cacheAdUnits) {
+    Map<CacheAdUnit, Double> currentUsages = new HashMap<>();
+    for (CacheAdUnit cacheAdUnit : cacheAdUnits) {
+      currentUsages.put(cacheAdUnit, getUsage(cacheAdUnit));
+    }
+
+    List<CacheAdUnit> sortedAdUnits = new ArrayList<>(cacheAdUnits);
+    Collections.sort(
+        sortedAdUnits,
+        (adUnit1, adUnit2) -> Double.compare(currentUsages.get(adUnit2), currentUsages.get(adUnit1))
+    );
+    return sortedAdUnits;
+  }
+
+  /**
+   * Load the usages saved by the previous sessions.
+   * <p>
+   * Usages that are already known in this session are kept.
+   */
+  public void load() {
+    for (AdUnitUsage adUnitUsage : store.load()) {
+      CacheAdUnit cacheAdUnit = new CacheAdUnit(
+          new AdSize(adUnitUsage.getWidth(), adUnitUsage.getHeight()),
+          adUnitUsage.getPlacementId(),
+          adUnitUsage.getAdUnitType()
+      );
+
+      usages.putIfAbsent(
+          cacheAdUnit,
+          new Usage(adUnitUsage.getUsage(), adUnitUsage.getLastRequestTimeInMillis())
+      );
+    }
+  }
+
+  /**
+   * Save the current usages for the next sessions.
+   * <p>
+   * Ad units that were not requested for a long time are forgotten.
+   */
+  public void save() {
+    long now = clock.getCurrentTimeInMillis();
+    List<AdUnitUsage> adUnitUsages = new ArrayList<>();
+
+    for (Map.Entry<CacheAdUnit, Usage> entry : usages.entrySet()) {
+      CacheAdUnit cacheAdUnit = entry.getKey();
+      Usage usage = entry.getValue();
+      if (usage.decayedAt(now) < MIN_USAGE) {
+        usages.remove(cacheAdUnit, usage);
+        continue;
+      }
+
+      adUnitUsages.add(new AdUnitUsage(
+          cacheAdUnit.getPlacementId(),
+          cacheAdUnit.getSize().getWidth(),
+          cacheAdUnit.getSize().getHeight(),
+          cacheAdUnit.getAdUnitType(),
+          usage.value,
+          usage.lastRequestTimeInMillis
+      ));
+    }
+
+    store.save(adUnitUsages);
+  }
+
+  private static final class Usage {
+
+    private final double value;
+
+    private final long lastRequestTimeInMillis;
+
+    private Usage(double value, long lastRequestTimeInMillis) {
+      this.value = value;
+      this.lastRequestTimeInMillis = lastRequestTimeInMillis;
+    }
+
+    double decayedAt(long timeInMillis) {
+      // Clock may go backward, in which case no decay is applied
+      long elapsedTimeInMillis = Math.max(timeInMillis - lastRequestTimeInMillis, 0);
+      return value * Math.pow(0.5, (double) elapsedTimeInMillis / HALF_LIFE_IN_MILLIS);
+    }
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.cache
+
+import com.criteo.publisher.util.AdUnitType
+import com.squareup.moshi.Json
+import com.squareup.moshi.JsonClass
+
+/**
+ * On-disk representation of the [AdUnitUsageHistogram], used to prioritize the prefetch of the next sessions.
+ */
+@JsonClass(generateAdapter = true)
+data class AdUnitUsageSnapshot(
+    @Json(name = "adUnits") val adUnits: List<AdUnitUsage>
+)
+
+@JsonClass(generateAdapter = true)
+data class AdUnitUsage(
+    @Json(name = "placementId") val placementId: String,
+    @Json(name = "width") val width: Int,
+    @Json(name = "height") val height: Int,
+    @Json(name = "adUnitType") val adUnitType: AdUnitType,
+
+    /**
+     * Decayed request count of the ad unit, at the time of its last request
+     */
+    @Json(name = "usage") val usage: Double,
+
+    @Json(name = "lastRequestTimeInMillis") val lastRequestTimeInMillis: Long
+)
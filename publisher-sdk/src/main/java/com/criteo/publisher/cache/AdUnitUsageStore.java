@@ -0,0 +1,126 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.cache;
+
+import android.content.Context;
+import android.util.AtomicFile;
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import com.criteo.publisher.logging.Logger;
+import com.criteo.publisher.logging.LoggerFactory;
+import com.criteo.publisher.util.BuildConfigWrapper;
+import com.criteo.publisher.util.JsonSerializer;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Store the {@link AdUnitUsageHistogram} on disk, so it can be used by the next sessions of the
+ * application.
+ */
+public class AdUnitUsageStore {
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  @NonNull
+  private final Context context;
+
+  @NonNull
+  private final BuildConfigWrapper buildConfigWrapper;
+
+  @NonNull
+  private final JsonSerializer jsonSerializer;
+
+  @NonNull
+  private final Object fileLock = new Object();
+
+  public AdUnitUsageStore(
+      @NonNull Context context,
+      @NonNull BuildConfigWrapper buildConfigWrapper,
+      @NonNull JsonSerializer jsonSerializer
+  ) {
+    this.context = context;
+    this.buildConfigWrapper = buildConfigWrapper;
+    this.jsonSerializer = jsonSerializer;
+  }
+
+  /**
+   * Replace the stored usages by the given ones.
+   *
+   * @param usages usages to store
+   */
+  public void save(@NonNull List<AdUnitUsage> usages) {
+    synchronized (fileLock) {
+      AtomicFile file = getUsageFile();
+      if (usages.isEmpty()) {
+        file.delete();
+        return;
+      }
+
+      try (FileOutputStream fos = file.startWrite();
+          BufferedOutputStream bos = new BufferedOutputStream(fos)) {
+        try {
+          jsonSerializer.write(new AdUnitUsageSnapshot(usages), bos);
+          bos.flush();
+          file.finishWrite(fos);
+        } catch (IOException e) {
+          file.failWrite(fos);
+          throw e;
+        }
+      } catch (IOException e) {
+        logger.debug("Error while saving ad unit usages", e);
+      }
+    }
+  }
+
+  /**
+   * Read the stored usages.
+   *
+   * @return stored usages, or an empty list if there is none or they could not be read
+   */
+  @NonNull
+  public List<AdUnitUsage> load() {
+    synchronized (fileLock) {
+      AtomicFile file = getUsageFile();
+      if (!file.getBaseFile().exists()) {
+        return Collections.emptyList();
+      }
+
+      try (InputStream is = file.openRead();
+          BufferedInputStream bis = new BufferedInputStream(is)) {
+        return jsonSerializer.read(AdUnitUsageSnapshot.class, bis).getAdUnits();
+      } catch (IOException e) {
+        logger.debug("Error while reading ad unit usages", e);
+        return Collections.emptyList();
+      }
+    }
+  }
+
+  @GuardedBy("fileLock")
+  @NonNull
+  @VisibleForTesting
+  AtomicFile getUsageFile() {
+    File file = new File(context.getFilesDir(), buildConfigWrapper.getAdUnitUsageFilename());
+    return new AtomicFile(file);
+  }
+}
@@ -0,0 +1,29 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.cache
+
+import com.criteo.publisher.model.CdbResponseSlot
+import com.squareup.moshi.Json
+import com.squareup.moshi.JsonClass
+
+/**
+ * On-disk representation of the bid cache, used to restore it after a restart of the application.
+ */
+@JsonClass(generateAdapter = true)
+data class BidCacheSnapshot(
+    @Json(name = "slots") val slots: List<CdbResponseSlot>
+)
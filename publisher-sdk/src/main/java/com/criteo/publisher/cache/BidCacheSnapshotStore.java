@@ -0,0 +1,141 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.cache;
+
+import android.content.Context;
+import android.util.AtomicFile;
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import com.criteo.publisher.logging.Logger;
+import com.criteo.publisher.logging.LoggerFactory;
+import com.criteo.publisher.model.CdbResponseSlot;
+import com.criteo.publisher.util.BuildConfigWrapper;
+import com.criteo.publisher.util.JsonSerializer;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Store a snapshot of the bid cache on disk, so it can be restored after a restart of the
+ * application.
+ * <p>
+ * A snapshot is restored at most once: it is deleted as soon as it is read. This prevents a bid from
+ * being restored again after it was consumed.
+ */
+public class BidCacheSnapshotStore {
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  @NonNull
+  private final Context context;
+
+  @NonNull
+  private final BuildConfigWrapper buildConfigWrapper;
+
+  @NonNull
+  private final JsonSerializer jsonSerializer;
+
+  @NonNull
+  private final Object fileLock = new Object();
+
+  public BidCacheSnapshotStore(
+      @NonNull Context context,
+      @NonNull BuildConfigWrapper buildConfigWrapper,
+      @NonNull JsonSerializer jsonSerializer
+  ) {
+    this.context = context;
+    this.buildConfigWrapper = buildConfigWrapper;
+    this.jsonSerializer = jsonSerializer;
+  }
+
+  /**
+   * Replace the stored snapshot by a new one containing the given slots.
+   *
+   * @param slots slots to store
+   */
+  public void save(@NonNull List<CdbResponseSlot> slots) {
+    synchronized (fileLock) {
+      AtomicFile file = getSnapshotFile();
+      if (slots.isEmpty()) {
+        file.delete();
+        return;
+      }
+
+      try (FileOutputStream fos = file.startWrite();
+          BufferedOutputStream bos = new BufferedOutputStream(fos)) {
+        try {
+          jsonSerializer.write(new BidCacheSnapshot(slots), bos);
+          bos.flush();
+          file.finishWrite(fos);
+        } catch (IOException e) {
+          file.failWrite(fos);
+          throw e;
+        }
+      } catch (IOException e) {
+        logger.debug("Error while saving bid cache snapshot", e);
+      }
+    }
+  }
+
+  /**
+   * Read and delete the stored snapshot.
+   *
+   * @return stored slots, or an empty list if there is no snapshot or it could not be read
+   */
+  @NonNull
+  public List<CdbResponseSlot> loadAndDelete() {
+    synchronized (fileLock) {
+      AtomicFile file = getSnapshotFile();
+      if (!file.getBaseFile().exists()) {
+        return Collections.emptyList();
+      }
+
+      try (InputStream is = file.openRead();
+          BufferedInputStream bis = new BufferedInputStream(is)) {
+        return jsonSerializer.read(BidCacheSnapshot.class, bis).getSlots();
+      } catch (IOException e) {
+        logger.debug("Error while reading bid cache snapshot", e);
+        return Collections.emptyList();
+      } finally {
+        file.delete();
+      }
+    }
+  }
+
+  /**
+   * Delete the stored snapshot, if any.
+   */
+  public void delete() {
+    synchronized (fileLock) {
+      getSnapshotFile().delete();
+    }
+  }
+
+  @GuardedBy("fileLock")
+  @NonNull
+  @VisibleForTesting
+  AtomicFile getSnapshotFile() {
+    File file = new File(context.getFilesDir(), buildConfigWrapper.getBidCacheSnapshotFilename());
+    return new AtomicFile(file);
+  }
+}
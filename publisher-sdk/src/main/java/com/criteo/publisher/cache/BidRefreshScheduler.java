@@ -0,0 +1,273 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.cache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import com.criteo.publisher.Clock;
+import com.criteo.publisher.SafeRunnable;
+import com.criteo.publisher.model.CacheAdUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedule the refresh of cached bids shortly before they expire, so that the cache is still warm
+ * when an ad is displayed.
+ * <p>
+ * Only hot ad units, that were requested recently by the publisher, are refreshed. Refreshes
+ * falling in the same time window are batched together so that a single request is sent for all of
+ * them. Nothing is scheduled while the application is in background.
+ * <p>
+ * This class only decides when to refresh. The actual refresh is delegated to a {@link Refresher}
+ * that should check, at that time, if the refresh is still relevant (kill switch, silence, ...).
+ */
+public class BidRefreshScheduler {
+
+  /**
+   * Delay before the expiration of a bid at which it is refreshed.
+   * <p>
+   * Bids living less than this are never refreshed: the new bid would already be due for refresh
+   * when cached, so the ad unit would be refreshed in a loop.
+   */
+  @VisibleForTesting
+  static final long REFRESH_LEAD_TIME_IN_MILLIS = 30_000;
+
+  /**
+   * Refreshes are aligned on windows of this duration, so they can be sent together.
+   */
+  @VisibleForTesting
+  static final long BATCH_WINDOW_IN_MILLIS = 5_000;
+
+  /**
+   * Duration after the last request of an ad unit during which it is considered as hot.
+   */
+  @VisibleForTesting
+  static final long HOT_AD_UNIT_DURATION_IN_MILLIS = 30 * 60 * 1000;
+
+  @NonNull
+  private final ScheduledExecutorService scheduledExecutorService;
+
+  @NonNull
+  private final Clock clock;
+
+  @NonNull
+  private final ConcurrentMap<CacheAdUnit, Long> lastRequestTimes = new ConcurrentHashMap<>();
+
+  @NonNull
+  private final ConcurrentMap<Long, Batch> pendingBatches = new ConcurrentHashMap<>();
+
+  private volatile boolean isInForeground = true;
+
+  public BidRefreshScheduler(
+      @NonNull ScheduledExecutorService scheduledExecutorService,
+      @NonNull Clock clock
+  ) {
+    this.scheduledExecutorService = scheduledExecutorService;
+    this.clock = clock;
+  }
+
+  /**
+   * Indicate the time before the expiration of a bid at which a refreshed bid is expected.
+   */
+  public long getRefreshLeadTimeInMillis() {
+    return REFRESH_LEAD_TIME_IN_MILLIS;
+  }
+
+  /**
+   * Mark the given ad unit as hot: its cached bids will be refreshed for a while.
+   *
+   * @param cacheAdUnit ad unit requested by the publisher
+   */
+  public void onAdUnitRequested(@NonNull CacheAdUnit cacheAdUnit) {
+    lastRequestTimes.put(cacheAdUnit, clock.getCurrentTimeInMillis());
+  }
+
+  /**
+   * Return the ad units that are still hot.
+   * <p>
+   * Ad units that are not hot anymore are forgotten.
+   */
+  @NonNull
+  public List<CacheAdUnit> getHotAdUnits() {
+    List<CacheAdUnit> hotAdUnits = new ArrayList<>();
+    for (Map.Entry<CacheAdUnit, Long> entry : lastRequestTimes.entrySet()) {
+      if (isHot(entry.getKey())) {
+        hotAdUnits.add(entry.getKey());
+      }
+    }
+    return hotAdUnits;
+  }
+
+  private boolean isHot(@NonNull CacheAdUnit cacheAdUnit) {
+    Long lastRequestTime = lastRequestTimes.get(cacheAdUnit);
+    if (lastRequestTime == null) {
+      return false;
+    }
+
+    if (lastRequestTime + HOT_AD_UNIT_DURATION_IN_MILLIS <= clock.getCurrentTimeInMillis()) {
+      lastRequestTimes.remove(cacheAdUnit, lastRequestTime);
+      return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Schedule a refresh of the given ad unit shortly before the given expiry time.
+   * <p>
+   * Nothing is scheduled if the ad unit is not hot, if the application is in background, or if the
+   * bid does not live longer than the {@linkplain #getRefreshLeadTimeInMillis() refresh lead time}.
+   *
+   * @param cacheAdUnit ad unit to refresh
+   * @param expiryTimeInMillis expiry time of the bid that was just cached for this ad unit
+   * @param ttlInMillis time to live of the bid that was just cached for this ad unit
+   * @param refresher action to execute at refresh time
+   */
+  public void scheduleRefresh(
+      @NonNull CacheAdUnit cacheAdUnit,
+      long expiryTimeInMillis,
+      long ttlInMillis,
+      @NonNull Refresher refresher
+  ) {
+    if (!isInForeground || ttlInMillis <= REFRESH_LEAD_TIME_IN_MILLIS || !isHot(cacheAdUnit)) {
+      return;
+    }
+
+    long now = clock.getCurrentTimeInMillis();
+    long refreshTime = Math.max(expiryTimeInMillis - REFRESH_LEAD_TIME_IN_MILLIS, now);
+    long windowEnd = ceilToWindow(refreshTime);
+
+    while (true) {
+      Batch batch = pendingBatches.get(windowEnd);
+      if (batch == null) {
+        Batch newBatch = new Batch(refresher);
+        if (pendingBatches.putIfAbsent(windowEnd, newBatch) == null) {
+          newBatch.add(cacheAdUnit);
+          newBatch.future = scheduledExecutorService.schedule(
+              new BatchRefresh(windowEnd, newBatch),
+              windowEnd - now,
+              TimeUnit.MILLISECONDS
+          );
+          return;
+        }
+      } else if (batch.add(cacheAdUnit)) {
+        return;
+      }
+    }
+  }
+
+  private static long ceilToWindow(long timeInMillis) {
+    return (timeInMillis + BATCH_WINDOW_IN_MILLIS - 1)
+        / BATCH_WINDOW_IN_MILLIS
+        * BATCH_WINDOW_IN_MILLIS;
+  }
+
+  /**
+   * Cancel all pending refreshes and stop scheduling new ones until the application is started
+   * again.
+   */
+  public void onApplicationStopped() {
+    isInForeground = false;
+
+    for (Map.Entry<Long, Batch> entry : pendingBatches.entrySet()) {
+      Batch batch = entry.getValue();
+      if (batch.close() != null && batch.future != null) {
+        batch.future.cancel(false);
+      }
+      pendingBatches.remove(entry.getKey(), batch);
+    }
+  }
+
+  public void onApplicationStarted() {
+    isInForeground = true;
+  }
+
+  public interface Refresher {
+
+    void refresh(@NonNull List<CacheAdUnit> cacheAdUnits);
+  }
+
+  private static final class Batch {
+
+    @NonNull
+    private final Refresher refresher;
+
+    @NonNull
+    private final Set<CacheAdUnit> adUnits = new LinkedHashSet<>();
+
+    private volatile ScheduledFuture<?> future;
+
+    private boolean isClosed = false;
+
+    Batch(@NonNull Refresher refresher) {
+      this.refresher = refresher;
+    }
+
+    synchronized boolean add(@NonNull CacheAdUnit cacheAdUnit) {
+      if (isClosed) {
+        return false;
+      }
+      adUnits.add(cacheAdUnit);
+      return true;
+    }
+
+    /**
+     * Prevent any new ad unit to join this batch and return the ones to refresh, or
+     * <code>null</code> if it was already closed.
+     */
+    synchronized List<CacheAdUnit> close() {
+      if (isClosed) {
+        return null;
+      }
+      isClosed = true;
+      return new ArrayList<>(adUnits);
+    }
+  }
+
+  private class BatchRefresh extends SafeRunnable {
+
+    private final long windowEnd;
+
+    @NonNull
+    private final Batch batch;
+
+    BatchRefresh(long windowEnd, @NonNull Batch batch) {
+      this.windowEnd = windowEnd;
+      this.batch = batch;
+    }
+
+    @Override
+    public void runSafely() {
+      pendingBatches.remove(windowEnd, batch);
+
+      List<CacheAdUnit> adUnits = batch.close();
+      if (adUnits == null || !isInForeground) {
+        return;
+      }
+
+      batch.refresher.refresh(adUnits);
+    }
+  }
+}
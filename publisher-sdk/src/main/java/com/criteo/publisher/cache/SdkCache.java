@@ -24,31 +24,228 @@ import static com.criteo.publisher.util.AdUnitType.CRITEO_REWARDED;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
-import com.criteo.publisher.model.AdSize;
+import com.criteo.publisher.Clock;
+import com.criteo.publisher.bid.BidLifecycleListener;
 import com.criteo.publisher.model.CacheAdUnit;
+import com.criteo.publisher.model.CacheAdUnitInterner;
 import com.criteo.publisher.model.CdbResponseSlot;
+import com.criteo.publisher.model.Config;
 import com.criteo.publisher.util.AdUnitType;
-import com.criteo.publisher.util.DeviceUtil;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Cache of bids indexed by their {@link CacheAdUnit}.
+ * <p>
+ * Each ad unit may hold up to {@link #getCacheDepth()} bids. They are ordered by expiry time (bids
+ * expiring first are served first) and then by CPM (higher CPM first), so
+ * {@link #peekAdUnit(CacheAdUnit)} and {@link #consume(CacheAdUnit, SlotPredicate)} always work on
+ * the bid that should be displayed next. With the default depth of one, only the last bid is kept.
+ * <p>
+ * This cache is thread-safe and does not rely on any global lock: operations on different ad units
+ * never block each other. Compound operations (check then consume, check then replace) are
+ * available through {@link #consume(CacheAdUnit, SlotPredicate)} and
+ * {@link #add(CdbResponseSlot, SlotPredicate)}. They are atomic for a given ad unit and are
+ * implemented with compare-and-set operations on the underlying map entry.
+ * <p>
+ * The cache evicts bids by itself, so it does not grow with ad units that are not used anymore:
+ * <ul>
+ *   <li>When more than {@link Config#getBidCacheMaxAdUnitCount()} ad units have bids in cache, the
+ *   bids of the least recently used ad units are evicted.</li>
+ *   <li>At most once every {@link #EXPIRY_SWEEP_INTERVAL_IN_MILLIS}, expired bids of all ad units
+ *   are evicted. This sweep is done lazily, when new bids are added.</li>
+ * </ul>
+ * Evicted bids are notified as {@linkplain BidLifecycleListener#onBidEvicted(CacheAdUnit,
+ * CdbResponseSlot) evicted}, so their lifecycle is terminated without being seen as displayed.
+ */
 public class SdkCache {
 
-  private final Map<CacheAdUnit, CdbResponseSlot> slotMap;
-  private final DeviceUtil deviceUtil;
+  @VisibleForTesting
+  static final long EXPIRY_SWEEP_INTERVAL_IN_MILLIS = 60_000;
+
+  private final ConcurrentMap<CacheAdUnit, CachedSlots> slotMap;
+  private final CacheAdUnitInterner cacheAdUnitInterner;
+  private final Config config;
+  private final Clock clock;
+  private final BidLifecycleListener bidLifecycleListener;
+
+  /**
+   * Logical clock ordering the accesses to the ad units, to find the least recently used ones.
+   */
+  private final AtomicLong accessCounter = new AtomicLong();
 
-  public SdkCache(@NonNull DeviceUtil deviceUtil) {
-    slotMap = new HashMap<>();
-    this.deviceUtil = deviceUtil;
+  private final AtomicLong nextExpirySweepTimeInMillis = new AtomicLong();
+
+  public SdkCache(
+      @NonNull CacheAdUnitInterner cacheAdUnitInterner,
+      @NonNull Config config,
+      @NonNull Clock clock,
+      @NonNull BidLifecycleListener bidLifecycleListener
+  ) {
+    slotMap = new ConcurrentHashMap<>();
+    this.cacheAdUnitInterner = cacheAdUnitInterner;
+    this.config = config;
+    this.clock = clock;
+    this.bidLifecycleListener = bidLifecycleListener;
+  }
+
+  /**
+   * Maximum number of bids kept for a single ad unit. See {@link Config#getBidCacheDepth()}.
+   */
+  public int getCacheDepth() {
+    return Math.max(1, config.getBidCacheDepth());
   }
 
   public void add(@NonNull CdbResponseSlot slot) {
+    add(slot, cachedSlot -> true);
+  }
+
+  /**
+   * Atomically add the given slot unless one of the slots currently cached for the same ad unit
+   * should be kept.
+   * <p>
+   * If there is no cached slot for the ad unit of the given slot, then the given slot is added.
+   * Else, it is added only if the given predicate accepts all the cached ones. When the cache depth
+   * is reached, the cached slots that are the closest to their expiration are evicted to make room
+   * for the new one, and the {@link BidLifecycleListener} is notified about them. The check and the
+   * insertion are done atomically: if the cached slots are concurrently changed, the check is done
+   * again on the new ones.
+   * <p>
+   * As for {@link #add(CdbResponseSlot)}, slots without ad unit are ignored.
+   *
+   * @param slot slot to add
+   * @param isReplaceable indicate if a currently cached slot can be replaced by the new one
+   * @return <code>false</code> if the cached slots were kept instead of the given one, else
+   * <code>true</code>
+   */
+  public boolean add(@NonNull CdbResponseSlot slot, @NonNull SlotPredicate isReplaceable) {
     CacheAdUnit key = detectCacheAdUnit(slot);
-    if (key != null) {
-      slotMap.put(key, slot);
+    if (key == null) {
+      return true;
+    }
+
+    sweepExpiredSlotsIfNeeded();
+
+    while (true) {
+      CachedSlots cachedSlots = slotMap.get(key);
+      if (cachedSlots == null) {
+        if (slotMap.putIfAbsent(key, new CachedSlots(slot, nextAccess())) == null) {
+          evictLeastRecentlyUsedIfNeeded();
+          return true;
+        }
+      } else if (!cachedSlots.allMatch(isReplaceable)) {
+        return false;
+      } else {
+        int depth = getCacheDepth();
+        if (slotMap.replace(key, cachedSlots, cachedSlots.with(slot, depth, nextAccess()))) {
+          notifyEvicted(key, cachedSlots.evictedBy(depth));
+          return true;
+        }
+      }
+    }
+  }
+
+  /**
+   * Evict the bids of the least recently used ad units, until there are no more ad units than the
+   * configured maximum.
+   */
+  private void evictLeastRecentlyUsedIfNeeded() {
+    int maxAdUnitCount = config.getBidCacheMaxAdUnitCount();
+    if (maxAdUnitCount <= 0) {
+      return;
+    }
+
+    while (slotMap.size() > maxAdUnitCount) {
+      Map.Entry<CacheAdUnit, CachedSlots> leastRecentlyUsed = null;
+      for (Map.Entry<CacheAdUnit, CachedSlots> entry : slotMap.entrySet()) {
+        if (leastRecentlyUsed == null
+            || entry.getValue().lastAccess < leastRecentlyUsed.getValue().lastAccess) {
+          leastRecentlyUsed = entry;
+        }
+      }
+
+      if (leastRecentlyUsed == null) {
+        return;
+      }
+
+      CacheAdUnit key = leastRecentlyUsed.getKey();
+      CachedSlots cachedSlots = leastRecentlyUsed.getValue();
+      if (slotMap.remove(key, cachedSlots)) {
+        notifyEvicted(key, cachedSlots.slots);
+      }
     }
   }
 
+  /**
+   * Evict the expired bids of all the ad units, if the last sweep is old enough.
+   * <p>
+   * Only one thread sweeps at a time. Ad units concurrently modified are skipped: their expired
+   * bids are evicted during the next sweep, or when they are consumed.
+   */
+  private void sweepExpiredSlotsIfNeeded() {
+    long now = clock.getCurrentTimeInMillis();
+    long nextSweepTime = nextExpirySweepTimeInMillis.get();
+    if (now < nextSweepTime
+        || !nextExpirySweepTimeInMillis.compareAndSet(nextSweepTime, now + EXPIRY_SWEEP_INTERVAL_IN_MILLIS)) {
+      return;
+    }
+
+    for (Map.Entry<CacheAdUnit, CachedSlots> entry : slotMap.entrySet()) {
+      CacheAdUnit key = entry.getKey();
+      CachedSlots cachedSlots = entry.getValue();
+
+      List<CdbResponseSlot> expiredSlots = new ArrayList<>();
+      List<CdbResponseSlot> validSlots = new ArrayList<>();
+      for (CdbResponseSlot slot : cachedSlots.slots) {
+        if (slot.isExpired(clock)) {
+          expiredSlots.add(slot);
+        } else {
+          validSlots.add(slot);
+        }
+      }
+
+      if (expiredSlots.isEmpty()) {
+        continue;
+      }
+
+      boolean isSwept;
+      if (validSlots.isEmpty()) {
+        isSwept = slotMap.remove(key, cachedSlots);
+      } else {
+        isSwept = slotMap.replace(key, cachedSlots, new CachedSlots(validSlots, cachedSlots.lastAccess));
+      }
+
+      if (isSwept) {
+        notifyEvicted(key, expiredSlots);
+      }
+    }
+  }
+
+  private void notifyEvicted(@NonNull CacheAdUnit key, @NonNull List<CdbResponseSlot> slots) {
+    for (CdbResponseSlot slot : slots) {
+      bidLifecycleListener.onBidEvicted(key, slot);
+    }
+  }
+
+  private long nextAccess() {
+    return accessCounter.incrementAndGet();
+  }
+
+  @Nullable
+  private CachedSlots getAndTouch(@NonNull CacheAdUnit key) {
+    CachedSlots cachedSlots = slotMap.get(key);
+    if (cachedSlots != null) {
+      cachedSlots.lastAccess = nextAccess();
+    }
+    return cachedSlots;
+  }
+
   @Nullable
   public CacheAdUnit detectCacheAdUnit(@NonNull CdbResponseSlot slot) {
     String placementId = slot.getPlacementId();
@@ -57,7 +254,7 @@ public class SdkCache {
     }
 
     AdUnitType adUnitType = findAdUnitType(slot);
-    return new CacheAdUnit(new AdSize(slot.getWidth(), slot.getHeight()), placementId, adUnitType);
+    return cacheAdUnitInterner.intern(slot.getWidth(), slot.getHeight(), placementId, adUnitType);
   }
 
   // FIXME: EE-608
@@ -69,24 +266,15 @@ public class SdkCache {
       return CRITEO_REWARDED;
     }
 
-    AdSize currentScreenSize = deviceUtil.getCurrentScreenSize();
-    AdSize transposedScreenSize = transpose(currentScreenSize);
-    AdSize slotSize = new AdSize(slot.getWidth(), slot.getHeight());
-
-    if (slotSize.equals(currentScreenSize) || slotSize.equals(transposedScreenSize)) {
+    if (cacheAdUnitInterner.isCurrentScreenSize(slot.getWidth(), slot.getHeight())) {
       return CRITEO_INTERSTITIAL;
     }
 
     return CRITEO_BANNER;
   }
 
-  @NonNull
-  private AdSize transpose(@NonNull AdSize size) {
-    return new AdSize(size.getHeight(), size.getWidth());
-  }
-
   /**
-   * Get the slot corresponding to the given key.
+   * Get the next slot to serve for the given key.
    * <p>
    * If no slot match the given key, then <code>null</code> is returned.
    *
@@ -95,20 +283,209 @@ public class SdkCache {
    */
   @Nullable
   public CdbResponseSlot peekAdUnit(CacheAdUnit key) {
-    return slotMap.get(key);
+    CachedSlots cachedSlots = getAndTouch(key);
+    return cachedSlots == null ? null : cachedSlots.head();
+  }
+
+  /**
+   * Indicate if one of the slots cached for the given key is accepted by the given predicate.
+   *
+   * @param key of the slots to look for
+   * @param predicate to test on cached slots
+   * @return <code>true</code> if at least one cached slot is accepted
+   */
+  public boolean containsMatching(@NonNull CacheAdUnit key, @NonNull SlotPredicate predicate) {
+    CachedSlots cachedSlots = getAndTouch(key);
+    return cachedSlots != null && cachedSlots.anyMatch(predicate);
+  }
+
+  /**
+   * Get the number of slots currently cached for the given key.
+   *
+   * @param key of the slots to count
+   * @return number of cached slots, between 0 and {@link #getCacheDepth()}
+   */
+  public int countSlots(@NonNull CacheAdUnit key) {
+    CachedSlots cachedSlots = slotMap.get(key);
+    return cachedSlots == null ? 0 : cachedSlots.size();
   }
 
+  /**
+   * Remove all the slots cached for the given key.
+   */
   public void remove(CacheAdUnit key) {
     slotMap.remove(key);
   }
 
+  /**
+   * Atomically remove and return the next slot to serve for the given key if it is accepted by the
+   * given predicate.
+   * <p>
+   * If the cached slots are concurrently changed, the predicate is evaluated again on the new next
+   * one. Hence, the returned slot is consumed by the caller only: concurrent consumers cannot get it.
+   *
+   * @param key of the slot to consume
+   * @param isConsumable indicate if the next cached slot should be consumed
+   * @return consumed slot or <code>null</code> if there was nothing to consume
+   */
+  @Nullable
+  public CdbResponseSlot consume(@NonNull CacheAdUnit key, @NonNull SlotPredicate isConsumable) {
+    while (true) {
+      CachedSlots cachedSlots = getAndTouch(key);
+      if (cachedSlots == null || !isConsumable.test(cachedSlots.head())) {
+        return null;
+      }
+
+      CachedSlots remainingSlots = cachedSlots.withoutHead();
+      boolean isConsumed;
+      if (remainingSlots == null) {
+        isConsumed = slotMap.remove(key, cachedSlots);
+      } else {
+        isConsumed = slotMap.replace(key, cachedSlots, remainingSlots);
+      }
+
+      if (isConsumed) {
+        return cachedSlots.head();
+      }
+    }
+  }
+
+  /**
+   * Return all the cached slots, whatever their ad unit.
+   *
+   * @return a copy of the cached slots
+   */
+  @NonNull
+  public List<CdbResponseSlot> getAllSlots() {
+    List<CdbResponseSlot> allSlots = new ArrayList<>();
+    for (CachedSlots cachedSlots : slotMap.values()) {
+      allSlots.addAll(cachedSlots.slots);
+    }
+    return allSlots;
+  }
+
   @VisibleForTesting
   int getItemCount() {
-    return slotMap.size();
+    int count = 0;
+    for (CachedSlots cachedSlots : slotMap.values()) {
+      count += cachedSlots.size();
+    }
+    return count;
   }
 
   @VisibleForTesting
   public void put(@NonNull CacheAdUnit cacheAdUnit, @Nullable CdbResponseSlot slot) {
-    slotMap.put(cacheAdUnit, slot);
+    if (slot == null) {
+      slotMap.remove(cacheAdUnit);
+    } else {
+      slotMap.put(cacheAdUnit, new CachedSlots(slot, nextAccess()));
+    }
+  }
+
+  public interface SlotPredicate {
+
+    boolean test(@NonNull CdbResponseSlot slot);
+  }
+
+  /**
+   * Immutable and non-empty list of slots cached for a single ad unit, ordered by serving priority.
+   * <p>
+   * Instances are compared by identity, so that compare-and-set operations on the map detect any
+   * concurrent modification. Only the last access is mutable: it does not change the cached slots.
+   */
+  private static final class CachedSlots {
+
+    private static final Comparator<CdbResponseSlot> SERVING_ORDER = (slot1, slot2) -> {
+      int byExpiry = Long.compare(slot1.getExpiryTimeInMillis(), slot2.getExpiryTimeInMillis());
+      if (byExpiry != 0) {
+        return byExpiry;
+      }
+      return Double.compare(getCpm(slot2), getCpm(slot1));
+    };
+
+    @NonNull
+    private final List<CdbResponseSlot> slots;
+
+    private volatile long lastAccess;
+
+    CachedSlots(@NonNull CdbResponseSlot slot, long lastAccess) {
+      this(Collections.singletonList(slot), lastAccess);
+    }
+
+    private CachedSlots(@NonNull List<CdbResponseSlot> slots, long lastAccess) {
+      this.slots = slots;
+      this.lastAccess = lastAccess;
+    }
+
+    @NonNull
+    CdbResponseSlot head() {
+      return slots.get(0);
+    }
+
+    int size() {
+      return slots.size();
+    }
+
+    boolean allMatch(@NonNull SlotPredicate predicate) {
+      for (CdbResponseSlot slot : slots) {
+        if (!predicate.test(slot)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    boolean anyMatch(@NonNull SlotPredicate predicate) {
+      for (CdbResponseSlot slot : slots) {
+        if (predicate.test(slot)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Return the slots that are evicted when adding a new one, so the given depth is not exceeded.
+     * Those are the ones served first, so the closest to their expiration.
+     */
+    @NonNull
+    List<CdbResponseSlot> evictedBy(int depth) {
+      int evictedCount = Math.max(0, slots.size() - depth + 1);
+      return slots.subList(0, evictedCount);
+    }
+
+    /**
+     * Return new cached slots containing the given one, without the {@linkplain #evictedBy(int)
+     * evicted ones}.
+     */
+    @NonNull
+    CachedSlots with(@NonNull CdbResponseSlot newSlot, int depth, long access) {
+      List<CdbResponseSlot> newSlots = new ArrayList<>(
+          slots.subList(evictedBy(depth).size(), slots.size())
+      );
+
+      int index = 0;
+      while (index < newSlots.size() && SERVING_ORDER.compare(newSlots.get(index), newSlot) <= 0) {
+        index++;
+      }
+      newSlots.add(index, newSlot);
+      return new CachedSlots(newSlots, access);
+    }
+
+    /**
+     * Return the cached slots without the head, or <code>null</code> if nothing remains.
+     */
+    @Nullable
+    CachedSlots withoutHead() {
+      if (slots.size() <= 1) {
+        return null;
+      }
+      return new CachedSlots(slots.subList(1, slots.size()), lastAccess);
+    }
+
+    private static double getCpm(@NonNull CdbResponseSlot slot) {
+      Double cpm = slot.getCpmAsNumber();
+      return cpm == null ? 0.0 : cpm;
+    }
   }
 }
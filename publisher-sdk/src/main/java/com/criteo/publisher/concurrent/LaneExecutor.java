@@ -0,0 +1,170 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.concurrent;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import com.criteo.publisher.logging.Logger;
+import com.criteo.publisher.logging.LoggerFactory;
+import java.util.Locale;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executor of the tasks of a single {@link TaskLane}.
+ * <p>
+ * At most {@link TaskLane#getMaxConcurrency()} tasks are executed at the same time, the next ones
+ * are queued without limit. Idle threads are released after a short delay.
+ * <p>
+ * The time spent by each task in the queue is measured. When a task waited longer than a threshold
+ * and than all the previous ones, the {@linkplain #getMetrics() metrics} of the lane are logged, so
+ * a starving lane can be spotted in the debug logs.
+ */
+public class LaneExecutor extends ThreadPoolExecutor {
+
+  private static final int KEEP_ALIVE_SECONDS = 3;
+
+  private static final long SLOW_WAIT_THRESHOLD_IN_MILLIS = 500;
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  @NonNull
+  private final TaskLane lane;
+
+  private final long slowWaitThresholdInNanos;
+
+  @NonNull
+  private final AtomicLong startedCount = new AtomicLong();
+
+  @NonNull
+  private final AtomicLong totalWaitInNanos = new AtomicLong();
+
+  @NonNull
+  private final AtomicLong maxWaitInNanos = new AtomicLong();
+
+  public LaneExecutor(@NonNull TaskLane lane) {
+    this(lane, SLOW_WAIT_THRESHOLD_IN_MILLIS);
+  }
+
+  @VisibleForTesting
+  LaneExecutor(@NonNull TaskLane lane, long slowWaitThresholdInMillis) {
+    super(
+        lane.getMaxConcurrency(),
+        lane.getMaxConcurrency(),
+        KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(),
+        new LaneThreadFactory(lane)
+    );
+    this.lane = lane;
+    this.slowWaitThresholdInNanos = TimeUnit.MILLISECONDS.toNanos(slowWaitThresholdInMillis);
+    allowCoreThreadTimeOut(true);
+  }
+
+  @Override
+  public void execute(@NonNull Runnable command) {
+    super.execute(new TimedTask(command));
+  }
+
+  @Override
+  protected void beforeExecute(Thread t, Runnable r) {
+    super.beforeExecute(t, r);
+
+    if (r instanceof TimedTask) {
+      long waitInNanos = System.nanoTime() - ((TimedTask) r).enqueuedAtNanos;
+      startedCount.incrementAndGet();
+      totalWaitInNanos.addAndGet(waitInNanos);
+
+      if (updateMaxWait(waitInNanos) && waitInNanos > slowWaitThresholdInNanos) {
+        logger.log(LaneLogMessage.onSlowQueueWait(
+            TimeUnit.NANOSECONDS.toMillis(waitInNanos),
+            getMetrics()
+        ));
+      }
+    }
+  }
+
+  /**
+   * @return <code>true</code> if the given wait is the longest one so far
+   */
+  private boolean updateMaxWait(long waitInNanos) {
+    long max;
+    do {
+      max = maxWaitInNanos.get();
+      if (waitInNanos <= max) {
+        return false;
+      }
+    } while (!maxWaitInNanos.compareAndSet(max, waitInNanos));
+    return true;
+  }
+
+  @NonNull
+  public LaneMetrics getMetrics() {
+    long started = startedCount.get();
+    long totalWait = totalWaitInNanos.get();
+
+    return new LaneMetrics(
+        lane,
+        getQueue().size(),
+        getActiveCount(),
+        started,
+        started == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWait / started),
+        TimeUnit.NANOSECONDS.toMillis(maxWaitInNanos.get())
+    );
+  }
+
+  private static class TimedTask implements Runnable {
+
+    @NonNull
+    private final Runnable delegate;
+
+    private final long enqueuedAtNanos;
+
+    TimedTask(@NonNull Runnable delegate) {
+      this.delegate = delegate;
+      this.enqueuedAtNanos = System.nanoTime();
+    }
+
+    @Override
+    public void run() {
+      delegate.run();
+    }
+  }
+
+  private static class LaneThreadFactory implements ThreadFactory {
+
+    @NonNull
+    private final TaskLane lane;
+
+    @NonNull
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    LaneThreadFactory(@NonNull TaskLane lane) {
+      this.lane = lane;
+    }
+
+    @Override
+    public Thread newThread(@NonNull Runnable r) {
+      Thread thread = new Thread(r, "criteo-" + lane.name().toLowerCase(Locale.ROOT) + "-" + threadCount.incrementAndGet());
+      thread.setPriority(lane.getThreadPriority());
+      return thread;
+    }
+  }
+}
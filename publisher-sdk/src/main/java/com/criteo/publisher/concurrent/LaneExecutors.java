@@ -0,0 +1,46 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.concurrent;
+
+import androidx.annotation.NonNull;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Executors of the background tasks of the SDK, one per {@link TaskLane}.
+ */
+public class LaneExecutors {
+
+  @NonNull
+  private final Map<TaskLane, Executor> executors;
+
+  public LaneExecutors(@NonNull Map<TaskLane, ? extends Executor> executors) {
+    this.executors = new EnumMap<>(executors);
+
+    for (TaskLane lane : TaskLane.values()) {
+      if (!this.executors.containsKey(lane)) {
+        throw new IllegalArgumentException("Missing executor for lane " + lane);
+      }
+    }
+  }
+
+  @NonNull
+  public Executor get(@NonNull TaskLane lane) {
+    return executors.get(lane);
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.concurrent;
+
+import androidx.annotation.NonNull;
+import com.criteo.publisher.DependencyProvider.Factory;
+import java.util.EnumMap;
+import java.util.Map;
+
+public class LaneExecutorsFactory implements Factory<LaneExecutors> {
+
+  /**
+   * Create new thread pools independent from the {@linkplain android.os.AsyncTask#THREAD_POOL_EXECUTOR
+   * Android one}.
+   *
+   * Created executors are made for those needs:
+   * <ul>
+   *   <li>Tasks are IO bounds</li>
+   *   <li>Tasks are independent, this means that a long task should not limit another one</li>
+   *   <li>There is a burst of tasks at the initialization of the SDK</li>
+   *   <li>User facing tasks should never wait behind telemetry tasks</li>
+   * </ul>
+   */
+  @NonNull
+  @Override
+  public LaneExecutors create() {
+    Map<TaskLane, LaneExecutor> executors = new EnumMap<>(TaskLane.class);
+    for (TaskLane lane : TaskLane.values()) {
+      executors.put(lane, new LaneExecutor(lane));
+    }
+    return new LaneExecutors(executors);
+  }
+}
@@ -0,0 +1,30 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.concurrent
+
+import android.util.Log
+import com.criteo.publisher.logging.LogMessage
+
+internal object LaneLogMessage {
+
+  @JvmStatic
+  fun onSlowQueueWait(waitInMillis: Long, metrics: LaneMetrics) = LogMessage(
+      level = Log.DEBUG,
+      message = "A task of lane ${metrics.lane} waited ${waitInMillis}ms in queue, " +
+          "the longest wait so far: $metrics"
+  )
+}
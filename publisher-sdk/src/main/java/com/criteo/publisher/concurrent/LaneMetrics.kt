@@ -0,0 +1,49 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.concurrent
+
+/**
+ * Snapshot of the activity of a [TaskLane].
+ */
+data class LaneMetrics(
+    val lane: TaskLane,
+
+    /**
+     * Number of tasks waiting for a thread
+     */
+    val queueDepth: Int,
+
+    /**
+     * Number of tasks being executed
+     */
+    val activeCount: Int,
+
+    /**
+     * Number of tasks that started since the creation of the lane
+     */
+    val startedCount: Long,
+
+    /**
+     * Average duration, in milliseconds, that started tasks spent in queue
+     */
+    val averageWaitInMillis: Long,
+
+    /**
+     * Longest duration, in milliseconds, that a started task spent in queue
+     */
+    val maxWaitInMillis: Long
+)
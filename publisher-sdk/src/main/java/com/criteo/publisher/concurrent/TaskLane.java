@@ -0,0 +1,65 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.concurrent;
+
+/**
+ * Lanes of background tasks of the SDK, from the most to the least urgent.
+ * <p>
+ * Each lane is executed by its own pool of threads, so a burst of tasks in a lane never delays the
+ * tasks of another lane. Threads of less urgent lanes also run with a lower priority.
+ */
+public enum TaskLane {
+
+  /**
+   * Work that a user or a publisher is waiting for: bid requests, advertising ID and user agent
+   * resolution, and creative downloads.
+   */
+  USER_FACING(16, Thread.NORM_PRIORITY),
+
+  /**
+   * Fire-and-forget calls whose timing matters, but that nobody waits for: impression pixels and
+   * app events.
+   */
+  PIXEL(4, Thread.NORM_PRIORITY - 1),
+
+  /**
+   * Internal telemetry and bookkeeping: CSM, remote logs, and persistence of the bid cache.
+   */
+  TELEMETRY(2, Thread.MIN_PRIORITY);
+
+  private final int maxConcurrency;
+  private final int threadPriority;
+
+  TaskLane(int maxConcurrency, int threadPriority) {
+    this.maxConcurrency = maxConcurrency;
+    this.threadPriority = threadPriority;
+  }
+
+  /**
+   * Maximum number of tasks of this lane that are executed at the same time. Next ones are queued.
+   */
+  public int getMaxConcurrency() {
+    return maxConcurrency;
+  }
+
+  /**
+   * {@linkplain Thread#setPriority(int) Priority} of the threads executing tasks of this lane.
+   */
+  public int getThreadPriority() {
+    return threadPriority;
+  }
+}
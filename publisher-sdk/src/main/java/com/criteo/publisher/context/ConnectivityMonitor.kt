@@ -0,0 +1,154 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.criteo.publisher.context
+
+import android.content.Context
+import android.net.ConnectivityManager
+import android.net.Network
+import android.net.NetworkCapabilities
+import android.net.NetworkRequest
+import androidx.annotation.GuardedBy
+import androidx.annotation.VisibleForTesting
+import com.criteo.publisher.annotation.OpenForTesting
+import com.criteo.publisher.logging.LoggerFactory
+import java.util.concurrent.CopyOnWriteArrayList
+
+/**
+ * Follow the networks giving access to internet, and notify listeners when they change.
+ *
+ * Until it is [registered][register], or if the device does not let it follow the networks, the
+ * device is considered as connected, so nothing is held back by mistake.
+ */
+@OpenForTesting
+class ConnectivityMonitor(private val context: Context) {
+
+  private val logger = LoggerFactory.getLogger(ConnectivityMonitor::class.java)
+
+  private val listeners = CopyOnWriteArrayList<Listener>()
+
+  private val lock = Any()
+
+  @GuardedBy("lock")
+  private val availableNetworks = mutableSetOf<Network>()
+
+  @GuardedBy("lock")
+  private var isReported = false
+
+  /**
+   * State read at registration, used until the callback reports a network for the first time.
+   */
+  @GuardedBy("lock")
+  private var isInitiallyConnected = true
+
+  /**
+   * Indicate if a network giving access to internet is currently available.
+   */
+  val isConnected: Boolean
+    get() = synchronized(lock) {
+      if (isReported) availableNetworks.isNotEmpty() else isInitiallyConnected
+    }
+
+  fun addListener(listener: Listener) {
+    listeners.add(listener)
+  }
+
+  /**
+   * Start following the networks of the device.
+   *
+   * The callback only reports the networks available after its registration. The current state is
+   * read once, until the first report.
+   */
+  fun register() {
+    val connectivityManager = context.getSystemService(Context.CONNECTIVITY_SERVICE)
+        as? ConnectivityManager ?: return
+
+    try {
+      val networkRequest = NetworkRequest.Builder()
+          .addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+          .build()
+
+      val isActiveNetworkConnected = isActiveNetworkConnected(connectivityManager)
+      connectivityManager.registerNetworkCallback(networkRequest, NetworkCallback())
+
+      synchronized(lock) {
+        isInitiallyConnected = isActiveNetworkConnected
+      }
+    } catch (e: RuntimeException) {
+      // Some devices throw a SecurityException despite the ACCESS_NETWORK_STATE permission
+      logger.debug("Could not listen to connectivity changes", e)
+    }
+  }
+
+  @Suppress("DEPRECATION")
+  private fun isActiveNetworkConnected(connectivityManager: ConnectivityManager): Boolean {
+    return connectivityManager.activeNetworkInfo?.isConnected ?: false
+  }
+
+  @VisibleForTesting
+  internal fun onNetworkAvailable(network: Network) {
+    synchronized(lock) {
+      availableNetworks.add(network)
+      isReported = true
+    }
+    notifyListeners()
+  }
+
+  @VisibleForTesting
+  internal fun onNetworkLost(network: Network) {
+    synchronized(lock) {
+      availableNetworks.remove(network)
+      isReported = true
+    }
+    notifyListeners()
+  }
+
+  @VisibleForTesting
+  internal fun onNetworkChanged() {
+    notifyListeners()
+  }
+
+  private fun notifyListeners() {
+    val isConnected = isConnected
+    for (listener in listeners) {
+      try {
+        listener.onConnectivityChanged(isConnected)
+      } catch (e: RuntimeException) {
+        logger.debug("Error while notifying a connectivity change", e)
+      }
+    }
+  }
+
+  private inner class NetworkCallback : ConnectivityManager.NetworkCallback() {
+    override fun onAvailable(network: Network) = onNetworkAvailable(network)
+    override fun onLost(network: Network) = onNetworkLost(network)
+    override fun onCapabilitiesChanged(network: Network, networkCapabilities: NetworkCapabilities) =
+        onNetworkChanged()
+  }
+
+  interface Listener {
+    /**
+     * Called when a network becomes available or is lost, or when the properties of an available
+     * network change, e.g. its transport.
+     *
+     * This is called on a background thread owned by the system. Implementations should be quick.
+     *
+     * @param isConnected `true` if a network giving access to internet is still available
+     */
+    fun onConnectivityChanged(isConnected: Boolean)
+  }
+}
@@ -153,15 +153,33 @@ internal class ContextProvider(
   internal fun fetchSessionDuration(): Int? = session.getDurationInSeconds()
 
   fun fetchUserContext(): Map<String, Any> {
+    return fetchConfigurationUserContext() + fetchVolatileUserContext()
+  }
+
+  /**
+   * Part of the user context that only changes with the device or its [Configuration] (screen size, orientation,
+   * locales).
+   *
+   * This is costly to fetch, so callers may keep it until the next configuration change.
+   */
+  fun fetchConfigurationUserContext(): Map<String, Any> {
     return mapOf(
         DeviceMake to fetchDeviceMake(),
         DeviceModel to fetchDeviceModel(),
-        DeviceConnectionType to fetchDeviceConnectionType(),
         DeviceWidth to fetchDeviceWidth(),
         DeviceHeight to fetchDeviceHeight(),
         DeviceOrientation to fetchDeviceOrientation(),
         UserCountry to fetchUserCountry(),
-        UserLanguages to fetchUserLanguages(),
+        UserLanguages to fetchUserLanguages()
+    ).filterNotNullValues()
+  }
+
+  /**
+   * Part of the user context that may change at any time, and should be fetched for each request.
+   */
+  fun fetchVolatileUserContext(): Map<String, Any> {
+    return mapOf(
+        DeviceConnectionType to fetchDeviceConnectionType(),
         SessionDuration to fetchSessionDuration()
     ).filterNotNullValues()
   }
@@ -52,6 +52,14 @@ class BoundedMetricRepository extends MetricRepository {
     delegate.moveById(impressionId, mover);
   }
 
+  @Override
+  void moveAll(
+      @NonNull Collection<String> excludedImpressionIds,
+      @NonNull MetricBulkMover mover
+  ) {
+    delegate.moveAll(excludedImpressionIds, mover);
+  }
+
   @NonNull
   @Override
   Collection<Metric> getAllStoredMetrics() {
@@ -67,4 +75,9 @@ class BoundedMetricRepository extends MetricRepository {
   boolean contains(@NonNull String impressionId) {
     return delegate.contains(impressionId);
   }
+
+  @Override
+  public void onApplicationStopped() {
+    delegate.onApplicationStopped();
+  }
 }
@@ -50,6 +50,29 @@ class BoundedSendingQueue<T> implements ConcurrentSendingQueue<T> {
     }
   }
 
+  /**
+   * Insert all the given elements, evicting at once as many old elements as successive
+   * {@linkplain #offer(Object) offers} would have evicted.
+   * <p>
+   * The size of the queue is only read once, and the size of the next elements is estimated.
+   */
+  @Override
+  public int offerAll(@NonNull List<T> elements) {
+    synchronized (delegateLock) {
+      int freeSize = sendingQueueConfiguration.getMaxSizeOfSendingQueue() - getTotalSize();
+      int estimatedSize = Math.max(1, sendingQueueConfiguration.getEstimatedSize());
+
+      // Number of elements that can be offered before reaching the max size of the queue
+      int elementsBeforeFull = freeSize <= 0 ? 0 : (freeSize + estimatedSize - 1) / estimatedSize;
+      int elementsToEvict = elements.size() - elementsBeforeFull;
+      if (elementsToEvict > 0) {
+        delegate.poll(elementsToEvict);
+      }
+
+      return delegate.offerAll(elements);
+    }
+  }
+
   @NonNull
   @Override
   public List<T> poll(int max) {
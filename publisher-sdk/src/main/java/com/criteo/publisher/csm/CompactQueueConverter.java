@@ -0,0 +1,101 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.criteo.publisher.csm;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import com.criteo.publisher.model.Config;
+import com.squareup.tape.FileObjectQueue;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Converter of the elements of a sending queue, reading both the compact and the JSON encodings.
+ * <p>
+ * A compactly encoded element starts with a marker byte, that can not start an UTF-8 JSON document,
+ * followed by the version of the {@link QueueElementCodec} that wrote it. Any other element is read
+ * as JSON. So the queues written by previous versions of the SDK are migrated progressively, as
+ * their elements are consumed, without rewriting the queue file.
+ * <p>
+ * New elements are written with the compact encoding only if
+ * {@link Config#isCompactQueueEncodingEnabled()}, so it can be rolled back remotely: compact
+ * elements already in the queue stay readable.
+ */
+class CompactQueueConverter<T> implements FileObjectQueue.Converter<T> {
+
+  /**
+   * First byte of compactly encoded elements. This is never a valid first byte in UTF-8.
+   */
+  @VisibleForTesting
+  static final int COMPACT_ENCODING_MARKER = 0xC1;
+
+  @NonNull
+  private final FileObjectQueue.Converter<T> jsonConverter;
+
+  @NonNull
+  private final QueueElementCodec<T> codec;
+
+  @NonNull
+  private final Config config;
+
+  CompactQueueConverter(
+      @NonNull FileObjectQueue.Converter<T> jsonConverter,
+      @NonNull QueueElementCodec<T> codec,
+      @NonNull Config config
+  ) {
+    this.jsonConverter = jsonConverter;
+    this.codec = codec;
+    this.config = config;
+  }
+
+  @Nullable
+  @Override
+  public T from(@Nullable byte[] bytes) throws IOException {
+    if (bytes == null || bytes.length < 2 || (bytes[0] & 0xFF) != COMPACT_ENCODING_MARKER) {
+      return jsonConverter.from(bytes);
+    }
+
+    try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      input.skipBytes(1);
+      int version = input.readUnsignedByte();
+      return codec.read(version, input);
+    }
+  }
+
+  @Override
+  public void toStream(@Nullable T element, @Nullable OutputStream outputStream) throws IOException {
+    if (element == null || outputStream == null) {
+      return;
+    }
+
+    if (!config.isCompactQueueEncodingEnabled()) {
+      jsonConverter.toStream(element, outputStream);
+      return;
+    }
+
+    DataOutputStream output = new DataOutputStream(outputStream);
+    output.writeByte(COMPACT_ENCODING_MARKER);
+    output.writeByte(codec.getVersion());
+    codec.write(element, output);
+    output.flush();
+  }
+}
@@ -30,6 +30,20 @@ internal interface ConcurrentSendingQueue<T> {
    */
   fun offer(element: T): Boolean
 
+  /**
+   * Inserts the specified elements, in order, into this queue.
+   *
+   * This is equivalent to offering each element, but the queue is acquired only once for all of
+   * them. Insertion stops at the first failure.
+   *
+   * In case of success, the returned number of first elements are persisted and committed. The
+   * following ones are not inserted.
+   *
+   * @param elements new elements to insert into this queue
+   * @return number of first elements that were successfully inserted
+   */
+  fun offerAll(elements: List<T>): Int
+
   /**
    * Retrieves and removes up to `max` elements from this queue.
    *
@@ -30,6 +30,9 @@ import com.criteo.publisher.model.Config;
 import com.criteo.publisher.privacy.ConsentData;
 
 import java.io.InterruptedIOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 
 /**
@@ -58,6 +61,15 @@ public class CsmBidLifecycleListener implements BidLifecycleListener {
   @NonNull
   private final Executor executor;
 
+  /**
+   * Impression IDs of bids restored from a previous session. Their metrics are still expecting
+   * updates, so they should not be sent at SDK initialization.
+   */
+  @NonNull
+  private final Set<String> restoredImpressionIds = Collections.newSetFromMap(
+      new ConcurrentHashMap<>()
+  );
+
   public CsmBidLifecycleListener(
       @NonNull MetricRepository repository,
       @NonNull MetricSendingQueueProducer sendingQueueProducer,
@@ -79,6 +91,9 @@ public class CsmBidLifecycleListener implements BidLifecycleListener {
    * the in-memory bid-cache is lost and the metrics associated to the previously cached bids will
    * never be updated again. In this case, all previously stored metrics are moved to the sending
    * queue.
+   * <p>
+   * The only exception are metrics of bids {@linkplain #onBidRestored(CdbResponseSlot) restored}
+   * from a previous session: they are kept until the consumption of their bid.
    */
   @Override
   public void onSdkInitialized() {
@@ -89,7 +104,7 @@ public class CsmBidLifecycleListener implements BidLifecycleListener {
     executor.execute(new SafeRunnable() {
       @Override
       public void runSafely() {
-        sendingQueueProducer.pushAllInQueue(repository);
+        sendingQueueProducer.pushAllInQueue(repository, restoredImpressionIds);
       }
     });
   }
@@ -264,6 +279,35 @@ public class CsmBidLifecycleListener implements BidLifecycleListener {
     });
   }
 
+  /**
+   * On bid eviction, the metric associated to the bid is flagged as ready to send.
+   * <p>
+   * Contrary to a consumption, the bid never went to the user, even if it was not expired. So no
+   * elapsed timestamp is set.
+   *
+   * @param adUnit ad unit representing the bid
+   * @param evictedBid bid that was evicted
+   */
+  @Override
+  public void onBidEvicted(@NonNull CacheAdUnit adUnit, @NonNull CdbResponseSlot evictedBid) {
+    if (isCsmDisabled()) {
+      return;
+    }
+
+    executor.execute(new SafeRunnable() {
+      @Override
+      public void runSafely() {
+        String impressionId = evictedBid.getImpressionId();
+        if (impressionId == null) {
+          return;
+        }
+
+        repository.addOrUpdateById(impressionId, builder -> builder.setReadyToSend(true));
+        sendingQueueProducer.pushInQueue(repository, impressionId);
+      }
+    });
+  }
+
   @Override
   public void onBidCached(@NonNull CdbResponseSlot bidCached) {
     if (isCsmDisabled()) {
@@ -287,6 +331,20 @@ public class CsmBidLifecycleListener implements BidLifecycleListener {
     });
   }
 
+  /**
+   * On bid restoration, the metric of the bid, stored during the previous session, is kept as is
+   * and will be updated on consumption.
+   *
+   * @param restoredBid bid restored from a previous session
+   */
+  @Override
+  public void onBidRestored(@NonNull CdbResponseSlot restoredBid) {
+    String impressionId = restoredBid.getImpressionId();
+    if (impressionId != null) {
+      restoredImpressionIds.add(impressionId);
+    }
+  }
+
   private void updateByCdbRequestIds(@NonNull CdbRequest request, @NonNull MetricUpdater updater) {
     for (CdbRequestSlot requestSlot : request.getSlots()) {
       repository.addOrUpdateById(requestSlot.getImpressionId(), updater);
@@ -17,6 +17,7 @@
 package com.criteo.publisher.csm;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import com.criteo.publisher.logging.Logger;
 import com.criteo.publisher.logging.LoggerFactory;
 import com.criteo.publisher.util.MapUtilKt;
@@ -24,11 +25,26 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import kotlin.jvm.functions.Function0;
 
+/**
+ * {@link MetricRepository} storing each metric in its own file.
+ * <p>
+ * The size of each metric file is indexed in memory, so the size of the repository and the
+ * presence of a metric are known without listing the directory. The index is built from the
+ * directory once, when the repository is first used, and it is then updated after each write,
+ * move or deletion of a file.
+ * <p>
+ * If the metrics were stored in a {@link JournalMetricRepository} during a previous session, they
+ * are moved back into files when the repository is first used, and the journal is then deleted.
+ */
 class FileMetricRepository extends MetricRepository {
 
   private final Logger logger = LoggerFactory.getLogger(getClass());
@@ -39,38 +55,155 @@ class FileMetricRepository extends MetricRepository {
   @NonNull
   private final ConcurrentMap<File, SyncMetricFile> metricFileById = new ConcurrentHashMap<>();
 
+  /**
+   * Size in bytes of each stored metric file. This is only modified while holding the monitor of
+   * the {@link SyncMetricFile} of the modified file, so the size of a file is never replaced by an
+   * outdated one.
+   */
+  @NonNull
+  private final ConcurrentMap<File, Integer> sizeByFile = new ConcurrentHashMap<>();
+
+  @NonNull
+  private final AtomicInteger totalSize = new AtomicInteger(0);
+
+  @NonNull
+  private final Object indexLock = new Object();
+
+  /**
+   * Journal left by a previous session, whose metrics are still to import
+   */
+  @Nullable
+  private final JournalMetricRepository previousJournal;
+
+  private volatile boolean isIndexed = false;
+
   FileMetricRepository(@NonNull MetricDirectory directory) {
+    this(directory, null);
+  }
+
+  FileMetricRepository(
+      @NonNull MetricDirectory directory,
+      @Nullable JournalMetricRepository previousJournal
+  ) {
     this.directory = directory;
+    this.previousJournal = previousJournal;
   }
 
   @Override
   void addOrUpdateById(@NonNull String impressionId, @NonNull MetricUpdater updater) {
+    ensureIndexed();
+
     File metricFile = directory.createMetricFile(impressionId);
     SyncMetricFile syncMetricFile = getOrCreateMetricFile(metricFile);
 
-    try {
-      syncMetricFile.update(updater);
-    } catch (IOException e) {
-      logger.debug("Error while updating metric", e);
+    synchronized (syncMetricFile) {
+      try {
+        syncMetricFile.update(updater);
+      } catch (IOException e) {
+        logger.debug("Error while updating metric", e);
+      } finally {
+        updateIndex(metricFile);
+      }
     }
   }
 
   @Override
   void moveById(@NonNull String impressionId, @NonNull MetricMover mover) {
+    ensureIndexed();
+
     File metricFile = directory.createMetricFile(impressionId);
     SyncMetricFile syncMetricFile = getOrCreateMetricFile(metricFile);
 
+    synchronized (syncMetricFile) {
+      try {
+        syncMetricFile.moveWith(mover);
+      } catch (IOException e) {
+        logger.debug("Error while moving metric", e);
+      } finally {
+        updateIndex(metricFile);
+      }
+    }
+  }
+
+  /**
+   * Read and delete each metric file, and then move all the read metrics at once.
+   * <p>
+   * Contrary to {@link #moveById(String, MetricMover)}, a metric file is not locked while the mover
+   * is running, else all the metric files would have to be locked together.
+   */
+  @Override
+  void moveAll(
+      @NonNull Collection<String> excludedImpressionIds,
+      @NonNull MetricBulkMover mover
+  ) {
+    ensureIndexed();
+
+    Set<File> excludedFiles = new HashSet<>();
+    for (String excludedImpressionId : excludedImpressionIds) {
+      excludedFiles.add(directory.createMetricFile(excludedImpressionId));
+    }
+
+    List<File> removedFiles = new ArrayList<>();
+    List<Metric> removedMetrics = new ArrayList<>();
+    for (File metricFile : new ArrayList<>(sizeByFile.keySet())) {
+      if (excludedFiles.contains(metricFile)) {
+        continue;
+      }
+
+      SyncMetricFile syncMetricFile = getOrCreateMetricFile(metricFile);
+      synchronized (syncMetricFile) {
+        try {
+          Metric metric = syncMetricFile.read();
+          syncMetricFile.delete();
+          removedFiles.add(metricFile);
+          removedMetrics.add(metric);
+        } catch (IOException e) {
+          logger.debug("Error while reading metric", e);
+        } finally {
+          updateIndex(metricFile);
+        }
+      }
+    }
+
+    if (removedMetrics.isEmpty()) {
+      return;
+    }
+
+    int movedCount = 0;
     try {
-      syncMetricFile.moveWith(mover);
+      movedCount = Math.max(0, mover.offerAllToDestination(removedMetrics));
+    } finally {
+      for (int i = movedCount; i < removedMetrics.size(); i++) {
+        rollbackRemoval(removedFiles.get(i), removedMetrics.get(i));
+      }
+    }
+  }
+
+  private void rollbackRemoval(@NonNull File metricFile, @NonNull Metric metric) {
+    try {
+      write(metricFile, metric);
     } catch (IOException e) {
-      logger.debug("Error while moving metric", e);
+      logger.debug("Error while rolling back the move of a metric", e);
+    }
+  }
+
+  private void write(@NonNull File metricFile, @NonNull Metric metric) throws IOException {
+    SyncMetricFile syncMetricFile = getOrCreateMetricFile(metricFile);
+    synchronized (syncMetricFile) {
+      try {
+        syncMetricFile.write(metric);
+      } finally {
+        updateIndex(metricFile);
+      }
     }
   }
 
   @Override
   @NonNull
   Collection<Metric> getAllStoredMetrics() {
-    Collection<File> files = directory.listFiles();
+    ensureIndexed();
+
+    Collection<File> files = sizeByFile.keySet();
 
     List<Metric> metrics = new ArrayList<>(files.size());
     for (File metricFile : files) {
@@ -86,18 +219,86 @@ class FileMetricRepository extends MetricRepository {
 
   @Override
   int getTotalSize() {
-    int size = 0;
-    Collection<File> files = directory.listFiles();
-    for (File file : files) {
-      size += file.length();
-    }
-    return size;
+    ensureIndexed();
+    return totalSize.get();
   }
 
   @Override
   boolean contains(@NonNull String impressionId) {
+    ensureIndexed();
+
     File metricFile = directory.createMetricFile(impressionId);
-    return directory.listFiles().contains(metricFile);
+    return sizeByFile.containsKey(metricFile);
+  }
+
+  private void ensureIndexed() {
+    if (isIndexed) {
+      return;
+    }
+
+    synchronized (indexLock) {
+      if (isIndexed) {
+        return;
+      }
+
+      for (File metricFile : directory.listFiles()) {
+        int size = (int) metricFile.length();
+        if (size > 0) {
+          sizeByFile.put(metricFile, size);
+          totalSize.addAndGet(size);
+        }
+      }
+
+      if (previousJournal != null) {
+        importJournal(previousJournal);
+      }
+
+      isIndexed = true;
+    }
+  }
+
+  /**
+   * Move all the metrics of the given journal into files, and then delete the journal.
+   * <p>
+   * This is done while indexing, so other operations wait for the import instead of being
+   * overridden by the imported metrics.
+   */
+  private void importJournal(@NonNull JournalMetricRepository journal) {
+    journal.moveAll(Collections.<String>emptyList(), metrics -> {
+      int movedCount = 0;
+      for (Metric metric : metrics) {
+        try {
+          write(directory.createMetricFile(metric.getImpressionId()), metric);
+        } catch (IOException e) {
+          logger.debug("Error while importing metric from journal", e);
+          break;
+        }
+        movedCount++;
+      }
+      return movedCount;
+    });
+
+    journal.deleteIfEmpty();
+  }
+
+  /**
+   * Index the current size of the given metric file.
+   * <p>
+   * This should be called while holding the monitor of the {@link SyncMetricFile} of the file, just
+   * after modifying it.
+   */
+  private void updateIndex(@NonNull File metricFile) {
+    // A metric is never serialized as an empty file, so this is also telling if the file exists
+    int size = (int) metricFile.length();
+
+    Integer previousSize;
+    if (size > 0) {
+      previousSize = sizeByFile.put(metricFile, size);
+    } else {
+      previousSize = sizeByFile.remove(metricFile);
+    }
+
+    totalSize.addAndGet(size - (previousSize == null ? 0 : previousSize));
   }
 
   /**
@@ -0,0 +1,655 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.csm;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import com.criteo.publisher.logging.Logger;
+import com.criteo.publisher.logging.LoggerFactory;
+import com.criteo.publisher.util.JsonSerializer;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.CRC32;
+
+/**
+ * {@link MetricRepository} storing all the metrics in a single append-only journal.
+ * <p>
+ * The {@link FileMetricRepository} rewrites a whole file, through a temporary file, an fsync and a
+ * rename, for each lifecycle event of a bid. Here, an update only appends the new version of the
+ * metric at the end of the journal, in a single write. Metrics are also all kept in memory, so the
+ * journal is only read once, when the repository is first used.
+ * <p>
+ * Each record of the journal is framed by its length and a checksum. The journal is replayed up to
+ * the first incomplete or corrupted record, which is the trace of a crash during an append, and it
+ * is truncated there.
+ * <p>
+ * Once the journal is mostly made of outdated records, it is compacted: live metrics are written in
+ * a new journal, that is synced on disk and then renamed over the previous one. A crash during the
+ * compaction leaves the previous journal untouched.
+ * <p>
+ * Like in {@link SyncMetricFile#moveWith(MetricMover)}, a move first records the removal of the
+ * metric, and only then offers it to the destination, so metrics are never duplicated. This removal
+ * is synced on disk before the offer, so it is never lost once the destination committed the
+ * metric.
+ * <p>
+ * Metrics stored in files by a {@link FileMetricRepository} are imported in the journal when it is
+ * first read, and their files are then deleted. Conversely, when the journal is disabled, the
+ * {@link FileMetricRepository} moves the metrics of the journal back into files, and the journal
+ * is then {@linkplain #deleteIfEmpty() deleted}.
+ */
+class JournalMetricRepository extends MetricRepository {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static final byte PUT = 1;
+  private static final byte REMOVE = 2;
+
+  /**
+   * Size of the payload length, of the checksum and of the type that precede the payload of each
+   * record.
+   */
+  @VisibleForTesting
+  static final int RECORD_HEADER_SIZE = 9;
+
+  private static final int MAX_PAYLOAD_SIZE = 64 * 1024;
+
+  /**
+   * The journal is not compacted below this size, even if it is made of outdated records.
+   */
+  @VisibleForTesting
+  static final int MIN_COMPACTION_SIZE = 32 * 1024;
+
+  private static final int ID_LOCK_COUNT = 16;
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  @NonNull
+  private final File journalFile;
+
+  /**
+   * Directory of the legacy metric files to import, or <code>null</code> if this journal is only
+   * read to move its metrics back into files.
+   */
+  @Nullable
+  private final MetricDirectory legacyDirectory;
+
+  @NonNull
+  private final JsonSerializer jsonSerializer;
+
+  /**
+   * Live metrics by impression ID. This is only modified while holding {@link #journalLock}, after
+   * the modification is written in the journal.
+   */
+  @NonNull
+  private final ConcurrentMap<String, Metric> metrics = new ConcurrentHashMap<>();
+
+  /**
+   * Updates and moves of the same metric are serialized by locking one of those, so the updaters
+   * and the movers do not run while holding {@link #journalLock}.
+   */
+  @NonNull
+  private final Object[] idLocks = new Object[ID_LOCK_COUNT];
+
+  @NonNull
+  private final Object journalLock = new Object();
+
+  @GuardedBy("journalLock")
+  @NonNull
+  private final Map<String, Integer> recordSizes = new HashMap<>();
+
+  @GuardedBy("journalLock")
+  @Nullable
+  private FileOutputStream journalOutput;
+
+  @GuardedBy("journalLock")
+  private long journalSize;
+
+  private volatile int totalSize;
+
+  private volatile boolean isLoaded;
+
+  JournalMetricRepository(
+      @NonNull File journalFile,
+      @Nullable MetricDirectory legacyDirectory,
+      @NonNull JsonSerializer jsonSerializer
+  ) {
+    this.journalFile = journalFile;
+    this.legacyDirectory = legacyDirectory;
+    this.jsonSerializer = jsonSerializer;
+
+    for (int i = 0; i < idLocks.length; i++) {
+      idLocks[i] = new Object();
+    }
+  }
+
+  @Override
+  void addOrUpdateById(@NonNull String impressionId, @NonNull MetricUpdater updater) {
+    ensureLoaded();
+
+    synchronized (getIdLock(impressionId)) {
+      Metric metric = metrics.get(impressionId);
+      Metric.Builder builder = metric == null ? Metric.builder(impressionId) : metric.toBuilder();
+      updater.update(builder);
+
+      try {
+        put(builder.build());
+      } catch (IOException e) {
+        logger.debug("Error while updating metric", e);
+      }
+    }
+  }
+
+  @Override
+  void moveById(@NonNull String impressionId, @NonNull MetricMover mover) {
+    ensureLoaded();
+
+    synchronized (getIdLock(impressionId)) {
+      Metric metric = metrics.get(impressionId);
+      if (metric == null) {
+        return;
+      }
+
+      try {
+        remove(impressionId);
+      } catch (IOException e) {
+        // The removal is not committed, so the metric is not moved, else it may be duplicated.
+        logger.debug("Error while moving metric", e);
+        return;
+      }
+
+      boolean success = false;
+      try {
+        if (mover.offerToDestination(metric)) {
+          success = true;
+        }
+      } finally {
+        if (!success) {
+          rollbackRemoval(metric);
+        }
+      }
+    }
+  }
+
+  /**
+   * Append the removals of all the moved metrics, and sync them once, before offering the metrics.
+   * <p>
+   * Contrary to {@link #moveById(String, MetricMover)}, the moved metrics are not locked while the
+   * mover is running, else all the metrics would have to be locked together.
+   */
+  @Override
+  void moveAll(
+      @NonNull Collection<String> excludedImpressionIds,
+      @NonNull MetricBulkMover mover
+  ) {
+    ensureLoaded();
+
+    List<Metric> removedMetrics = new ArrayList<>();
+    try {
+      removeAll(excludedImpressionIds, removedMetrics);
+    } catch (IOException e) {
+      // The removals are not committed, so the metrics are not moved, else they may be duplicated.
+      logger.debug("Error while moving metrics", e);
+      for (Metric removedMetric : removedMetrics) {
+        rollbackRemoval(removedMetric);
+      }
+      return;
+    }
+
+    if (removedMetrics.isEmpty()) {
+      return;
+    }
+
+    int movedCount = 0;
+    try {
+      movedCount = Math.max(0, mover.offerAllToDestination(removedMetrics));
+    } finally {
+      for (int i = movedCount; i < removedMetrics.size(); i++) {
+        rollbackRemoval(removedMetrics.get(i));
+      }
+    }
+  }
+
+  @NonNull
+  @Override
+  Collection<Metric> getAllStoredMetrics() {
+    ensureLoaded();
+    return new ArrayList<>(metrics.values());
+  }
+
+  @Override
+  int getTotalSize() {
+    ensureLoaded();
+    return totalSize;
+  }
+
+  @Override
+  boolean contains(@NonNull String impressionId) {
+    ensureLoaded();
+    return metrics.containsKey(impressionId);
+  }
+
+  /**
+   * Delete the journal if it has no live metric anymore, for instance once all its metrics were
+   * moved back into files.
+   */
+  void deleteIfEmpty() {
+    synchronized (journalLock) {
+      loadIfNeeded();
+      if (!metrics.isEmpty()) {
+        return;
+      }
+
+      closeJournalOutput();
+      if (journalFile.delete()) {
+        journalSize = 0;
+      }
+    }
+  }
+
+  @VisibleForTesting
+  long getJournalSize() {
+    synchronized (journalLock) {
+      return journalSize;
+    }
+  }
+
+  @NonNull
+  private Object getIdLock(@NonNull String impressionId) {
+    return idLocks[(impressionId.hashCode() & Integer.MAX_VALUE) % idLocks.length];
+  }
+
+  private void put(@NonNull Metric metric) throws IOException {
+    byte[] payload = serialize(metric);
+
+    synchronized (journalLock) {
+      loadIfNeeded();
+      append(PUT, payload, false);
+      onPut(metric, payload);
+      compactIfNeeded();
+    }
+  }
+
+  private void remove(@NonNull String impressionId) throws IOException {
+    byte[] payload = impressionId.getBytes(UTF_8);
+
+    synchronized (journalLock) {
+      loadIfNeeded();
+      append(REMOVE, payload, true);
+      onRemove(impressionId);
+    }
+  }
+
+  /**
+   * Remove all the metrics, except the excluded ones, and sync the journal once.
+   *
+   * @param excludedImpressionIds IDs of the metrics to keep
+   * @param removedMetrics list filled with the removed metrics, even in case of error
+   */
+  private void removeAll(
+      @NonNull Collection<String> excludedImpressionIds,
+      @NonNull List<Metric> removedMetrics
+  ) throws IOException {
+    synchronized (journalLock) {
+      loadIfNeeded();
+
+      for (Metric metric : new ArrayList<>(metrics.values())) {
+        String impressionId = metric.getImpressionId();
+        if (excludedImpressionIds.contains(impressionId)) {
+          continue;
+        }
+
+        append(REMOVE, impressionId.getBytes(UTF_8), false);
+        onRemove(impressionId);
+        removedMetrics.add(metric);
+      }
+
+      if (!removedMetrics.isEmpty()) {
+        syncJournal();
+      }
+    }
+  }
+
+  private void rollbackRemoval(@NonNull Metric metric) {
+    try {
+      put(metric);
+    } catch (IOException e) {
+      logger.debug("Error while rolling back the move of a metric", e);
+    }
+  }
+
+  @GuardedBy("journalLock")
+  private void onPut(@NonNull Metric metric, @NonNull byte[] payload) {
+    metrics.put(metric.getImpressionId(), metric);
+    setRecordSize(metric.getImpressionId(), RECORD_HEADER_SIZE + payload.length);
+  }
+
+  @GuardedBy("journalLock")
+  private void onRemove(@NonNull String impressionId) {
+    metrics.remove(impressionId);
+    setRecordSize(impressionId, null);
+  }
+
+  @GuardedBy("journalLock")
+  private void setRecordSize(@NonNull String impressionId, @Nullable Integer recordSize) {
+    Integer previousSize;
+    if (recordSize == null) {
+      previousSize = recordSizes.remove(impressionId);
+    } else {
+      previousSize = recordSizes.put(impressionId, recordSize);
+    }
+
+    int newTotalSize = totalSize;
+    newTotalSize += recordSize == null ? 0 : recordSize;
+    newTotalSize -= previousSize == null ? 0 : previousSize;
+    totalSize = newTotalSize;
+  }
+
+  /**
+   * Append a record at the end of the journal.
+   * <p>
+   * On error, the journal may end with a partial record. It is then replayed again, and truncated,
+   * on the next operation.
+   */
+  @GuardedBy("journalLock")
+  private void append(byte type, @NonNull byte[] payload, boolean sync) throws IOException {
+    byte[] record = encodeRecord(type, payload);
+
+    try {
+      FileOutputStream output = getJournalOutput();
+      output.write(record);
+      if (sync) {
+        output.getFD().sync();
+      }
+    } catch (IOException e) {
+      closeJournalOutput();
+      isLoaded = false;
+      throw e;
+    }
+
+    journalSize += record.length;
+  }
+
+  @GuardedBy("journalLock")
+  private void syncJournal() throws IOException {
+    try {
+      getJournalOutput().getFD().sync();
+    } catch (IOException e) {
+      closeJournalOutput();
+      isLoaded = false;
+      throw e;
+    }
+  }
+
+  @GuardedBy("journalLock")
+  @NonNull
+  private FileOutputStream getJournalOutput() throws IOException {
+    FileOutputStream output = journalOutput;
+    if (output == null) {
+      output = new FileOutputStream(journalFile, true);
+      journalOutput = output;
+    }
+    return output;
+  }
+
+  @GuardedBy("journalLock")
+  private void closeJournalOutput() {
+    FileOutputStream output = journalOutput;
+    journalOutput = null;
+    if (output == null) {
+      return;
+    }
+
+    try {
+      output.close();
+    } catch (IOException e) {
+      logger.debug("Error while closing metric journal", e);
+    }
+  }
+
+  /**
+   * Rewrite the journal with only the live metrics, if it is mostly made of outdated records.
+   */
+  @GuardedBy("journalLock")
+  private void compactIfNeeded() {
+    if (journalSize < MIN_COMPACTION_SIZE || journalSize < 2L * totalSize) {
+      return;
+    }
+
+    File compactedFile = getCompactedFile();
+    try {
+      long compactedSize = 0;
+      try (FileOutputStream fos = new FileOutputStream(compactedFile);
+          BufferedOutputStream bos = new BufferedOutputStream(fos)) {
+        for (Metric metric : metrics.values()) {
+          byte[] record = encodeRecord(PUT, serialize(metric));
+          bos.write(record);
+          compactedSize += record.length;
+        }
+        bos.flush();
+        fos.getFD().sync();
+      }
+
+      closeJournalOutput();
+      if (!compactedFile.renameTo(journalFile)) {
+        throw new IOException("Impossible to replace the metric journal by its compacted version");
+      }
+      journalSize = compactedSize;
+    } catch (IOException e) {
+      logger.debug("Error while compacting metric journal", e);
+      compactedFile.delete();
+    }
+  }
+
+  private void ensureLoaded() {
+    if (isLoaded) {
+      return;
+    }
+
+    synchronized (journalLock) {
+      loadIfNeeded();
+    }
+  }
+
+  /**
+   * Replay the journal to rebuild the in-memory metrics, and then import the metrics of the legacy
+   * files.
+   */
+  @GuardedBy("journalLock")
+  private void loadIfNeeded() {
+    if (isLoaded) {
+      return;
+    }
+
+    closeJournalOutput();
+    metrics.clear();
+    recordSizes.clear();
+    totalSize = 0;
+    journalSize = 0;
+
+    // Leftover of a compaction interrupted by a crash
+    getCompactedFile().delete();
+
+    if (journalFile.exists()) {
+      try {
+        replayJournal();
+      } catch (IOException e) {
+        logger.debug("Error while reading metric journal", e);
+      }
+    }
+
+    isLoaded = true;
+    importLegacyMetrics();
+  }
+
+  @GuardedBy("journalLock")
+  private void replayJournal() throws IOException {
+    long validSize = 0;
+
+    try (FileInputStream fis = new FileInputStream(journalFile);
+        DataInputStream dis = new DataInputStream(new BufferedInputStream(fis))) {
+      CRC32 crc = new CRC32();
+      while (true) {
+        byte[] record = readRecord(dis, crc);
+        if (record == null || !applyRecord(record)) {
+          break;
+        }
+        validSize += RECORD_HEADER_SIZE + record.length - 1;
+      }
+    }
+
+    if (validSize < journalFile.length()) {
+      // Drop the partial or corrupted tail of the journal, so next records are appended after
+      // valid ones.
+      try (RandomAccessFile raf = new RandomAccessFile(journalFile, "rw")) {
+        raf.setLength(validSize);
+      }
+    }
+
+    journalSize = validSize;
+  }
+
+  /**
+   * Read the next record, made of its type and its payload.
+   *
+   * @return the read record, or <code>null</code> if the end of the journal or a partial or
+   * corrupted record is reached
+   */
+  @Nullable
+  private static byte[] readRecord(@NonNull DataInputStream dis, @NonNull CRC32 crc)
+      throws IOException {
+    try {
+      int payloadLength = dis.readInt();
+      if (payloadLength < 0 || payloadLength > MAX_PAYLOAD_SIZE) {
+        return null;
+      }
+
+      int checksum = dis.readInt();
+      byte[] record = new byte[payloadLength + 1];
+      dis.readFully(record);
+
+      crc.reset();
+      crc.update(record);
+      if ((int) crc.getValue() != checksum) {
+        return null;
+      }
+      return record;
+    } catch (EOFException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Apply the given record on the in-memory metrics.
+   *
+   * @return <code>true</code> if the record is valid, else <code>false</code>
+   */
+  @GuardedBy("journalLock")
+  private boolean applyRecord(@NonNull byte[] record) {
+    switch (record[0]) {
+      case PUT:
+        try (ByteArrayInputStream bais = new ByteArrayInputStream(record, 1, record.length - 1)) {
+          Metric metric = jsonSerializer.read(Metric.class, bais);
+          metrics.put(metric.getImpressionId(), metric);
+          setRecordSize(metric.getImpressionId(), RECORD_HEADER_SIZE + record.length - 1);
+          return true;
+        } catch (IOException e) {
+          logger.debug("Error while reading metric from journal", e);
+          return false;
+        }
+      case REMOVE:
+        onRemove(new String(record, 1, record.length - 1, UTF_8));
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  @GuardedBy("journalLock")
+  private void importLegacyMetrics() {
+    if (legacyDirectory == null) {
+      return;
+    }
+
+    for (File metricFile : legacyDirectory.listFiles()) {
+      try {
+        SyncMetricFile syncMetricFile = legacyDirectory.createSyncMetricFile(metricFile);
+        Metric metric = syncMetricFile.read();
+        byte[] payload = serialize(metric);
+
+        append(PUT, payload, false);
+        onPut(metric, payload);
+
+        // If the app crashes before the deletion, the metric is simply imported again
+        syncMetricFile.delete();
+      } catch (IOException e) {
+        logger.debug("Error while importing metric in journal", e);
+        if (!isLoaded) {
+          // The journal is in error, the import is retried on next operation
+          return;
+        }
+      }
+    }
+  }
+
+  @NonNull
+  private byte[] serialize(@NonNull Metric metric) throws IOException {
+    try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+      jsonSerializer.write(metric, baos);
+      return baos.toByteArray();
+    }
+  }
+
+  @NonNull
+  private static byte[] encodeRecord(byte type, @NonNull byte[] payload) {
+    CRC32 crc = new CRC32();
+    crc.update(type);
+    crc.update(payload);
+
+    byte[] record = new byte[RECORD_HEADER_SIZE + payload.length];
+    ByteBuffer.wrap(record)
+        .putInt(payload.length)
+        .putInt((int) crc.getValue())
+        .put(type)
+        .put(payload);
+    return record;
+  }
+
+  @NonNull
+  private File getCompactedFile() {
+    return new File(journalFile.getPath() + ".compacting");
+  }
+}
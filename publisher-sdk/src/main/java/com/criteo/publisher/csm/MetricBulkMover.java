@@ -0,0 +1,45 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.csm;
+
+import androidx.annotation.NonNull;
+import java.util.List;
+
+/**
+ * Organize a move of many metrics at once from an original container to a destination one.
+ *
+ * @see MetricMover
+ */
+interface MetricBulkMover {
+
+  /**
+   * Try to push the given metrics, in order, into the destination container.
+   * <p>
+   * At this point, the given metrics are effectively extracted from their original container.
+   * <p>
+   * Implementation should commit the move of the first metrics to the destination container, and
+   * return the number of committed metrics. The following metrics are considered as not moved.
+   * <p>
+   * In case of failure (by a partial count or by exception), the caller may try to insert back the
+   * metrics that were not moved into the original container in order to rollback the operation.
+   *
+   * @param metrics metrics to inject into the destination container
+   * @return number of first metrics that are successfully committed
+   */
+  int offerAllToDestination(@NonNull List<Metric> metrics);
+
+}
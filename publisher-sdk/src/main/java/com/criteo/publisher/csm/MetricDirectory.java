@@ -32,6 +32,8 @@ class MetricDirectory {
 
   private static final String METRIC_FILE_EXTENSION = ".csm";
 
+  private static final String JOURNAL_FILENAME = "metrics.journal";
+
   @NonNull
   private final Context context;
 
@@ -72,6 +74,17 @@ class MetricDirectory {
     return new File(getDirectoryFile(), metricFilename);
   }
 
+  /**
+   * Return the file of the journal used by {@link JournalMetricRepository}.
+   * <p>
+   * It does not have the extension of metric files, so it is never {@linkplain #listFiles() listed}
+   * as one of them.
+   */
+  @NonNull
+  File getJournalFile() {
+    return new File(getDirectoryFile(), JOURNAL_FILENAME);
+  }
+
   @NonNull
   SyncMetricFile createSyncMetricFile(@NonNull File metricFile) {
     String impressionId = getImpressionIdFromMetricFilename(metricFile);
@@ -0,0 +1,97 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.criteo.publisher.csm
+
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.IOException
+
+/**
+ * Compact encoding of [Metric].
+ *
+ * Version 1 starts with a bit set indicating the boolean fields and the presence of the optional ones. Then only the
+ * present fields are written, in their declaration order, with variable-length numbers.
+ */
+internal class MetricQueueCodec : QueueElementCodec<Metric> {
+
+  override val version: Int = 1
+
+  override fun write(element: Metric, output: DataOutputStream) {
+    var flags = 0
+    if (element.cdbCallStartTimestamp != null) flags = flags or HAS_CDB_CALL_START_TIMESTAMP
+    if (element.cdbCallEndTimestamp != null) flags = flags or HAS_CDB_CALL_END_TIMESTAMP
+    if (element.isCdbCallTimeout) flags = flags or IS_CDB_CALL_TIMEOUT
+    if (element.isCachedBidUsed) flags = flags or IS_CACHED_BID_USED
+    if (element.elapsedTimestamp != null) flags = flags or HAS_ELAPSED_TIMESTAMP
+    if (element.requestGroupId != null) flags = flags or HAS_REQUEST_GROUP_ID
+    if (element.zoneId != null) flags = flags or HAS_ZONE_ID
+    if (element.profileId != null) flags = flags or HAS_PROFILE_ID
+    if (element.isReadyToSend) flags = flags or IS_READY_TO_SEND
+
+    output.writeVarInt(flags)
+    element.cdbCallStartTimestamp?.let { output.writeVarLong(it) }
+    element.cdbCallEndTimestamp?.let { output.writeVarLong(it) }
+    element.elapsedTimestamp?.let { output.writeVarLong(it) }
+    output.writeString(element.impressionId)
+    element.requestGroupId?.let { output.writeString(it) }
+    element.zoneId?.let { output.writeVarInt(it) }
+    element.profileId?.let { output.writeVarInt(it) }
+  }
+
+  override fun read(version: Int, input: DataInputStream): Metric {
+    if (version != 1) {
+      throw IOException("Unknown metric encoding version: $version")
+    }
+
+    val flags = input.readVarInt()
+    val cdbCallStartTimestamp = if (flags has HAS_CDB_CALL_START_TIMESTAMP) input.readVarLong() else null
+    val cdbCallEndTimestamp = if (flags has HAS_CDB_CALL_END_TIMESTAMP) input.readVarLong() else null
+    val elapsedTimestamp = if (flags has HAS_ELAPSED_TIMESTAMP) input.readVarLong() else null
+    val impressionId = input.readString()
+    val requestGroupId = if (flags has HAS_REQUEST_GROUP_ID) input.readString() else null
+    val zoneId = if (flags has HAS_ZONE_ID) input.readVarInt() else null
+    val profileId = if (flags has HAS_PROFILE_ID) input.readVarInt() else null
+
+    return Metric(
+        cdbCallStartTimestamp = cdbCallStartTimestamp,
+        cdbCallEndTimestamp = cdbCallEndTimestamp,
+        isCdbCallTimeout = flags has IS_CDB_CALL_TIMEOUT,
+        isCachedBidUsed = flags has IS_CACHED_BID_USED,
+        elapsedTimestamp = elapsedTimestamp,
+        impressionId = impressionId,
+        requestGroupId = requestGroupId,
+        zoneId = zoneId,
+        profileId = profileId,
+        isReadyToSend = flags has IS_READY_TO_SEND
+    )
+  }
+
+  private infix fun Int.has(flag: Int) = this and flag != 0
+
+  private companion object {
+    const val HAS_CDB_CALL_START_TIMESTAMP = 1
+    const val HAS_CDB_CALL_END_TIMESTAMP = 1 shl 1
+    const val IS_CDB_CALL_TIMEOUT = 1 shl 2
+    const val IS_CACHED_BID_USED = 1 shl 3
+    const val HAS_ELAPSED_TIMESTAMP = 1 shl 4
+    const val HAS_REQUEST_GROUP_ID = 1 shl 5
+    const val HAS_ZONE_ID = 1 shl 6
+    const val HAS_PROFILE_ID = 1 shl 7
+    const val IS_READY_TO_SEND = 1 shl 8
+  }
+}
@@ -17,9 +17,10 @@
 package com.criteo.publisher.csm;
 
 import androidx.annotation.NonNull;
+import com.criteo.publisher.util.ApplicationStoppedListener;
 import java.util.Collection;
 
-public abstract class MetricRepository {
+public abstract class MetricRepository implements ApplicationStoppedListener {
 
   /**
    * Atomically update the metric matching the given id with the given updater.
@@ -49,6 +50,25 @@ public abstract class MetricRepository {
    */
   abstract void moveById(@NonNull String impressionId, @NonNull MetricMover mover);
 
+  /**
+   * Atomically move all the stored metrics, except the ones with the given IDs, with the given
+   * mover.
+   * <p>
+   * The metrics are read and deleted, and then they are all moved at once with the given mover.
+   * The metrics that the mover did not commit are rollback. The mover is not called if there is no
+   * metric to move.
+   * <p>
+   * Like for {@link #moveById(String, MetricMover)}, the metrics are first deleted, and then
+   * moved, so data may be lost in case of crashes, but it is never duplicated.
+   *
+   * @param excludedImpressionIds IDs of the metrics to keep in this repository
+   * @param mover the definition of the move to handle
+   */
+  abstract void moveAll(
+      @NonNull Collection<String> excludedImpressionIds,
+      @NonNull MetricBulkMover mover
+  );
+
   /**
    * Returns all stored metric into this repository.
    * <p>
@@ -75,6 +95,17 @@ public abstract class MetricRepository {
    */
   abstract boolean contains(@NonNull String impressionId);
 
+  /**
+   * Called when the application goes to background.
+   * <p>
+   * Repositories keeping pending updates in memory should write them in their store, as the
+   * application may be killed at any time after this.
+   */
+  @Override
+  public void onApplicationStopped() {
+    // nothing to write by default
+  }
+
   interface MetricUpdater {
 
     void update(@NonNull Metric.Builder metricBuilder);
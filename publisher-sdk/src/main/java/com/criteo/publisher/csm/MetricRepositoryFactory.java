@@ -19,8 +19,12 @@ package com.criteo.publisher.csm;
 import android.content.Context;
 import androidx.annotation.NonNull;
 import com.criteo.publisher.DependencyProvider.Factory;
+import com.criteo.publisher.model.Config;
 import com.criteo.publisher.util.BuildConfigWrapper;
 import com.criteo.publisher.util.JsonSerializer;
+import java.io.File;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
 
 public class MetricRepositoryFactory implements Factory<MetricRepository> {
 
@@ -33,21 +37,57 @@ public class MetricRepositoryFactory implements Factory<MetricRepository> {
   @NonNull
   private final BuildConfigWrapper buildConfigWrapper;
 
+  @NonNull
+  private final Config config;
+
+  @NonNull
+  private final ScheduledExecutorService scheduledExecutorService;
+
+  @NonNull
+  private final Executor executor;
+
   public MetricRepositoryFactory(
       @NonNull Context context,
       @NonNull JsonSerializer jsonSerializer,
-      @NonNull BuildConfigWrapper buildConfigWrapper
+      @NonNull BuildConfigWrapper buildConfigWrapper,
+      @NonNull Config config,
+      @NonNull ScheduledExecutorService scheduledExecutorService,
+      @NonNull Executor executor
   ) {
     this.context = context;
     this.jsonSerializer = jsonSerializer;
     this.buildConfigWrapper = buildConfigWrapper;
+    this.config = config;
+    this.scheduledExecutorService = scheduledExecutorService;
+    this.executor = executor;
   }
 
   @NonNull
   @Override
   public MetricRepository create() {
     MetricDirectory directory = new MetricDirectory(context, buildConfigWrapper, jsonSerializer);
-    MetricRepository fileMetricRepository = new FileMetricRepository(directory);
-    return new BoundedMetricRepository(fileMetricRepository, buildConfigWrapper);
+
+    // The store is chosen once, from the config persisted during the previous session
+    MetricRepository metricRepository;
+    File journalFile = directory.getJournalFile();
+    if (config.isCsmJournalEnabled()) {
+      metricRepository = new JournalMetricRepository(journalFile, directory, jsonSerializer);
+    } else {
+      // Metrics left in the journal, if it was enabled in a previous session, are not lost
+      JournalMetricRepository previousJournal = journalFile.exists()
+          ? new JournalMetricRepository(journalFile, null, jsonSerializer)
+          : null;
+      metricRepository = new FileMetricRepository(directory, previousJournal);
+    }
+
+    if (config.isCsmWriteBackEnabled()) {
+      metricRepository = new WriteBackMetricRepository(
+          metricRepository,
+          scheduledExecutorService,
+          executor
+      );
+    }
+
+    return new BoundedMetricRepository(metricRepository, buildConfigWrapper);
   }
 }
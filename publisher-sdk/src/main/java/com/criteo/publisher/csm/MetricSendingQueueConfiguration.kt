@@ -30,4 +30,5 @@ internal class MetricSendingQueueConfiguration(
   override val elementClass = Metric::class.java
   override val estimatedSize: Int
     get() = buildConfigWrapper.estimatedSizeOfCsmMetric
+  override val elementCodec: QueueElementCodec<Metric> = MetricQueueCodec()
 }
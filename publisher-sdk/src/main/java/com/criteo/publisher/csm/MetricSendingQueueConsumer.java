@@ -17,12 +17,14 @@
 package com.criteo.publisher.csm;
 
 import androidx.annotation.NonNull;
+import com.criteo.publisher.context.ConnectivityMonitor;
 import com.criteo.publisher.model.Config;
 import com.criteo.publisher.network.PubSdkApi;
 import com.criteo.publisher.util.BuildConfigWrapper;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-public class MetricSendingQueueConsumer {
+public class MetricSendingQueueConsumer implements ConnectivityMonitor.Listener {
 
   @NonNull
   private final MetricSendingQueue queue;
@@ -39,18 +41,30 @@ public class MetricSendingQueueConsumer {
   @NonNull
   private final Executor executor;
 
+  @NonNull
+  private final ConnectivityMonitor connectivityMonitor;
+
+  /**
+   * Indicate if a batch was requested while the device was offline. It is sent once the network
+   * is back.
+   */
+  @NonNull
+  private final AtomicBoolean isBatchParked = new AtomicBoolean(false);
+
   public MetricSendingQueueConsumer(
       @NonNull MetricSendingQueue queue,
       @NonNull PubSdkApi api,
       @NonNull BuildConfigWrapper buildConfigWrapper,
       @NonNull Config config,
-      @NonNull Executor executor
+      @NonNull Executor executor,
+      @NonNull ConnectivityMonitor connectivityMonitor
   ) {
     this.queue = queue;
     this.api = api;
     this.buildConfigWrapper = buildConfigWrapper;
     this.config = config;
     this.executor = executor;
+    this.connectivityMonitor = connectivityMonitor;
   }
 
   /**
@@ -62,10 +76,31 @@ public class MetricSendingQueueConsumer {
    * The batch is polled from the queue (instead of peeked). Data loss is tolerated if the process
    * is terminated while the batch is being sent to the CSM backed. This is to ensure that the same
    * metric will never be sent to CSM backend twice.
+   * <p>
+   * While the device is offline, nothing is sent: the metrics stay in the queue and a single batch
+   * is sent when the network is back.
    */
   public void sendMetricBatch() {
-    if (config.isCsmEnabled()) {
-      executor.execute(new MetricSendingTask(queue, api, buildConfigWrapper));
+    if (!config.isCsmEnabled()) {
+      return;
+    }
+
+    if (!connectivityMonitor.isConnected()) {
+      isBatchParked.set(true);
+
+      // The network may have come back before the batch was parked
+      if (!connectivityMonitor.isConnected() || !isBatchParked.compareAndSet(true, false)) {
+        return;
+      }
+    }
+
+    executor.execute(new MetricSendingTask(queue, api, buildConfigWrapper));
+  }
+
+  @Override
+  public void onConnectivityChanged(boolean isConnected) {
+    if (isConnected && isBatchParked.compareAndSet(true, false)) {
+      sendMetricBatch();
     }
   }
 
@@ -17,6 +17,9 @@
 package com.criteo.publisher.csm;
 
 import androidx.annotation.NonNull;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 public class MetricSendingQueueProducer {
 
@@ -28,9 +31,28 @@ public class MetricSendingQueueProducer {
   }
 
   public void pushAllInQueue(@NonNull MetricRepository repository) {
-    for (Metric metric : repository.getAllStoredMetrics()) {
-      pushInQueue(repository, metric.getImpressionId());
-    }
+    pushAllInQueue(repository, Collections.emptySet());
+  }
+
+  /**
+   * Push all stored metrics in the sending queue, except the ones with the given impression IDs.
+   * <p>
+   * All the metrics are moved at once, so the repository and the queue are only accessed once,
+   * whatever the number of stored metrics.
+   *
+   * @param repository repository containing metrics to push
+   * @param excludedImpressionIds impression IDs of metrics to keep in the repository
+   */
+  public void pushAllInQueue(
+      @NonNull MetricRepository repository,
+      @NonNull Collection<String> excludedImpressionIds
+  ) {
+    repository.moveAll(excludedImpressionIds, new MetricBulkMover() {
+      @Override
+      public int offerAllToDestination(@NonNull List<Metric> metrics) {
+        return queue.offerAll(metrics);
+      }
+    });
   }
 
   void pushInQueue(
@@ -24,6 +24,7 @@ import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import com.criteo.publisher.logging.Logger;
 import com.criteo.publisher.logging.LoggerFactory;
+import com.criteo.publisher.model.Config;
 import com.criteo.publisher.util.JsonSerializer;
 import com.squareup.tape.FileObjectQueue;
 import com.squareup.tape.InMemoryObjectQueue;
@@ -47,14 +48,19 @@ public class ObjectQueueFactory<T> {
   @NonNull
   private final SendingQueueConfiguration<T> sendingQueueConfiguration;
 
+  @NonNull
+  private final Config config;
+
   public ObjectQueueFactory(
       @NonNull Context context,
       @NonNull JsonSerializer jsonSerializer,
-      @NonNull SendingQueueConfiguration<T> sendingQueueConfiguration
+      @NonNull SendingQueueConfiguration<T> sendingQueueConfiguration,
+      @NonNull Config config
   ) {
     this.context = context;
     this.jsonSerializer = jsonSerializer;
     this.sendingQueueConfiguration = sendingQueueConfiguration;
+    this.config = config;
   }
 
   @NonNull
@@ -71,10 +77,7 @@ public class ObjectQueueFactory<T> {
   private ObjectQueue<T> createTapeObjectQueue(@NonNull File file) {
     Throwable exception;
     try {
-      FileObjectQueue<T> queue = new FileObjectQueue<>(file, new AdapterConverter<>(
-          jsonSerializer,
-          sendingQueueConfiguration.getElementClass()
-      ));
+      FileObjectQueue<T> queue = new FileObjectQueue<>(file, createConverter());
 
       // Try to peek to be sure that the queue is not corrupted.
       queue.peek();
@@ -90,10 +93,7 @@ public class ObjectQueueFactory<T> {
 
     if (isDeleted) {
       try {
-        return new FileObjectQueue<>(file, new AdapterConverter<>(
-            jsonSerializer,
-            sendingQueueConfiguration.getElementClass()
-        ));
+        return new FileObjectQueue<>(file, createConverter());
       } catch (IOException e) {
         exception.addSuppressed(e);
       } finally {
@@ -105,6 +105,15 @@ public class ObjectQueueFactory<T> {
     return new InMemoryObjectQueue<>();
   }
 
+  @NonNull
+  private FileObjectQueue.Converter<T> createConverter() {
+    return new CompactQueueConverter<>(
+        new AdapterConverter<>(jsonSerializer, sendingQueueConfiguration.getElementClass()),
+        sendingQueueConfiguration.getElementCodec(),
+        config
+    );
+  }
+
   private boolean delete(@NonNull File file) {
     if (file.isDirectory()) {
       File[] files = file.listFiles();
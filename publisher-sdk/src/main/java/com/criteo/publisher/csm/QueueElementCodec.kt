@@ -0,0 +1,167 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.criteo.publisher.csm
+
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.IOException
+
+private const val VAR_INT_PAYLOAD_BITS = 7
+private const val VAR_INT_PAYLOAD_MASK = 0x7F
+private const val VAR_INT_CONTINUATION_BIT = 0x80
+
+/**
+ * Compact binary encoding of the elements of a sending queue.
+ *
+ * Encoded elements are stored in the queue file, after a header written by [CompactQueueConverter] and holding the
+ * [version] of the codec. The bytes written by a version should never change meaning: if the encoding has to evolve,
+ * then the version should be bumped and [read] should keep reading the previous versions, as they may still be in the
+ * queue.
+ */
+interface QueueElementCodec<T> {
+
+  /**
+   * Version of the encoding written by [write], between 0 and 255.
+   */
+  val version: Int
+
+  @Throws(IOException::class)
+  fun write(element: T, output: DataOutputStream)
+
+  /**
+   * Read an element that was written with the given version of this codec.
+   *
+   * @throws IOException if the version is unknown or if the input is not a valid element
+   */
+  @Throws(IOException::class)
+  fun read(version: Int, input: DataInputStream): T
+}
+
+/**
+ * Write a non-negative integer on 1 to 5 bytes, 7 bits at a time, from the least significant ones. Negative integers
+ * are also supported but they take 5 bytes.
+ */
+@Throws(IOException::class)
+internal fun DataOutputStream.writeVarInt(value: Int) {
+  var remaining = value
+  while (remaining and VAR_INT_PAYLOAD_MASK.inv() != 0) {
+    writeByte(remaining and VAR_INT_PAYLOAD_MASK or VAR_INT_CONTINUATION_BIT)
+    remaining = remaining ushr VAR_INT_PAYLOAD_BITS
+  }
+  writeByte(remaining)
+}
+
+@Throws(IOException::class)
+internal fun DataInputStream.readVarInt(): Int {
+  var value = 0
+  var shift = 0
+  while (shift < Int.SIZE_BITS) {
+    val byte = readUnsignedByte()
+    value = value or (byte and VAR_INT_PAYLOAD_MASK shl shift)
+    if (byte and VAR_INT_CONTINUATION_BIT == 0) {
+      return value
+    }
+    shift += VAR_INT_PAYLOAD_BITS
+  }
+  throw IOException("Malformed variable-length integer")
+}
+
+/**
+ * Write a non-negative long on 1 to 10 bytes, like [writeVarInt]. A timestamp in milliseconds takes 6 bytes.
+ */
+@Throws(IOException::class)
+internal fun DataOutputStream.writeVarLong(value: Long) {
+  var remaining = value
+  while (remaining and VAR_INT_PAYLOAD_MASK.toLong().inv() != 0L) {
+    writeByte((remaining.toInt() and VAR_INT_PAYLOAD_MASK) or VAR_INT_CONTINUATION_BIT)
+    remaining = remaining ushr VAR_INT_PAYLOAD_BITS
+  }
+  writeByte(remaining.toInt())
+}
+
+@Throws(IOException::class)
+internal fun DataInputStream.readVarLong(): Long {
+  var value = 0L
+  var shift = 0
+  while (shift < Long.SIZE_BITS) {
+    val byte = readUnsignedByte()
+    value = value or ((byte and VAR_INT_PAYLOAD_MASK).toLong() shl shift)
+    if (byte and VAR_INT_CONTINUATION_BIT == 0) {
+      return value
+    }
+    shift += VAR_INT_PAYLOAD_BITS
+  }
+  throw IOException("Malformed variable-length long")
+}
+
+/**
+ * Write the given string as its length in bytes followed by its UTF-8 bytes.
+ *
+ * Unlike [DataOutputStream.writeUTF], this has no limit on the length of the string.
+ */
+@Throws(IOException::class)
+internal fun DataOutputStream.writeString(value: String) {
+  val bytes = value.toByteArray(Charsets.UTF_8)
+  writeVarInt(bytes.size)
+  write(bytes)
+}
+
+@Throws(IOException::class)
+internal fun DataInputStream.readString(): String {
+  val length = readVarInt()
+  if (length < 0 || length > available()) {
+    throw IOException("Invalid string length: $length")
+  }
+
+  val bytes = ByteArray(length)
+  readFully(bytes)
+  return String(bytes, Charsets.UTF_8)
+}
+
+/**
+ * Write the given string like [writeString], but with its length shifted by one, so <code>null</code> is written as
+ * a zero length.
+ */
+@Throws(IOException::class)
+internal fun DataOutputStream.writeNullableString(value: String?) {
+  if (value == null) {
+    writeVarInt(0)
+    return
+  }
+
+  val bytes = value.toByteArray(Charsets.UTF_8)
+  writeVarInt(bytes.size + 1)
+  write(bytes)
+}
+
+@Throws(IOException::class)
+internal fun DataInputStream.readNullableString(): String? {
+  val shiftedLength = readVarInt()
+  if (shiftedLength == 0) {
+    return null
+  }
+
+  val length = shiftedLength - 1
+  if (length < 0 || length > available()) {
+    throw IOException("Invalid string length: $length")
+  }
+
+  val bytes = ByteArray(length)
+  readFully(bytes)
+  return String(bytes, Charsets.UTF_8)
+}
@@ -37,4 +37,9 @@ internal interface SendingQueueConfiguration<T> {
    * Estimated size in bytes of one element in the sending queue.
    */
   val estimatedSize: Int
+
+  /**
+   * Compact encoding of the elements, used instead of JSON when it is enabled.
+   */
+  val elementCodec: QueueElementCodec<T>
 }
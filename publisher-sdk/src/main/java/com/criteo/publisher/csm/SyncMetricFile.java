@@ -19,7 +19,6 @@ package com.criteo.publisher.csm;
 import android.util.AtomicFile;
 import androidx.annotation.GuardedBy;
 import androidx.annotation.NonNull;
-import androidx.annotation.VisibleForTesting;
 import com.criteo.publisher.csm.MetricRepository.MetricUpdater;
 import com.criteo.publisher.util.JsonSerializer;
 import java.io.BufferedInputStream;
@@ -84,7 +83,6 @@ class SyncMetricFile {
     }
   }
 
-  @VisibleForTesting
   void write(Metric metric) throws IOException {
     synchronized (fileLock) {
       // Invalidate in-memory version. This is to prevent any inconsistency in case of IO error.
@@ -140,7 +138,6 @@ class SyncMetricFile {
     }
   }
 
-  @VisibleForTesting
   void delete() {
     synchronized (fileLock) {
       metricInMemory = new SoftReference<>(null);
@@ -83,6 +83,25 @@ class TapeSendingQueue<T> implements ConcurrentSendingQueue<T> {
     }
   }
 
+  @Override
+  public int offerAll(@NonNull List<T> elements) {
+    synchronized (queueLock) {
+      ObjectQueue<T> queue = createQueueIfNecessary();
+
+      int offered = 0;
+      for (T element : elements) {
+        try {
+          queue.add(element);
+          offered++;
+        } catch (FileException e) {
+          PreconditionsUtil.throwOrLog(e);
+          break;
+        }
+      }
+      return offered;
+    }
+  }
+
   @NonNull
   @Override
   public List<T> poll(int max) {
@@ -0,0 +1,480 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.csm;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import com.criteo.publisher.SafeRunnable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link MetricRepository} keeping metrics in memory, and writing their updates in a backing
+ * repository in batches.
+ * <p>
+ * A bid goes through several lifecycle events, and each of them updates its metric. Instead of
+ * writing each update in the backing repository, updated metrics are marked as pending and only
+ * their latest version is written when pending metrics are flushed:
+ * <ul>
+ *   <li>a short delay after the first pending update,</li>
+ *   <li>right away once there are too many pending metrics,</li>
+ *   <li>when the application goes to background.</li>
+ * </ul>
+ * Metrics are read from memory. The backing repository is only read once, when this repository is
+ * first used.
+ * <p>
+ * A metric that is moved before being flushed is never written in the backing repository. A
+ * metric that was flushed is moved through the backing repository, so it is removed there before
+ * its latest version is offered, and it is never duplicated.
+ * <p>
+ * Pending updates are lost if the application is killed before they are flushed. This is
+ * acceptable for client-side metrics, that are expected to be sent on a best-effort basis.
+ */
+class WriteBackMetricRepository extends MetricRepository {
+
+  /**
+   * Delay between the first pending update and the flush of pending metrics.
+   */
+  @VisibleForTesting
+  static final long FLUSH_DELAY_IN_MILLIS = 10_000;
+
+  /**
+   * Pending metrics are flushed right away once there are that many of them.
+   */
+  @VisibleForTesting
+  static final int MAX_PENDING_METRICS = 32;
+
+  @NonNull
+  private final MetricRepository delegate;
+
+  @NonNull
+  private final ScheduledExecutorService scheduledExecutorService;
+
+  @NonNull
+  private final Executor executor;
+
+  /**
+   * Operations on the backing repository are serialized by this lock, so that a flush never writes
+   * a metric that is concurrently moved. Updates in memory never wait for it.
+   */
+  @NonNull
+  private final Object flushLock = new Object();
+
+  @NonNull
+  private final Object memoryLock = new Object();
+
+  @GuardedBy("memoryLock")
+  @NonNull
+  private final Map<String, Metric> metrics = new HashMap<>();
+
+  @GuardedBy("memoryLock")
+  @NonNull
+  private final Set<String> pendingIds = new LinkedHashSet<>();
+
+  /**
+   * Impression IDs of the metrics that are stored in the backing repository.
+   */
+  @GuardedBy("flushLock")
+  @NonNull
+  private final Set<String> persistedIds = new HashSet<>();
+
+  @NonNull
+  private final AtomicBoolean isFlushScheduled = new AtomicBoolean(false);
+
+  private volatile boolean isLoaded = false;
+
+  WriteBackMetricRepository(
+      @NonNull MetricRepository delegate,
+      @NonNull ScheduledExecutorService scheduledExecutorService,
+      @NonNull Executor executor
+  ) {
+    this.delegate = delegate;
+    this.scheduledExecutorService = scheduledExecutorService;
+    this.executor = executor;
+  }
+
+  @Override
+  void addOrUpdateById(@NonNull String impressionId, @NonNull MetricUpdater updater) {
+    ensureLoaded();
+
+    int pendingCount;
+    synchronized (memoryLock) {
+      Metric metric = metrics.get(impressionId);
+      Metric.Builder builder = metric == null ? Metric.builder(impressionId) : metric.toBuilder();
+      updater.update(builder);
+      metrics.put(impressionId, builder.build());
+      pendingIds.add(impressionId);
+      pendingCount = pendingIds.size();
+    }
+
+    if (pendingCount >= MAX_PENDING_METRICS) {
+      flush();
+    } else {
+      scheduleFlush();
+    }
+  }
+
+  @Override
+  void moveById(@NonNull String impressionId, @NonNull MetricMover mover) {
+    synchronized (flushLock) {
+      loadIfNeeded();
+
+      Metric metric;
+      synchronized (memoryLock) {
+        metric = metrics.remove(impressionId);
+        pendingIds.remove(impressionId);
+      }
+
+      if (metric == null) {
+        return;
+      }
+
+      boolean isPersisted = persistedIds.remove(impressionId);
+      boolean isMoved = false;
+      try {
+        if (isPersisted) {
+          LatestVersionMover latestVersionMover = new LatestVersionMover(metric, mover);
+          delegate.moveById(impressionId, latestVersionMover);
+
+          if (latestVersionMover.isOffered) {
+            isMoved = latestVersionMover.isMoved;
+            // On a refused offer, the backing repository rolled back its own version
+            isPersisted = !isMoved;
+          } else {
+            // The backing repository lost this metric, the one in memory is still offered
+            isPersisted = false;
+            isMoved = mover.offerToDestination(metric);
+          }
+        } else {
+          isMoved = mover.offerToDestination(metric);
+        }
+      } finally {
+        if (!isMoved) {
+          rollback(metric, isPersisted);
+        }
+      }
+    }
+  }
+
+  /**
+   * Move all the metrics in memory, except the excluded ones, with a single move.
+   * <p>
+   * The metrics that are stored in the backing repository are moved through it, in a single move,
+   * so they are removed there before being offered. Their latest version is offered, followed by
+   * the metrics that are only in memory.
+   */
+  @Override
+  void moveAll(
+      @NonNull Collection<String> excludedImpressionIds,
+      @NonNull MetricBulkMover mover
+  ) {
+    synchronized (flushLock) {
+      loadIfNeeded();
+
+      Map<String, Metric> metricsToMove = new LinkedHashMap<>();
+      synchronized (memoryLock) {
+        for (Metric metric : metrics.values()) {
+          if (!excludedImpressionIds.contains(metric.getImpressionId())) {
+            metricsToMove.put(metric.getImpressionId(), metric);
+          }
+        }
+
+        for (String impressionId : metricsToMove.keySet()) {
+          metrics.remove(impressionId);
+          pendingIds.remove(impressionId);
+        }
+      }
+
+      if (metricsToMove.isEmpty()) {
+        return;
+      }
+
+      LatestVersionsBulkMover latestVersionsMover = new LatestVersionsBulkMover(
+          metricsToMove,
+          mover
+      );
+      try {
+        delegate.moveAll(excludedImpressionIds, latestVersionsMover);
+      } finally {
+        latestVersionsMover.onMovedFromDelegate();
+      }
+    }
+  }
+
+  @GuardedBy("flushLock")
+  private void rollback(@NonNull Metric metric, boolean isPersisted) {
+    String impressionId = metric.getImpressionId();
+    if (isPersisted) {
+      persistedIds.add(impressionId);
+    }
+
+    synchronized (memoryLock) {
+      if (!metrics.containsKey(impressionId)) {
+        metrics.put(impressionId, metric);
+        pendingIds.add(impressionId);
+      }
+    }
+
+    scheduleFlush();
+  }
+
+  @NonNull
+  @Override
+  Collection<Metric> getAllStoredMetrics() {
+    ensureLoaded();
+
+    synchronized (memoryLock) {
+      return new ArrayList<>(metrics.values());
+    }
+  }
+
+  /**
+   * Return the size of the metrics written in the backing repository.
+   * <p>
+   * Pending metrics are not accounted, but there are never more than {@link #MAX_PENDING_METRICS}
+   * of them.
+   */
+  @Override
+  int getTotalSize() {
+    return delegate.getTotalSize();
+  }
+
+  @Override
+  boolean contains(@NonNull String impressionId) {
+    ensureLoaded();
+
+    synchronized (memoryLock) {
+      return metrics.containsKey(impressionId);
+    }
+  }
+
+  @Override
+  public void onApplicationStopped() {
+    executor.execute(new SafeRunnable() {
+      @Override
+      public void runSafely() {
+        flush();
+      }
+    });
+  }
+
+  /**
+   * Write the latest version of all pending metrics in the backing repository.
+   */
+  @VisibleForTesting
+  void flush() {
+    isFlushScheduled.set(false);
+
+    synchronized (flushLock) {
+      List<Metric> pendingMetrics;
+      synchronized (memoryLock) {
+        pendingMetrics = new ArrayList<>(pendingIds.size());
+        for (String impressionId : pendingIds) {
+          pendingMetrics.add(metrics.get(impressionId));
+        }
+        pendingIds.clear();
+      }
+
+      for (Metric metric : pendingMetrics) {
+        delegate.addOrUpdateById(metric.getImpressionId(), builder -> copy(metric, builder));
+        persistedIds.add(metric.getImpressionId());
+      }
+    }
+  }
+
+  private void scheduleFlush() {
+    if (!isFlushScheduled.compareAndSet(false, true)) {
+      return;
+    }
+
+    boolean isScheduled = false;
+    try {
+      scheduledExecutorService.schedule(new SafeRunnable() {
+        @Override
+        public void runSafely() {
+          executor.execute(new SafeRunnable() {
+            @Override
+            public void runSafely() {
+              flush();
+            }
+          });
+        }
+      }, FLUSH_DELAY_IN_MILLIS, TimeUnit.MILLISECONDS);
+      isScheduled = true;
+    } finally {
+      if (!isScheduled) {
+        // Next update will try again
+        isFlushScheduled.set(false);
+      }
+    }
+  }
+
+  private void ensureLoaded() {
+    if (!isLoaded) {
+      synchronized (flushLock) {
+        loadIfNeeded();
+      }
+    }
+  }
+
+  @GuardedBy("flushLock")
+  private void loadIfNeeded() {
+    if (isLoaded) {
+      return;
+    }
+
+    Collection<Metric> storedMetrics = delegate.getAllStoredMetrics();
+    synchronized (memoryLock) {
+      for (Metric storedMetric : storedMetrics) {
+        String impressionId = storedMetric.getImpressionId();
+        persistedIds.add(impressionId);
+        if (!metrics.containsKey(impressionId)) {
+          metrics.put(impressionId, storedMetric);
+        }
+      }
+    }
+
+    isLoaded = true;
+  }
+
+  private static void copy(@NonNull Metric source, @NonNull Metric.Builder destination) {
+    destination.setCdbCallStartTimestamp(source.getCdbCallStartTimestamp())
+        .setCdbCallEndTimestamp(source.getCdbCallEndTimestamp())
+        .setCdbCallTimeout(source.isCdbCallTimeout())
+        .setCachedBidUsed(source.isCachedBidUsed())
+        .setElapsedTimestamp(source.getElapsedTimestamp())
+        .setRequestGroupId(source.getRequestGroupId())
+        .setZoneId(source.getZoneId())
+        .setProfileId(source.getProfileId())
+        .setReadyToSend(source.isReadyToSend());
+  }
+
+  /**
+   * Offer the versions of the metrics that are in memory, instead of the outdated ones read by the
+   * backing repository, and then the metrics that are only in memory.
+   * <p>
+   * If the backing repository does not offer anything, the metrics in memory are still offered
+   * once it is {@linkplain #onMovedFromDelegate() done}.
+   */
+  private class LatestVersionsBulkMover implements MetricBulkMover {
+
+    /**
+     * Metrics to move that are not offered yet, by impression ID.
+     */
+    @NonNull
+    private final Map<String, Metric> metricsToMove;
+
+    @NonNull
+    private final MetricBulkMover mover;
+
+    @NonNull
+    private final List<Metric> offeredMetrics = new ArrayList<>();
+
+    private int persistedCount = 0;
+
+    private int movedCount = 0;
+
+    LatestVersionsBulkMover(
+        @NonNull Map<String, Metric> metricsToMove,
+        @NonNull MetricBulkMover mover
+    ) {
+      this.metricsToMove = metricsToMove;
+      this.mover = mover;
+    }
+
+    @Override
+    public int offerAllToDestination(@NonNull List<Metric> storedMetrics) {
+      for (Metric storedMetric : storedMetrics) {
+        Metric latestMetric = metricsToMove.remove(storedMetric.getImpressionId());
+        offeredMetrics.add(latestMetric == null ? storedMetric : latestMetric);
+      }
+      persistedCount = storedMetrics.size();
+      return offerAll();
+    }
+
+    /**
+     * Offer the remaining metrics, if needed, and rollback the metrics that were not moved.
+     */
+    @GuardedBy("flushLock")
+    void onMovedFromDelegate() {
+      try {
+        if (offeredMetrics.isEmpty()) {
+          offerAll();
+        }
+      } finally {
+        for (int i = 0; i < offeredMetrics.size(); i++) {
+          Metric metric = offeredMetrics.get(i);
+          persistedIds.remove(metric.getImpressionId());
+
+          if (i >= movedCount) {
+            // Metrics offered by the backing repository were rolled back there
+            rollback(metric, i < persistedCount);
+          }
+        }
+      }
+    }
+
+    private int offerAll() {
+      offeredMetrics.addAll(metricsToMove.values());
+      metricsToMove.clear();
+
+      movedCount = Math.max(0, mover.offerAllToDestination(offeredMetrics));
+      return Math.min(movedCount, persistedCount);
+    }
+  }
+
+  /**
+   * Offer the version of the metric that is in memory, instead of the outdated one read by the
+   * backing repository.
+   */
+  private static class LatestVersionMover implements MetricMover {
+
+    @NonNull
+    private final Metric latestMetric;
+
+    @NonNull
+    private final MetricMover mover;
+
+    private boolean isOffered = false;
+
+    private boolean isMoved = false;
+
+    LatestVersionMover(@NonNull Metric latestMetric, @NonNull MetricMover mover) {
+      this.latestMetric = latestMetric;
+      this.mover = mover;
+    }
+
+    @Override
+    public boolean offerToDestination(@NonNull Metric metric) {
+      isOffered = true;
+      isMoved = mover.offerToDestination(latestMetric);
+      return isMoved;
+    }
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.criteo.publisher.logging
+
+import com.criteo.publisher.csm.QueueElementCodec
+import com.criteo.publisher.csm.readNullableString
+import com.criteo.publisher.csm.readString
+import com.criteo.publisher.csm.readVarInt
+import com.criteo.publisher.csm.writeNullableString
+import com.criteo.publisher.csm.writeString
+import com.criteo.publisher.csm.writeVarInt
+import com.criteo.publisher.logging.RemoteLogRecords.RemoteLogContext
+import com.criteo.publisher.logging.RemoteLogRecords.RemoteLogLevel
+import com.criteo.publisher.logging.RemoteLogRecords.RemoteLogRecord
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.IOException
+
+/**
+ * Compact encoding of [RemoteLogRecords].
+ *
+ * Version 1 writes the fields of the context in their declaration order, then the records, each one as its level
+ * code followed by its messages. Lists are prefixed by their size.
+ */
+internal class RemoteLogRecordsQueueCodec : QueueElementCodec<RemoteLogRecords> {
+
+  override val version: Int = 1
+
+  override fun write(element: RemoteLogRecords, output: DataOutputStream) {
+    val context = element.context
+    output.writeString(context.version)
+    output.writeString(context.bundleId)
+    output.writeNullableString(context.deviceId)
+    output.writeString(context.sessionId)
+    output.writeVarInt(context.profileId)
+    output.writeNullableString(context.exceptionType)
+    output.writeNullableString(context.logId)
+    output.writeNullableString(context.deviceOs)
+
+    output.writeVarInt(element.logRecords.size)
+    element.logRecords.forEach { record ->
+      output.writeByte(record.level.toCode())
+      output.writeVarInt(record.messages.size)
+      record.messages.forEach { output.writeString(it) }
+    }
+  }
+
+  override fun read(version: Int, input: DataInputStream): RemoteLogRecords {
+    if (version != 1) {
+      throw IOException("Unknown remote log encoding version: $version")
+    }
+
+    val context = RemoteLogContext(
+        version = input.readString(),
+        bundleId = input.readString(),
+        deviceId = input.readNullableString(),
+        sessionId = input.readString(),
+        profileId = input.readVarInt(),
+        exceptionType = input.readNullableString(),
+        logId = input.readNullableString(),
+        deviceOs = input.readNullableString()
+    )
+
+    val records = List(input.readSize()) {
+      val level = input.readUnsignedByte().toRemoteLogLevel()
+      val messages = List(input.readSize()) { input.readString() }
+      RemoteLogRecord(level, messages)
+    }
+
+    return RemoteLogRecords(context, records)
+  }
+
+  /**
+   * Read the size of a list, checking that it is not greater than the remaining bytes, as each item takes at least one
+   * byte.
+   */
+  private fun DataInputStream.readSize(): Int {
+    val size = readVarInt()
+    if (size < 0 || size > available()) {
+      throw IOException("Invalid list size: $size")
+    }
+    return size
+  }
+
+  /**
+   * Stable code of the level, independent of the declaration order of the enum.
+   */
+  @Suppress("MagicNumber")
+  private fun RemoteLogLevel.toCode(): Int = when (this) {
+    RemoteLogLevel.DEBUG -> 0
+    RemoteLogLevel.INFO -> 1
+    RemoteLogLevel.WARNING -> 2
+    RemoteLogLevel.ERROR -> 3
+    RemoteLogLevel.NONE -> 4
+  }
+
+  @Suppress("MagicNumber")
+  private fun Int.toRemoteLogLevel(): RemoteLogLevel = when (this) {
+    0 -> RemoteLogLevel.DEBUG
+    1 -> RemoteLogLevel.INFO
+    2 -> RemoteLogLevel.WARNING
+    3 -> RemoteLogLevel.ERROR
+    4 -> RemoteLogLevel.NONE
+    else -> throw IOException("Unknown remote log level code: $this")
+  }
+}
@@ -28,6 +28,8 @@ internal interface RemoteLogSendingQueue : ConcurrentSendingQueue<RemoteLogRecor
   ) : RemoteLogSendingQueue {
     override fun offer(element: RemoteLogRecords) = delegate.offer(element)
 
+    override fun offerAll(elements: List<RemoteLogRecords>): Int = delegate.offerAll(elements)
+
     override fun poll(max: Int): List<RemoteLogRecords> = delegate.poll(max)
 
     override val totalSize: Int
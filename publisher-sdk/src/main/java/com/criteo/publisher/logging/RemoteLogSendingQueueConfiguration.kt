@@ -16,6 +16,7 @@
 
 package com.criteo.publisher.logging
 
+import com.criteo.publisher.csm.QueueElementCodec
 import com.criteo.publisher.csm.SendingQueueConfiguration
 import com.criteo.publisher.util.BuildConfigWrapper
 
@@ -29,4 +30,5 @@ class RemoteLogSendingQueueConfiguration(
   override val elementClass = RemoteLogRecords::class.java
   override val estimatedSize: Int
     get() = buildConfigWrapper.estimatedSizeOfRemoteLog
+  override val elementCodec: QueueElementCodec<RemoteLogRecords> = RemoteLogRecordsQueueCodec()
 }
@@ -18,11 +18,13 @@ package com.criteo.publisher.logging
 
 import com.criteo.publisher.SafeRunnable
 import com.criteo.publisher.annotation.OpenForTesting
+import com.criteo.publisher.context.ConnectivityMonitor
 import com.criteo.publisher.csm.ConcurrentSendingQueue
 import com.criteo.publisher.network.PubSdkApi
 import com.criteo.publisher.util.AdvertisingInfo
 import com.criteo.publisher.util.BuildConfigWrapper
 import java.util.concurrent.Executor
+import java.util.concurrent.atomic.AtomicBoolean
 
 @OpenForTesting
 internal class RemoteLogSendingQueueConsumer(
@@ -30,12 +32,40 @@ internal class RemoteLogSendingQueueConsumer(
     private val api: PubSdkApi,
     private val buildConfigWrapper: BuildConfigWrapper,
     private val advertisingInfo: AdvertisingInfo,
-    private val executor: Executor
-) {
+    private val executor: Executor,
+    private val connectivityMonitor: ConnectivityMonitor
+) : ConnectivityMonitor.Listener {
+
+  /**
+   * Indicate if a batch was requested while the device was offline. It is sent once the network is back.
+   */
+  private val isBatchParked = AtomicBoolean(false)
+
+  /**
+   * Send asynchronously a new batch of remote logs.
+   *
+   * While the device is offline, nothing is sent: the logs stay in the queue and a single batch is sent when the
+   * network is back.
+   */
   fun sendRemoteLogBatch() {
+    if (!connectivityMonitor.isConnected) {
+      isBatchParked.set(true)
+
+      // The network may have come back before the batch was parked
+      if (!connectivityMonitor.isConnected || !isBatchParked.compareAndSet(true, false)) {
+        return
+      }
+    }
+
     executor.execute(RemoteLogSendingTask(sendingQueue, api, buildConfigWrapper, advertisingInfo))
   }
 
+  override fun onConnectivityChanged(isConnected: Boolean) {
+    if (isConnected && isBatchParked.compareAndSet(true, false)) {
+      sendRemoteLogBatch()
+    }
+  }
+
   class RemoteLogSendingTask(
       private val sendingQueue: ConcurrentSendingQueue<RemoteLogRecords>,
       private val api: PubSdkApi,
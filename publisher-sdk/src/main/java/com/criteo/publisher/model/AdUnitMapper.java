@@ -19,6 +19,8 @@ package com.criteo.publisher.model;
 import static com.criteo.publisher.BiddingLogMessage.onInvalidAdUnit;
 import static com.criteo.publisher.BiddingLogMessage.onUnsupportedAdFormat;
 
+import android.content.SharedPreferences;
+import android.content.SharedPreferences.OnSharedPreferenceChangeListener;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
@@ -27,7 +29,7 @@ import com.criteo.publisher.integration.IntegrationRegistry;
 import com.criteo.publisher.logging.Logger;
 import com.criteo.publisher.logging.LoggerFactory;
 import com.criteo.publisher.util.AdUnitType;
-import com.criteo.publisher.util.DeviceUtil;
+import com.criteo.publisher.util.VersionedMemo;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -35,8 +37,19 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-public class AdUnitMapper {
+/**
+ * Map the {@link AdUnit} given by publishers into the internal {@link CacheAdUnit}.
+ * <p>
+ * Valid ad units are mapped once, into {@linkplain CacheAdUnitInterner canonical} keys, and the
+ * mapping is memoized. So mapping an already known ad unit does not allocate anything. The memoized
+ * mapping depends on the screen size and on the integration: it is dropped when the screen size
+ * changes or when a {@linkplain #onSharedPreferenceChanged(SharedPreferences, String) shared
+ * preference} where the integration is stored changes.
+ */
+public class AdUnitMapper implements OnSharedPreferenceChangeListener {
 
   /**
    * Ad units are grouped into chunks so bid request size stay reasonable and this may improve the
@@ -50,7 +63,7 @@ public class AdUnitMapper {
    * <p>
    * Although, the reason may change over time and it would require a proper study.
    */
-  private static final int CHUNK_SIZE = 8;
+  public static final int CHUNK_SIZE = 8;
 
   /**
    * Special size representing a native ad.
@@ -68,16 +81,33 @@ public class AdUnitMapper {
   private final Logger logger = LoggerFactory.getLogger(getClass());
 
   @NonNull
-  private final DeviceUtil deviceUtil;
+  private final CacheAdUnitInterner cacheAdUnitInterner;
 
   @NonNull
   private final IntegrationRegistry integrationRegistry;
 
+  @NonNull
+  private final VersionedMemo<Mapping> mappingMemo = new VersionedMemo<Mapping>() {
+    @NonNull
+    @Override
+    protected Mapping compute() {
+      return new Mapping(
+          cacheAdUnitInterner.getCurrentScreenSize(),
+          integrationRegistry.readIntegration()
+      );
+    }
+
+    @Override
+    protected boolean isStillValid(@NonNull Mapping mapping) {
+      return mapping.screenSize == cacheAdUnitInterner.getCurrentScreenSize();
+    }
+  };
+
   public AdUnitMapper(
-      @NonNull DeviceUtil deviceUtil,
+      @NonNull CacheAdUnitInterner cacheAdUnitInterner,
       @NonNull IntegrationRegistry integrationRegistry
   ) {
-    this.deviceUtil = deviceUtil;
+    this.cacheAdUnitInterner = cacheAdUnitInterner;
     this.integrationRegistry = integrationRegistry;
   }
 
@@ -93,17 +123,15 @@ public class AdUnitMapper {
    * @return chunks of internal ad unit representations
    */
   public List<List<CacheAdUnit>> mapToChunks(@NonNull List<AdUnit> adUnits) {
+    Mapping mapping = mappingMemo.get();
     Set<CacheAdUnit> cacheAdUnits = new HashSet<>();
     for (AdUnit adUnit : adUnits) {
-      if (adUnit == null) {
-        continue;
+      CacheAdUnit cacheAdUnit = map(mapping, adUnit);
+      if (cacheAdUnit != null) {
+        cacheAdUnits.add(cacheAdUnit);
       }
-
-      AdSize size = getSize(adUnit);
-      CacheAdUnit cacheAdUnit = new CacheAdUnit(size, adUnit.getAdUnitId(), adUnit.getAdUnitType());
-      cacheAdUnits.add(cacheAdUnit);
     }
-    return splitIntoChunks(filterInvalidCacheAdUnits(cacheAdUnits), CHUNK_SIZE);
+    return splitIntoChunks(new ArrayList<>(cacheAdUnits), CHUNK_SIZE);
   }
 
   @NonNull
@@ -114,7 +142,7 @@ public class AdUnitMapper {
         return bannerAdUnit.getSize();
       case CRITEO_INTERSTITIAL:
       case CRITEO_REWARDED:
-        return deviceUtil.getCurrentScreenSize();
+        return cacheAdUnitInterner.getCurrentScreenSize();
       case CRITEO_CUSTOM_NATIVE:
         return NATIVE_SIZE;
       default:
@@ -134,42 +162,78 @@ public class AdUnitMapper {
    * </ul>
    * <p>
    * If the ad unit is not valid, then <code>null</code> is returned instead.
+   * <p>
+   * Valid ad units are always mapped to the same canonical instance, until the mapping is
+   * invalidated.
    *
    * @param adUnit to transform
    * @return internal ad unit representation or <code>null</code> if given ad unit is invalid
    */
   @Nullable
   public CacheAdUnit map(@Nullable AdUnit adUnit) {
-    List<List<CacheAdUnit>> validAdUnits = mapToChunks(Collections.singletonList(adUnit));
-    if (validAdUnits.isEmpty() || validAdUnits.get(0).isEmpty()) {
-      return null;
-    } else {
-      return validAdUnits.get(0).get(0);
-    }
+    return map(mappingMemo.get(), adUnit);
   }
 
-  private List<CacheAdUnit> filterInvalidCacheAdUnits(Collection<CacheAdUnit> cacheAdUnits) {
-    List<CacheAdUnit> validatedCacheAdUnits = new ArrayList<>();
+  /**
+   * Invalidate the memoized mapping, so ad units are mapped and validated again.
+   */
+  public void invalidateMapping() {
+    mappingMemo.invalidate();
+  }
 
-    Integration integration = integrationRegistry.readIntegration();
+  @Override
+  public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
+    invalidateMapping();
+  }
 
-    for (CacheAdUnit cacheAdUnit : cacheAdUnits) {
-      if (cacheAdUnit.getPlacementId().isEmpty()
-          || cacheAdUnit.getSize().getWidth() <= 0
-          || cacheAdUnit.getSize().getHeight() <= 0) {
-        logger.log(onInvalidAdUnit(cacheAdUnit));
-        continue;
-      }
+  @Nullable
+  private CacheAdUnit map(@NonNull Mapping mapping, @Nullable AdUnit adUnit) {
+    if (adUnit == null) {
+      return null;
+    }
 
-      if (cacheAdUnit.getAdUnitType() == AdUnitType.CRITEO_REWARDED && !SUPPORTED_INTEGRATION_FOR_REWARDED.contains(integration)) {
-        logger.log(onUnsupportedAdFormat(cacheAdUnit, integration));
-        continue;
+    CacheAdUnit cacheAdUnit = mapping.cacheAdUnits.get(adUnit);
+    if (cacheAdUnit == null) {
+      // Invalid ad units are not memoized, so they keep being logged
+      cacheAdUnit = toValidCacheAdUnit(adUnit, mapping.integration);
+      if (cacheAdUnit != null) {
+        mapping.cacheAdUnits.put(adUnit, cacheAdUnit);
       }
+    }
+    return cacheAdUnit;
+  }
+
+  @Nullable
+  private CacheAdUnit toValidCacheAdUnit(@NonNull AdUnit adUnit, @NonNull Integration integration) {
+    CacheAdUnit cacheAdUnit = new CacheAdUnit(getSize(adUnit), adUnit.getAdUnitId(), adUnit.getAdUnitType());
+
+    if (cacheAdUnit.getPlacementId().isEmpty()
+        || cacheAdUnit.getSize().getWidth() <= 0
+        || cacheAdUnit.getSize().getHeight() <= 0) {
+      logger.log(onInvalidAdUnit(cacheAdUnit));
+      return null;
+    }
 
-      validatedCacheAdUnits.add(cacheAdUnit);
+    if (cacheAdUnit.getAdUnitType() == AdUnitType.CRITEO_REWARDED && !SUPPORTED_INTEGRATION_FOR_REWARDED.contains(integration)) {
+      logger.log(onUnsupportedAdFormat(cacheAdUnit, integration));
+      return null;
     }
 
-    return validatedCacheAdUnits;
+    return cacheAdUnitInterner.intern(cacheAdUnit);
+  }
+
+  /**
+   * Group the given internal ad units into chunks to load.
+   * <p>
+   * Given ad units are expected to be already validated, for instance because they were produced by
+   * this mapper.
+   *
+   * @param cacheAdUnits valid internal ad units
+   * @return chunks of internal ad units
+   */
+  @NonNull
+  public List<List<CacheAdUnit>> splitIntoChunks(@NonNull List<CacheAdUnit> cacheAdUnits) {
+    return splitIntoChunks(cacheAdUnits, CHUNK_SIZE);
   }
 
   /**
@@ -199,4 +263,29 @@ public class AdUnitMapper {
     return chunks;
   }
 
+  /**
+   * Memoized mapping, valid for a given screen size and integration.
+   */
+  private static final class Mapping {
+
+    /**
+     * Screen size the interstitial and rewarded ad units were mapped with. It is compared by
+     * identity, as the {@link CacheAdUnitInterner} gives a new instance on each configuration
+     * change.
+     */
+    @NonNull
+    private final AdSize screenSize;
+
+    @NonNull
+    private final Integration integration;
+
+    @NonNull
+    private final ConcurrentMap<AdUnit, CacheAdUnit> cacheAdUnits = new ConcurrentHashMap<>();
+
+    private Mapping(@NonNull AdSize screenSize, @NonNull Integration integration) {
+      this.screenSize = screenSize;
+      this.integration = integration;
+    }
+  }
+
 }
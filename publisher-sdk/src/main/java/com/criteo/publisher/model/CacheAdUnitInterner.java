@@ -0,0 +1,174 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.model;
+
+import android.content.ComponentCallbacks;
+import android.content.res.Configuration;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.criteo.publisher.util.AdUnitType;
+import com.criteo.publisher.util.DeviceUtil;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Hold a single canonical instance of each {@link CacheAdUnit}, and the current screen size that
+ * defines the size of the interstitial ones.
+ * <p>
+ * The ad units of an application are few and stable, so once a key is interned, looking it up
+ * again does not allocate anything. This keeps the per-display path free of garbage.
+ * <p>
+ * The screen size is read once and kept until the next
+ * {@linkplain #onConfigurationChanged(Configuration) configuration change}.
+ */
+public class CacheAdUnitInterner implements ComponentCallbacks {
+
+  @NonNull
+  private final DeviceUtil deviceUtil;
+
+  /**
+   * Canonical keys indexed by their placement ID. There are very few keys per placement ID, so they
+   * are kept in arrays that are copied on write.
+   */
+  @NonNull
+  private final ConcurrentMap<String, CacheAdUnit[]> keysByPlacementId = new ConcurrentHashMap<>();
+
+  @Nullable
+  private volatile AdSize currentScreenSize;
+
+  public CacheAdUnitInterner(@NonNull DeviceUtil deviceUtil) {
+    this.deviceUtil = deviceUtil;
+  }
+
+  /**
+   * Return the canonical instance equal to the given key.
+   * <p>
+   * If there is none yet, the given key becomes the canonical one.
+   */
+  @NonNull
+  public CacheAdUnit intern(@NonNull CacheAdUnit cacheAdUnit) {
+    AdSize size = cacheAdUnit.getSize();
+    CacheAdUnit interned = find(
+        keysByPlacementId.get(cacheAdUnit.getPlacementId()),
+        size.getWidth(),
+        size.getHeight(),
+        cacheAdUnit.getAdUnitType()
+    );
+    return interned == null ? insert(cacheAdUnit) : interned;
+  }
+
+  /**
+   * Return the canonical key having the given properties.
+   * <p>
+   * A new key is only allocated the first time those properties are seen.
+   */
+  @NonNull
+  public CacheAdUnit intern(
+      int width,
+      int height,
+      @NonNull String placementId,
+      @NonNull AdUnitType adUnitType
+  ) {
+    CacheAdUnit interned = find(keysByPlacementId.get(placementId), width, height, adUnitType);
+    if (interned != null) {
+      return interned;
+    }
+    return insert(new CacheAdUnit(new AdSize(width, height), placementId, adUnitType));
+  }
+
+  /**
+   * Return the current screen size, in DP.
+   * <p>
+   * The same instance is returned until the next configuration change.
+   */
+  @NonNull
+  public AdSize getCurrentScreenSize() {
+    AdSize screenSize = currentScreenSize;
+    if (screenSize == null) {
+      screenSize = deviceUtil.getCurrentScreenSize();
+      currentScreenSize = screenSize;
+    }
+    return screenSize;
+  }
+
+  /**
+   * Indicate if the given size is the one of the current screen, in any orientation.
+   */
+  public boolean isCurrentScreenSize(int width, int height) {
+    AdSize screenSize = getCurrentScreenSize();
+    return (screenSize.getWidth() == width && screenSize.getHeight() == height)
+        || (screenSize.getWidth() == height && screenSize.getHeight() == width);
+  }
+
+  @Override
+  public void onConfigurationChanged(@NonNull Configuration newConfig) {
+    currentScreenSize = null;
+  }
+
+  @Override
+  public void onLowMemory() {
+    // nothing to do
+  }
+
+  @NonNull
+  private CacheAdUnit insert(@NonNull CacheAdUnit newKey) {
+    String placementId = newKey.getPlacementId();
+    AdSize size = newKey.getSize();
+
+    while (true) {
+      CacheAdUnit[] keys = keysByPlacementId.get(placementId);
+      if (keys == null) {
+        if (keysByPlacementId.putIfAbsent(placementId, new CacheAdUnit[]{newKey}) == null) {
+          return newKey;
+        }
+        continue;
+      }
+
+      CacheAdUnit interned = find(keys, size.getWidth(), size.getHeight(), newKey.getAdUnitType());
+      if (interned != null) {
+        return interned;
+      }
+
+      CacheAdUnit[] newKeys = Arrays.copyOf(keys, keys.length + 1);
+      newKeys[keys.length] = newKey;
+      if (keysByPlacementId.replace(placementId, keys, newKeys)) {
+        return newKey;
+      }
+    }
+  }
+
+  @Nullable
+  private static CacheAdUnit find(
+      @Nullable CacheAdUnit[] keys,
+      int width,
+      int height,
+      @NonNull AdUnitType adUnitType
+  ) {
+    if (keys == null) {
+      return null;
+    }
+
+    for (CacheAdUnit key : keys) {
+      AdSize size = key.getSize();
+      if (size.getWidth() == width && size.getHeight() == height && key.getAdUnitType() == adUnitType) {
+        return key;
+      }
+    }
+    return null;
+  }
+}
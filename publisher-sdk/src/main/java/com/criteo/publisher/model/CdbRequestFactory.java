@@ -19,7 +19,11 @@ package com.criteo.publisher.model;
 import static com.criteo.publisher.context.ContextUtil.toMap;
 import static com.criteo.publisher.util.TextUtils.getNotEmptyOrNullValue;
 
+import android.content.ComponentCallbacks;
 import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.SharedPreferences.OnSharedPreferenceChangeListener;
+import android.content.res.Configuration;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
@@ -29,8 +33,10 @@ import com.criteo.publisher.context.ContextProvider;
 import com.criteo.publisher.context.UserDataHolder;
 import com.criteo.publisher.integration.IntegrationRegistry;
 import com.criteo.publisher.privacy.UserPrivacyUtil;
+import com.criteo.publisher.privacy.gdpr.GdprData;
 import com.criteo.publisher.util.AdvertisingInfo;
 import com.criteo.publisher.util.BuildConfigWrapper;
+import com.criteo.publisher.util.VersionedMemo;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.IdentityHashMap;
@@ -41,7 +47,17 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.Future;
 
-public class CdbRequestFactory {
+/**
+ * Create the requests sent to CDB.
+ * <p>
+ * Sections of the request that rarely change (privacy strings, GDPR data, and the device part of
+ * the user context) are kept in a snapshot. This snapshot is reused until it is invalidated by a
+ * {@linkplain #onConfigurationChanged(Configuration) configuration change} or a
+ * {@linkplain #onSharedPreferenceChanged(SharedPreferences, String) change in the shared
+ * preferences} where consent strings are stored. So building a request only costs the per-call
+ * parts (ids, slots and context data).
+ */
+public class CdbRequestFactory implements ComponentCallbacks, OnSharedPreferenceChangeListener {
 
   @NonNull
   private final Context context;
@@ -79,6 +95,20 @@ public class CdbRequestFactory {
   @NonNull
   private final Config config;
 
+  @NonNull
+  private final VersionedMemo<StaticSections> staticSectionsMemo = new VersionedMemo<StaticSections>() {
+    @NonNull
+    @Override
+    protected StaticSections compute() {
+      return new StaticSections(
+          getNotEmptyOrNullValue(userPrivacyUtil.getIabUsPrivacyString()),
+          getNotEmptyOrNullValue(userPrivacyUtil.getUsPrivacyOptout()),
+          userPrivacyUtil.getGdprData(),
+          contextProvider.fetchConfigurationUserContext()
+      );
+    }
+  };
+
   public CdbRequestFactory(
       @NonNull Context context,
       @NonNull String criteoPublisherId,
@@ -121,15 +151,19 @@ public class CdbRequestFactory {
         publisherExt
     );
 
+    StaticSections staticSections = staticSectionsMemo.get();
+
+    // Keys of both user contexts are distinct, so the user data can not override any of them
     Map<String, Object> userExt = mergeToNestedMap(
-        contextProvider.fetchUserContext(),
+        staticSections.configurationUserContext,
+        contextProvider.fetchVolatileUserContext(),
         toMap(userDataHolder.get())
     );
 
     User user = new User(
         advertisingInfo.getAdvertisingId(),
-        getNotEmptyOrNullValue(userPrivacyUtil.getIabUsPrivacyString()),
-        getNotEmptyOrNullValue(userPrivacyUtil.getUsPrivacyOptout()),
+        staticSections.iabUsPrivacyString,
+        staticSections.usPrivacyOptout,
         userExt
     );
 
@@ -139,12 +173,34 @@ public class CdbRequestFactory {
         user,
         buildConfigWrapper.getSdkVersion(),
         integrationRegistry.getProfileId(),
-        userPrivacyUtil.getGdprData(),
+        staticSections.gdprData,
         createRequestSlots(requestedAdUnits),
         createRegs()
     );
   }
 
+  /**
+   * Invalidate the snapshot of the static sections, so it is built again for the next request.
+   */
+  public void invalidateStaticSections() {
+    staticSectionsMemo.invalidate();
+  }
+
+  @Override
+  public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
+    invalidateStaticSections();
+  }
+
+  @Override
+  public void onConfigurationChanged(@NonNull Configuration newConfig) {
+    invalidateStaticSections();
+  }
+
+  @Override
+  public void onLowMemory() {
+    // nothing to do
+  }
+
   @NonNull
   private List<CdbRequestSlot> createRequestSlots(List<CacheAdUnit> requestedAdUnits) {
     List<CdbRequestSlot> slots = new ArrayList<>();
@@ -222,8 +278,8 @@ public class CdbRequestFactory {
       for (Entry<String, Object> entry : flattenMap.entrySet()) {
         Map<String, Object> node = nestedMap;
 
-        String[] pathParts = entry.getKey().split("\\.", -1);
-        if (isNotValid(pathParts)) {
+        String[] pathParts = splitPath(entry.getKey());
+        if (pathParts == null) {
           continue;
         }
 
@@ -261,14 +317,37 @@ public class CdbRequestFactory {
     return nestedMap;
   }
 
-  private boolean isNotValid(String[] pathParts) {
-    for (String pathPart : pathParts) {
-      if (pathPart.isEmpty()) {
+  /**
+   * Split the given key on "." (dot) characters, without going through a regular expression.
+   *
+   * @return parts of the path, or <code>null</code> if one of them is empty
+   */
+  @Nullable
+  private static String[] splitPath(@NonNull String key) {
+    int nbParts = 1;
+    for (int i = 0; i < key.length(); i++) {
+      if (key.charAt(i) == '.') {
+        nbParts++;
+      }
+    }
+
+    String[] pathParts = new String[nbParts];
+    int start = 0;
+    for (int i = 0; i < nbParts; i++) {
+      int end = key.indexOf('.', start);
+      if (end == -1) {
+        end = key.length();
+      }
+
+      if (end == start) {
         // Reject empty part
-        return true;
+        return null;
       }
+
+      pathParts[i] = key.substring(start, end);
+      start = end + 1;
     }
-    return false;
+    return pathParts;
   }
 
   @Nullable
@@ -277,6 +356,36 @@ public class CdbRequestFactory {
     return tagForChildTreatment == null ? null : new CdbRegs(tagForChildTreatment);
   }
 
+  /**
+   * Snapshot of the sections of the request that only change on configuration or consent events.
+   */
+  private static final class StaticSections {
+
+    @Nullable
+    private final String iabUsPrivacyString;
+
+    @Nullable
+    private final String usPrivacyOptout;
+
+    @Nullable
+    private final GdprData gdprData;
+
+    @NonNull
+    private final Map<String, Object> configurationUserContext;
+
+    StaticSections(
+        @Nullable String iabUsPrivacyString,
+        @Nullable String usPrivacyOptout,
+        @Nullable GdprData gdprData,
+        @NonNull Map<String, Object> configurationUserContext
+    ) {
+      this.iabUsPrivacyString = iabUsPrivacyString;
+      this.usPrivacyOptout = usPrivacyOptout;
+      this.gdprData = gdprData;
+      this.configurationUserContext = configurationUserContext;
+    }
+  }
+
   @NonNull
   private List<ApiFramework> getSupportedApiFrameworkList() {
     List<ApiFramework> supportedApiFrameworkList = new ArrayList<>();
@@ -0,0 +1,163 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.model;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.criteo.publisher.logging.Logger;
+import com.criteo.publisher.logging.LoggerFactory;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonEncodingException;
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.Moshi;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import okio.BufferedSource;
+import okio.Okio;
+
+/**
+ * Read a {@link CdbResponse} in a single pass, directly from the response stream.
+ * <p>
+ * Like {@link CdbResponse#fromJson(org.json.JSONObject)}, this is tolerant to invalid values: an
+ * invalid field is ignored and an invalid slot is dropped without affecting the other ones. Only a
+ * malformed JSON document makes the whole read fail.
+ */
+public class CdbResponseReader {
+
+  private static final JsonReader.Options NAMES = JsonReader.Options.of(
+      "slots",
+      "timeToNextCall",
+      "consentGiven"
+  );
+
+  @NonNull
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  @NonNull
+  private final JsonAdapter<CdbResponseSlot> slotAdapter;
+
+  @NonNull
+  private final JsonAdapter<Integer> intAdapter;
+
+  @NonNull
+  private final JsonAdapter<Boolean> booleanAdapter;
+
+  public CdbResponseReader(@NonNull Moshi moshi) {
+    this.slotAdapter = moshi.adapter(CdbResponseSlot.class);
+    this.intAdapter = moshi.adapter(Integer.class);
+    this.booleanAdapter = moshi.adapter(Boolean.class);
+  }
+
+  /**
+   * Read a CDB response from the given input.
+   * <p>
+   * An empty input is read as an empty response.
+   * <p>
+   * The given input is not {@linkplain InputStream#close() closed}. If it should be, then it is
+   * the responsibility of the caller to do so.
+   *
+   * @param inputStream input where to read from
+   * @return read response
+   * @throws IOException if the input is not a valid JSON document
+   */
+  @NonNull
+  public CdbResponse read(@NonNull InputStream inputStream) throws IOException {
+    BufferedSource source = Okio.buffer(Okio.source(inputStream));
+    if (source.exhausted()) {
+      return new CdbResponse(Collections.emptyList(), 0, null);
+    }
+
+    JsonReader reader = JsonReader.of(source);
+    reader.setLenient(true);
+
+    List<CdbResponseSlot> slots = Collections.emptyList();
+    int timeToNextCall = 0;
+    Boolean consentGiven = null;
+
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.selectName(NAMES)) {
+        case 0:
+          slots = readSlots(reader);
+          break;
+        case 1:
+          Integer readTimeToNextCall = readSafely(reader, intAdapter, "time to next call");
+          timeToNextCall = readTimeToNextCall == null ? 0 : readTimeToNextCall;
+          break;
+        case 2:
+          consentGiven = readSafely(reader, booleanAdapter, "consentGiven");
+          break;
+        default:
+          reader.skipName();
+          reader.skipValue();
+      }
+    }
+    reader.endObject();
+
+    return new CdbResponse(slots, timeToNextCall, consentGiven);
+  }
+
+  @NonNull
+  private List<CdbResponseSlot> readSlots(@NonNull JsonReader reader) throws IOException {
+    if (reader.peek() != JsonReader.Token.BEGIN_ARRAY) {
+      logger.debug("Exception while reading slots array: " + reader.peek());
+      reader.skipValue();
+      return Collections.emptyList();
+    }
+
+    List<CdbResponseSlot> slots = new ArrayList<>();
+    reader.beginArray();
+    while (reader.hasNext()) {
+      CdbResponseSlot slot = readSafely(reader, slotAdapter, "slot from slots array");
+      if (slot != null) {
+        slots.add(slot);
+      }
+    }
+    reader.endArray();
+    return slots;
+  }
+
+  /**
+   * Read the next value with the given adapter, or return <code>null</code> if it is invalid.
+   * <p>
+   * Any exception of the adapter makes the value invalid, for instance a malformed URL in a native
+   * asset. Only a malformed JSON document is rethrown, as the following values can not be read.
+   * <p>
+   * In any case, the next value is entirely consumed, so the reader is ready to read the following
+   * one.
+   */
+  @Nullable
+  private <T> T readSafely(
+      @NonNull JsonReader reader,
+      @NonNull JsonAdapter<T> adapter,
+      @NonNull String description
+  ) throws IOException {
+    try (JsonReader peekedReader = reader.peekJson()) {
+      return adapter.fromJson(peekedReader);
+    } catch (JsonEncodingException e) {
+      throw e;
+    } catch (Exception e) {
+      logger.debug("Exception while reading " + description, e);
+      return null;
+    } finally {
+      reader.skipValue();
+    }
+  }
+}
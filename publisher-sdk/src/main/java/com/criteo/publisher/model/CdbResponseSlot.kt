@@ -79,8 +79,13 @@ data class CdbResponseSlot(
     }
   }
 
+  /**
+   * Client-side time in milliseconds at which this bid expires. See [timeOfDownload].
+   */
+  val expiryTimeInMillis: Long
+    get() = ttlInSeconds * SECOND_TO_MILLI + timeOfDownload
+
   fun isExpired(clock: Clock): Boolean {
-    val expiryTimeMillis: Long = ttlInSeconds * SECOND_TO_MILLI + timeOfDownload
-    return expiryTimeMillis <= clock.currentTimeInMillis
+    return expiryTimeInMillis <= clock.currentTimeInMillis
   }
 }
@@ -54,6 +54,20 @@ public class Config {
     public static final RemoteLogLevel REMOTE_LOG_LEVEL = RemoteLogLevel.WARNING;
     public static final boolean IS_MRAID_ENABLED = false;
     public static final boolean IS_MRAID2_ENABLED = false;
+    public static final int BID_CACHE_DEPTH = 1;
+    public static final boolean IS_BID_REFRESH_ENABLED = false;
+    public static final boolean IS_BID_CACHE_PERSISTENCE_ENABLED = false;
+    public static final int BID_REQUEST_BATCHING_WINDOW_IN_MILLIS = 0;
+    public static final boolean IS_OK_HTTP_TRANSPORT_ENABLED = false;
+    public static final boolean IS_GZIP_COMPRESSION_ENABLED = false;
+    public static final int BID_CACHE_MAX_AD_UNIT_COUNT = 64;
+    public static final boolean IS_ADAPTIVE_PREFETCH_ENABLED = false;
+    public static final int PREFETCH_ON_INIT_MAX_AD_UNIT_COUNT = 8;
+    public static final boolean IS_ADAPTIVE_NETWORK_TIMEOUTS_ENABLED = false;
+    public static final boolean IS_CSM_JOURNAL_ENABLED = false;
+    public static final boolean IS_CSM_WRITE_BACK_ENABLED = false;
+    public static final boolean IS_COMPACT_QUEUE_ENCODING_ENABLED = false;
+    public static final boolean IS_CONNECTION_WARM_UP_ENABLED = false;
 
   }
 
@@ -166,6 +180,62 @@ public class Config {
         getOrElse(
             overrideRemoteConfig.isMraid2Enabled(),
             baseRemoteConfig.isMraid2Enabled()
+        ),
+        getOrElse(
+            overrideRemoteConfig.getBidCacheDepth(),
+            baseRemoteConfig.getBidCacheDepth()
+        ),
+        getOrElse(
+            overrideRemoteConfig.isBidRefreshEnabled(),
+            baseRemoteConfig.isBidRefreshEnabled()
+        ),
+        getOrElse(
+            overrideRemoteConfig.isBidCachePersistenceEnabled(),
+            baseRemoteConfig.isBidCachePersistenceEnabled()
+        ),
+        getOrElse(
+            overrideRemoteConfig.getBidRequestBatchingWindowInMillis(),
+            baseRemoteConfig.getBidRequestBatchingWindowInMillis()
+        ),
+        getOrElse(
+            overrideRemoteConfig.isOkHttpTransportEnabled(),
+            baseRemoteConfig.isOkHttpTransportEnabled()
+        ),
+        getOrElse(
+            overrideRemoteConfig.isGzipCompressionEnabled(),
+            baseRemoteConfig.isGzipCompressionEnabled()
+        ),
+        getOrElse(
+            overrideRemoteConfig.getBidCacheMaxAdUnitCount(),
+            baseRemoteConfig.getBidCacheMaxAdUnitCount()
+        ),
+        getOrElse(
+            overrideRemoteConfig.isAdaptivePrefetchEnabled(),
+            baseRemoteConfig.isAdaptivePrefetchEnabled()
+        ),
+        getOrElse(
+            overrideRemoteConfig.getPrefetchOnInitMaxAdUnitCount(),
+            baseRemoteConfig.getPrefetchOnInitMaxAdUnitCount()
+        ),
+        getOrElse(
+            overrideRemoteConfig.isAdaptiveNetworkTimeoutsEnabled(),
+            baseRemoteConfig.isAdaptiveNetworkTimeoutsEnabled()
+        ),
+        getOrElse(
+            overrideRemoteConfig.isCsmJournalEnabled(),
+            baseRemoteConfig.isCsmJournalEnabled()
+        ),
+        getOrElse(
+            overrideRemoteConfig.isCsmWriteBackEnabled(),
+            baseRemoteConfig.isCsmWriteBackEnabled()
+        ),
+        getOrElse(
+            overrideRemoteConfig.isCompactQueueEncodingEnabled(),
+            baseRemoteConfig.isCompactQueueEncodingEnabled()
+        ),
+        getOrElse(
+            overrideRemoteConfig.isConnectionWarmUpEnabled(),
+            baseRemoteConfig.isConnectionWarmUpEnabled()
         )
     );
   }
@@ -302,4 +372,143 @@ public class Config {
         DefaultConfig.IS_MRAID2_ENABLED
     );
   }
+
+  /**
+   * Return the maximum number of bids to keep in cache for a single ad unit.
+   */
+  public int getBidCacheDepth() {
+    return getOrElse(
+        cachedRemoteConfig.getBidCacheDepth(),
+        DefaultConfig.BID_CACHE_DEPTH
+    );
+  }
+
+  public boolean isBidRefreshEnabled() {
+    return getOrElse(
+        cachedRemoteConfig.isBidRefreshEnabled(),
+        DefaultConfig.IS_BID_REFRESH_ENABLED
+    );
+  }
+
+  public boolean isBidCachePersistenceEnabled() {
+    return getOrElse(
+        cachedRemoteConfig.isBidCachePersistenceEnabled(),
+        DefaultConfig.IS_BID_CACHE_PERSISTENCE_ENABLED
+    );
+  }
+
+  /**
+   * Return the amount of time during which bid requests are held to be batched together, or a not
+   * positive value if batching is deactivated.
+   */
+  public int getBidRequestBatchingWindowInMillis() {
+    return getOrElse(
+        cachedRemoteConfig.getBidRequestBatchingWindowInMillis(),
+        DefaultConfig.BID_REQUEST_BATCHING_WINDOW_IN_MILLIS
+    );
+  }
+
+  public boolean isOkHttpTransportEnabled() {
+    return getOrElse(
+        cachedRemoteConfig.isOkHttpTransportEnabled(),
+        DefaultConfig.IS_OK_HTTP_TRANSPORT_ENABLED
+    );
+  }
+
+  public boolean isGzipCompressionEnabled() {
+    return getOrElse(
+        cachedRemoteConfig.isGzipCompressionEnabled(),
+        DefaultConfig.IS_GZIP_COMPRESSION_ENABLED
+    );
+  }
+
+  /**
+   * Return the maximum number of ad units having bids in cache. A non-positive value means no bound.
+   */
+  public int getBidCacheMaxAdUnitCount() {
+    return getOrElse(
+        cachedRemoteConfig.getBidCacheMaxAdUnitCount(),
+        DefaultConfig.BID_CACHE_MAX_AD_UNIT_COUNT
+    );
+  }
+
+  public boolean isAdaptivePrefetchEnabled() {
+    return getOrElse(
+        cachedRemoteConfig.isAdaptivePrefetchEnabled(),
+        DefaultConfig.IS_ADAPTIVE_PREFETCH_ENABLED
+    );
+  }
+
+  /**
+   * Return the maximum number of ad units prefetched on init, when adaptive prefetch is enabled. A
+   * non-positive value means no bound.
+   */
+  public int getPrefetchOnInitMaxAdUnitCount() {
+    return getOrElse(
+        cachedRemoteConfig.getPrefetchOnInitMaxAdUnitCount(),
+        DefaultConfig.PREFETCH_ON_INIT_MAX_AD_UNIT_COUNT
+    );
+  }
+
+  /**
+   * Indicate if the network timeouts and the live bidding time budget may be shortened according to
+   * the latencies observed on the current connection type.
+   */
+  public boolean isAdaptiveNetworkTimeoutsEnabled() {
+    return getOrElse(
+        cachedRemoteConfig.isAdaptiveNetworkTimeoutsEnabled(),
+        DefaultConfig.IS_ADAPTIVE_NETWORK_TIMEOUTS_ENABLED
+    );
+  }
+
+  /**
+   * Indicate if client-side metrics are stored in a single append-only journal, instead of one file
+   * per impression.
+   * <p>
+   * The store is chosen once, at SDK initialization.
+   */
+  public boolean isCsmJournalEnabled() {
+    return getOrElse(
+        cachedRemoteConfig.isCsmJournalEnabled(),
+        DefaultConfig.IS_CSM_JOURNAL_ENABLED
+    );
+  }
+
+  /**
+   * Indicate if updates of client-side metrics are kept in memory and written to the store in
+   * batches, instead of being written one by one.
+   * <p>
+   * This is chosen once, at SDK initialization.
+   */
+  public boolean isCsmWriteBackEnabled() {
+    return getOrElse(
+        cachedRemoteConfig.isCsmWriteBackEnabled(),
+        DefaultConfig.IS_CSM_WRITE_BACK_ENABLED
+    );
+  }
+
+  /**
+   * Indicate if new elements of the sending queues are written with a compact binary encoding,
+   * instead of JSON.
+   * <p>
+   * Elements already in the queues are read whatever their encoding is, so this can be changed at
+   * any time.
+   */
+  public boolean isCompactQueueEncodingEnabled() {
+    return getOrElse(
+        cachedRemoteConfig.isCompactQueueEncodingEnabled(),
+        DefaultConfig.IS_COMPACT_QUEUE_ENCODING_ENABLED
+    );
+  }
+
+  /**
+   * Indicate if the connections to CDB and to the event host are opened in background during the
+   * SDK initialization.
+   */
+  public boolean isConnectionWarmUpEnabled() {
+    return getOrElse(
+        cachedRemoteConfig.isConnectionWarmUpEnabled(),
+        DefaultConfig.IS_CONNECTION_WARM_UP_ENABLED
+    );
+  }
 }
@@ -151,7 +151,107 @@ data class RemoteConfigResponse(
      * Feature flag that indicates if we should send in [CdbRequest.slots] that we support MRAID v2 spec
      */
     @Json(name = "mraid2Enabled")
-    val isMraid2Enabled: Boolean? = null
+    val isMraid2Enabled: Boolean? = null,
+
+    /**
+     * Maximum number of bids kept in cache for a single ad unit. When a bid is consumed, the SDK fetches
+     * enough new bids to refill this depth so successive displays of the same ad unit can be served
+     * directly from the cache.
+     */
+    @Json(name = "bidCacheDepth")
+    val bidCacheDepth: Int? = null,
+
+    /**
+     * Feature flag for refreshing, in the background, the cached bids of recently requested ad units
+     * shortly before they expire. This is only used in cache bidding mode.
+     */
+    @Json(name = "bidRefreshEnabled")
+    val isBidRefreshEnabled: Boolean? = null,
+
+    /**
+     * Feature flag for persisting unexpired cached bids when the application goes in background, and
+     * restoring them at the next start of the SDK.
+     */
+    @Json(name = "bidCachePersistenceEnabled")
+    val isBidCachePersistenceEnabled: Boolean? = null,
+
+    /**
+     * Amount of time (in milliseconds) during which bid requests are held so that the ones arriving in the
+     * meantime are sent together in a single CDB call. Batching is deactivated if this is not positive.
+     */
+    @Json(name = "bidRequestBatchingWindowInMillis")
+    val bidRequestBatchingWindowInMillis: Int? = null,
+
+    /**
+     * Feature flag for sending HTTP requests with OkHttp, that pools connections and supports HTTP/2, instead of
+     * `HttpURLConnection`. This is taken into account at the next start of the SDK.
+     */
+    @Json(name = "okHttpTransportEnabled")
+    val isOkHttpTransportEnabled: Boolean? = null,
+
+    /**
+     * Feature flag for compressing with gzip the bodies of the requests sent to CDB, CSM and remote logs
+     * endpoints. Responses are always accepted in gzip, independently of this flag.
+     */
+    @Json(name = "gzipCompressionEnabled")
+    val isGzipCompressionEnabled: Boolean? = null,
+
+    /**
+     * Maximum number of ad units having bids in cache. When it is exceeded, the bids of the least recently
+     * used ad units are evicted. The bound is deactivated if this is not positive.
+     */
+    @Json(name = "bidCacheMaxAdUnitCount")
+    val bidCacheMaxAdUnitCount: Int? = null,
+
+    /**
+     * Feature flag for prefetching on init the ad units by decreasing usage in the previous sessions, up to
+     * [prefetchOnInitMaxAdUnitCount]. If set to `false`, all ad units are prefetched, in their declaration order.
+     */
+    @Json(name = "adaptivePrefetchEnabled")
+    val isAdaptivePrefetchEnabled: Boolean? = null,
+
+    /**
+     * Maximum number of ad units prefetched on init when adaptive prefetch is enabled. The least used ones are
+     * skipped, and fetched on their first request. There is no maximum if this is not positive.
+     */
+    @Json(name = "prefetchOnInitMaxAdUnitCount")
+    val prefetchOnInitMaxAdUnitCount: Int? = null,
+
+    /**
+     * Feature flag for deriving the network timeouts and the live bidding time budget from the CDB latencies
+     * observed on the current connection type. The static timeout and [liveBiddingTimeBudgetInMillis] stay the
+     * upper bounds. If set to `false`, those upper bounds are always used.
+     */
+    @Json(name = "adaptiveNetworkTimeoutsEnabled")
+    val isAdaptiveNetworkTimeoutsEnabled: Boolean? = null,
+
+    /**
+     * Feature flag for storing the client-side metrics in a single append-only journal, instead of one file per
+     * impression. Metrics stored in files by previous sessions are imported in the journal.
+     */
+    @Json(name = "csmJournalEnabled")
+    val isCsmJournalEnabled: Boolean? = null,
+
+    /**
+     * Feature flag for keeping the updates of client-side metrics in memory and writing them to the store in batches,
+     * on a timer, when many are pending, or when the application goes to background.
+     */
+    @Json(name = "csmWriteBackEnabled")
+    val isCsmWriteBackEnabled: Boolean? = null,
+
+    /**
+     * Feature flag for writing the elements of the sending queues (metrics and remote logs) with a compact binary
+     * encoding, instead of JSON. Elements are read in both encodings whatever this flag is.
+     */
+    @Json(name = "compactQueueEncodingEnabled")
+    val isCompactQueueEncodingEnabled: Boolean? = null,
+
+    /**
+     * Feature flag for opening the connections to CDB and to the event host in background during the SDK
+     * initialization, by sending a HEAD request to them, so the next calls reuse those connections.
+     */
+    @Json(name = "connectionWarmUpEnabled")
+    val isConnectionWarmUpEnabled: Boolean? = null
 ) {
 
   fun withKillSwitch(killSwitch: Boolean?): RemoteConfigResponse {
@@ -0,0 +1,203 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.network;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import com.criteo.publisher.Clock;
+import com.criteo.publisher.model.CacheAdUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+
+/**
+ * Request state of each ad unit, for the bid requests sent by the {@link BidRequestSender}.
+ * <p>
+ * An ad unit is either:
+ * <ul>
+ *   <li>idle: it can be requested. Idle ad units have no state at all.</li>
+ *   <li>in flight: a call requesting it is pending. It can not be requested again until the call
+ *   ends.</li>
+ *   <li>backing off: its last calls failed. It can not be requested again until the backoff delay
+ *   is elapsed. A single failure is often transient, so there is no delay after the first one. Then
+ *   the delay doubles on each consecutive failure, and a successful call resets it.</li>
+ * </ul>
+ * <p>
+ * Each transition is a compare-and-set on the state of a single ad unit, so starting or ending a
+ * request costs a constant time per ad unit, without any global lock.
+ * <p>
+ * Silences are not tracked here: they are given by CDB responses and are handled with the cached
+ * bids.
+ */
+public class AdUnitRequestStates {
+
+  @VisibleForTesting
+  static final long INITIAL_BACKOFF_IN_MILLIS = 1_000;
+
+  @VisibleForTesting
+  static final long MAX_BACKOFF_IN_MILLIS = 60_000;
+
+  @NonNull
+  private final ConcurrentMap<CacheAdUnit, State> states = new ConcurrentHashMap<>();
+
+  @NonNull
+  private final Clock clock;
+
+  public AdUnitRequestStates(@NonNull Clock clock) {
+    this.clock = clock;
+  }
+
+  /**
+   * Try to start requesting the given ad units with the given call.
+   * <p>
+   * Ad units that are in flight, or backing off, are not started. Ad units that are already in
+   * flight for this same call, for instance because they are repeated in the given list, are kept.
+   *
+   * @param adUnits ad units to start
+   * @param call call that is going to request the ad units
+   * @return started ad units, in the same order than given
+   */
+  @NonNull
+  public List<CacheAdUnit> tryStart(@NonNull List<CacheAdUnit> adUnits, @NonNull Future<?> call) {
+    List<CacheAdUnit> startedAdUnits = new ArrayList<>(adUnits.size());
+    for (CacheAdUnit adUnit : adUnits) {
+      if (tryStart(adUnit, call)) {
+        startedAdUnits.add(adUnit);
+      }
+    }
+    return startedAdUnits;
+  }
+
+  private boolean tryStart(@NonNull CacheAdUnit adUnit, @NonNull Future<?> call) {
+    while (true) {
+      State state = states.get(adUnit);
+      if (state == null) {
+        if (states.putIfAbsent(adUnit, State.inFlight(call, 0)) == null) {
+          return true;
+        }
+      } else if (state.call != null) {
+        return state.call == call;
+      } else if (clock.getCurrentTimeInMillis() < state.backoffEndTimeInMillis) {
+        return false;
+      } else if (states.replace(adUnit, state, State.inFlight(call, state.failureCount))) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Indicate that the given call ended successfully, or that it was not sent at all. Its ad units
+   * are idle again.
+   */
+  public void finish(@NonNull List<CacheAdUnit> adUnits, @NonNull Future<?> call) {
+    for (CacheAdUnit adUnit : adUnits) {
+      State state = states.get(adUnit);
+      if (state != null && state.call == call) {
+        states.remove(adUnit, state);
+      }
+    }
+  }
+
+  /**
+   * Indicate that the given call failed. Its ad units are backing off.
+   */
+  public void fail(@NonNull List<CacheAdUnit> adUnits, @NonNull Future<?> call) {
+    long now = clock.getCurrentTimeInMillis();
+    for (CacheAdUnit adUnit : adUnits) {
+      State state = states.get(adUnit);
+      if (state != null && state.call == call) {
+        int failureCount = state.failureCount + 1;
+        states.replace(adUnit, state, State.backingOff(failureCount, now + getBackoffInMillis(failureCount)));
+      }
+    }
+  }
+
+  /**
+   * Cancel the calls of all the in flight ad units, and make them idle.
+   * <p>
+   * Ad units that are backing off keep their state.
+   */
+  public void cancelAll() {
+    for (Map.Entry<CacheAdUnit, State> entry : states.entrySet()) {
+      State state = entry.getValue();
+      if (state.call != null && states.remove(entry.getKey(), state)) {
+        state.call.cancel(true);
+      }
+    }
+  }
+
+  @NonNull
+  @VisibleForTesting
+  Set<CacheAdUnit> getInFlightAdUnits() {
+    Set<CacheAdUnit> inFlightAdUnits = new HashSet<>();
+    for (Map.Entry<CacheAdUnit, State> entry : states.entrySet()) {
+      if (entry.getValue().call != null) {
+        inFlightAdUnits.add(entry.getKey());
+      }
+    }
+    return inFlightAdUnits;
+  }
+
+  @VisibleForTesting
+  static long getBackoffInMillis(int failureCount) {
+    if (failureCount <= 1) {
+      return 0;
+    }
+
+    int exponent = Math.min(failureCount - 2, 16);
+    return Math.min(INITIAL_BACKOFF_IN_MILLIS << exponent, MAX_BACKOFF_IN_MILLIS);
+  }
+
+  /**
+   * Immutable state of a non-idle ad unit. Instances are compared by identity, so that
+   * compare-and-set operations on the map detect any concurrent transition.
+   */
+  private static final class State {
+
+    /**
+     * Call requesting the ad unit, or <code>null</code> if the ad unit is backing off
+     */
+    @Nullable
+    private final Future<?> call;
+
+    private final int failureCount;
+
+    private final long backoffEndTimeInMillis;
+
+    private State(@Nullable Future<?> call, int failureCount, long backoffEndTimeInMillis) {
+      this.call = call;
+      this.failureCount = failureCount;
+      this.backoffEndTimeInMillis = backoffEndTimeInMillis;
+    }
+
+    @NonNull
+    static State inFlight(@NonNull Future<?> call, int failureCount) {
+      return new State(call, failureCount, 0);
+    }
+
+    @NonNull
+    static State backingOff(int failureCount, long backoffEndTimeInMillis) {
+      return new State(null, failureCount, backoffEndTimeInMillis);
+    }
+  }
+}
@@ -18,11 +18,14 @@ package com.criteo.publisher.network;
 
 import androidx.annotation.GuardedBy;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import com.criteo.publisher.CdbCallListener;
 import com.criteo.publisher.Clock;
 import com.criteo.publisher.SafeRunnable;
+import com.criteo.publisher.context.ConnectivityMonitor;
 import com.criteo.publisher.context.ContextData;
+import com.criteo.publisher.model.AdUnitMapper;
 import com.criteo.publisher.model.CacheAdUnit;
 import com.criteo.publisher.model.CdbRequestFactory;
 import com.criteo.publisher.model.Config;
@@ -31,13 +34,15 @@ import com.criteo.publisher.model.RemoteConfigRequestFactory;
 import com.criteo.publisher.model.RemoteConfigResponse;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 public class BidRequestSender {
 
@@ -57,28 +62,50 @@ public class BidRequestSender {
   private final Executor executor;
 
   @NonNull
-  @GuardedBy("pendingTasksLock")
-  private final Map<CacheAdUnit, Future<?>> pendingTasks;
-  private final Object pendingTasksLock = new Object();
+  private final ScheduledExecutorService scheduledExecutorService;
+
+  @NonNull
+  private final Config config;
+
+  @NonNull
+  private final ConnectivityMonitor connectivityMonitor;
+
+  @NonNull
+  private final AdUnitRequestStates requestStates;
+
+  /**
+   * Batches still accepting new ad units, by context data of their request.
+   */
+  @NonNull
+  @GuardedBy("batchesLock")
+  private final Map<ContextData, PendingBatch> openBatches = new HashMap<>();
+
+  private final Object batchesLock = new Object();
 
   public BidRequestSender(
       @NonNull CdbRequestFactory cdbRequestFactory,
       @NonNull RemoteConfigRequestFactory remoteConfigRequestFactory,
       @NonNull Clock clock,
       @NonNull PubSdkApi api,
-      @NonNull Executor executor
+      @NonNull Executor executor,
+      @NonNull ScheduledExecutorService scheduledExecutorService,
+      @NonNull Config config,
+      @NonNull ConnectivityMonitor connectivityMonitor
   ) {
     this.cdbRequestFactory = cdbRequestFactory;
     this.remoteConfigRequestFactory = remoteConfigRequestFactory;
     this.clock = clock;
     this.api = api;
     this.executor = executor;
-    this.pendingTasks = new ConcurrentHashMap<>();
+    this.scheduledExecutorService = scheduledExecutorService;
+    this.config = config;
+    this.connectivityMonitor = connectivityMonitor;
+    this.requestStates = new AdUnitRequestStates(clock);
   }
 
   @VisibleForTesting
   Set<CacheAdUnit> getPendingTaskAdUnits() {
-    return pendingTasks.keySet();
+    return requestStates.getInFlightAdUnits();
   }
 
   /**
@@ -102,6 +129,17 @@ public class BidRequestSender {
    * (successful or not). While an ad unit is pending, it cannot be requested again. So if in given
    * ones, some are pending, they will be ignored from the request. If all given ad units are
    * pending, then no call is done and listener is not notified.
+   * <p>
+   * When the device is offline, no call is done and listener is not notified either. The ad units
+   * are simply requested again on their next use, instead of holding a thread until the timeout.
+   * <p>
+   * When a request fails, its ad units are not requested again until a backoff delay is elapsed.
+   * This delay grows with the consecutive failures of each ad unit. See {@link AdUnitRequestStates}.
+   * <p>
+   * If a {@linkplain Config#getBidRequestBatchingWindowInMillis() batching window} is configured,
+   * the request is held during this window and merged with the other ones, having the same
+   * context data, that arrive in the meantime. Up to {@link AdUnitMapper#CHUNK_SIZE} ad units are
+   * sent in a single call. The given listener is still only notified about its own ad units.
    *
    * @param adUnits ad units to request
    * @param listener listener to notify
@@ -111,59 +149,111 @@ public class BidRequestSender {
       @NonNull ContextData contextData,
       @NonNull CdbCallListener listener
   ) {
-    List<CacheAdUnit> requestedAdUnits = new ArrayList<>(adUnits);
-    FutureTask<Void> task;
-
-    synchronized (pendingTasksLock) {
-      requestedAdUnits.removeAll(pendingTasks.keySet());
-      if (requestedAdUnits.isEmpty()) {
-        return;
-      }
+    if (!connectivityMonitor.isConnected()) {
+      return;
+    }
 
-      task = createCdbCallTask(requestedAdUnits, contextData, listener);
+    int batchingWindowInMillis = config.getBidRequestBatchingWindowInMillis();
+    if (batchingWindowInMillis > 0 && adUnits.size() < AdUnitMapper.CHUNK_SIZE) {
+      sendBatchedBidRequest(adUnits, contextData, listener, batchingWindowInMillis);
+      return;
+    }
 
-      for (CacheAdUnit requestedAdUnit : requestedAdUnits) {
-        pendingTasks.put(requestedAdUnit, task);
-      }
+    PendingBatch batch = new PendingBatch(contextData);
+    List<CacheAdUnit> requestedAdUnits = requestStates.tryStart(adUnits, batch.task);
+    if (requestedAdUnits.isEmpty()) {
+      return;
     }
 
-    try {
-      executor.execute(task);
-      task = null;
-    } finally {
-      if (task != null) {
-        // If an exception was thrown when scheduling the task, then we remove the ad unit from the
-        // pending tasks.
-        removePendingTasksWithAdUnits(requestedAdUnits);
-      }
+    synchronized (batchesLock) {
+      batch.add(new CdbCall.Requester(requestedAdUnits, listener));
     }
+    executeBatch(batch);
   }
 
-  @NonNull
-  private FutureTask<Void> createCdbCallTask(
-      @NonNull List<CacheAdUnit> requestedAdUnits,
+  private void sendBatchedBidRequest(
+      @NonNull List<CacheAdUnit> adUnits,
       @NonNull ContextData contextData,
-      @NonNull CdbCallListener listener
+      @NonNull CdbCallListener listener,
+      int batchingWindowInMillis
   ) {
-    CdbCall task = new CdbCall(api, cdbRequestFactory, clock, requestedAdUnits, contextData, listener);
-
-    Runnable withRemovedPendingTasksAfterExecution = new Runnable() {
-      @Override
-      public void run() {
-        try {
-          task.run();
-        } finally {
-          removePendingTasksWithAdUnits(requestedAdUnits);
+    PendingBatch fullBatch = null;
+    PendingBatch newBatch = null;
+
+    synchronized (batchesLock) {
+      PendingBatch batch = openBatches.get(contextData);
+      if (batch != null && batch.size() + adUnits.size() > AdUnitMapper.CHUNK_SIZE) {
+        // Maybe not enough room left: the open batch is sent right now and a new one is started
+        openBatches.remove(contextData);
+        fullBatch = batch;
+        batch = null;
+      }
+
+      boolean isNewBatch = batch == null;
+      if (isNewBatch) {
+        batch = new PendingBatch(contextData);
+      }
+
+      List<CacheAdUnit> requestedAdUnits = requestStates.tryStart(adUnits, batch.task);
+      if (!requestedAdUnits.isEmpty()) {
+        if (isNewBatch) {
+          openBatches.put(contextData, batch);
+          newBatch = batch;
+        }
+
+        batch.add(new CdbCall.Requester(requestedAdUnits, listener));
+
+        // As requests are smaller than a chunk, only a batch that was already open can be full here
+        if (batch.size() >= AdUnitMapper.CHUNK_SIZE) {
+          openBatches.remove(contextData);
+          fullBatch = batch;
         }
       }
-    };
+    }
+
+    if (fullBatch != null) {
+      executeBatch(fullBatch);
+    }
 
-    return new FutureTask<>(withRemovedPendingTasksAfterExecution, null);
+    if (newBatch != null) {
+      scheduleBatch(newBatch, batchingWindowInMillis);
+    }
   }
 
-  private void removePendingTasksWithAdUnits(List<CacheAdUnit> adUnits) {
-    synchronized (pendingTasksLock) {
-      pendingTasks.keySet().removeAll(adUnits);
+  private void scheduleBatch(@NonNull PendingBatch batch, int batchingWindowInMillis) {
+    boolean isScheduled = false;
+    try {
+      batch.trigger = scheduledExecutorService.schedule(new SafeRunnable() {
+        @Override
+        public void runSafely() {
+          executeBatch(batch);
+        }
+      }, batchingWindowInMillis, TimeUnit.MILLISECONDS);
+      isScheduled = true;
+    } finally {
+      if (!isScheduled) {
+        // Batch can not be delayed, so it is sent right now
+        executeBatch(batch);
+      }
+    }
+  }
+
+  private void executeBatch(@NonNull PendingBatch batch) {
+    ScheduledFuture<?> trigger = batch.trigger;
+    if (trigger != null) {
+      trigger.cancel(false);
+    }
+
+    boolean isExecuted = false;
+    try {
+      executor.execute(batch.task);
+      isExecuted = true;
+    } finally {
+      if (!isExecuted) {
+        // If an exception was thrown when scheduling the task, then the ad units are released
+        // without any backoff: nothing was sent.
+        requestStates.finish(batch.close(), batch.task);
+      }
     }
   }
 
@@ -171,11 +261,87 @@ public class BidRequestSender {
    * Attempt to cancel all pending tasks of bid request.
    */
   public void cancelAllPendingTasks() {
-    synchronized (pendingTasksLock) {
-      for (Future<?> task : pendingTasks.values()) {
-        task.cancel(true);
+    synchronized (batchesLock) {
+      requestStates.cancelAll();
+
+      for (PendingBatch batch : openBatches.values()) {
+        if (batch.trigger != null) {
+          batch.trigger.cancel(false);
+        }
+      }
+      openBatches.clear();
+    }
+  }
+
+  /**
+   * Requests sent together in a single call.
+   * <p>
+   * With a batching window, a batch is held open during this window to collect the requests arriving
+   * in the meantime. Else, it only holds a single request and is sent right away.
+   */
+  private class PendingBatch {
+
+    @NonNull
+    private final ContextData contextData;
+
+    @NonNull
+    @GuardedBy("batchesLock")
+    private final List<CdbCall.Requester> requesters = new ArrayList<>();
+
+    @NonNull
+    @GuardedBy("batchesLock")
+    private final List<CacheAdUnit> adUnits = new ArrayList<>();
+
+    @NonNull
+    private final FutureTask<Void> task = new FutureTask<>(this::send, null);
+
+    @Nullable
+    private volatile ScheduledFuture<?> trigger;
+
+    PendingBatch(@NonNull ContextData contextData) {
+      this.contextData = contextData;
+    }
+
+    @GuardedBy("batchesLock")
+    int size() {
+      return adUnits.size();
+    }
+
+    @GuardedBy("batchesLock")
+    void add(@NonNull CdbCall.Requester requester) {
+      requesters.add(requester);
+      adUnits.addAll(requester.getAdUnits());
+    }
+
+    /**
+     * Prevent any new request to join this batch and return all its ad units.
+     */
+    @NonNull
+    List<CacheAdUnit> close() {
+      synchronized (batchesLock) {
+        openBatches.remove(contextData, this);
+        return new ArrayList<>(adUnits);
+      }
+    }
+
+    private void send() {
+      List<CacheAdUnit> batchAdUnits;
+      List<CdbCall.Requester> batchRequesters;
+      synchronized (batchesLock) {
+        batchAdUnits = close();
+        batchRequesters = new ArrayList<>(requesters);
+      }
+
+      CdbCall call = new CdbCall(api, cdbRequestFactory, clock, contextData, batchRequesters);
+      try {
+        call.run();
+      } finally {
+        if (call.isSuccessful()) {
+          requestStates.finish(batchAdUnits, task);
+        } else {
+          requestStates.fail(batchAdUnits, task);
+        }
       }
-      pendingTasks.clear();
     }
   }
 
@@ -21,16 +21,23 @@ import com.criteo.publisher.CdbCallListener;
 import com.criteo.publisher.Clock;
 import com.criteo.publisher.SafeRunnable;
 import com.criteo.publisher.context.ContextData;
+import com.criteo.publisher.logging.Logger;
+import com.criteo.publisher.logging.LoggerFactory;
 import com.criteo.publisher.model.CacheAdUnit;
 import com.criteo.publisher.model.CdbRequest;
 import com.criteo.publisher.model.CdbRequestFactory;
+import com.criteo.publisher.model.CdbRequestSlot;
 import com.criteo.publisher.model.CdbResponse;
 import com.criteo.publisher.model.CdbResponseSlot;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 
 class CdbCall extends SafeRunnable {
 
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
   @NonNull
   private final PubSdkApi pubSdkApi;
 
@@ -40,14 +47,13 @@ class CdbCall extends SafeRunnable {
   @NonNull
   private final Clock clock;
 
-  @NonNull
-  private final List<CacheAdUnit> requestedAdUnits;
-
   @NonNull
   private final ContextData contextData;
 
   @NonNull
-  private final CdbCallListener listener;
+  private final List<Requester> requesters;
+
+  private volatile boolean isSuccessful = false;
 
   CdbCall(
       @NonNull PubSdkApi pubSdkApi,
@@ -56,18 +62,51 @@ class CdbCall extends SafeRunnable {
       @NonNull List<CacheAdUnit> requestedAdUnits,
       @NonNull ContextData contextData,
       @NonNull CdbCallListener listener
+  ) {
+    this(
+        pubSdkApi,
+        cdbRequestFactory,
+        clock,
+        contextData,
+        Collections.singletonList(new Requester(requestedAdUnits, listener))
+    );
+  }
+
+  /**
+   * Create a single call requesting the ad units of all the given requesters.
+   * <p>
+   * Each requester is notified as if it was alone: it only sees its own request slots and the
+   * response slots matching them. A requester whose listener fails does not prevent the other ones
+   * from being notified.
+   */
+  CdbCall(
+      @NonNull PubSdkApi pubSdkApi,
+      @NonNull CdbRequestFactory cdbRequestFactory,
+      @NonNull Clock clock,
+      @NonNull ContextData contextData,
+      @NonNull List<Requester> requesters
   ) {
     this.pubSdkApi = pubSdkApi;
     this.cdbRequestFactory = cdbRequestFactory;
     this.clock = clock;
-    this.requestedAdUnits = requestedAdUnits;
     this.contextData = contextData;
-    this.listener = listener;
+    this.requesters = requesters;
   }
 
   @Override
   public void runSafely() throws ExecutionException, InterruptedException {
-    CdbRequest cdbRequest = cdbRequestFactory.createRequest(requestedAdUnits, contextData);
+    if (requesters.size() == 1) {
+      runSingle(requesters.get(0));
+    } else {
+      runBatch();
+    }
+  }
+
+  private void runSingle(
+      @NonNull Requester requester
+  ) throws ExecutionException, InterruptedException {
+    CdbCallListener listener = requester.listener;
+    CdbRequest cdbRequest = cdbRequestFactory.createRequest(requester.adUnits, contextData);
     String userAgent = cdbRequestFactory.getUserAgent().get();
 
     listener.onCdbRequest(cdbRequest);
@@ -75,16 +114,142 @@ class CdbCall extends SafeRunnable {
     try {
       CdbResponse cdbResponse = pubSdkApi.loadCdb(cdbRequest, userAgent);
       setTimeOfDownload(cdbResponse);
+      isSuccessful = true;
       listener.onCdbResponse(cdbRequest, cdbResponse);
     } catch (Exception e) {
       listener.onCdbError(cdbRequest, e);
     }
   }
 
+  private void runBatch() throws ExecutionException, InterruptedException {
+    List<CacheAdUnit> requestedAdUnits = new ArrayList<>();
+    for (Requester requester : requesters) {
+      requestedAdUnits.addAll(requester.adUnits);
+    }
+
+    CdbRequest cdbRequest = cdbRequestFactory.createRequest(requestedAdUnits, contextData);
+    String userAgent = cdbRequestFactory.getUserAgent().get();
+
+    // Request slots are created in the same order as the requested ad units
+    List<CdbRequest> subRequests = new ArrayList<>(requesters.size());
+    int fromIndex = 0;
+    for (Requester requester : requesters) {
+      int toIndex = fromIndex + requester.adUnits.size();
+      subRequests.add(withSlots(cdbRequest, cdbRequest.getSlots().subList(fromIndex, toIndex)));
+      fromIndex = toIndex;
+    }
+
+    notifyRequesters(subRequests, CdbCallListener::onCdbRequest);
+
+    CdbResponse cdbResponse;
+    try {
+      cdbResponse = pubSdkApi.loadCdb(cdbRequest, userAgent);
+      setTimeOfDownload(cdbResponse);
+      isSuccessful = true;
+    } catch (Exception e) {
+      notifyRequesters(subRequests, (listener, subRequest) -> listener.onCdbError(subRequest, e));
+      return;
+    }
+
+    notifyRequesters(subRequests, (listener, subRequest) -> listener.onCdbResponse(
+        subRequest,
+        forRequest(cdbResponse, subRequest)
+    ));
+  }
+
+  /**
+   * Notify each requester with its own request, isolating it from the failures of the other ones.
+   */
+  private void notifyRequesters(
+      @NonNull List<CdbRequest> subRequests,
+      @NonNull RequesterNotification notification
+  ) {
+    for (int i = 0; i < requesters.size(); i++) {
+      try {
+        notification.sendTo(requesters.get(i).listener, subRequests.get(i));
+      } catch (RuntimeException e) {
+        logger.log(NetworkLogMessage.onCdbCallListenerFailed(e));
+      }
+    }
+  }
+
+  /**
+   * Indicate if CDB answered to this call. This is <code>false</code> until the call is run, and
+   * stays <code>false</code> if the call failed.
+   */
+  boolean isSuccessful() {
+    return isSuccessful;
+  }
+
+  @NonNull
+  private static CdbRequest withSlots(
+      @NonNull CdbRequest cdbRequest,
+      @NonNull List<CdbRequestSlot> slots
+  ) {
+    return new CdbRequest(
+        cdbRequest.getId(),
+        cdbRequest.getPublisher(),
+        cdbRequest.getUser(),
+        cdbRequest.getSdkVersion(),
+        cdbRequest.getProfileId(),
+        cdbRequest.getGdprData(),
+        new ArrayList<>(slots),
+        cdbRequest.getRegs()
+    );
+  }
+
+  @NonNull
+  private static CdbResponse forRequest(
+      @NonNull CdbResponse cdbResponse,
+      @NonNull CdbRequest cdbRequest
+  ) {
+    List<CdbResponseSlot> slots = new ArrayList<>();
+    for (CdbRequestSlot requestSlot : cdbRequest.getSlots()) {
+      CdbResponseSlot responseSlot = cdbResponse.getSlotByImpressionId(
+          requestSlot.getImpressionId()
+      );
+      if (responseSlot != null) {
+        slots.add(responseSlot);
+      }
+    }
+
+    return new CdbResponse(
+        slots,
+        cdbResponse.getTimeToNextCall(),
+        cdbResponse.getConsentGiven()
+    );
+  }
+
   private void setTimeOfDownload(@NonNull CdbResponse cdbResponse) {
     long instant = clock.getCurrentTimeInMillis();
     for (CdbResponseSlot slot : cdbResponse.getSlots()) {
       slot.setTimeOfDownload(instant);
     }
   }
+
+  private interface RequesterNotification {
+    void sendTo(@NonNull CdbCallListener listener, @NonNull CdbRequest subRequest);
+  }
+
+  /**
+   * Ad units requested by a single caller, and the listener to notify about them.
+   */
+  static final class Requester {
+
+    @NonNull
+    private final List<CacheAdUnit> adUnits;
+
+    @NonNull
+    private final CdbCallListener listener;
+
+    Requester(@NonNull List<CacheAdUnit> adUnits, @NonNull CdbCallListener listener) {
+      this.adUnits = adUnits;
+      this.listener = listener;
+    }
+
+    @NonNull
+    List<CacheAdUnit> getAdUnits() {
+      return adUnits;
+    }
+  }
 }
@@ -0,0 +1,176 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.network;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.criteo.publisher.Clock;
+import com.criteo.publisher.SafeRunnable;
+import com.criteo.publisher.context.ConnectivityMonitor;
+import com.criteo.publisher.logging.Logger;
+import com.criteo.publisher.logging.LoggerFactory;
+import com.criteo.publisher.model.Config;
+import com.criteo.publisher.util.BuildConfigWrapper;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URL;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Open the connections to the hosts of the SDK in advance, during the SDK initialization.
+ * <p>
+ * The CDB host is resolved and connected in background, while the initialization goes on, then the
+ * event host. Calls never wait for it: a call starting before the warm-up is done opens its own
+ * connection, as it would without warm-up. As a connection can only be opened with a request, a
+ * <code>HEAD</code> request is sent to each host, so this is only done if
+ * {@link Config#isConnectionWarmUpEnabled()}.
+ * <p>
+ * Once the first CDB call is done, a report of the startup timings is logged, indicating if the
+ * connection was ready before this call.
+ */
+public class ConnectionWarmer {
+
+  @NonNull
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  @NonNull
+  private final BuildConfigWrapper buildConfigWrapper;
+
+  @NonNull
+  private final HttpTransport httpTransport;
+
+  @NonNull
+  private final Config config;
+
+  @NonNull
+  private final ConnectivityMonitor connectivityMonitor;
+
+  @NonNull
+  private final Clock clock;
+
+  @NonNull
+  private final Executor executor;
+
+  @NonNull
+  private final AtomicBoolean isStarted = new AtomicBoolean(false);
+
+  @NonNull
+  private final AtomicBoolean isReported = new AtomicBoolean(false);
+
+  private volatile long warmUpStartInMillis;
+
+  @Nullable
+  private volatile HostWarmUp cdbHostWarmUp;
+
+  public ConnectionWarmer(
+      @NonNull BuildConfigWrapper buildConfigWrapper,
+      @NonNull HttpTransport httpTransport,
+      @NonNull Config config,
+      @NonNull ConnectivityMonitor connectivityMonitor,
+      @NonNull Clock clock,
+      @NonNull Executor executor
+  ) {
+    this.buildConfigWrapper = buildConfigWrapper;
+    this.httpTransport = httpTransport;
+    this.config = config;
+    this.connectivityMonitor = connectivityMonitor;
+    this.clock = clock;
+    this.executor = executor;
+  }
+
+  /**
+   * Start warming up the connections in background.
+   * <p>
+   * Nothing is done if the warm-up is disabled, if the SDK is deactivated by the kill switch, if the
+   * device is offline, or if the warm-up was already started.
+   */
+  public void warmUp() {
+    if (!config.isConnectionWarmUpEnabled()
+        || config.isKillSwitchEnabled()
+        || !connectivityMonitor.isConnected()) {
+      return;
+    }
+
+    if (!isStarted.compareAndSet(false, true)) {
+      return;
+    }
+
+    warmUpStartInMillis = clock.getCurrentTimeInMillis();
+    executor.execute(new SafeRunnable() {
+      @Override
+      public void runSafely() {
+        cdbHostWarmUp = warmUpHost(buildConfigWrapper.getCdbUrl());
+        warmUpHost(buildConfigWrapper.getEventUrl());
+      }
+    });
+  }
+
+  /**
+   * Log the startup timings once the first CDB call is done.
+   *
+   * @param cdbCallStartInMillis time at which the CDB call started
+   * @param cdbCallInMillis duration of the CDB call
+   */
+  void onCdbCallFinished(long cdbCallStartInMillis, long cdbCallInMillis) {
+    HostWarmUp warmUp = cdbHostWarmUp;
+    if (warmUp == null || !isReported.compareAndSet(false, true)) {
+      return;
+    }
+
+    logger.log(NetworkLogMessage.onStartupTimings(
+        warmUp.endInMillis - warmUpStartInMillis,
+        warmUp.dnsInMillis + warmUp.connectInMillis,
+        cdbCallInMillis,
+        warmUp.endInMillis <= cdbCallStartInMillis
+    ));
+  }
+
+  @Nullable
+  private HostWarmUp warmUpHost(@NonNull String baseUrl) {
+    try {
+      URL url = new URL(baseUrl);
+
+      long start = clock.getCurrentTimeInMillis();
+      InetAddress.getAllByName(url.getHost());
+      long dnsEnd = clock.getCurrentTimeInMillis();
+      httpTransport.warmUp(new URL(url, "/"));
+      long end = clock.getCurrentTimeInMillis();
+
+      logger.log(NetworkLogMessage.onHostWarmedUp(url.getHost(), dnsEnd - start, end - dnsEnd));
+      return new HostWarmUp(dnsEnd - start, end - dnsEnd, end);
+    } catch (IOException e) {
+      logger.debug("Error while warming up connection to " + baseUrl, e);
+      return null;
+    }
+  }
+
+  private static final class HostWarmUp {
+
+    private final long dnsInMillis;
+
+    private final long connectInMillis;
+
+    private final long endInMillis;
+
+    private HostWarmUp(long dnsInMillis, long connectInMillis, long endInMillis) {
+      this.dnsInMillis = dnsInMillis;
+      this.connectInMillis = connectInMillis;
+      this.endInMillis = endInMillis;
+    }
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.network
+
+/**
+ * Durations, in milliseconds, of the different phases of an HTTP call.
+ *
+ * Phases that did not happen during the call are `null`. For instance, there is no DNS lookup, no
+ * connection and no TLS handshake when a pooled connection is reused.
+ */
+data class HttpCallTimings(
+    val host: String,
+    val dnsInMillis: Long?,
+    val connectInMillis: Long?,
+    val tlsInMillis: Long?,
+    val timeToFirstByteInMillis: Long?,
+    val totalInMillis: Long,
+    val isSuccessful: Boolean
+) {
+  val isConnectionReused: Boolean
+    get() = connectInMillis == null
+}
@@ -0,0 +1,81 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.network;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+
+/**
+ * Low level HTTP client used by {@link PubSdkApi} to send its requests.
+ */
+public interface HttpTransport {
+
+  /**
+   * Send a request and return the body of the response.
+   * <p>
+   * Only <code>200 OK</code> and <code>204 No Content</code> are considered as successful. Any
+   * other status results in a {@link HttpResponseException}.
+   * <p>
+   * Responses compressed with gzip are always accepted, and the returned stream is transparently
+   * decompressed.
+   * <p>
+   * The returned stream should be {@linkplain InputStream#close() closed} by the caller, so the
+   * underlying connection can be released.
+   *
+   * @param method HTTP method, such as <code>GET</code> or <code>POST</code>
+   * @param url URL to request
+   * @param userAgent user agent to indicate, or <code>null</code> to use the default one
+   * @param body body of the request, or <code>null</code> if there is none
+   * @param compressBody <code>true</code> to send the body compressed with gzip. This is ignored
+   * if there is no body
+   * @return body of the response
+   * @throws IOException if any error occurs while sending the request or reading the response
+   */
+  @NonNull
+  InputStream execute(
+      @NonNull String method,
+      @NonNull URL url,
+      @Nullable String userAgent,
+      @Nullable Body body,
+      boolean compressBody
+  ) throws IOException;
+
+  /**
+   * Open a connection to the host of the given URL, so the next calls to this host reuse it.
+   * <p>
+   * A <code>HEAD</code> request is sent to the given URL, and its response is ignored, whatever
+   * its status. The connection is then released to the pool of idle connections.
+   *
+   * @param url URL to request
+   * @throws IOException if the connection can not be opened
+   */
+  void warmUp(@NonNull URL url) throws IOException;
+
+  interface Body {
+
+    /**
+     * Write the content of the body in the given output.
+     * <p>
+     * This may be called again if the request needs to be retried.
+     */
+    void writeTo(@NonNull OutputStream outputStream) throws IOException;
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.network;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.criteo.publisher.util.TextUtils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * {@link HttpTransport} based on {@link HttpURLConnection}.
+ * <p>
+ * This is the default transport. It is also used when the OkHttp transport is enabled but OkHttp is
+ * not on the classpath of the application.
+ */
+public class HttpUrlConnectionTransport implements HttpTransport {
+
+  private static final String GZIP = "gzip";
+
+  @NonNull
+  private final NetworkQualityEstimator networkQualityEstimator;
+
+  public HttpUrlConnectionTransport(@NonNull NetworkQualityEstimator networkQualityEstimator) {
+    this.networkQualityEstimator = networkQualityEstimator;
+  }
+
+  @NonNull
+  @Override
+  public InputStream execute(
+      @NonNull String method,
+      @NonNull URL url,
+      @Nullable String userAgent,
+      @Nullable Body body,
+      boolean compressBody
+  ) throws IOException {
+    HttpURLConnection urlConnection = prepareConnection(url, userAgent, method);
+
+    if (body != null) {
+      urlConnection.setDoOutput(true);
+      if (compressBody) {
+        urlConnection.setRequestProperty("Content-Encoding", GZIP);
+      }
+
+      try (OutputStream outputStream = urlConnection.getOutputStream()) {
+        if (compressBody) {
+          // Closing the gzip stream is required to write its trailer
+          try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            body.writeTo(gzipOutputStream);
+          }
+        } else {
+          body.writeTo(outputStream);
+        }
+      }
+    }
+
+    return readResponseStreamIfSuccess(urlConnection);
+  }
+
+  @Override
+  public void warmUp(@NonNull URL url) throws IOException {
+    HttpURLConnection urlConnection = prepareConnection(url, null, "HEAD");
+
+    // The connection is kept alive for the next calls only if its response stream is closed, and
+    // not if it is disconnected.
+    int status = urlConnection.getResponseCode();
+    InputStream inputStream = status < HttpURLConnection.HTTP_BAD_REQUEST
+        ? urlConnection.getInputStream()
+        : urlConnection.getErrorStream();
+    if (inputStream != null) {
+      inputStream.close();
+    }
+  }
+
+  @NonNull
+  private HttpURLConnection prepareConnection(@NonNull URL url,
+      @Nullable String userAgent, String method) throws IOException {
+    HttpURLConnection urlConnection = (HttpURLConnection) url.openConnection();
+    urlConnection.setRequestMethod(method);
+    int timeoutInMillis = networkQualityEstimator.getNetworkTimeoutInMillis();
+    urlConnection.setReadTimeout(timeoutInMillis);
+    urlConnection.setConnectTimeout(timeoutInMillis);
+    urlConnection.setRequestProperty("Content-Type", "text/plain");
+
+    // Setting this header explicitly disables the transparent decompression that some
+    // implementations provide, so the response is decompressed manually below.
+    urlConnection.setRequestProperty("Accept-Encoding", GZIP);
+    if (!TextUtils.isEmpty(userAgent)) {
+      urlConnection.setRequestProperty("User-Agent", userAgent);
+    }
+    return urlConnection;
+  }
+
+  @NonNull
+  private static InputStream readResponseStreamIfSuccess(@NonNull HttpURLConnection urlConnection) throws IOException {
+    int status = urlConnection.getResponseCode();
+    if (status == HttpURLConnection.HTTP_NO_CONTENT) {
+      return urlConnection.getInputStream();
+    } else if (status == HttpURLConnection.HTTP_OK) {
+      InputStream inputStream = urlConnection.getInputStream();
+      if (GZIP.equalsIgnoreCase(urlConnection.getContentEncoding())) {
+        return new GZIPInputStream(inputStream);
+      }
+      return inputStream;
+    } else {
+      throw new HttpResponseException(status);
+    }
+  }
+}
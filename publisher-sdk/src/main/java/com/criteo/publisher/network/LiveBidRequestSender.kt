@@ -14,17 +14,24 @@
  *    limitations under the License.
  */
 
+
 package com.criteo.publisher.network
 
+import androidx.annotation.GuardedBy
 import androidx.annotation.VisibleForTesting
 import com.criteo.publisher.Clock
 import com.criteo.publisher.LiveCdbCallListener
 import com.criteo.publisher.annotation.OpenForTesting
+import com.criteo.publisher.cache.SdkCache
+import com.criteo.publisher.context.ConnectivityMonitor
 import com.criteo.publisher.context.ContextData
+import com.criteo.publisher.logging.LoggerFactory
 import com.criteo.publisher.model.CacheAdUnit
 import com.criteo.publisher.model.CdbRequestFactory
-import com.criteo.publisher.model.Config
+import java.util.Collections
+import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.Executor
+import java.util.concurrent.FutureTask
 import java.util.concurrent.ScheduledExecutorService
 import java.util.concurrent.TimeUnit
 
@@ -35,32 +42,207 @@ class LiveBidRequestSender(
     private val clock: Clock,
     private val executor: Executor,
     private val scheduledExecutorService: ScheduledExecutorService,
-    private val config: Config
+    private val networkQualityEstimator: NetworkQualityEstimator,
+    private val liveBiddingStats: LiveBiddingStats,
+    private val connectivityMonitor: ConnectivityMonitor,
+    private val sdkCache: SdkCache
 ) {
 
+  private val logger = LoggerFactory.getLogger(javaClass)
+
+  /**
+   * Calls to CDB that are still running and may be joined, by requested ad unit and context.
+   */
+  private val inFlightCalls = ConcurrentHashMap<InFlightKey, InFlightCall>()
+
+  /**
+   * All the calls to CDB that are still running, including the ones that may not be joined.
+   */
+  private val runningCalls = Collections.newSetFromMap(ConcurrentHashMap<InFlightCall, Boolean>())
+
+  /**
+   * Request a bid for the given ad unit, and notify the given listener before the end of the time
+   * budget.
+   *
+   * If a call is already in flight for the same ad unit and context, and the cache holds enough bids
+   * for all its joiners, no new call is sent: the given listener joins it. When it ends, its bid goes
+   * to the first caller still waiting for it, the other ones are served from the cache, as if their
+   * time budget was exceeded. Else, a new call is sent, so that no joiner ends up without a bid.
+   *
+   * A call answering after the time budget of its caller is not dropped: its bid is put in cache.
+   *
+   * When the device is offline, no call is sent and the listener is immediately served from the
+   * cache.
+   */
   fun sendLiveBidRequest(
       cacheAdUnit: CacheAdUnit,
       contextData: ContextData,
       liveCdbCallListener: LiveCdbCallListener
   ) {
+    if (!connectivityMonitor.isConnected) {
+      liveCdbCallListener.onTimeBudgetExceeded()
+      return
+    }
+
     scheduleTimeBudgetExceeded(liveCdbCallListener)
+    joinOrStartCall(InFlightKey(cacheAdUnit, contextData), liveCdbCallListener)
+  }
 
-    executor.execute(
-        CdbCall(
-            pubSdkApi,
-            cdbRequestFactory,
-            clock,
-            listOf(cacheAdUnit),
-            contextData,
-            liveCdbCallListener
-        )
-    )
+  private fun joinOrStartCall(key: InFlightKey, liveCdbCallListener: LiveCdbCallListener) {
+    while (true) {
+      val inFlightCall = inFlightCalls[key]
+      if (inFlightCall == null) {
+        val newCall = InFlightCall(key, liveCdbCallListener)
+        if (inFlightCalls.putIfAbsent(key, newCall) == null) {
+          newCall.start()
+          return
+        }
+        continue
+      }
+
+      when (inFlightCall.join(liveCdbCallListener, sdkCache.countSlots(key.cacheAdUnit))) {
+        JoinResult.JOINED -> liveBiddingStats.onRequestShared()
+        JoinResult.FULL -> InFlightCall(key, liveCdbCallListener).start()
+        JoinResult.ENDED -> {
+          // The call is ending, a new one is needed
+          inFlightCalls.remove(key, inFlightCall)
+          continue
+        }
+      }
+      return
+    }
+  }
+
+  /**
+   * Cancel all the calls in flight, and log the statistics of the live bidding so far.
+   *
+   * Their callers that are still waiting are immediately served from the cache.
+   */
+  fun cancelAllPendingTasks() {
+    for (runningCall in runningCalls) {
+      runningCall.cancel()
+    }
+
+    if (liveBiddingStats.startedCallCount > 0) {
+      logger.log(NetworkLogMessage.onLiveBiddingStats(liveBiddingStats))
+    }
   }
 
   @VisibleForTesting
   internal fun scheduleTimeBudgetExceeded(liveCdbCallListener: LiveCdbCallListener) {
     scheduledExecutorService.schedule({
       liveCdbCallListener.onTimeBudgetExceeded()
-    }, config.liveBiddingTimeBudgetInMillis.toLong(), TimeUnit.MILLISECONDS)
+    }, networkQualityEstimator.liveBiddingTimeBudgetInMillis.toLong(), TimeUnit.MILLISECONDS)
+  }
+
+  private data class InFlightKey(val cacheAdUnit: CacheAdUnit, val contextData: ContextData)
+
+  private enum class JoinResult {
+    /**
+     * The listener will be notified at the end of the call.
+     */
+    JOINED,
+
+    /**
+     * The cache does not hold enough bids to serve one more joiner.
+     */
+    FULL,
+
+    /**
+     * The call is ending and no longer accepts joiners.
+     */
+    ENDED
+  }
+
+  private inner class InFlightCall(
+      private val key: InFlightKey,
+      private val listener: LiveCdbCallListener
+  ) : Runnable {
+
+    @GuardedBy("this")
+    private var joinedListeners: MutableList<LiveCdbCallListener>? = mutableListOf()
+
+    private val task = FutureTask<Unit>(this, Unit)
+
+    fun start() {
+      runningCalls.add(this)
+      try {
+        executor.execute(task)
+      } catch (e: RuntimeException) {
+        // The call will never run, its callers are served from the cache
+        release()
+        throw e
+      }
+    }
+
+    /**
+     * Join this call, unless it is already ending or the joiners would exceed the cached bids.
+     *
+     * The call only requests a single bid, for its first caller. So each joiner has to be served by a
+     * bid that is already in the cache.
+     *
+     * @param cachedSlotCount number of bids currently cached for the requested ad unit
+     */
+    @Synchronized
+    fun join(listener: LiveCdbCallListener, cachedSlotCount: Int): JoinResult {
+      val listeners = joinedListeners ?: return JoinResult.ENDED
+      if (listeners.size >= cachedSlotCount) {
+        return JoinResult.FULL
+      }
+      listeners.add(listener)
+      return JoinResult.JOINED
+    }
+
+    fun cancel() {
+      if (task.cancel(true)) {
+        liveBiddingStats.onCallCancelled()
+      }
+      release()
+    }
+
+    override fun run() {
+      val start = clock.currentTimeInMillis
+      liveBiddingStats.onCallStarted()
+      try {
+        CdbCall(
+            pubSdkApi,
+            cdbRequestFactory,
+            clock,
+            listOf(key.cacheAdUnit),
+            key.contextData,
+            listener
+        ).run()
+      } finally {
+        if (!task.isCancelled) {
+          liveBiddingStats.onCallFinished(
+              clock.currentTimeInMillis - start,
+              networkQualityEstimator.liveBiddingTimeBudgetInMillis.toLong()
+          )
+        }
+        release()
+      }
+    }
+
+    /**
+     * Stop accepting new listeners, and serve from the cache all the ones that are still waiting.
+     *
+     * Once the first listener got the response, it has either served it or put it in cache. So the
+     * other listeners may still get it from the cache.
+     */
+    private fun release() {
+      inFlightCalls.remove(key, this)
+      runningCalls.remove(this)
+
+      val listeners = synchronized(this) {
+        val listeners = joinedListeners ?: return
+        joinedListeners = null
+        listeners
+      }
+
+      listener.onTimeBudgetExceeded()
+      for (joinedListener in listeners) {
+        joinedListener.onTimeBudgetExceeded()
+      }
+    }
   }
 }
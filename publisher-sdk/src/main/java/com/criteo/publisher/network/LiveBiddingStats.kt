@@ -0,0 +1,121 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.criteo.publisher.network
+
+import androidx.annotation.GuardedBy
+import com.criteo.publisher.annotation.OpenForTesting
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Statistics about the live bidding calls, to measure their latency against the time budget.
+ *
+ * Only the latencies of the last [SAMPLE_CAPACITY] calls are kept, so percentiles reflect the
+ * recent network conditions.
+ */
+@OpenForTesting
+class LiveBiddingStats {
+
+  private val lock = Any()
+
+  @GuardedBy("lock")
+  private val latenciesInMillis = LongArray(SAMPLE_CAPACITY)
+
+  @GuardedBy("lock")
+  private var sampleCount = 0
+
+  @GuardedBy("lock")
+  private var nextSampleIndex = 0
+
+  private val startedCalls = AtomicInteger()
+  private val sharedRequests = AtomicInteger()
+  private val lateCalls = AtomicInteger()
+  private val cancelledCalls = AtomicInteger()
+
+  fun onCallStarted() {
+    startedCalls.incrementAndGet()
+  }
+
+  fun onRequestShared() {
+    sharedRequests.incrementAndGet()
+  }
+
+  fun onCallCancelled() {
+    cancelledCalls.incrementAndGet()
+  }
+
+  fun onCallFinished(latencyInMillis: Long, timeBudgetInMillis: Long) {
+    if (latencyInMillis > timeBudgetInMillis) {
+      lateCalls.incrementAndGet()
+    }
+
+    synchronized(lock) {
+      latenciesInMillis[nextSampleIndex] = latencyInMillis
+      nextSampleIndex = (nextSampleIndex + 1) % SAMPLE_CAPACITY
+      sampleCount = minOf(sampleCount + 1, SAMPLE_CAPACITY)
+    }
+  }
+
+  /**
+   * Number of calls sent to CDB.
+   */
+  val startedCallCount: Int
+    get() = startedCalls.get()
+
+  /**
+   * Number of live requests that joined a call already in flight instead of sending their own.
+   */
+  val sharedRequestCount: Int
+    get() = sharedRequests.get()
+
+  /**
+   * Number of calls that answered after the time budget. Their bids were put in cache.
+   */
+  val lateCallCount: Int
+    get() = lateCalls.get()
+
+  /**
+   * Number of calls cancelled before their end, because the application went to background.
+   */
+  val cancelledCallCount: Int
+    get() = cancelledCalls.get()
+
+  /**
+   * Return the latency, in milliseconds, under which the given percentage of the recent calls
+   * answered, or `null` if no call answered yet.
+   *
+   * @param percentile percentage between 0 (exclusive) and 100 (inclusive), e.g. 50, 90 or 99
+   */
+  fun getLatencyPercentileInMillis(percentile: Double): Long? {
+    require(percentile > 0 && percentile <= 100) { "Invalid percentile: $percentile" }
+
+    val sortedLatencies = synchronized(lock) {
+      latenciesInMillis.copyOf(sampleCount)
+    }
+    if (sortedLatencies.isEmpty()) {
+      return null
+    }
+
+    sortedLatencies.sort()
+    val rank = Math.ceil(percentile / 100 * sortedLatencies.size).toInt()
+    return sortedLatencies[rank - 1]
+  }
+
+  private companion object {
+    const val SAMPLE_CAPACITY = 256
+  }
+}
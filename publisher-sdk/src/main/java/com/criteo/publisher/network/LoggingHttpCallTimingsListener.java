@@ -0,0 +1,35 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.network;
+
+import androidx.annotation.NonNull;
+import com.criteo.publisher.logging.Logger;
+import com.criteo.publisher.logging.LoggerFactory;
+
+/**
+ * Listener that logs debug messages with the timings of each HTTP call.
+ */
+public class LoggingHttpCallTimingsListener implements HttpCallTimingsListener {
+
+  @NonNull
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  @Override
+  public void onCallFinished(@NonNull HttpCallTimings timings) {
+    logger.debug("onCallFinished: %s", timings);
+  }
+}
@@ -16,6 +16,7 @@
 
 package com.criteo.publisher.network
 
+import android.util.Log
 import com.criteo.publisher.logging.LogMessage
 
 internal object NetworkLogMessage {
@@ -29,4 +30,42 @@ internal object NetworkLogMessage {
   fun onCdbCallFinished(responsePayload: String) = LogMessage(message =
     "CDB Response received: $responsePayload"
   )
+
+  @JvmStatic
+  fun onCdbCallListenerFailed(throwable: Throwable) = LogMessage(
+      message = "A listener of a batched CDB call failed, the other ones are still notified",
+      level = Log.ERROR,
+      throwable = throwable
+  )
+
+  @JvmStatic
+  fun onHostWarmedUp(host: String, dnsInMillis: Long, connectInMillis: Long) = LogMessage(message =
+    "Connection to $host warmed up: DNS lookup took ${dnsInMillis}ms, connection took ${connectInMillis}ms"
+  )
+
+  @JvmStatic
+  fun onStartupTimings(
+      warmUpEndInMillis: Long,
+      warmUpInMillis: Long,
+      cdbCallInMillis: Long,
+      isReadyBeforeCdbCall: Boolean
+  ) = LogMessage(message =
+    "Startup timings: connection to CDB was ready ${warmUpEndInMillis}ms after the SDK initialization, " +
+        "its setup took ${warmUpInMillis}ms. The first CDB call took ${cdbCallInMillis}ms, and " +
+        (if (isReadyBeforeCdbCall) "could reuse this connection" else "started before this connection was ready")
+  )
+
+  @JvmStatic
+  fun onNetworkQualityEstimated(estimates: NetworkQualityEstimator.Estimates) = LogMessage(message =
+    "Network quality estimated before the connectivity change: $estimates"
+  )
+
+  @JvmStatic
+  @Suppress("MagicNumber")
+  fun onLiveBiddingStats(stats: LiveBiddingStats) = LogMessage(message =
+    "Live bidding: ${stats.startedCallCount} calls sent, ${stats.sharedRequestCount} requests shared, " +
+        "${stats.lateCallCount} calls late, ${stats.cancelledCallCount} calls cancelled. " +
+        "Latency p50=${stats.getLatencyPercentileInMillis(50.0)}ms, " +
+        "p90=${stats.getLatencyPercentileInMillis(90.0)}ms"
+  )
 }
@@ -0,0 +1,277 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.criteo.publisher.network
+
+import androidx.annotation.GuardedBy
+import androidx.annotation.VisibleForTesting
+import com.criteo.publisher.annotation.OpenForTesting
+import com.criteo.publisher.context.ConnectionTypeFetcher
+import com.criteo.publisher.context.ConnectionTypeFetcher.ConnectionType
+import com.criteo.publisher.context.ConnectivityMonitor
+import com.criteo.publisher.logging.LoggerFactory
+import com.criteo.publisher.model.Config
+import com.criteo.publisher.util.BuildConfigWrapper
+
+/**
+ * Estimate the quality of the network from the latencies of the recent CDB calls, separately for each
+ * connection type.
+ *
+ * When [Config.isAdaptiveNetworkTimeoutsEnabled] is set, the network timeout and the live bidding
+ * time budget are derived from those latencies, so a fast link gives up sooner on a stalled call.
+ * They are never longer than the static timeout and the remote time budget, which are also used as
+ * long as too few calls were observed on the current connection type.
+ *
+ * The estimates of a connection type are logged when the connectivity changes.
+ */
+@OpenForTesting
+class NetworkQualityEstimator internal constructor(
+    private val connectionTypeFetcher: ConnectionTypeFetcher,
+    private val buildConfigWrapper: BuildConfigWrapper,
+    private val config: Config
+) : ConnectivityMonitor.Listener {
+
+  private val logger = LoggerFactory.getLogger(javaClass)
+
+  private val lock = Any()
+
+  @GuardedBy("lock")
+  private val samplesByConnectionType = mutableMapOf<ConnectionType?, LatencySamples>()
+
+  /**
+   * Incremented on each connectivity change, so a connection type fetched before a change is not
+   * kept after it.
+   */
+  @GuardedBy("lock")
+  private var connectivityVersion = 0
+
+  @GuardedBy("lock")
+  private var isConnectionTypeFetched = false
+
+  @GuardedBy("lock")
+  private var connectionType: ConnectionType? = null
+
+  /**
+   * Timeout, in milliseconds, to apply on connection and read of the next network call.
+   */
+  val networkTimeoutInMillis: Int
+    get() = getNetworkTimeoutInMillis(getConnectionType())
+
+  /**
+   * Time, in milliseconds, a live bid request waits for CDB before being served from the cache.
+   */
+  val liveBiddingTimeBudgetInMillis: Int
+    get() = getLiveBiddingTimeBudgetInMillis(getConnectionType())
+
+  /**
+   * Record the latency of a CDB call on the current connection type.
+   *
+   * Calls that timed out should also be recorded, with the time spent until the timeout: this is a
+   * lower bound of their latency that lets the timeouts grow back when the network gets slower.
+   */
+  fun onCdbCallFinished(latencyInMillis: Long) {
+    val connectionType = getConnectionType()
+    synchronized(lock) {
+      samplesByConnectionType.getOrPut(connectionType) { LatencySamples() }.add(latencyInMillis)
+    }
+  }
+
+  /**
+   * Log the estimates of the previous connection type, and forget it. The new one is fetched again
+   * on the next call.
+   */
+  override fun onConnectivityChanged(isConnected: Boolean) {
+    val previousEstimates = synchronized(lock) {
+      val estimates = if (isConnectionTypeFetched && samplesByConnectionType.isNotEmpty()) {
+        getEstimates(connectionType)
+      } else {
+        null
+      }
+
+      connectivityVersion++
+      isConnectionTypeFetched = false
+      connectionType = null
+      estimates
+    }
+
+    if (previousEstimates != null) {
+      logger.log(NetworkLogMessage.onNetworkQualityEstimated(previousEstimates))
+    }
+  }
+
+  /**
+   * Return a snapshot of the estimates of the current connection type.
+   */
+  @VisibleForTesting
+  internal fun getEstimates(): Estimates = getEstimates(getConnectionType())
+
+  private fun getEstimates(connectionType: ConnectionType?): Estimates {
+    val latencies = synchronized(lock) {
+      samplesByConnectionType.map { (type, samples) ->
+        LatencyEstimate(
+            type?.name,
+            samples.size,
+            samples.getPercentileInMillis(MEDIAN_PERCENTILE),
+            samples.getPercentileInMillis(TIMEOUT_PERCENTILE)
+        )
+      }
+    }
+
+    return Estimates(
+        connectionType?.name,
+        getNetworkTimeoutInMillis(connectionType),
+        getLiveBiddingTimeBudgetInMillis(connectionType),
+        latencies
+    )
+  }
+
+  private fun getNetworkTimeoutInMillis(connectionType: ConnectionType?): Int {
+    val staticTimeoutInMillis = buildConfigWrapper.networkTimeoutInMillis
+    if (!config.isAdaptiveNetworkTimeoutsEnabled) {
+      return staticTimeoutInMillis
+    }
+
+    val latencyInMillis = getLatencyPercentileInMillis(connectionType, TIMEOUT_PERCENTILE)
+        ?: return staticTimeoutInMillis
+
+    return (latencyInMillis * TIMEOUT_FACTOR)
+        .coerceAtLeast(MIN_NETWORK_TIMEOUT_IN_MILLIS.toLong())
+        .coerceAtMost(staticTimeoutInMillis.toLong())
+        .toInt()
+  }
+
+  private fun getLiveBiddingTimeBudgetInMillis(connectionType: ConnectionType?): Int {
+    val remoteTimeBudgetInMillis = config.liveBiddingTimeBudgetInMillis
+    if (!config.isAdaptiveNetworkTimeoutsEnabled) {
+      return remoteTimeBudgetInMillis
+    }
+
+    val latencyInMillis = getLatencyPercentileInMillis(connectionType, TIME_BUDGET_PERCENTILE)
+        ?: return remoteTimeBudgetInMillis
+
+    return (latencyInMillis * TIME_BUDGET_FACTOR)
+        .coerceAtLeast(MIN_LIVE_BIDDING_TIME_BUDGET_IN_MILLIS.toLong())
+        .coerceAtMost(remoteTimeBudgetInMillis.toLong())
+        .toInt()
+  }
+
+  private fun getLatencyPercentileInMillis(connectionType: ConnectionType?, percentile: Double): Long? {
+    return synchronized(lock) {
+      val samples = samplesByConnectionType[connectionType]
+      if (samples == null || samples.size < MIN_SAMPLE_COUNT) {
+        null
+      } else {
+        samples.getPercentileInMillis(percentile)
+      }
+    }
+  }
+
+  private fun getConnectionType(): ConnectionType? {
+    val version = synchronized(lock) {
+      if (isConnectionTypeFetched) {
+        return connectionType
+      }
+      connectivityVersion
+    }
+
+    // Fetched out of the lock as this queries system services
+    val fetchedConnectionType = connectionTypeFetcher.fetchConnectionType()
+
+    synchronized(lock) {
+      if (version == connectivityVersion) {
+        isConnectionTypeFetched = true
+        connectionType = fetchedConnectionType
+      }
+    }
+    return fetchedConnectionType
+  }
+
+  /**
+   * Current estimates of a [NetworkQualityEstimator].
+   *
+   * Connection types are given by name, `null` standing for an unknown one.
+   */
+  data class Estimates(
+      val connectionType: String?,
+      val networkTimeoutInMillis: Int,
+      val liveBiddingTimeBudgetInMillis: Int,
+      val latencies: List<LatencyEstimate>
+  )
+
+  data class LatencyEstimate(
+      val connectionType: String?,
+      val sampleCount: Int,
+      val medianLatencyInMillis: Long?,
+      val p95LatencyInMillis: Long?
+  )
+
+  /**
+   * Ring buffer of the most recent latencies.
+   */
+  private class LatencySamples {
+    private val latenciesInMillis = LongArray(SAMPLE_CAPACITY)
+    private var nextSampleIndex = 0
+
+    var size = 0
+      private set
+
+    fun add(latencyInMillis: Long) {
+      latenciesInMillis[nextSampleIndex] = latencyInMillis
+      nextSampleIndex = (nextSampleIndex + 1) % SAMPLE_CAPACITY
+      size = minOf(size + 1, SAMPLE_CAPACITY)
+    }
+
+    fun getPercentileInMillis(percentile: Double): Long? {
+      if (size == 0) {
+        return null
+      }
+
+      val sortedLatencies = latenciesInMillis.copyOf(size)
+      sortedLatencies.sort()
+      val rank = Math.ceil(percentile / 100 * size).toInt()
+      return sortedLatencies[rank - 1]
+    }
+  }
+
+  @VisibleForTesting
+  internal companion object {
+    /**
+     * Number of the most recent samples kept per connection type. It is small enough for the
+     * estimates to follow a degrading network within a few calls.
+     */
+    const val SAMPLE_CAPACITY = 64
+
+    /**
+     * Number of samples under which the estimates of a connection type are not trusted.
+     */
+    const val MIN_SAMPLE_COUNT = 10
+
+    const val MEDIAN_PERCENTILE = 50.0
+    const val TIMEOUT_PERCENTILE = 95.0
+    const val TIME_BUDGET_PERCENTILE = 95.0
+
+    /**
+     * The timeout also covers cold connections, with their DNS resolution and TLS handshake, so it
+     * keeps a large margin over the observed latencies.
+     */
+    const val TIMEOUT_FACTOR = 4
+    const val MIN_NETWORK_TIMEOUT_IN_MILLIS = 2_000
+
+    const val TIME_BUDGET_FACTOR = 2
+    const val MIN_LIVE_BIDDING_TIME_BUDGET_IN_MILLIS = 500
+  }
+}
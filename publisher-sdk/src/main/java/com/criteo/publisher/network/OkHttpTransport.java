@@ -0,0 +1,301 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.network;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import com.criteo.publisher.util.TextUtils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+
+/**
+ * {@link HttpTransport} based on OkHttp.
+ * <p>
+ * All the calls share the same connection pool, so connections (and their TLS sessions) are reused
+ * across the different kinds of requests. HTTP/2 is negotiated when the server supports it, so
+ * concurrent calls to the same host are multiplexed on a single connection.
+ * <p>
+ * Calls are executed synchronously on the threads of the SDK, which already bound the number of
+ * concurrent calls.
+ */
+public class OkHttpTransport implements HttpTransport {
+
+  private static final MediaType TEXT_PLAIN = MediaType.get("text/plain");
+
+  @VisibleForTesting
+  static final int MAX_IDLE_CONNECTIONS = 5;
+
+  @VisibleForTesting
+  static final long KEEP_ALIVE_DURATION_IN_MILLIS = 5 * 60 * 1000;
+
+  @NonNull
+  private final NetworkQualityEstimator networkQualityEstimator;
+
+  @NonNull
+  private final OkHttpClient client;
+
+  public OkHttpTransport(
+      @NonNull NetworkQualityEstimator networkQualityEstimator,
+      @NonNull HttpCallTimingsListener timingsListener
+  ) {
+    this.networkQualityEstimator = networkQualityEstimator;
+
+    int timeoutInMillis = networkQualityEstimator.getNetworkTimeoutInMillis();
+    this.client = new OkHttpClient.Builder()
+        .connectionPool(new ConnectionPool(
+            MAX_IDLE_CONNECTIONS,
+            KEEP_ALIVE_DURATION_IN_MILLIS,
+            TimeUnit.MILLISECONDS
+        ))
+        .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+        .connectTimeout(timeoutInMillis, TimeUnit.MILLISECONDS)
+        .readTimeout(timeoutInMillis, TimeUnit.MILLISECONDS)
+        .writeTimeout(timeoutInMillis, TimeUnit.MILLISECONDS)
+        .eventListenerFactory(call -> new TimingEventListener(timingsListener))
+        .build();
+  }
+
+  @NonNull
+  @Override
+  public InputStream execute(
+      @NonNull String method,
+      @NonNull URL url,
+      @Nullable String userAgent,
+      @Nullable Body body,
+      boolean compressBody
+  ) throws IOException {
+    // Accept-Encoding is left unset, so OkHttp transparently asks for and decompresses gzip responses
+    Request.Builder requestBuilder = new Request.Builder()
+        .url(url)
+        .header("Content-Type", TEXT_PLAIN.toString())
+        .method(method, body == null ? null : new StreamingRequestBody(body, compressBody));
+
+    if (body != null && compressBody) {
+      requestBuilder.header("Content-Encoding", "gzip");
+    }
+
+    if (!TextUtils.isEmpty(userAgent)) {
+      requestBuilder.header("User-Agent", userAgent);
+    }
+
+    Response response = getClient().newCall(requestBuilder.build()).execute();
+    int status = response.code();
+    ResponseBody responseBody = response.body();
+    if ((status != HttpURLConnection.HTTP_OK && status != HttpURLConnection.HTTP_NO_CONTENT)
+        || responseBody == null) {
+      response.close();
+      throw new HttpResponseException(status);
+    }
+
+    return responseBody.byteStream();
+  }
+
+  @Override
+  public void warmUp(@NonNull URL url) throws IOException {
+    Request request = new Request.Builder()
+        .url(url)
+        .head()
+        .build();
+
+    // Closing the response releases the connection to the pool
+    getClient().newCall(request).execute().close();
+  }
+
+  /**
+   * Return the client to use for a new call.
+   * <p>
+   * Timeouts are read for each call, as they may change over time. Derived clients still share the
+   * same connection pool.
+   */
+  @NonNull
+  private OkHttpClient getClient() {
+    int timeoutInMillis = networkQualityEstimator.getNetworkTimeoutInMillis();
+    if (client.connectTimeoutMillis() == timeoutInMillis
+        && client.readTimeoutMillis() == timeoutInMillis) {
+      return client;
+    }
+
+    return client.newBuilder()
+        .connectTimeout(timeoutInMillis, TimeUnit.MILLISECONDS)
+        .readTimeout(timeoutInMillis, TimeUnit.MILLISECONDS)
+        .writeTimeout(timeoutInMillis, TimeUnit.MILLISECONDS)
+        .build();
+  }
+
+  private static class StreamingRequestBody extends RequestBody {
+
+    @NonNull
+    private final Body body;
+
+    private final boolean compressBody;
+
+    StreamingRequestBody(@NonNull Body body, boolean compressBody) {
+      this.body = body;
+      this.compressBody = compressBody;
+    }
+
+    @Nullable
+    @Override
+    public MediaType contentType() {
+      return TEXT_PLAIN;
+    }
+
+    @Override
+    public void writeTo(@NonNull BufferedSink sink) throws IOException {
+      if (!compressBody) {
+        body.writeTo(sink.outputStream());
+        return;
+      }
+
+      // Closing the gzip sink is required to write its trailer
+      BufferedSink gzipSink = Okio.buffer(new GzipSink(sink));
+      body.writeTo(gzipSink.outputStream());
+      gzipSink.close();
+    }
+  }
+
+  /**
+   * Measure the phases of a single call.
+   * <p>
+   * OkHttp creates one listener per call and invokes it sequentially, so no synchronization is
+   * needed.
+   */
+  private static class TimingEventListener extends EventListener {
+
+    @NonNull
+    private final HttpCallTimingsListener timingsListener;
+
+    private String host = "";
+    private long callStart;
+    private long dnsStart;
+    private Long dnsInMillis;
+    private long connectStart;
+    private Long connectInMillis;
+    private long tlsStart;
+    private Long tlsInMillis;
+    private Long timeToFirstByteInMillis;
+
+    TimingEventListener(@NonNull HttpCallTimingsListener timingsListener) {
+      this.timingsListener = timingsListener;
+    }
+
+    @Override
+    public void callStart(@NonNull Call call) {
+      host = call.request().url().host();
+      callStart = now();
+    }
+
+    @Override
+    public void dnsStart(@NonNull Call call, @NonNull String domainName) {
+      dnsStart = now();
+    }
+
+    @Override
+    public void dnsEnd(
+        @NonNull Call call,
+        @NonNull String domainName,
+        @NonNull List<InetAddress> inetAddressList
+    ) {
+      dnsInMillis = now() - dnsStart;
+    }
+
+    @Override
+    public void connectStart(
+        @NonNull Call call,
+        @NonNull InetSocketAddress inetSocketAddress,
+        @NonNull Proxy proxy
+    ) {
+      connectStart = now();
+    }
+
+    @Override
+    public void secureConnectStart(@NonNull Call call) {
+      tlsStart = now();
+    }
+
+    @Override
+    public void secureConnectEnd(@NonNull Call call, @Nullable Handshake handshake) {
+      tlsInMillis = now() - tlsStart;
+    }
+
+    @Override
+    public void connectEnd(
+        @NonNull Call call,
+        @NonNull InetSocketAddress inetSocketAddress,
+        @NonNull Proxy proxy,
+        @Nullable Protocol protocol
+    ) {
+      connectInMillis = now() - connectStart;
+    }
+
+    @Override
+    public void responseHeadersStart(@NonNull Call call) {
+      if (timeToFirstByteInMillis == null) {
+        timeToFirstByteInMillis = now() - callStart;
+      }
+    }
+
+    @Override
+    public void callEnd(@NonNull Call call) {
+      notifyTimings(true);
+    }
+
+    @Override
+    public void callFailed(@NonNull Call call, @NonNull IOException ioe) {
+      notifyTimings(false);
+    }
+
+    private void notifyTimings(boolean isSuccessful) {
+      timingsListener.onCallFinished(new HttpCallTimings(
+          host,
+          dnsInMillis,
+          connectInMillis,
+          tlsInMillis,
+          timeToFirstByteInMillis,
+          now() - callStart,
+          isSuccessful
+      ));
+    }
+
+    private static long now() {
+      return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+  }
+}
@@ -18,12 +18,15 @@ package com.criteo.publisher.network;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import com.criteo.publisher.Clock;
 import com.criteo.publisher.csm.MetricRequest;
 import com.criteo.publisher.logging.Logger;
 import com.criteo.publisher.logging.LoggerFactory;
 import com.criteo.publisher.logging.RemoteLogRecords;
 import com.criteo.publisher.model.CdbRequest;
 import com.criteo.publisher.model.CdbResponse;
+import com.criteo.publisher.model.CdbResponseReader;
+import com.criteo.publisher.model.Config;
 import com.criteo.publisher.model.RemoteConfigRequest;
 import com.criteo.publisher.model.RemoteConfigResponse;
 import com.criteo.publisher.util.BuildConfigWrapper;
@@ -33,8 +36,8 @@ import com.criteo.publisher.util.TextUtils;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.Charset;
@@ -61,21 +64,49 @@ public class PubSdkApi {
   @NonNull
   private final JsonSerializer jsonSerializer;
 
+  @NonNull
+  private final CdbResponseReader cdbResponseReader;
+
+  @NonNull
+  private final HttpTransport httpTransport;
+
+  @NonNull
+  private final Config config;
+
+  @NonNull
+  private final Clock clock;
+
+  @NonNull
+  private final NetworkQualityEstimator networkQualityEstimator;
+
+  @NonNull
+  private final ConnectionWarmer connectionWarmer;
+
   public PubSdkApi(
       @NonNull BuildConfigWrapper buildConfigWrapper,
-      @NonNull JsonSerializer jsonSerializer
+      @NonNull JsonSerializer jsonSerializer,
+      @NonNull CdbResponseReader cdbResponseReader,
+      @NonNull HttpTransport httpTransport,
+      @NonNull Config config,
+      @NonNull Clock clock,
+      @NonNull NetworkQualityEstimator networkQualityEstimator,
+      @NonNull ConnectionWarmer connectionWarmer
   ) {
     this.buildConfigWrapper = buildConfigWrapper;
     this.jsonSerializer = jsonSerializer;
+    this.cdbResponseReader = cdbResponseReader;
+    this.httpTransport = httpTransport;
+    this.config = config;
+    this.clock = clock;
+    this.networkQualityEstimator = networkQualityEstimator;
+    this.connectionWarmer = connectionWarmer;
   }
 
   @NonNull
   public RemoteConfigResponse loadConfig(@NonNull RemoteConfigRequest request) throws IOException {
     URL url = new URL(buildConfigWrapper.getCdbUrl() + "/config/app");
-    HttpURLConnection urlConnection = prepareConnection(url, null, "POST");
-    writePayload(urlConnection, request);
 
-    try (InputStream inputStream = readResponseStreamIfSuccess(urlConnection)) {
+    try (InputStream inputStream = httpTransport.execute("POST", url, null, jsonBody(request), false)) {
       return jsonSerializer.read(RemoteConfigResponse.class, inputStream);
     }
   }
@@ -83,18 +114,24 @@ public class PubSdkApi {
   @NonNull
   public CdbResponse loadCdb(@NonNull CdbRequest request, @NonNull String userAgent) throws Exception {
     URL url = new URL(buildConfigWrapper.getCdbUrl() + "/inapp/v2");
-    HttpURLConnection urlConnection = prepareConnection(url, userAgent, "POST");
-    urlConnection.setDoOutput(true);
+    byte[] payload;
     try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
       jsonSerializer.write(request, baos);
       logger.log(NetworkLogMessage.onCdbCallStarted(baos.toString("UTF-8")));
-      urlConnection.getOutputStream().write(baos.toByteArray());
+      payload = baos.toByteArray();
     }
 
-    try (InputStream inputStream = readResponseStreamIfSuccess(urlConnection)) {
-      String response = StreamUtil.readStream(inputStream);
-      logger.log(NetworkLogMessage.onCdbCallFinished(response));
-      return CdbResponse.fromJson(readJson(response));
+    long start = clock.getCurrentTimeInMillis();
+    try (InputStream inputStream = executeCompressiblePost(url, userAgent, out -> out.write(payload))) {
+      CdbResponse cdbResponse = cdbResponseReader.read(inputStream);
+      long elapsedInMillis = clock.getCurrentTimeInMillis() - start;
+      networkQualityEstimator.onCdbCallFinished(elapsedInMillis);
+      connectionWarmer.onCdbCallFinished(start, elapsedInMillis);
+      logger.log(NetworkLogMessage.onCdbCallFinished(cdbResponse.toString()));
+      return cdbResponse;
+    } catch (SocketTimeoutException e) {
+      networkQualityEstimator.onCdbCallFinished(clock.getCurrentTimeInMillis() - start);
+      throw e;
     }
   }
 
@@ -145,38 +182,38 @@ public class PubSdkApi {
 
   private void postToCdb(@NonNull String apiPath, @NonNull Object request) throws IOException {
     URL url = new URL(buildConfigWrapper.getCdbUrl() + apiPath);
-    HttpURLConnection urlConnection = prepareConnection(url, null, "POST");
-    writePayload(urlConnection, request);
-    readResponseStreamIfSuccess(urlConnection).close();
+    executeCompressiblePost(url, null, jsonBody(request)).close();
   }
 
   @NonNull
   public InputStream executeRawGet(URL url, @Nullable String userAgent) throws IOException {
-    HttpURLConnection urlConnection = prepareConnection(url, userAgent, "GET");
-    return readResponseStreamIfSuccess(urlConnection);
+    return httpTransport.execute("GET", url, userAgent, null, false);
   }
 
+  /**
+   * Send a POST request, with a body compressed with gzip if this is activated.
+   * <p>
+   * If the server rejects the compressed body, the request is sent again without compression.
+   */
   @NonNull
-  private HttpURLConnection prepareConnection(@NonNull URL url,
-      @Nullable String userAgent, String method) throws IOException {
-    HttpURLConnection urlConnection = (HttpURLConnection) url.openConnection();
-    urlConnection.setRequestMethod(method);
-    urlConnection.setReadTimeout(buildConfigWrapper.getNetworkTimeoutInMillis());
-    urlConnection.setConnectTimeout(buildConfigWrapper.getNetworkTimeoutInMillis());
-    urlConnection.setRequestProperty("Content-Type", "text/plain");
-    if (!TextUtils.isEmpty(userAgent)) {
-      urlConnection.setRequestProperty("User-Agent", userAgent);
+  private InputStream executeCompressiblePost(
+      @NonNull URL url,
+      @Nullable String userAgent,
+      @NonNull HttpTransport.Body body
+  ) throws IOException {
+    if (!config.isGzipCompressionEnabled()) {
+      return httpTransport.execute("POST", url, userAgent, body, false);
     }
-    return urlConnection;
-  }
 
-  @NonNull
-  private static InputStream readResponseStreamIfSuccess(@NonNull HttpURLConnection urlConnection) throws IOException {
-    int status = urlConnection.getResponseCode();
-    if (status == HttpURLConnection.HTTP_OK || status == HttpURLConnection.HTTP_NO_CONTENT) {
-      return urlConnection.getInputStream();
-    } else {
-      throw new HttpResponseException(status);
+    try {
+      return httpTransport.execute("POST", url, userAgent, body, true);
+    } catch (HttpResponseException e) {
+      if (e.getStatus() != HttpURLConnection.HTTP_UNSUPPORTED_TYPE) {
+        throw e;
+      }
+
+      logger.debug("Compressed request rejected by " + url + ", sending it without compression", e);
+      return httpTransport.execute("POST", url, userAgent, body, false);
     }
   }
 
@@ -193,13 +230,9 @@ public class PubSdkApi {
     return new JSONObject(json);
   }
 
-  private void writePayload(
-      @NonNull HttpURLConnection urlConnection,
-      @NonNull Object request) throws IOException {
-    urlConnection.setDoOutput(true);
-    try (OutputStream outputStream = urlConnection.getOutputStream()) {
-      jsonSerializer.write(request, outputStream);
-    }
+  @NonNull
+  private HttpTransport.Body jsonBody(@NonNull Object request) {
+    return outputStream -> jsonSerializer.write(request, outputStream);
   }
 
   private String getParamsString(Map<String, String> params) {
@@ -157,4 +157,21 @@ public class BuildConfigWrapper {
   public String getRemoteLogQueueFilename() {
     return BuildConfig.remoteLogQueueFilename;
   }
+
+  /**
+   * The relative path in application folder of the file storing the bid cache between two sessions
+   */
+  @NonNull
+  public String getBidCacheSnapshotFilename() {
+    return BuildConfig.bidCacheSnapshotFilename;
+  }
+
+  /**
+   * The relative path in application folder of the file storing the usage of ad units between
+   * sessions
+   */
+  @NonNull
+  public String getAdUnitUsageFilename() {
+    return BuildConfig.adUnitUsageFilename;
+  }
 }
@@ -30,6 +30,17 @@ public class ReflectionUtil {
   @NonNull
   private static final Logger logger = LoggerFactory.getLogger(ReflectionUtil.class);
 
+  public static boolean isClassPresent(@NonNull String className) {
+    try {
+      // Initialization of the class is not required to check its existence
+      ClassLoader classLoader = ReflectionUtil.class.getClassLoader();
+      Class.forName(className, false, classLoader);
+      return true;
+    } catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+
   public static boolean isInstanceOf(@NonNull Object object, @NonNull String className) {
     try {
       ClassLoader classLoader = ReflectionUtil.class.getClassLoader();
@@ -0,0 +1,90 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.criteo.publisher.util;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Value computed lazily, then reused until it is {@linkplain #invalidate() invalidated}.
+ * <p>
+ * Invalidation is lock-free: it only bumps a version. Concurrent callers may compute the value
+ * several times, so {@link #compute()} should be cheap enough and free of side effects.
+ *
+ * @param <T> type of the memoized value
+ */
+public abstract class VersionedMemo<T> {
+
+  /**
+   * Incremented each time the memoized value is invalidated
+   */
+  @NonNull
+  private final AtomicInteger version = new AtomicInteger();
+
+  @Nullable
+  private volatile Entry<T> entry;
+
+  @NonNull
+  public T get() {
+    // The version is read before computing, so an invalidation happening during the computation
+    // is not lost: the value is simply computed again on next call.
+    int currentVersion = version.get();
+
+    Entry<T> current = entry;
+    if (current != null && current.version == currentVersion && isStillValid(current.value)) {
+      return current.value;
+    }
+
+    T value = compute();
+    entry = new Entry<>(currentVersion, value);
+    return value;
+  }
+
+  /**
+   * Invalidate the memoized value, so it is computed again on next call.
+   */
+  public void invalidate() {
+    version.incrementAndGet();
+  }
+
+  @NonNull
+  protected abstract T compute();
+
+  /**
+   * Indicate if the given memoized value can still be used, on top of explicit invalidations.
+   * <p>
+   * This is useful when the value depends on a state that is cheap to check but not notified.
+   */
+  protected boolean isStillValid(@NonNull T value) {
+    return true;
+  }
+
+  private static final class Entry<T> {
+
+    private final int version;
+
+    @NonNull
+    private final T value;
+
+    private Entry(int version, @NonNull T value) {
+      this.version = version;
+      this.value = value;
+    }
+  }
+}
@@ -22,12 +22,16 @@ import com.criteo.publisher.mock.SpyBean
 import com.criteo.publisher.model.AdUnit
 import com.criteo.publisher.model.CdbResponseSlot
 import com.criteo.publisher.model.Config
+import org.assertj.core.api.Assertions.assertThat
 import org.junit.Rule
 import org.junit.Test
+import org.mockito.kotlin.any
 import org.mockito.kotlin.doAnswer
 import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.eq
 import org.mockito.kotlin.mock
 import org.mockito.kotlin.verify
+import org.mockito.kotlin.verifyNoInteractions
 import org.mockito.kotlin.verifyNoMoreInteractions
 import org.mockito.kotlin.whenever
 
@@ -112,4 +116,62 @@ class BidManagerTest {
     verify(bidListener).onNoBid()
     verifyNoMoreInteractions(bidListener)
   }
+
+  @Test
+  fun getBidsForAdUnits_GivenLiveBiddingDisabled_ThenTriggerBidsResponseOnce() {
+    whenever(config.isLiveBiddingEnabled).thenReturn(false)
+
+    val adUnit1 = mock<AdUnit>()
+    val adUnit2 = mock<AdUnit>()
+    val expected = mock<CdbResponseSlot>()
+    val bidsListener = mock<BidsListener>()
+    val contextData = mock<ContextData>()
+
+    doReturn(listOf(expected, null)).whenever(bidManager)
+        .getBidsForAdUnitsAndPrefetch(listOf(adUnit1, adUnit2), contextData)
+
+    bidManager.getBidsForAdUnits(listOf(adUnit1, adUnit2), contextData, bidsListener)
+
+    verify(bidsListener).onBidsResponse(listOf(expected, null))
+    verifyNoMoreInteractions(bidsListener)
+  }
+
+  @Test
+  fun getBidsForAdUnits_GivenLiveBiddingEnabled_ThenTriggerBidsResponseOnceAllLiveBidsAreAnswered() {
+    whenever(config.isLiveBiddingEnabled).thenReturn(true)
+
+    val adUnit1 = mock<AdUnit>()
+    val adUnit2 = mock<AdUnit>()
+    val expected = mock<CdbResponseSlot>()
+    val bidsListener = mock<BidsListener>()
+    val contextData = mock<ContextData>()
+    val pendingListeners = mutableListOf<BidListener>()
+
+    doAnswer {
+      pendingListeners.add(it.getArgument(2))
+      Unit
+    }.whenever(bidManager).getLiveBidForAdUnit(any(), eq(contextData), any())
+
+    bidManager.getBidsForAdUnits(listOf(adUnit1, adUnit2), contextData, bidsListener)
+
+    assertThat(pendingListeners).hasSize(2)
+    pendingListeners[1].onNoBid()
+    verifyNoInteractions(bidsListener)
+
+    pendingListeners[0].onBidResponse(expected)
+    verify(bidsListener).onBidsResponse(listOf(expected, null))
+    verifyNoMoreInteractions(bidsListener)
+  }
+
+  @Test
+  fun getBidsForAdUnits_GivenLiveBiddingEnabledAndNoAdUnit_ThenTriggerEmptyBidsResponse() {
+    whenever(config.isLiveBiddingEnabled).thenReturn(true)
+
+    val bidsListener = mock<BidsListener>()
+
+    bidManager.getBidsForAdUnits(listOf(), mock(), bidsListener)
+
+    verify(bidsListener).onBidsResponse(listOf())
+    verifyNoMoreInteractions(bidsListener)
+  }
 }
@@ -29,6 +29,8 @@ import com.criteo.publisher.concurrent.DirectMockRunOnUiThreadExecutor;
 import com.criteo.publisher.context.ContextData;
 import com.criteo.publisher.model.AdUnit;
 import com.criteo.publisher.model.CdbResponseSlot;
+import java.util.Arrays;
+import java.util.List;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
@@ -110,4 +112,34 @@ public class ConsumableBidLoaderTest {
     }));
   }
 
+  @Test
+  public void loadBids_GivenBidManagerYieldingBidsAndNoBids_ReturnThemAtOnceInSameOrder() throws Exception {
+    AdUnit adUnit1 = mock(AdUnit.class);
+    AdUnit adUnit2 = mock(AdUnit.class);
+    List<AdUnit> adUnits = Arrays.asList(adUnit1, adUnit2);
+    ContextData contextData = mock(ContextData.class);
+    CdbResponseSlot slot = mock(CdbResponseSlot.class);
+    BidsResponseListener bidsListener = mock(BidsResponseListener.class);
+
+    when(slot.getCpmAsNumber()).thenReturn(42.1337);
+    doAnswer(invocation -> {
+      runOnUiThreadExecutor.expectIsRunningInExecutor();
+      return null;
+    }).when(bidsListener).onResponse(any());
+
+    doAnswer(invocation -> {
+      invocation.<BidsListener>getArgument(2).onBidsResponse(Arrays.asList(null, slot));
+      return null;
+    }).when(bidManager).getBidsForAdUnits(eq(adUnits), eq(contextData), any());
+
+    consumableBidLoader.loadBids(adUnits, contextData, bidsListener);
+
+    verify(bidsListener).onResponse(argThat(bids -> {
+      assertThat(bids).hasSize(2);
+      assertThat(bids.get(0)).isNull();
+      assertThat(bids.get(1).getPrice()).isEqualTo(42.1337);
+      return true;
+    }));
+  }
+
 }
\ No newline at end of file
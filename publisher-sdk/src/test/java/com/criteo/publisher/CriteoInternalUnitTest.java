@@ -16,6 +16,7 @@
 
 package com.criteo.publisher;
 
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -33,15 +34,21 @@ import android.app.Application;
 import com.criteo.publisher.activity.TopActivityFinder;
 import com.criteo.publisher.bid.BidLifecycleListener;
 import com.criteo.publisher.concurrent.DirectMockRunOnUiThreadExecutor;
+import com.criteo.publisher.context.ConnectivityMonitor;
 import com.criteo.publisher.context.ContextData;
 import com.criteo.publisher.headerbidding.HeaderBidding;
 import com.criteo.publisher.model.AdUnit;
+import com.criteo.publisher.model.AdUnitMapper;
+import com.criteo.publisher.model.CacheAdUnitInterner;
+import com.criteo.publisher.model.CdbRequestFactory;
 import com.criteo.publisher.model.Config;
 import com.criteo.publisher.model.DeviceInfo;
+import com.criteo.publisher.network.ConnectionWarmer;
 import com.criteo.publisher.privacy.UserPrivacyUtil;
 import com.criteo.publisher.util.AdvertisingInfo;
 import com.criteo.publisher.util.AppLifecycleUtil;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import org.junit.Before;
 import org.junit.Rule;
@@ -98,6 +105,32 @@ public class CriteoInternalUnitTest {
     inOrder.verify(bidManager).prefetch(any());
   }
 
+  @Test
+  public void whenCreatingNewCriteo_GivenBidManagerAndBidLifecycleListener_ShouldRestoreBidsBeforeCallingListener()
+      throws Exception {
+    BidLifecycleListener listener = givenMockedBidLifecycleListener();
+    BidManager bidManager = givenMockedBidManager();
+
+    createCriteo();
+
+    InOrder inOrder = inOrder(listener, bidManager);
+    inOrder.verify(bidManager).restoreCachedBids(any());
+    inOrder.verify(listener).onSdkInitialized();
+  }
+
+  @Test
+  public void whenCreatingNewCriteo_GivenBidsNotRestoredYet_ShouldNotCallListenerNorPrefetch()
+      throws Exception {
+    BidLifecycleListener listener = givenMockedBidLifecycleListener();
+    BidManager bidManager = mock(BidManager.class);
+    when(dependencyProvider.provideBidManager()).thenReturn(bidManager);
+
+    createCriteo();
+
+    verify(listener, never()).onSdkInitialized();
+    verify(bidManager, never()).prefetch(any());
+  }
+
   @Test
   public void whenCreatingNewCriteo_GivenBidManagerAndAdUnits_ShouldCallPrefetchWithAdUnits()
       throws Exception {
@@ -293,6 +326,56 @@ public class CriteoInternalUnitTest {
     verify(application).registerActivityLifecycleCallbacks(any(AppLifecycleUtil.class));
   }
 
+  @Test
+  public void whenCreatingNewCriteo_GivenApplication_RegisterCdbRequestFactoryForInvalidation()
+      throws Exception {
+    createCriteo();
+
+    CdbRequestFactory cdbRequestFactory = dependencyProvider.provideCdbRequestFactory();
+    verify(application).registerComponentCallbacks(cdbRequestFactory);
+    verify(dependencyProvider.provideSharedPreferencesFactory().getApplication())
+        .registerOnSharedPreferenceChangeListener(cdbRequestFactory);
+  }
+
+  @Test
+  public void whenCreatingNewCriteo_GivenApplication_RegisterAdUnitMappingForInvalidation()
+      throws Exception {
+    createCriteo();
+
+    CacheAdUnitInterner cacheAdUnitInterner = dependencyProvider.provideCacheAdUnitInterner();
+    AdUnitMapper adUnitMapper = dependencyProvider.provideAdUnitMapper();
+    verify(application).registerComponentCallbacks(cacheAdUnitInterner);
+    verify(dependencyProvider.provideSharedPreferencesFactory().getInternal())
+        .registerOnSharedPreferenceChangeListener(adUnitMapper);
+  }
+
+  @Test
+  public void whenCreatingNewCriteo_GivenApplication_RegisterListenersOfConnectivityChanges()
+      throws Exception {
+    createCriteo();
+
+    ConnectivityMonitor connectivityMonitor = dependencyProvider.provideConnectivityMonitor();
+    InOrder inOrder = inOrder(connectivityMonitor);
+    inOrder.verify(connectivityMonitor).addListener(dependencyProvider.provideNetworkQualityEstimator());
+    inOrder.verify(connectivityMonitor).addListener(dependencyProvider.provideMetricSendingQueueConsumer());
+    inOrder.verify(connectivityMonitor).addListener(dependencyProvider.provideRemoteLogSendingQueueConsumer());
+    inOrder.verify(connectivityMonitor).addListener(dependencyProvider.provideImpressionHelper());
+    inOrder.verify(connectivityMonitor).addListener(dependencyProvider.provideAppEvents());
+    inOrder.verify(connectivityMonitor).register();
+  }
+
+  @Test
+  public void whenCreatingNewCriteo_GivenApplication_WarmUpConnectionsOnceConnectivityIsKnown()
+      throws Exception {
+    createCriteo();
+
+    ConnectivityMonitor connectivityMonitor = dependencyProvider.provideConnectivityMonitor();
+    ConnectionWarmer connectionWarmer = dependencyProvider.provideConnectionWarmer();
+    InOrder inOrder = inOrder(connectivityMonitor, connectionWarmer);
+    inOrder.verify(connectivityMonitor).register();
+    inOrder.verify(connectionWarmer).warmUp();
+  }
+
   @Test
   public void whenCreatingNewCriteo_GivenApplication_RegisterLastActivityTracker()
       throws Exception {
@@ -331,6 +414,35 @@ public class CriteoInternalUnitTest {
     verify(listener).onResponse(null);
   }
 
+  @Test
+  public void loadBids_GivenNoContext_UseEmptyContext() throws Exception {
+    List<AdUnit> adUnits = singletonList(mock(AdUnit.class));
+    BidsResponseListener listener = mock(BidsResponseListener.class);
+
+    Criteo criteo = spy(createCriteo());
+    criteo.loadBids(adUnits, listener);
+
+    verify(criteo).loadBids(eq(adUnits), eq(new ContextData()), eq(listener));
+  }
+
+  @Test
+  public void loadBids_GivenBidLoaderThrowing_DoNotThrowAndReturnNoBidResponses()
+      throws Exception {
+    List<AdUnit> adUnits = Arrays.asList(mock(AdUnit.class), mock(AdUnit.class));
+    BidsResponseListener listener = mock(BidsResponseListener.class);
+    ContextData contextData = mock(ContextData.class);
+
+    ConsumableBidLoader consumableBidLoader = givenMockedConsumableBidLoader();
+    doAnswer(invocation -> {
+      throw new RuntimeException();
+    }).when(consumableBidLoader).loadBids(adUnits, contextData, listener);
+
+    Criteo criteo = createCriteo();
+    criteo.loadBids(adUnits, contextData, listener);
+
+    verify(listener).onResponse(Arrays.asList(null, null));
+  }
+
   @Test
   public void getBidResponse_GivenBidManagerYieldingOne_ReturnIt() throws Exception {
     AdUnit adUnit = mock(AdUnit.class);
@@ -403,6 +515,10 @@ public class CriteoInternalUnitTest {
 
   private BidManager givenMockedBidManager() {
     BidManager bidManager = mock(BidManager.class);
+    doAnswer(invocation -> {
+      invocation.<Runnable>getArgument(0).run();
+      return null;
+    }).when(bidManager).restoreCachedBids(any());
 
     when(dependencyProvider.provideBidManager()).thenReturn(bidManager);
 
@@ -174,6 +174,11 @@ public class DependencyProviderTest {
     provideBean_WhenProvidedTwice_ReturnsTheSame(DependencyProvider::provideThreadPoolExecutor);
   }
 
+  @Test
+  public void provideLaneExecutors_WhenProvidedTwice_ReturnsTheSame() throws Exception {
+    provideBean_WhenProvidedTwice_ReturnsTheSame(DependencyProvider::provideLaneExecutors);
+  }
+
   @Test
   public void provideBuildConfigWrapper_WhenProvidedTwice_ReturnsTheSame() throws Exception {
     provideBean_WhenProvidedTwice_ReturnsTheSame(DependencyProvider::provideBuildConfigWrapper);
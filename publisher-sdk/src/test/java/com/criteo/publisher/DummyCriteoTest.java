@@ -28,6 +28,7 @@ import com.criteo.publisher.model.BannerAdUnit;
 import com.criteo.publisher.model.DeviceInfo;
 import com.criteo.publisher.model.InterstitialAdUnit;
 import com.criteo.publisher.model.NativeAdUnit;
+import java.util.Arrays;
 import java.util.HashMap;
 import org.junit.Before;
 import org.junit.Test;
@@ -82,6 +83,18 @@ public class DummyCriteoTest {
     verify(listener, times(6)).onResponse(null);
   }
 
+  @Test
+  public void loadBids_GivenAnyAdUnits_ReturnNoBids() throws Exception {
+    BidsResponseListener listener = mock(BidsResponseListener.class);
+    ContextData contextData = mock(ContextData.class);
+
+    criteo.loadBids(Arrays.asList(banner, interstitial, aNative), listener);
+    criteo.loadBids(Arrays.asList(banner, interstitial), contextData, listener);
+
+    verify(listener).onResponse(Arrays.asList(null, null, null));
+    verify(listener).onResponse(Arrays.asList(null, null));
+  }
+
   @Test
   public void getDeviceInfo_ReturnNoUserAgentAndInitializeDirectly() throws Exception {
     DeviceInfo deviceInfo = criteo.getDeviceInfo();
@@ -17,6 +17,7 @@
 package com.criteo.publisher.advancednative
 
 import com.criteo.publisher.concurrent.RunOnUiThreadExecutor
+import com.criteo.publisher.context.ConnectivityMonitor
 import com.criteo.publisher.mock.MockBean
 import com.criteo.publisher.mock.MockedDependenciesRule
 import com.criteo.publisher.mock.SpyBean
@@ -29,6 +30,7 @@ import org.junit.Test
 import org.mockito.ArgumentMatchers.any
 import org.mockito.Mock
 import org.mockito.Mockito.mock
+import org.mockito.Mockito.never
 import org.mockito.Mockito.verify
 import org.mockito.junit.MockitoJUnit
 import org.mockito.kotlin.doAnswer
@@ -63,11 +65,16 @@ class ImpressionHelperTest {
     @Mock
     private lateinit var runOnUiThreadExecutor: RunOnUiThreadExecutor
 
+    @Mock
+    private lateinit var connectivityMonitor: ConnectivityMonitor
+
     private lateinit var helper: ImpressionHelper
 
     @Before
     fun setUp() {
-        helper = ImpressionHelper(api, executor, runOnUiThreadExecutor)
+        whenever(connectivityMonitor.isConnected).doReturn(true)
+
+        helper = ImpressionHelper(api, executor, runOnUiThreadExecutor, connectivityMonitor)
     }
 
     @Test
@@ -116,6 +123,23 @@ class ImpressionHelperTest {
         verify(api).executeRawGet(URL("http://my.pixel.3"))
     }
 
+    @Test
+    fun firePixels_GivenOffline_FireThemOnceNetworkIsBack() {
+        whenever(connectivityMonitor.isConnected).doReturn(false)
+
+        helper.firePixels(listOf(URL("http://my.pixel.1")))
+        helper.firePixels(listOf(URL("http://my.pixel.2")))
+
+        verify(api, never()).executeRawGet(any())
+
+        whenever(connectivityMonitor.isConnected).doReturn(true)
+        helper.onConnectivityChanged(true)
+        helper.onConnectivityChanged(true)
+
+        verify(api).executeRawGet(URL("http://my.pixel.1"))
+        verify(api).executeRawGet(URL("http://my.pixel.2"))
+    }
+
     @Test
     fun notifyImpression_GivenListener_NotifyItWithUiExecutor() {
         val isCalledFromExecutor = AtomicBoolean()
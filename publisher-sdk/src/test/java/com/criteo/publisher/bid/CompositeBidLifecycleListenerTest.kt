@@ -103,4 +103,25 @@ class CompositeBidLifecycleListenerTest {
     verify(listener1).onBidConsumed(adUnit, slot)
     verify(listener2).onBidConsumed(adUnit, slot)
   }
+
+  @Test
+  fun onBidEvicted_GivenDelegates_DelegateToThem() {
+    val adUnit = CacheAdUnit(AdSize(1, 2), "myAdUnit", CRITEO_BANNER)
+    val slot = mock<CdbResponseSlot>()
+
+    listener.onBidEvicted(adUnit, slot)
+
+    verify(listener1).onBidEvicted(adUnit, slot)
+    verify(listener2).onBidEvicted(adUnit, slot)
+  }
+
+  @Test
+  fun onBidRestored_GivenDelegates_DelegateToThem() {
+    val slot = mock<CdbResponseSlot>()
+
+    listener.onBidRestored(slot)
+
+    verify(listener1).onBidRestored(slot)
+    verify(listener2).onBidRestored(slot)
+  }
 }
@@ -0,0 +1,143 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.cache
+
+import com.criteo.publisher.Clock
+import com.criteo.publisher.cache.AdUnitUsageHistogram.HALF_LIFE_IN_MILLIS
+import com.criteo.publisher.model.AdSize
+import com.criteo.publisher.model.CacheAdUnit
+import com.criteo.publisher.util.AdUnitType.CRITEO_BANNER
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.within
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.mockito.Mock
+import org.mockito.junit.MockitoJUnit
+import org.mockito.kotlin.check
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.whenever
+
+class AdUnitUsageHistogramTest {
+
+  @Rule
+  @JvmField
+  val mockitoRule = MockitoJUnit.rule()
+
+  @Mock
+  private lateinit var store: AdUnitUsageStore
+
+  @Mock
+  private lateinit var clock: Clock
+
+  private lateinit var histogram: AdUnitUsageHistogram
+
+  private val adUnit1 = CacheAdUnit(AdSize(1, 2), "adUnit1", CRITEO_BANNER)
+  private val adUnit2 = CacheAdUnit(AdSize(1, 2), "adUnit2", CRITEO_BANNER)
+  private val adUnit3 = CacheAdUnit(AdSize(1, 2), "adUnit3", CRITEO_BANNER)
+
+  @Before
+  fun setUp() {
+    histogram = AdUnitUsageHistogram(store, clock)
+  }
+
+  @Test
+  fun onAdUnitRequested_GivenSeveralRequests_CountThem() {
+    histogram.onAdUnitRequested(adUnit1)
+    histogram.onAdUnitRequested(adUnit1)
+    histogram.onAdUnitRequested(adUnit2)
+
+    assertThat(histogram.getUsage(adUnit1)).isEqualTo(2.0)
+    assertThat(histogram.getUsage(adUnit2)).isEqualTo(1.0)
+    assertThat(histogram.getUsage(adUnit3)).isEqualTo(0.0)
+  }
+
+  @Test
+  fun getUsage_GivenElapsedHalfLife_ReturnHalvedUsage() {
+    histogram.onAdUnitRequested(adUnit1)
+    histogram.onAdUnitRequested(adUnit1)
+
+    givenTime(HALF_LIFE_IN_MILLIS)
+    assertThat(histogram.getUsage(adUnit1)).isCloseTo(1.0, within(1e-9))
+
+    histogram.onAdUnitRequested(adUnit1)
+    assertThat(histogram.getUsage(adUnit1)).isCloseTo(2.0, within(1e-9))
+  }
+
+  @Test
+  fun sortByUsage_GivenUsages_SortByDecreasingUsageAndKeepOrderOfUnused() {
+    val adUnit4 = CacheAdUnit(AdSize(1, 2), "adUnit4", CRITEO_BANNER)
+    histogram.onAdUnitRequested(adUnit3)
+    histogram.onAdUnitRequested(adUnit3)
+    histogram.onAdUnitRequested(adUnit2)
+
+    val sorted = histogram.sortByUsage(listOf(adUnit1, adUnit2, adUnit4, adUnit3))
+
+    assertThat(sorted).containsExactly(adUnit3, adUnit2, adUnit1, adUnit4)
+  }
+
+  @Test
+  fun sortByUsage_GivenRecentlyRequestedAdUnit_ItIsBeforeOftenRequestedButOldOne() {
+    repeat(3) { histogram.onAdUnitRequested(adUnit1) }
+    givenTime(2 * HALF_LIFE_IN_MILLIS)
+    histogram.onAdUnitRequested(adUnit2)
+
+    assertThat(histogram.sortByUsage(listOf(adUnit1, adUnit2))).containsExactly(adUnit2, adUnit1)
+  }
+
+  @Test
+  fun save_GivenUsages_SaveThemAndForgetOldOnes() {
+    histogram.onAdUnitRequested(adUnit1)
+    givenTime(20 * HALF_LIFE_IN_MILLIS)
+    histogram.onAdUnitRequested(adUnit2)
+
+    histogram.save()
+
+    verify(store).save(check {
+      assertThat(it).containsExactly(AdUnitUsage("adUnit2", 1, 2, CRITEO_BANNER, 1.0, 20 * HALF_LIFE_IN_MILLIS))
+    })
+    assertThat(histogram.getUsage(adUnit1)).isEqualTo(0.0)
+  }
+
+  @Test
+  fun load_GivenSavedUsages_RestoreThemWithoutOverridingCurrentOnes() {
+    histogram.onAdUnitRequested(adUnit1)
+    whenever(store.load()).doReturn(listOf(
+        AdUnitUsage("adUnit1", 1, 2, CRITEO_BANNER, 42.0, 0),
+        AdUnitUsage("adUnit2", 1, 2, CRITEO_BANNER, 3.0, 0)
+    ))
+
+    histogram.load()
+
+    assertThat(histogram.getUsage(adUnit1)).isEqualTo(1.0)
+    assertThat(histogram.getUsage(adUnit2)).isEqualTo(3.0)
+  }
+
+  @Test
+  fun isEmpty_GivenNoRequestAndNothingLoaded_ReturnTrue() {
+    whenever(store.load()).doReturn(listOf())
+
+    histogram.load()
+
+    assertThat(histogram.isEmpty).isTrue
+  }
+
+  private fun givenTime(timeInMillis: Long) {
+    whenever(clock.currentTimeInMillis).doReturn(timeInMillis)
+  }
+}
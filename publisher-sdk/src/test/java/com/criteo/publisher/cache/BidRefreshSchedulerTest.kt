@@ -0,0 +1,190 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.cache
+
+import com.criteo.publisher.Clock
+import com.criteo.publisher.model.AdSize
+import com.criteo.publisher.model.CacheAdUnit
+import com.criteo.publisher.util.AdUnitType.CRITEO_BANNER
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.mockito.Mock
+import org.mockito.junit.MockitoJUnit
+import org.mockito.junit.MockitoRule
+import org.mockito.kotlin.any
+import org.mockito.kotlin.argumentCaptor
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.eq
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.verifyNoInteractions
+import org.mockito.kotlin.whenever
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.TimeUnit.MILLISECONDS
+
+class BidRefreshSchedulerTest {
+
+  @Rule
+  @JvmField
+  val mockitoRule: MockitoRule = MockitoJUnit.rule()
+
+  @Mock
+  private lateinit var scheduledExecutorService: ScheduledExecutorService
+
+  @Mock
+  private lateinit var clock: Clock
+
+  @Mock
+  private lateinit var refresher: BidRefreshScheduler.Refresher
+
+  private lateinit var scheduler: BidRefreshScheduler
+
+  @Before
+  fun setUp() {
+    scheduler = BidRefreshScheduler(scheduledExecutorService, clock)
+  }
+
+  @Test
+  fun scheduleRefresh_GivenNotRequestedAdUnit_DoNothing() {
+    scheduler.scheduleRefresh(sampleAdUnit("adUnit"), 100_000, 60_000, refresher)
+
+    verifyNoInteractions(scheduledExecutorService)
+  }
+
+  @Test
+  fun scheduleRefresh_GivenHotAdUnit_RefreshItBeforeExpiration() {
+    val adUnit = sampleAdUnit("adUnit")
+    givenCurrentTime(0)
+    scheduler.onAdUnitRequested(adUnit)
+
+    scheduler.scheduleRefresh(adUnit, 100_000, 60_000, refresher)
+
+    val refresh = argumentCaptor<Runnable>()
+    verify(scheduledExecutorService).schedule(refresh.capture(), eq(70_000L), eq(MILLISECONDS))
+
+    refresh.firstValue.run()
+    verify(refresher).refresh(listOf(adUnit))
+  }
+
+  @Test
+  fun scheduleRefresh_GivenAlmostExpiredLongLivedBid_RefreshItInCurrentWindow() {
+    val adUnit = sampleAdUnit("adUnit")
+    givenCurrentTime(1_000)
+    scheduler.onAdUnitRequested(adUnit)
+
+    scheduler.scheduleRefresh(adUnit, 2_000, 60_000, refresher)
+
+    verify(scheduledExecutorService).schedule(any<Runnable>(), eq(4_000L), eq(MILLISECONDS))
+  }
+
+  @Test
+  fun scheduleRefresh_GivenBidLivingLessThanLeadTime_DoNothing() {
+    val adUnit = sampleAdUnit("adUnit")
+    givenCurrentTime(0)
+    scheduler.onAdUnitRequested(adUnit)
+
+    scheduler.scheduleRefresh(adUnit, 20_000, 20_000, refresher)
+    scheduler.scheduleRefresh(adUnit, 30_000, 30_000, refresher)
+
+    verifyNoInteractions(scheduledExecutorService)
+  }
+
+  @Test
+  fun scheduleRefresh_GivenAdUnitsExpiringInSameWindow_RefreshThemTogether() {
+    val adUnit1 = sampleAdUnit("adUnit1")
+    val adUnit2 = sampleAdUnit("adUnit2")
+    givenCurrentTime(0)
+    scheduler.onAdUnitRequested(adUnit1)
+    scheduler.onAdUnitRequested(adUnit2)
+
+    scheduler.scheduleRefresh(adUnit1, 101_000, 60_000, refresher)
+    scheduler.scheduleRefresh(adUnit2, 104_000, 60_000, refresher)
+
+    val refresh = argumentCaptor<Runnable>()
+    verify(scheduledExecutorService).schedule(refresh.capture(), eq(75_000L), eq(MILLISECONDS))
+
+    refresh.firstValue.run()
+    verify(refresher).refresh(listOf(adUnit1, adUnit2))
+  }
+
+  @Test
+  fun scheduleRefresh_GivenAdUnitNotRequestedForALongTime_DoNothing() {
+    val adUnit = sampleAdUnit("adUnit")
+    givenCurrentTime(0)
+    scheduler.onAdUnitRequested(adUnit)
+    givenCurrentTime(BidRefreshScheduler.HOT_AD_UNIT_DURATION_IN_MILLIS)
+
+    scheduler.scheduleRefresh(adUnit, Long.MAX_VALUE, 60_000, refresher)
+
+    verifyNoInteractions(scheduledExecutorService)
+    assertThat(scheduler.hotAdUnits).isEmpty()
+  }
+
+  @Test
+  fun onApplicationStopped_GivenPendingRefresh_CancelItAndDoNotScheduleNewOnes() {
+    val adUnit = sampleAdUnit("adUnit")
+    val future = mock<ScheduledFuture<*>>()
+    doReturn(future).whenever(scheduledExecutorService).schedule(any<Runnable>(), any(), any())
+    givenCurrentTime(0)
+    scheduler.onAdUnitRequested(adUnit)
+    scheduler.scheduleRefresh(adUnit, 100_000, 60_000, refresher)
+
+    scheduler.onApplicationStopped()
+    scheduler.scheduleRefresh(adUnit, 200_000, 60_000, refresher)
+
+    val refresh = argumentCaptor<Runnable>()
+    verify(scheduledExecutorService).schedule(refresh.capture(), any(), any())
+    verify(future).cancel(false)
+
+    refresh.firstValue.run()
+    verify(refresher, never()).refresh(any())
+  }
+
+  @Test
+  fun onApplicationStarted_GivenPreviouslyStopped_ScheduleAgain() {
+    val adUnit = sampleAdUnit("adUnit")
+    givenCurrentTime(0)
+    scheduler.onAdUnitRequested(adUnit)
+    scheduler.onApplicationStopped()
+
+    scheduler.onApplicationStarted()
+    scheduler.scheduleRefresh(adUnit, 100_000, 60_000, refresher)
+
+    verify(scheduledExecutorService).schedule(any<Runnable>(), eq(70_000L), eq(MILLISECONDS))
+  }
+
+  @Test
+  fun getHotAdUnits_GivenRequestedAdUnits_ReturnThem() {
+    val adUnit1 = sampleAdUnit("adUnit1")
+    val adUnit2 = sampleAdUnit("adUnit2")
+    givenCurrentTime(0)
+    scheduler.onAdUnitRequested(adUnit1)
+    scheduler.onAdUnitRequested(adUnit2)
+
+    assertThat(scheduler.hotAdUnits).containsExactlyInAnyOrder(adUnit1, adUnit2)
+  }
+
+  private fun givenCurrentTime(timeInMillis: Long) {
+    whenever(clock.currentTimeInMillis).thenReturn(timeInMillis)
+  }
+
+  private fun sampleAdUnit(placementId: String) = CacheAdUnit(AdSize(1, 2), placementId, CRITEO_BANNER)
+}
@@ -26,13 +26,27 @@ import static org.junit.Assert.assertNull;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import android.content.Context;
+import com.criteo.publisher.Clock;
+import com.criteo.publisher.bid.BidLifecycleListener;
 import com.criteo.publisher.model.AdSize;
 import com.criteo.publisher.model.CacheAdUnit;
+import com.criteo.publisher.model.CacheAdUnitInterner;
 import com.criteo.publisher.model.CdbResponseSlot;
+import com.criteo.publisher.model.Config;
 import com.criteo.publisher.util.DeviceUtil;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -53,6 +67,15 @@ public class SdkCacheTest {
   @Mock(answer = Answers.RETURNS_DEEP_STUBS)
   private Context context;
 
+  @Mock
+  private Config config;
+
+  @Mock
+  private Clock clock;
+
+  @Mock
+  private BidLifecycleListener bidLifecycleListener;
+
   private JSONArray slots;
   private DeviceUtil deviceUtil;
   private SdkCache cache;
@@ -60,7 +83,7 @@ public class SdkCacheTest {
   @Before
   public void setUp() throws Exception {
     deviceUtil = spy(new DeviceUtil(context));
-    cache = new SdkCache(deviceUtil);
+    cache = new SdkCache(new CacheAdUnitInterner(deviceUtil), config, clock, bidLifecycleListener);
   }
 
   @Test
@@ -168,7 +191,7 @@ public class SdkCacheTest {
     String json = "{\"slots\":[{\"placementId\":\"/140800857/Endeavour_320x50\",\"cpm\":\"1.12\",\"currency\":\"EUR\",\"width\":320,\"height\":50,\"ttl\":0,\"displayUrl\":\"https://publisherdirect.criteo.com/publishertag/preprodtest/FakeAJS.js\"},{\"placementId\":\"/140800857/Endeavour_Interstitial_320x480\",\"cpm\":\"1.12\",\"currency\":\"EUR\",\"width\":320,\"height\":480,\"ttl\":0,\"displayUrl\":\"https://publisherdirect.criteo.com/publishertag/preprodtest/FakeAJS.js\"}]}";
     JSONObject element = new JSONObject(json);
     slots = element.getJSONArray("slots");
-    cache = new SdkCache(deviceUtil);
+    cache = new SdkCache(new CacheAdUnitInterner(deviceUtil), config, clock, bidLifecycleListener);
     for (int i = 0; i < slots.length(); i++) {
       CdbResponseSlot slot = CdbResponseSlot.fromJson(slots.getJSONObject(i));
       cache.add(slot);
@@ -225,7 +248,7 @@ public class SdkCacheTest {
       JSONObject cdbResponse = new JSONObject(cdbStringResponse);
       JSONObject cdbSlot = cdbResponse.getJSONArray("slots").getJSONObject(0);
       CdbResponseSlot slot = CdbResponseSlot.fromJson(cdbSlot);
-      cache = new SdkCache(deviceUtil);
+      cache = new SdkCache(new CacheAdUnitInterner(deviceUtil), config, clock, bidLifecycleListener);
       cache.add(slot);
       assertEquals(1, cache.getItemCount());
     } catch (Exception ex) {
@@ -285,6 +308,18 @@ public class SdkCacheTest {
     assertThat(adUnit).isSameAs(slot);
   }
 
+  @Test
+  public void detectCacheAdUnit_CalledTwiceOnEqualSlots_ReturnSameInstance() {
+    CdbResponseSlot slot1 = givenNativeSlot(new AdSize(1, 2), "myAdUnit");
+    CdbResponseSlot slot2 = givenNativeSlot(new AdSize(1, 2), "myAdUnit");
+
+    CacheAdUnit key1 = cache.detectCacheAdUnit(slot1);
+    CacheAdUnit key2 = cache.detectCacheAdUnit(slot2);
+
+    assertThat(key1).isEqualTo(new CacheAdUnit(new AdSize(1, 2), "myAdUnit", CRITEO_CUSTOM_NATIVE));
+    assertThat(key2).isSameAs(key1);
+  }
+
   @Test
   public void add_GivenValidInterstitialSlotInLandscape_AddItInCache() {
     AdSize size = new AdSize(400, 300);
@@ -350,6 +385,370 @@ public class SdkCacheTest {
     assertThat(slot).isNull();
   }
 
+  @Test
+  public void addWithPredicate_GivenNoCachedSlot_AddItWithoutTestingPredicate() throws Exception {
+    AdSize size = new AdSize(1, 2);
+    CdbResponseSlot slot = givenNativeSlot(size, "myAdUnit");
+    CacheAdUnit key = new CacheAdUnit(size, "myAdUnit", CRITEO_CUSTOM_NATIVE);
+    SdkCache.SlotPredicate predicate = mock(SdkCache.SlotPredicate.class);
+
+    boolean isAdded = cache.add(slot, predicate);
+
+    assertThat(isAdded).isTrue();
+    assertThat(cache.peekAdUnit(key)).isSameAs(slot);
+    verifyNoInteractions(predicate);
+  }
+
+  @Test
+  public void addWithPredicate_GivenReplaceableCachedSlot_ReplaceIt() throws Exception {
+    AdSize size = new AdSize(1, 2);
+    CdbResponseSlot cachedSlot = givenNativeSlot(size, "myAdUnit");
+    CdbResponseSlot newSlot = givenNativeSlot(size, "myAdUnit");
+    CacheAdUnit key = new CacheAdUnit(size, "myAdUnit", CRITEO_CUSTOM_NATIVE);
+    cache.add(cachedSlot);
+
+    boolean isAdded = cache.add(newSlot, slot -> slot == cachedSlot);
+
+    assertThat(isAdded).isTrue();
+    assertThat(cache.peekAdUnit(key)).isSameAs(newSlot);
+  }
+
+  @Test
+  public void addWithPredicate_GivenNotReplaceableCachedSlot_KeepIt() throws Exception {
+    AdSize size = new AdSize(1, 2);
+    CdbResponseSlot cachedSlot = givenNativeSlot(size, "myAdUnit");
+    CdbResponseSlot newSlot = givenNativeSlot(size, "myAdUnit");
+    CacheAdUnit key = new CacheAdUnit(size, "myAdUnit", CRITEO_CUSTOM_NATIVE);
+    cache.add(cachedSlot);
+
+    boolean isAdded = cache.add(newSlot, slot -> false);
+
+    assertThat(isAdded).isFalse();
+    assertThat(cache.peekAdUnit(key)).isSameAs(cachedSlot);
+  }
+
+  @Test
+  public void consume_GivenNoCachedSlot_ReturnNullWithoutTestingPredicate() throws Exception {
+    CacheAdUnit key = new CacheAdUnit(new AdSize(1, 2), "myAdUnit", CRITEO_CUSTOM_NATIVE);
+    SdkCache.SlotPredicate predicate = mock(SdkCache.SlotPredicate.class);
+
+    CdbResponseSlot consumedSlot = cache.consume(key, predicate);
+
+    assertThat(consumedSlot).isNull();
+    verifyNoInteractions(predicate);
+  }
+
+  @Test
+  public void consume_GivenConsumableCachedSlot_ReturnAndRemoveIt() throws Exception {
+    AdSize size = new AdSize(1, 2);
+    CdbResponseSlot cachedSlot = givenNativeSlot(size, "myAdUnit");
+    CacheAdUnit key = new CacheAdUnit(size, "myAdUnit", CRITEO_CUSTOM_NATIVE);
+    cache.add(cachedSlot);
+
+    CdbResponseSlot consumedSlot = cache.consume(key, slot -> true);
+
+    assertThat(consumedSlot).isSameAs(cachedSlot);
+    assertThat(cache.peekAdUnit(key)).isNull();
+    assertThat(cache.getItemCount()).isZero();
+  }
+
+  @Test
+  public void consume_GivenNotConsumableCachedSlot_ReturnNullAndKeepIt() throws Exception {
+    AdSize size = new AdSize(1, 2);
+    CdbResponseSlot cachedSlot = givenNativeSlot(size, "myAdUnit");
+    CacheAdUnit key = new CacheAdUnit(size, "myAdUnit", CRITEO_CUSTOM_NATIVE);
+    cache.add(cachedSlot);
+
+    CdbResponseSlot consumedSlot = cache.consume(key, slot -> false);
+
+    assertThat(consumedSlot).isNull();
+    assertThat(cache.peekAdUnit(key)).isSameAs(cachedSlot);
+  }
+
+  @Test
+  public void consume_GivenConcurrentConsumers_OnlyOneGetTheCachedSlot() throws Exception {
+    int nbThreads = 8;
+    AdSize size = new AdSize(1, 2);
+    CdbResponseSlot cachedSlot = givenNativeSlot(size, "myAdUnit");
+    CacheAdUnit key = new CacheAdUnit(size, "myAdUnit", CRITEO_CUSTOM_NATIVE);
+    cache.add(cachedSlot);
+
+    CyclicBarrier barrier = new CyclicBarrier(nbThreads);
+    ExecutorService executor = Executors.newFixedThreadPool(nbThreads);
+    List<Future<CdbResponseSlot>> futures = new ArrayList<>();
+
+    try {
+      for (int i = 0; i < nbThreads; i++) {
+        futures.add(executor.submit((Callable<CdbResponseSlot>) () -> {
+          barrier.await();
+          return cache.consume(key, slot -> true);
+        }));
+      }
+
+      List<CdbResponseSlot> consumedSlots = new ArrayList<>();
+      for (Future<CdbResponseSlot> future : futures) {
+        CdbResponseSlot consumedSlot = future.get();
+        if (consumedSlot != null) {
+          consumedSlots.add(consumedSlot);
+        }
+      }
+
+      assertThat(consumedSlots).containsExactly(cachedSlot);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void put_GivenNullSlot_RemoveCachedSlot() throws Exception {
+    AdSize size = new AdSize(1, 2);
+    CdbResponseSlot cachedSlot = givenNativeSlot(size, "myAdUnit");
+    CacheAdUnit key = new CacheAdUnit(size, "myAdUnit", CRITEO_CUSTOM_NATIVE);
+    cache.add(cachedSlot);
+
+    cache.put(key, null);
+
+    assertThat(cache.peekAdUnit(key)).isNull();
+  }
+
+  @Test
+  public void add_GivenCacheDepth_KeepSlotsOrderedByExpiryThenCpm() throws Exception {
+    when(config.getBidCacheDepth()).thenReturn(3);
+    AdSize size = new AdSize(1, 2);
+    CdbResponseSlot lateSlot = givenNativeSlot(size, "myAdUnit", 2000L, 1.0);
+    CdbResponseSlot earlyCheapSlot = givenNativeSlot(size, "myAdUnit", 1000L, 1.0);
+    CdbResponseSlot earlyExpensiveSlot = givenNativeSlot(size, "myAdUnit", 1000L, 2.0);
+    CacheAdUnit key = new CacheAdUnit(size, "myAdUnit", CRITEO_CUSTOM_NATIVE);
+
+    cache.add(lateSlot);
+    cache.add(earlyCheapSlot);
+    cache.add(earlyExpensiveSlot);
+
+    assertThat(cache.countSlots(key)).isEqualTo(3);
+    assertThat(cache.getItemCount()).isEqualTo(3);
+    assertThat(cache.consume(key, slot -> true)).isSameAs(earlyExpensiveSlot);
+    assertThat(cache.consume(key, slot -> true)).isSameAs(earlyCheapSlot);
+    assertThat(cache.consume(key, slot -> true)).isSameAs(lateSlot);
+    assertThat(cache.consume(key, slot -> true)).isNull();
+    assertThat(cache.countSlots(key)).isZero();
+  }
+
+  @Test
+  public void add_GivenFullCacheDepth_EvictSlotsClosestToExpiration() throws Exception {
+    when(config.getBidCacheDepth()).thenReturn(2);
+    AdSize size = new AdSize(1, 2);
+    CdbResponseSlot earlySlot = givenNativeSlot(size, "myAdUnit", 1000L, 1.0);
+    CdbResponseSlot lateSlot = givenNativeSlot(size, "myAdUnit", 3000L, 1.0);
+    CdbResponseSlot newSlot = givenNativeSlot(size, "myAdUnit", 2000L, 1.0);
+    CacheAdUnit key = new CacheAdUnit(size, "myAdUnit", CRITEO_CUSTOM_NATIVE);
+    cache.add(earlySlot);
+    cache.add(lateSlot);
+
+    cache.add(newSlot);
+
+    assertThat(cache.countSlots(key)).isEqualTo(2);
+    assertThat(cache.consume(key, slot -> true)).isSameAs(newSlot);
+    assertThat(cache.consume(key, slot -> true)).isSameAs(lateSlot);
+  }
+
+  @Test
+  public void add_GivenFullCacheDepth_NotifyEvictedSlots() throws Exception {
+    when(config.getBidCacheDepth()).thenReturn(2);
+    AdSize size = new AdSize(1, 2);
+    CdbResponseSlot earlySlot = givenNativeSlot(size, "myAdUnit", 1000L, 1.0);
+    CdbResponseSlot lateSlot = givenNativeSlot(size, "myAdUnit", 3000L, 1.0);
+    CacheAdUnit key = new CacheAdUnit(size, "myAdUnit", CRITEO_CUSTOM_NATIVE);
+    cache.add(earlySlot);
+    cache.add(lateSlot);
+    verifyNoInteractions(bidLifecycleListener);
+
+    cache.add(givenNativeSlot(size, "myAdUnit", 2000L, 1.0));
+
+    verify(bidLifecycleListener).onBidEvicted(key, earlySlot);
+    verifyNoMoreInteractions(bidLifecycleListener);
+  }
+
+  @Test
+  public void add_GivenDefaultCacheDepth_NotifyReplacedSlot() throws Exception {
+    AdSize size = new AdSize(1, 2);
+    CdbResponseSlot cachedSlot = givenNativeSlot(size, "myAdUnit");
+    CacheAdUnit key = new CacheAdUnit(size, "myAdUnit", CRITEO_CUSTOM_NATIVE);
+    cache.add(cachedSlot);
+
+    cache.add(givenNativeSlot(size, "myAdUnit"));
+
+    verify(bidLifecycleListener).onBidEvicted(key, cachedSlot);
+    verifyNoMoreInteractions(bidLifecycleListener);
+  }
+
+  @Test
+  public void addWithPredicate_GivenNotReplaceableCachedSlot_DoNotNotifyIt() throws Exception {
+    AdSize size = new AdSize(1, 2);
+    cache.add(givenNativeSlot(size, "myAdUnit"));
+
+    cache.add(givenNativeSlot(size, "myAdUnit"), slot -> false);
+
+    verifyNoInteractions(bidLifecycleListener);
+  }
+
+  @Test
+  public void add_GivenDefaultCacheDepth_ReplaceCachedSlot() throws Exception {
+    AdSize size = new AdSize(1, 2);
+    CdbResponseSlot cachedSlot = givenNativeSlot(size, "myAdUnit", 1000L, 1.0);
+    CdbResponseSlot newSlot = givenNativeSlot(size, "myAdUnit", 3000L, 1.0);
+    CacheAdUnit key = new CacheAdUnit(size, "myAdUnit", CRITEO_CUSTOM_NATIVE);
+    cache.add(cachedSlot);
+
+    cache.add(newSlot);
+
+    assertThat(cache.countSlots(key)).isEqualTo(1);
+    assertThat(cache.peekAdUnit(key)).isSameAs(newSlot);
+  }
+
+  @Test
+  public void addWithPredicate_GivenOneNotReplaceableSlotAmongCachedOnes_KeepThem()
+      throws Exception {
+    when(config.getBidCacheDepth()).thenReturn(3);
+    AdSize size = new AdSize(1, 2);
+    CdbResponseSlot cachedSlot1 = givenNativeSlot(size, "myAdUnit", 1000L, 1.0);
+    CdbResponseSlot cachedSlot2 = givenNativeSlot(size, "myAdUnit", 2000L, 1.0);
+    CdbResponseSlot newSlot = givenNativeSlot(size, "myAdUnit", 3000L, 1.0);
+    CacheAdUnit key = new CacheAdUnit(size, "myAdUnit", CRITEO_CUSTOM_NATIVE);
+    cache.add(cachedSlot1);
+    cache.add(cachedSlot2);
+
+    boolean isAdded = cache.add(newSlot, slot -> slot != cachedSlot2);
+
+    assertThat(isAdded).isFalse();
+    assertThat(cache.countSlots(key)).isEqualTo(2);
+  }
+
+  @Test
+  public void consume_GivenNotConsumableHeadSlot_DoNotConsumeNextOnes() throws Exception {
+    when(config.getBidCacheDepth()).thenReturn(2);
+    AdSize size = new AdSize(1, 2);
+    CdbResponseSlot headSlot = givenNativeSlot(size, "myAdUnit", 1000L, 1.0);
+    CdbResponseSlot nextSlot = givenNativeSlot(size, "myAdUnit", 2000L, 1.0);
+    CacheAdUnit key = new CacheAdUnit(size, "myAdUnit", CRITEO_CUSTOM_NATIVE);
+    cache.add(headSlot);
+    cache.add(nextSlot);
+
+    CdbResponseSlot consumedSlot = cache.consume(key, slot -> slot != headSlot);
+
+    assertThat(consumedSlot).isNull();
+    assertThat(cache.countSlots(key)).isEqualTo(2);
+  }
+
+  @Test
+  public void containsMatching_GivenMatchingSlotBehindHead_ReturnTrue() throws Exception {
+    when(config.getBidCacheDepth()).thenReturn(2);
+    AdSize size = new AdSize(1, 2);
+    CdbResponseSlot headSlot = givenNativeSlot(size, "myAdUnit", 1000L, 1.0);
+    CdbResponseSlot nextSlot = givenNativeSlot(size, "myAdUnit", 2000L, 1.0);
+    CacheAdUnit key = new CacheAdUnit(size, "myAdUnit", CRITEO_CUSTOM_NATIVE);
+    cache.add(headSlot);
+    cache.add(nextSlot);
+
+    assertThat(cache.containsMatching(key, slot -> slot == nextSlot)).isTrue();
+    assertThat(cache.containsMatching(key, slot -> false)).isFalse();
+  }
+
+  @Test
+  public void getCacheDepth_GivenInvalidConfiguredDepth_ReturnOne() throws Exception {
+    when(config.getBidCacheDepth()).thenReturn(0);
+
+    assertThat(cache.getCacheDepth()).isEqualTo(1);
+  }
+
+  @Test
+  public void add_GivenMoreAdUnitsThanMaximum_EvictLeastRecentlyUsedOne() throws Exception {
+    when(config.getBidCacheMaxAdUnitCount()).thenReturn(2);
+    AdSize size = new AdSize(1, 2);
+    CdbResponseSlot slot1 = givenNativeSlot(size, "adUnit1");
+    CdbResponseSlot slot2 = givenNativeSlot(size, "adUnit2");
+    CdbResponseSlot slot3 = givenNativeSlot(size, "adUnit3");
+    CacheAdUnit key1 = new CacheAdUnit(size, "adUnit1", CRITEO_CUSTOM_NATIVE);
+    CacheAdUnit key2 = new CacheAdUnit(size, "adUnit2", CRITEO_CUSTOM_NATIVE);
+    CacheAdUnit key3 = new CacheAdUnit(size, "adUnit3", CRITEO_CUSTOM_NATIVE);
+    cache.add(slot1);
+    cache.add(slot2);
+    cache.peekAdUnit(key1);
+
+    cache.add(slot3);
+
+    assertThat(cache.peekAdUnit(key1)).isSameAs(slot1);
+    assertThat(cache.peekAdUnit(key2)).isNull();
+    assertThat(cache.peekAdUnit(key3)).isSameAs(slot3);
+    verify(bidLifecycleListener).onBidEvicted(key2, slot2);
+    verifyNoMoreInteractions(bidLifecycleListener);
+  }
+
+  @Test
+  public void add_GivenNoMaximumAdUnitCount_NeverEvict() throws Exception {
+    when(config.getBidCacheMaxAdUnitCount()).thenReturn(0);
+    AdSize size = new AdSize(1, 2);
+
+    for (int i = 0; i < 100; i++) {
+      cache.add(givenNativeSlot(size, "adUnit" + i));
+    }
+
+    assertThat(cache.getItemCount()).isEqualTo(100);
+    verifyNoInteractions(bidLifecycleListener);
+  }
+
+  @Test
+  public void add_GivenSweepIntervalElapsed_EvictExpiredSlotsOfAllAdUnits() throws Exception {
+    when(config.getBidCacheDepth()).thenReturn(2);
+    AdSize size = new AdSize(1, 2);
+    CdbResponseSlot expiredSlot = givenNativeSlot(size, "adUnit1", 1000L, 1.0);
+    CdbResponseSlot validSlot = givenNativeSlot(size, "adUnit1", 2000L, 1.0);
+    CdbResponseSlot otherExpiredSlot = givenNativeSlot(size, "adUnit2");
+    CacheAdUnit key1 = new CacheAdUnit(size, "adUnit1", CRITEO_CUSTOM_NATIVE);
+    CacheAdUnit key2 = new CacheAdUnit(size, "adUnit2", CRITEO_CUSTOM_NATIVE);
+    cache.add(expiredSlot);
+    cache.add(validSlot);
+    cache.add(otherExpiredSlot);
+
+    when(expiredSlot.isExpired(clock)).thenReturn(true);
+    when(otherExpiredSlot.isExpired(clock)).thenReturn(true);
+    when(clock.getCurrentTimeInMillis()).thenReturn(SdkCache.EXPIRY_SWEEP_INTERVAL_IN_MILLIS);
+    cache.add(givenNativeSlot(size, "adUnit3"));
+
+    assertThat(cache.countSlots(key1)).isEqualTo(1);
+    assertThat(cache.peekAdUnit(key1)).isSameAs(validSlot);
+    assertThat(cache.countSlots(key2)).isZero();
+    verify(bidLifecycleListener).onBidEvicted(key1, expiredSlot);
+    verify(bidLifecycleListener).onBidEvicted(key2, otherExpiredSlot);
+    verifyNoMoreInteractions(bidLifecycleListener);
+  }
+
+  @Test
+  public void add_GivenSweepIntervalNotElapsed_KeepExpiredSlots() throws Exception {
+    AdSize size = new AdSize(1, 2);
+    CdbResponseSlot expiredSlot = givenNativeSlot(size, "adUnit1");
+    CacheAdUnit key1 = new CacheAdUnit(size, "adUnit1", CRITEO_CUSTOM_NATIVE);
+    cache.add(expiredSlot);
+
+    when(expiredSlot.isExpired(clock)).thenReturn(true);
+    when(clock.getCurrentTimeInMillis()).thenReturn(SdkCache.EXPIRY_SWEEP_INTERVAL_IN_MILLIS - 1);
+    cache.add(givenNativeSlot(size, "adUnit2"));
+
+    assertThat(cache.peekAdUnit(key1)).isSameAs(expiredSlot);
+    verifyNoInteractions(bidLifecycleListener);
+  }
+
+  private static CdbResponseSlot givenNativeSlot(
+      AdSize size,
+      String placementId,
+      long expiryTimeInMillis,
+      double cpm
+  ) {
+    CdbResponseSlot slot = givenNativeSlot(size, placementId);
+    when(slot.getExpiryTimeInMillis()).thenReturn(expiryTimeInMillis);
+    when(slot.getCpmAsNumber()).thenReturn(cpm);
+    return slot;
+  }
+
   private static CdbResponseSlot givenNativeSlot(AdSize size, String placementId) {
     CdbResponseSlot slot = mock(CdbResponseSlot.class);
     when(slot.isNative()).thenReturn(true);
@@ -0,0 +1,195 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.concurrent
+
+import com.criteo.publisher.logging.Logger
+import com.criteo.publisher.mock.MockedDependenciesRule
+import com.criteo.publisher.mock.SpyBean
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatCode
+import org.junit.After
+import org.junit.Rule
+import org.junit.Test
+import org.mockito.kotlin.argThat
+import org.mockito.kotlin.atLeastOnce
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.verify
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class LaneExecutorTest {
+
+  @Rule
+  @JvmField
+  val mockedDependenciesRule = MockedDependenciesRule().withSpiedLogger()
+
+  @SpyBean
+  private lateinit var logger: Logger
+
+  private val executors = mutableListOf<LaneExecutor>()
+
+  @After
+  fun tearDown() {
+    executors.forEach { it.shutdownNow() }
+  }
+
+  @Test
+  fun execute_GivenMoreTasksThanMaxConcurrency_QueueNextOnes() {
+    val executor = createExecutor(TaskLane.TELEMETRY)
+    val release = CountDownLatch(1)
+    val running = AtomicInteger()
+    val maxRunning = AtomicInteger()
+    val done = CountDownLatch(5)
+
+    repeat(5) {
+      executor.execute {
+        maxRunning.accumulateAndGet(running.incrementAndGet()) { a, b -> maxOf(a, b) }
+        release.await()
+        running.decrementAndGet()
+        done.countDown()
+      }
+    }
+
+    waitUntil { executor.activeCount == TaskLane.TELEMETRY.maxConcurrency }
+    assertThat(executor.metrics.queueDepth).isEqualTo(5 - TaskLane.TELEMETRY.maxConcurrency)
+
+    release.countDown()
+    assertThat(done.await(1, TimeUnit.SECONDS)).isTrue
+    assertThat(maxRunning.get()).isEqualTo(TaskLane.TELEMETRY.maxConcurrency)
+  }
+
+  @Test
+  fun execute_GivenLane_RunOnThreadWithLanePriority() {
+    val executor = createExecutor(TaskLane.TELEMETRY)
+    val priority = AtomicInteger()
+    val name = arrayOfNulls<String>(1)
+    val done = CountDownLatch(1)
+
+    executor.execute {
+      priority.set(Thread.currentThread().priority)
+      name[0] = Thread.currentThread().name
+      done.countDown()
+    }
+
+    assertThat(done.await(1, TimeUnit.SECONDS)).isTrue
+    assertThat(priority.get()).isEqualTo(TaskLane.TELEMETRY.threadPriority)
+    assertThat(name[0]).startsWith("criteo-telemetry-")
+  }
+
+  @Test
+  fun getMetrics_GivenQueuedTasks_MeasureWaitTime() {
+    val executor = createExecutor(TaskLane.TELEMETRY)
+    val release = CountDownLatch(1)
+    val done = CountDownLatch(3)
+
+    repeat(3) {
+      executor.execute {
+        release.await()
+        done.countDown()
+      }
+    }
+
+    Thread.sleep(50)
+    release.countDown()
+    assertThat(done.await(1, TimeUnit.SECONDS)).isTrue
+
+    val metrics = executor.metrics
+    assertThat(metrics.lane).isEqualTo(TaskLane.TELEMETRY)
+    assertThat(metrics.startedCount).isEqualTo(3)
+    assertThat(metrics.queueDepth).isZero()
+    assertThat(metrics.maxWaitInMillis).isGreaterThanOrEqualTo(50)
+    assertThat(metrics.averageWaitInMillis).isLessThanOrEqualTo(metrics.maxWaitInMillis)
+  }
+
+  @Test
+  fun getMetrics_GivenNoTask_ReturnEmptyMetrics() {
+    val executor = createExecutor(TaskLane.PIXEL)
+
+    assertThat(executor.metrics).isEqualTo(LaneMetrics(TaskLane.PIXEL, 0, 0, 0, 0, 0))
+  }
+
+  @Test
+  fun execute_GivenTaskWaitingLongerThanThreshold_LogMetrics() {
+    val executor = createExecutor(TaskLane.TELEMETRY, slowWaitThresholdInMillis = 20)
+    val release = CountDownLatch(1)
+    val done = CountDownLatch(3)
+
+    repeat(3) {
+      executor.execute {
+        release.await()
+        done.countDown()
+      }
+    }
+
+    Thread.sleep(50)
+    release.countDown()
+    assertThat(done.await(1, TimeUnit.SECONDS)).isTrue
+
+    verify(logger, atLeastOnce()).log(argThat {
+      message.orEmpty().startsWith("A task of lane TELEMETRY waited")
+    })
+  }
+
+  @Test
+  fun execute_GivenTasksNotWaiting_DoNotLog() {
+    val executor = createExecutor(TaskLane.TELEMETRY, slowWaitThresholdInMillis = 1000)
+    val done = CountDownLatch(3)
+
+    repeat(3) {
+      executor.execute {
+        done.countDown()
+      }
+    }
+
+    assertThat(done.await(1, TimeUnit.SECONDS)).isTrue
+    verify(logger, never()).log(argThat { message.orEmpty().startsWith("A task of lane") })
+  }
+
+  @Test
+  fun laneExecutors_GivenMissingLane_Throw() {
+    assertThatCode {
+      LaneExecutors(mapOf(TaskLane.USER_FACING to mock<Executor>()))
+    }.isInstanceOf(IllegalArgumentException::class.java)
+  }
+
+  @Test
+  fun laneExecutors_GivenExecutors_ReturnThemByLane() {
+    val telemetryExecutor = createExecutor(TaskLane.TELEMETRY)
+    val laneExecutors = LaneExecutors(mapOf(
+        TaskLane.USER_FACING to mock<Executor>(),
+        TaskLane.PIXEL to mock<Executor>(),
+        TaskLane.TELEMETRY to telemetryExecutor
+    ))
+
+    assertThat(laneExecutors.get(TaskLane.TELEMETRY)).isSameAs(telemetryExecutor)
+  }
+
+  private fun createExecutor(
+      lane: TaskLane,
+      slowWaitThresholdInMillis: Long = 500
+  ) = LaneExecutor(lane, slowWaitThresholdInMillis).also { executors.add(it) }
+
+  private fun waitUntil(condition: () -> Boolean) {
+    val deadline = System.currentTimeMillis() + 1000
+    while (!condition() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(1)
+    }
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.criteo.publisher.context
+
+import android.content.Context
+import android.net.ConnectivityManager
+import android.net.Network
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.mockito.Mock
+import org.mockito.junit.MockitoJUnit
+import org.mockito.kotlin.any
+import org.mockito.kotlin.doThrow
+import org.mockito.kotlin.inOrder
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.whenever
+
+class ConnectivityMonitorTest {
+
+  @Rule
+  @JvmField
+  val mockitoRule = MockitoJUnit.rule()
+
+  @Mock
+  private lateinit var context: Context
+
+  @Mock
+  private lateinit var connectivityManager: ConnectivityManager
+
+  private lateinit var monitor: ConnectivityMonitor
+
+  @Before
+  fun setUp() {
+    whenever(context.getSystemService(Context.CONNECTIVITY_SERVICE)).thenReturn(connectivityManager)
+
+    monitor = ConnectivityMonitor(context)
+  }
+
+  @Test
+  fun isConnected_GivenNoReport_ReturnTrue() {
+    assertThat(monitor.isConnected).isTrue
+  }
+
+  @Test
+  fun register_GivenErrorWhileRegistering_StayConnected() {
+    doThrow(SecurityException::class).whenever(connectivityManager)
+        .registerNetworkCallback(any(), any<ConnectivityManager.NetworkCallback>())
+
+    monitor.register()
+
+    assertThat(monitor.isConnected).isTrue
+  }
+
+  @Test
+  fun register_GivenNoConnectivityManager_StayConnected() {
+    whenever(context.getSystemService(Context.CONNECTIVITY_SERVICE)).thenReturn(null)
+
+    monitor.register()
+
+    assertThat(monitor.isConnected).isTrue
+  }
+
+  @Test
+  fun isConnected_GivenReportedNetworks_ReturnTrueWhileOneIsAvailable() {
+    val wifi = mock<Network>()
+    val cellular = mock<Network>()
+
+    monitor.onNetworkAvailable(wifi)
+    monitor.onNetworkAvailable(cellular)
+    assertThat(monitor.isConnected).isTrue
+
+    monitor.onNetworkLost(wifi)
+    assertThat(monitor.isConnected).isTrue
+
+    monitor.onNetworkLost(cellular)
+    assertThat(monitor.isConnected).isFalse
+
+    monitor.onNetworkAvailable(wifi)
+    assertThat(monitor.isConnected).isTrue
+  }
+
+  @Test
+  fun isConnected_GivenFirstReportIsALoss_ReturnFalse() {
+    monitor.onNetworkLost(mock())
+
+    assertThat(monitor.isConnected).isFalse
+  }
+
+  @Test
+  fun addListener_GivenConnectivityChanges_NotifyListenersWithNewState() {
+    val listener1 = mock<ConnectivityMonitor.Listener>()
+    val listener2 = mock<ConnectivityMonitor.Listener>()
+    val network = mock<Network>()
+    monitor.addListener(listener1)
+    monitor.addListener(listener2)
+
+    monitor.onNetworkAvailable(network)
+    monitor.onNetworkChanged()
+    monitor.onNetworkLost(network)
+
+    inOrder(listener1) {
+      verify(listener1, times(2)).onConnectivityChanged(true)
+      verify(listener1).onConnectivityChanged(false)
+      verifyNoMoreInteractions()
+    }
+    verify(listener2).onConnectivityChanged(false)
+  }
+
+  @Test
+  fun addListener_GivenFailingListener_NotifyOtherOnes() {
+    val failingListener = mock<ConnectivityMonitor.Listener> {
+      on { onConnectivityChanged(any()) } doThrow IllegalStateException::class
+    }
+    val listener = mock<ConnectivityMonitor.Listener>()
+    monitor.addListener(failingListener)
+    monitor.addListener(listener)
+
+    monitor.onNetworkAvailable(mock())
+
+    verify(listener).onConnectivityChanged(true)
+  }
+}
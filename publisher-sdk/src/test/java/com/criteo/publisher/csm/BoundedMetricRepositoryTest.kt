@@ -68,6 +68,15 @@ class BoundedMetricRepositoryTest {
     verify(delegate).moveById("id", mover)
   }
 
+  @Test
+  fun moveAll_GivenDelegate_DelegateToIt() {
+    val mover = mock<MetricBulkMover>()
+
+    repository.moveAll(setOf("id"), mover)
+
+    verify(delegate).moveAll(setOf("id"), mover)
+  }
+
   @Test
   fun getTotalSize_GivenDelegate_DelegateToIt() {
     delegate.stub {
@@ -91,6 +100,13 @@ class BoundedMetricRepositoryTest {
     verify(delegate).contains("id")
   }
 
+  @Test
+  fun onApplicationStopped_GivenDelegate_DelegateToIt() {
+    repository.onApplicationStopped()
+
+    verify(delegate).onApplicationStopped()
+  }
+
   @Test
   fun updateById_GivenDelegateWithSizeBelowThreshold_DelegateToIt() {
     val updater = mock<MetricUpdater>()
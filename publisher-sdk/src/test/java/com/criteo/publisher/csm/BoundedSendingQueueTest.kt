@@ -23,8 +23,10 @@ import org.mockito.InjectMocks
 import org.mockito.Mock
 import org.mockito.junit.MockitoJUnit
 import org.mockito.junit.MockitoRule
+import org.mockito.kotlin.any
 import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
 import org.mockito.kotlin.stub
 import org.mockito.kotlin.verify
 
@@ -105,4 +107,47 @@ class BoundedSendingQueueTest {
     verify(delegate).offer(metric)
     verify(delegate).poll(1)
   }
+
+  @Test
+  fun offerAll_GivenDelegateWithEnoughRoom_DelegateToItWithoutPolling() {
+    val metrics = listOf(mock<Metric>(), mock())
+
+    delegate.stub {
+      on { totalSize } doReturn 10
+      on { offerAll(metrics) } doReturn 2
+    }
+
+    sendingQueueConfiguration.stub {
+      on { maxSizeOfSendingQueue } doReturn 30
+      on { estimatedSize } doReturn 10
+    }
+
+    val offered = queue.offerAll(metrics)
+
+    assertThat(offered).isEqualTo(2)
+    verify(delegate).offerAll(metrics)
+    verify(delegate, never()).poll(any())
+  }
+
+  @Test
+  fun offerAll_GivenDelegateWithNotEnoughRoom_PollDelegateOnceToMakeRoomAndThenOffer() {
+    val metrics = listOf(mock<Metric>(), mock(), mock(), mock())
+
+    delegate.stub {
+      on { totalSize } doReturn 15
+      on { offerAll(metrics) } doReturn 4
+    }
+
+    sendingQueueConfiguration.stub {
+      on { maxSizeOfSendingQueue } doReturn 30
+      on { estimatedSize } doReturn 10
+    }
+
+    val offered = queue.offerAll(metrics)
+
+    // Successive offers would evict nothing for the 2 first metrics, and one element for each next one
+    assertThat(offered).isEqualTo(4)
+    verify(delegate).poll(2)
+    verify(delegate).offerAll(metrics)
+  }
 }
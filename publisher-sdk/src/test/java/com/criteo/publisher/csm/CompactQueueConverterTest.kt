@@ -0,0 +1,192 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.criteo.publisher.csm
+
+import com.criteo.publisher.csm.ObjectQueueFactory.AdapterConverter
+import com.criteo.publisher.mock.MockedDependenciesRule
+import com.criteo.publisher.model.Config
+import com.criteo.publisher.util.JsonSerializer
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatCode
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.mockito.Mock
+import org.mockito.junit.MockitoJUnit
+import org.mockito.kotlin.whenever
+import java.io.ByteArrayOutputStream
+import java.io.IOException
+import javax.inject.Inject
+
+class CompactQueueConverterTest {
+
+  @Rule
+  @JvmField
+  val mockedDependenciesRule = MockedDependenciesRule()
+
+  @Rule
+  @JvmField
+  val mockitoRule = MockitoJUnit.rule()
+
+  @Inject
+  private lateinit var jsonSerializer: JsonSerializer
+
+  @Mock
+  private lateinit var config: Config
+
+  private lateinit var converter: CompactQueueConverter<Metric>
+
+  @Before
+  fun setUp() {
+    converter = CompactQueueConverter(
+        AdapterConverter(jsonSerializer, Metric::class.java),
+        MetricQueueCodec(),
+        config
+    )
+  }
+
+  @Test
+  fun toStream_GivenCompactEncodingDisabled_WriteJson() {
+    whenever(config.isCompactQueueEncodingEnabled).thenReturn(false)
+    val metric = fullMetric()
+
+    val bytes = converter.toBytes(metric)
+
+    val json = ByteArrayOutputStream().use {
+      jsonSerializer.write(metric, it)
+      it.toByteArray()
+    }
+    assertThat(bytes).isEqualTo(json)
+  }
+
+  @Test
+  fun toStream_GivenCompactEncodingEnabled_WriteMarkerAndVersionAndLessThanHalfOfJson() {
+    whenever(config.isCompactQueueEncodingEnabled).thenReturn(false)
+    val jsonBytes = converter.toBytes(fullMetric())
+    whenever(config.isCompactQueueEncodingEnabled).thenReturn(true)
+
+    val bytes = converter.toBytes(fullMetric())
+
+    assertThat(bytes[0].toInt() and 0xFF).isEqualTo(CompactQueueConverter.COMPACT_ENCODING_MARKER)
+    assertThat(bytes[1].toInt()).isEqualTo(1)
+    assertThat(bytes.size * 2).isLessThan(jsonBytes.size)
+  }
+
+  @Test
+  fun from_GivenCompactlyEncodedMetrics_ReturnSameMetrics() {
+    whenever(config.isCompactQueueEncodingEnabled).thenReturn(true)
+    val metrics = listOf(
+        fullMetric(),
+        Metric.builder("impId").build(),
+        Metric.builder("é漢😀")
+            .setCdbCallStartTimestamp(-1L)
+            .setCdbCallEndTimestamp(Long.MAX_VALUE)
+            .setElapsedTimestamp(0L)
+            .setZoneId(-42)
+            .setProfileId(Int.MAX_VALUE)
+            .setCdbCallTimeout(true)
+            .build()
+    )
+
+    metrics.forEach {
+      assertThat(converter.from(converter.toBytes(it))).isEqualTo(it)
+    }
+  }
+
+  @Test
+  fun from_GivenJsonWrittenByPreviousVersion_ReturnMetric() {
+    val json = """{
+      "cdbCallStartTimestamp": 1337,
+      "cdbCallEndTimestamp": 1338,
+      "cdbCallTimeout": false,
+      "cachedBidUsed": true,
+      "elapsedTimestamp": 1339,
+      "impressionId": "impId",
+      "requestGroupId": "requestId",
+      "zoneId": 42,
+      "profileId": 235,
+      "readyToSend": true
+    }""".trimIndent()
+
+    val metric = converter.from(json.toByteArray(Charsets.UTF_8))
+
+    assertThat(metric).isEqualTo(fullMetric())
+  }
+
+  @Test
+  fun from_GivenMixOfJsonAndCompactElements_ReadAllOfThem() {
+    whenever(config.isCompactQueueEncodingEnabled).thenReturn(false)
+    val jsonBytes = converter.toBytes(fullMetric())
+    whenever(config.isCompactQueueEncodingEnabled).thenReturn(true)
+    val compactBytes = converter.toBytes(fullMetric())
+
+    assertThat(converter.from(jsonBytes)).isEqualTo(fullMetric())
+    assertThat(converter.from(compactBytes)).isEqualTo(fullMetric())
+  }
+
+  @Test
+  fun from_GivenUnknownVersion_ThrowIOException() {
+    whenever(config.isCompactQueueEncodingEnabled).thenReturn(true)
+    val bytes = converter.toBytes(fullMetric())
+    bytes[1] = 42
+
+    assertThatCode {
+      converter.from(bytes)
+    }.isInstanceOf(IOException::class.java)
+  }
+
+  @Test
+  fun from_GivenTruncatedCompactElement_ThrowIOException() {
+    whenever(config.isCompactQueueEncodingEnabled).thenReturn(true)
+    val bytes = converter.toBytes(fullMetric())
+
+    assertThatCode {
+      converter.from(bytes.copyOf(bytes.size - 10))
+    }.isInstanceOf(IOException::class.java)
+  }
+
+  @Test
+  fun from_GivenEmptyElement_ThrowIOException() {
+    assertThatCode {
+      converter.from(ByteArray(0))
+    }.isInstanceOf(IOException::class.java)
+  }
+
+  @Test
+  fun from_GivenNull_ReturnNull() {
+    assertThat(converter.from(null)).isNull()
+  }
+
+  private fun CompactQueueConverter<Metric>.toBytes(metric: Metric): ByteArray {
+    return ByteArrayOutputStream().use {
+      toStream(metric, it)
+      it.toByteArray()
+    }
+  }
+
+  private fun fullMetric() = Metric.builder("impId")
+      .setCdbCallStartTimestamp(1337L)
+      .setCdbCallEndTimestamp(1338L)
+      .setCachedBidUsed(true)
+      .setElapsedTimestamp(1339L)
+      .setRequestGroupId("requestId")
+      .setZoneId(42)
+      .setProfileId(235)
+      .setReadyToSend(true)
+      .build()
+}
@@ -99,7 +99,23 @@ class CsmBidLifecycleListenerTest {
   fun onSdkInitialized_PushAllMetricsInQueue() {
     listener.onSdkInitialized()
 
-    verify(sendingQueueProducer).pushAllInQueue(repository)
+    verify(sendingQueueProducer).pushAllInQueue(eq(repository), check {
+      assertThat(it).isEmpty()
+    })
+  }
+
+  @Test
+  fun onSdkInitialized_GivenRestoredBids_PushAllOtherMetricsInQueue() {
+    val slot = mock<CdbResponseSlot>() {
+      on { impressionId } doReturn "restoredId"
+    }
+
+    listener.onBidRestored(slot)
+    listener.onSdkInitialized()
+
+    verify(sendingQueueProducer).pushAllInQueue(eq(repository), check {
+      assertThat(it).containsExactly("restoredId")
+    })
   }
 
   @Test
@@ -388,6 +404,52 @@ class CsmBidLifecycleListenerTest {
     verifyNoInteractions(repository)
   }
 
+  @Test
+  fun onBidEvicted_GivenDeactivatedFeature_DoNothing() {
+    givenDeactivatedFeature()
+    val adUnit = CacheAdUnit(AdSize(1, 2), "myAdUnit", CRITEO_BANNER)
+
+    listener.onBidEvicted(adUnit, mock())
+
+    verifyFeatureIsDeactivated()
+  }
+
+  @Test
+  fun onBidEvicted_GivenNotExpiredBid_SetOnlyReadyToSend() {
+    val adUnit = CacheAdUnit(AdSize(1, 2), "myAdUnit", CRITEO_BANNER)
+
+    val slot = mock<CdbResponseSlot>() {
+      on { impressionId } doReturn "id"
+      on { isExpired(clock) } doReturn false
+    }
+
+    clock.stub {
+      on { currentTimeInMillis } doReturn 42
+    }
+
+    listener.onBidEvicted(adUnit, slot)
+
+    assertRepositoryIsUpdatedById("id") {
+      verify(it).setReadyToSend(true)
+      verifyNoMoreInteractions(it)
+    }
+
+    verify(sendingQueueProducer).pushInQueue(repository, "id")
+  }
+
+  @Test
+  fun onBidEvicted_GivenBidWithoutImpressionId_DoNothing() {
+    val adUnit = CacheAdUnit(AdSize(1, 2), "myAdUnit", CRITEO_BANNER)
+
+    val slot = mock<CdbResponseSlot>() {
+      on { impressionId } doReturn null
+    }
+
+    listener.onBidEvicted(adUnit, slot)
+
+    verifyNoInteractions(repository)
+  }
+
   @Test
   fun onBidsCached_GivenDeactivatedFeature_DoNothing() {
     givenDeactivatedFeature()
@@ -0,0 +1,342 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.csm
+
+import com.criteo.publisher.mock.MockedDependenciesRule
+import com.criteo.publisher.util.JsonSerializer
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatCode
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.mockito.Mock
+import org.mockito.junit.MockitoJUnit
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.verifyNoInteractions
+import org.mockito.kotlin.whenever
+import java.io.File
+import java.io.RandomAccessFile
+import javax.inject.Inject
+
+class JournalMetricRepositoryTest {
+
+  @Rule
+  @JvmField
+  val mockedDependenciesRule = MockedDependenciesRule()
+
+  @Rule
+  @JvmField
+  val tempFolder = TemporaryFolder()
+
+  @Rule
+  @JvmField
+  val mockitoRule = MockitoJUnit.rule()
+
+  @Inject
+  private lateinit var jsonSerializer: JsonSerializer
+
+  @Mock
+  private lateinit var legacyDirectory: MetricDirectory
+
+  private lateinit var journalFile: File
+
+  private lateinit var repository: JournalMetricRepository
+
+  @Before
+  fun setUp() {
+    journalFile = File(tempFolder.root, "metrics.journal")
+    givenNewRepository()
+  }
+
+  @Test
+  fun getAllStoredMetrics_GivenEmptyRepository_ReturnEmpty() {
+    assertThat(repository.allStoredMetrics).isEmpty()
+    assertThat(repository.totalSize).isEqualTo(0)
+    assertThat(repository.contains("id")).isFalse
+  }
+
+  @Test
+  fun addOrUpdateById_GivenManyUpdatesAndRestarts_RepositoryContainMetricWithAllUpdates() {
+    repository.addOrUpdateById("id1") { it.setCdbCallStartTimestamp(42L) }
+    givenNewRepository()
+    repository.addOrUpdateById("id1") { it.setCdbCallEndTimestamp(1337L) }
+    repository.addOrUpdateById("id2") { it.setCdbCallTimeout(true) }
+    givenNewRepository()
+
+    assertThat(repository.allStoredMetrics).containsExactlyInAnyOrder(
+        Metric.builder("id1")
+            .setCdbCallStartTimestamp(42L)
+            .setCdbCallEndTimestamp(1337L)
+            .build(),
+        Metric.builder("id2")
+            .setCdbCallTimeout(true)
+            .build()
+    )
+    assertThat(repository.contains("id1")).isTrue
+    assertThat(repository.contains("id2")).isTrue
+  }
+
+  @Test
+  fun addOrUpdateById_GivenExceptionDuringUpdateOfNewMetric_MetricIsNotCreated() {
+    assertThatCode {
+      repository.addOrUpdateById("id") { throw IllegalStateException() }
+    }.isInstanceOf(IllegalStateException::class.java)
+
+    assertThat(repository.contains("id")).isFalse
+    assertThat(journalFile.length()).isEqualTo(0)
+  }
+
+  @Test
+  fun getTotalSize_GivenUpdatesAndMoves_ReturnSizeOfLiveRecordsOnly() {
+    repository.addOrUpdateById("id1") { it.setCdbCallStartTimestamp(42L) }
+    val sizeOfOneMetric = repository.totalSize
+    repository.addOrUpdateById("id1") { it.setCdbCallStartTimestamp(43L) }
+    repository.addOrUpdateById("id2") { it.setCdbCallStartTimestamp(42L) }
+
+    assertThat(sizeOfOneMetric).isGreaterThan(JournalMetricRepository.RECORD_HEADER_SIZE)
+    assertThat(repository.totalSize).isEqualTo(2 * sizeOfOneMetric)
+
+    repository.moveById("id1") { true }
+    givenNewRepository()
+
+    assertThat(repository.totalSize).isEqualTo(sizeOfOneMetric)
+  }
+
+  @Test
+  fun moveById_GivenSuccessfulMove_MetricIsRemovedEvenAfterRestart() {
+    repository.addOrUpdateById("id") { it.setReadyToSend(true) }
+    val destination = mutableListOf<Metric>()
+
+    repository.moveById("id") { destination.add(it) }
+    givenNewRepository()
+
+    assertThat(destination).containsExactly(Metric.builder("id").setReadyToSend(true).build())
+    assertThat(repository.contains("id")).isFalse
+    assertThat(repository.allStoredMetrics).isEmpty()
+  }
+
+  @Test
+  fun moveById_GivenRejectedMove_MetricIsKeptEvenAfterRestart() {
+    repository.addOrUpdateById("id") { it.setReadyToSend(true) }
+
+    repository.moveById("id") { false }
+    givenNewRepository()
+
+    assertThat(repository.allStoredMetrics).containsExactly(Metric.builder("id").setReadyToSend(true).build())
+  }
+
+  @Test
+  fun moveById_GivenExceptionDuringMove_MetricIsKept() {
+    repository.addOrUpdateById("id") { it.setReadyToSend(true) }
+
+    assertThatCode {
+      repository.moveById("id") { throw IllegalStateException() }
+    }.isInstanceOf(IllegalStateException::class.java)
+
+    assertThat(repository.contains("id")).isTrue
+  }
+
+  @Test
+  fun moveById_GivenUnknownMetric_DoNotOfferAnything() {
+    val destination = mutableListOf<Metric>()
+
+    repository.moveById("id") { destination.add(it) }
+
+    assertThat(destination).isEmpty()
+  }
+
+  @Test
+  fun moveAll_GivenExcludedIds_MoveOthersAtOnceAndKeepExcludedOnesEvenAfterRestart() {
+    repository.addOrUpdateById("id1") { it.setReadyToSend(true) }
+    repository.addOrUpdateById("id2") { it.setCdbCallStartTimestamp(42L) }
+    repository.addOrUpdateById("id3") { it.setCdbCallTimeout(true) }
+    val destination = mutableListOf<List<Metric>>()
+
+    repository.moveAll(setOf("id2")) {
+      destination.add(it.toList())
+      it.size
+    }
+    givenNewRepository()
+
+    assertThat(destination).hasSize(1)
+    assertThat(destination[0]).containsExactlyInAnyOrder(
+        Metric.builder("id1").setReadyToSend(true).build(),
+        Metric.builder("id3").setCdbCallTimeout(true).build()
+    )
+    assertThat(repository.allStoredMetrics).containsExactly(
+        Metric.builder("id2").setCdbCallStartTimestamp(42L).build()
+    )
+  }
+
+  @Test
+  fun moveAll_GivenPartiallyAcceptedMove_KeepNotMovedMetricsEvenAfterRestart() {
+    repository.addOrUpdateById("id1") { it.setReadyToSend(true) }
+    repository.addOrUpdateById("id2") { it.setReadyToSend(true) }
+    lateinit var notMoved: Metric
+
+    repository.moveAll(emptySet()) {
+      notMoved = it[1]
+      1
+    }
+    givenNewRepository()
+
+    assertThat(repository.allStoredMetrics).containsExactly(notMoved)
+  }
+
+  @Test
+  fun moveAll_GivenNoMetricToMove_DoNotCallMover() {
+    repository.addOrUpdateById("id") { it.setReadyToSend(true) }
+    val mover = mock<MetricBulkMover>()
+
+    repository.moveAll(setOf("id"), mover)
+
+    verifyNoInteractions(mover)
+  }
+
+  @Test
+  fun load_GivenPartialLastRecord_IgnoreAndTruncateIt() {
+    repository.addOrUpdateById("id1") { it.setCdbCallStartTimestamp(42L) }
+    val validSize = journalFile.length()
+    repository.addOrUpdateById("id2") { it.setCdbCallStartTimestamp(42L) }
+
+    // Simulate a crash in the middle of the last append
+    RandomAccessFile(journalFile, "rw").use { it.setLength(journalFile.length() - 3) }
+    givenNewRepository()
+
+    assertThat(repository.allStoredMetrics).containsExactly(
+        Metric.builder("id1").setCdbCallStartTimestamp(42L).build()
+    )
+    assertThat(journalFile.length()).isEqualTo(validSize)
+
+    repository.addOrUpdateById("id3") { }
+    givenNewRepository()
+
+    assertThat(repository.contains("id1")).isTrue
+    assertThat(repository.contains("id3")).isTrue
+  }
+
+  @Test
+  fun load_GivenCorruptedLastRecord_IgnoreIt() {
+    repository.addOrUpdateById("id1") { it.setCdbCallStartTimestamp(42L) }
+    repository.addOrUpdateById("id2") { it.setCdbCallStartTimestamp(42L) }
+
+    RandomAccessFile(journalFile, "rw").use {
+      it.seek(journalFile.length() - 2)
+      it.write('X'.code)
+    }
+    givenNewRepository()
+
+    assertThat(repository.contains("id1")).isTrue
+    assertThat(repository.contains("id2")).isFalse
+  }
+
+  @Test
+  fun addOrUpdateById_GivenManyOutdatedRecords_CompactJournal() {
+    val updateCount = 5000
+    for (i in 1..updateCount) {
+      repository.addOrUpdateById("id1") { it.setCdbCallStartTimestamp(i.toLong()) }
+    }
+    repository.addOrUpdateById("id2") { }
+
+    assertThat(repository.journalSize).isLessThan(JournalMetricRepository.MIN_COMPACTION_SIZE.toLong())
+    assertThat(journalFile.length()).isEqualTo(repository.journalSize)
+    assertThat(File(journalFile.path + ".compacting")).doesNotExist()
+
+    givenNewRepository()
+
+    assertThat(repository.allStoredMetrics).containsExactlyInAnyOrder(
+        Metric.builder("id1").setCdbCallStartTimestamp(updateCount.toLong()).build(),
+        Metric.builder("id2").build()
+    )
+  }
+
+  @Test
+  fun load_GivenLeftoverOfInterruptedCompaction_IgnoreAndDeleteIt() {
+    repository.addOrUpdateById("id") { }
+    val compactedFile = File(journalFile.path + ".compacting")
+    compactedFile.writeText("partial compaction")
+
+    givenNewRepository()
+
+    assertThat(repository.allStoredMetrics).containsExactly(Metric.builder("id").build())
+    assertThat(compactedFile).doesNotExist()
+  }
+
+  @Test
+  fun load_GivenLegacyMetricFiles_ImportThemAndDeleteTheirFiles() {
+    val legacyFile = File(tempFolder.root, "legacy.csm")
+    val legacyMetric = Metric.builder("legacy").setCdbCallStartTimestamp(42L).build()
+    val syncMetricFile = mock<SyncMetricFile> {
+      on { read() } doReturn legacyMetric
+    }
+    whenever(legacyDirectory.listFiles()).thenReturn(listOf(legacyFile))
+    whenever(legacyDirectory.createSyncMetricFile(legacyFile)).thenReturn(syncMetricFile)
+
+    givenNewRepository()
+    repository.addOrUpdateById("legacy") { it.setCdbCallEndTimestamp(1337L) }
+
+    verify(syncMetricFile).delete()
+
+    whenever(legacyDirectory.listFiles()).thenReturn(listOf())
+    givenNewRepository()
+
+    assertThat(repository.allStoredMetrics).containsExactly(
+        legacyMetric.toBuilder().setCdbCallEndTimestamp(1337L).build()
+    )
+  }
+
+  @Test
+  fun load_GivenNoLegacyDirectory_DoNotImportAnything() {
+    repository = JournalMetricRepository(journalFile, null, jsonSerializer)
+    repository.addOrUpdateById("id") { it.setCdbCallStartTimestamp(42L) }
+
+    repository = JournalMetricRepository(journalFile, null, jsonSerializer)
+
+    assertThat(repository.allStoredMetrics).containsExactly(
+        Metric.builder("id").setCdbCallStartTimestamp(42L).build()
+    )
+    verifyNoInteractions(legacyDirectory)
+  }
+
+  @Test
+  fun deleteIfEmpty_GivenLiveMetrics_KeepJournal() {
+    repository.addOrUpdateById("id") { it.setCdbCallStartTimestamp(42L) }
+
+    repository.deleteIfEmpty()
+
+    assertThat(journalFile).exists()
+    assertThat(repository.contains("id")).isTrue
+  }
+
+  @Test
+  fun deleteIfEmpty_GivenAllMetricsMoved_DeleteJournal() {
+    repository.addOrUpdateById("id") { it.setCdbCallStartTimestamp(42L) }
+    repository.moveAll(listOf()) { it.size }
+
+    repository.deleteIfEmpty()
+
+    assertThat(journalFile).doesNotExist()
+    assertThat(repository.allStoredMetrics).isEmpty()
+  }
+
+  private fun givenNewRepository() {
+    repository = JournalMetricRepository(journalFile, legacyDirectory, jsonSerializer)
+  }
+}
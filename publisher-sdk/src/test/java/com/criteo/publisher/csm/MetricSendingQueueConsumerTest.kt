@@ -17,6 +17,7 @@
 package com.criteo.publisher.csm
 
 import com.criteo.publisher.concurrent.DirectMockExecutor
+import com.criteo.publisher.context.ConnectivityMonitor
 import com.criteo.publisher.integration.Integration.FALLBACK
 import com.criteo.publisher.mock.MockedDependenciesRule
 import com.criteo.publisher.mock.SpyBean
@@ -64,6 +65,9 @@ class MetricSendingQueueConsumerTest {
   @SpyBean
   private lateinit var config: Config
 
+  @Mock
+  private lateinit var connectivityMonitor: ConnectivityMonitor
+
   private val executor = DirectMockExecutor()
 
   private lateinit var consumer: MetricSendingQueueConsumer
@@ -74,15 +78,39 @@ class MetricSendingQueueConsumerTest {
       on { preconditionThrowsOnException() } doReturn false
     }
 
+    whenever(connectivityMonitor.isConnected).doReturn(true)
+
     consumer = MetricSendingQueueConsumer(
         queue,
         api,
         buildConfigWrapper,
         config,
-        executor
+        executor,
+        connectivityMonitor
     )
   }
 
+  @Test
+  fun sendMetricBatch_GivenOffline_SendASingleBatchOnceNetworkIsBack() {
+    val metric = Metric.builder("id").setProfileId(42).build()
+    whenever(queue.poll(any())).doReturn(listOf(metric))
+    whenever(connectivityMonitor.isConnected).doReturn(false)
+
+    consumer.sendMetricBatch()
+    consumer.sendMetricBatch()
+    consumer.onConnectivityChanged(false)
+
+    verifyNoInteractions(queue)
+    verifyNoInteractions(api)
+
+    whenever(connectivityMonitor.isConnected).doReturn(true)
+    consumer.onConnectivityChanged(true)
+    consumer.onConnectivityChanged(true)
+
+    verify(queue).poll(any())
+    verify(api).postCsm(any())
+  }
+
   @Test
   fun sendMetricBatch_GivenDeactivatedFeature_DoNothing() {
     config.stub {
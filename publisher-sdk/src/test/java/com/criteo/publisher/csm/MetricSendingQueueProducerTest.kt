@@ -16,6 +16,7 @@
 
 package com.criteo.publisher.csm
 
+import org.assertj.core.api.Assertions.assertThat
 import org.junit.Rule
 import org.junit.Test
 import org.mockito.InjectMocks
@@ -60,7 +61,44 @@ class MetricSendingQueueProducerTest {
 
     producer.pushAllInQueue(repository)
 
-    assertOnlyThoseMetricsAreMoved(metric1, metric2)
+    verify(repository).moveAll(eq(emptySet()), any())
+    verify(queue).offerAll(listOf(metric1, metric2))
+    verify(repository, never()).moveById(any(), any())
+  }
+
+  @Test
+  fun pushAllInQueue_GivenExcludedImpressionIds_PushAndMoveOthers() {
+    val excluded = Metric.builder("id1").build()
+    val notExcluded = Metric.builder("id2").build()
+
+    givenMetricInRepository(excluded, notExcluded)
+
+    producer.pushAllInQueue(repository, setOf("id1"))
+
+    verify(repository).moveAll(eq(setOf("id1")), any())
+    verify(queue).offerAll(listOf(notExcluded))
+  }
+
+  @Test
+  fun pushAllInQueue_GivenQueueAcceptingSomeMetrics_ReturnAcceptedCountToRepository() {
+    val metric1 = Metric.builder("id1").build()
+    val metric2 = Metric.builder("id2").build()
+
+    givenMetricInRepository(metric1, metric2)
+    queue.stub {
+      on { offerAll(any()) } doReturn 1
+    }
+
+    var movedCount = -1
+    doAnswer { invocationOnMock: InvocationOnMock ->
+      val mover: MetricBulkMover = invocationOnMock.getArgument(1)
+      movedCount = mover.offerAllToDestination(listOf(metric1, metric2))
+      null
+    }.whenever(repository).moveAll(any(), any())
+
+    producer.pushAllInQueue(repository)
+
+    assertThat(movedCount).isEqualTo(1)
   }
 
   @Test
@@ -86,6 +124,13 @@ class MetricSendingQueueProducerTest {
         }
       }.whenever(mock).moveById(any(), any())
 
+      doAnswer { invocationOnMock: InvocationOnMock ->
+        val excludedImpressionIds: Collection<String> = invocationOnMock.getArgument(0)
+        val mover: MetricBulkMover = invocationOnMock.getArgument(1)
+
+        mover.offerAllToDestination(metrics.filter { it.impressionId !in excludedImpressionIds })
+      }.whenever(mock).moveAll(any(), any())
+
       on { allStoredMetrics } doReturn metrics.asList()
     }
   }
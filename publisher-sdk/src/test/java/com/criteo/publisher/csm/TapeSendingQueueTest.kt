@@ -44,6 +44,7 @@ import org.mockito.kotlin.doNothing
 import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.doThrow
 import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
 import org.mockito.kotlin.spy
 import org.mockito.kotlin.stub
 import org.mockito.kotlin.verify
@@ -170,6 +171,33 @@ class TapeSendingQueueTest(private val tapeImplementation: TapeImplementation) {
     assertThat(isOffered).isFalse()
   }
 
+  @Test
+  fun offerAll_GivenAcceptedMetrics_ReturnTheirCountAndPollThemInOrder() {
+    val metrics = (1..3).map { mockMetric(it) }
+
+    val offered = queue.offerAll(metrics)
+
+    assertThat(offered).isEqualTo(3)
+    assertThat(queue.poll(3)).containsExactlyElementsOf(metrics)
+  }
+
+  @Test
+  fun offerAll_GivenExceptionWhileAddingSecondMetric_StopAndReturnCountOfFirstOnes() {
+    givenDeactivatedPreconditionUtils()
+    givenMockedTapeQueue()
+    val metric1 = mockMetric(1)
+    val metric2 = mockMetric(2)
+    val metric3 = mockMetric(3)
+
+    doNothing().whenever(tapeQueue).add(metric1)
+    doThrow(FileException::class).whenever(tapeQueue).add(metric2)
+
+    val offered = queue.offerAll(listOf(metric1, metric2, metric3))
+
+    assertThat(offered).isEqualTo(1)
+    verify(tapeQueue, never()).add(metric3)
+  }
+
   @Test
   fun poll_AfterAnOfferOperation_ReturnOfferedMetric() {
     val metric = mockMetric()
@@ -0,0 +1,339 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.csm
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.mockito.Mock
+import org.mockito.junit.MockitoJUnit
+import org.mockito.junit.MockitoRule
+import org.mockito.kotlin.any
+import org.mockito.kotlin.argumentCaptor
+import org.mockito.kotlin.doAnswer
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.eq
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.stub
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.whenever
+import java.util.concurrent.Executor
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+
+class WriteBackMetricRepositoryTest {
+
+  @Rule
+  @JvmField
+  val mockitoRule: MockitoRule = MockitoJUnit.rule()
+
+  @Mock
+  private lateinit var delegate: MetricRepository
+
+  @Mock
+  private lateinit var scheduledExecutorService: ScheduledExecutorService
+
+  private lateinit var repository: WriteBackMetricRepository
+
+  @Before
+  fun setUp() {
+    repository = WriteBackMetricRepository(delegate, scheduledExecutorService, Executor { it.run() })
+  }
+
+  @Test
+  fun addOrUpdateById_GivenSeveralUpdates_KeepThemInMemoryWithoutWritingThem() {
+    repository.addOrUpdateById("id") { it.setCdbCallStartTimestamp(42L) }
+    repository.addOrUpdateById("id") { it.setCdbCallEndTimestamp(1337L) }
+
+    assertThat(repository.allStoredMetrics).containsExactly(
+        Metric.builder("id")
+            .setCdbCallStartTimestamp(42L)
+            .setCdbCallEndTimestamp(1337L)
+            .build()
+    )
+    assertThat(repository.contains("id")).isTrue
+    verify(delegate, never()).addOrUpdateById(any(), any())
+  }
+
+  @Test
+  fun flush_GivenSeveralUpdates_WriteLatestVersionOnce() {
+    repository.addOrUpdateById("id") { it.setCdbCallStartTimestamp(42L) }
+    repository.addOrUpdateById("id") { it.setReadyToSend(true) }
+
+    repository.flush()
+    repository.flush()
+
+    assertThat(writtenMetric("id")).isEqualTo(
+        Metric.builder("id")
+            .setCdbCallStartTimestamp(42L)
+            .setReadyToSend(true)
+            .build()
+    )
+  }
+
+  @Test
+  fun addOrUpdateById_GivenSeveralUpdates_ScheduleASingleFlush() {
+    repository.addOrUpdateById("id1") { it.setCdbCallStartTimestamp(42L) }
+    repository.addOrUpdateById("id2") { it.setCdbCallStartTimestamp(42L) }
+
+    val runnableCaptor = argumentCaptor<Runnable>()
+    verify(scheduledExecutorService).schedule(
+        runnableCaptor.capture(),
+        eq(WriteBackMetricRepository.FLUSH_DELAY_IN_MILLIS),
+        eq(TimeUnit.MILLISECONDS)
+    )
+    verify(delegate, never()).addOrUpdateById(any(), any())
+
+    runnableCaptor.firstValue.run()
+
+    verify(delegate).addOrUpdateById(eq("id1"), any())
+    verify(delegate).addOrUpdateById(eq("id2"), any())
+  }
+
+  @Test
+  fun addOrUpdateById_GivenUpdateAfterFlush_ScheduleANewFlush() {
+    repository.addOrUpdateById("id") { it.setCdbCallStartTimestamp(42L) }
+    repository.flush()
+    repository.addOrUpdateById("id") { it.setReadyToSend(true) }
+
+    verify(scheduledExecutorService, times(2)).schedule(any<Runnable>(), any(), any())
+  }
+
+  @Test
+  fun addOrUpdateById_GivenTooManyPendingMetrics_FlushThemRightAway() {
+    for (i in 1..WriteBackMetricRepository.MAX_PENDING_METRICS) {
+      repository.addOrUpdateById("id$i") { it.setCdbCallStartTimestamp(42L) }
+    }
+
+    verify(delegate, times(WriteBackMetricRepository.MAX_PENDING_METRICS)).addOrUpdateById(any(), any())
+  }
+
+  @Test
+  fun onApplicationStopped_GivenPendingMetrics_FlushThem() {
+    repository.addOrUpdateById("id") { it.setCdbCallStartTimestamp(42L) }
+
+    repository.onApplicationStopped()
+
+    verify(delegate).addOrUpdateById(eq("id"), any())
+  }
+
+  @Test
+  fun moveById_GivenNotWrittenMetric_OfferItWithoutTouchingDelegate() {
+    val mover = mock<MetricMover> {
+      on { offerToDestination(any()) } doReturn true
+    }
+    repository.addOrUpdateById("id") { it.setReadyToSend(true) }
+
+    repository.moveById("id", mover)
+    repository.flush()
+
+    verify(mover).offerToDestination(Metric.builder("id").setReadyToSend(true).build())
+    assertThat(repository.contains("id")).isFalse
+    verify(delegate, never()).addOrUpdateById(any(), any())
+    verify(delegate, never()).moveById(any(), any())
+  }
+
+  @Test
+  fun moveById_GivenWrittenMetric_MoveItFromDelegateWithLatestVersion() {
+    givenDelegateMovingMetric(Metric.builder("id").build())
+    val mover = mock<MetricMover> {
+      on { offerToDestination(any()) } doReturn true
+    }
+    repository.addOrUpdateById("id") { it.setCdbCallStartTimestamp(42L) }
+    repository.flush()
+    repository.addOrUpdateById("id") { it.setReadyToSend(true) }
+
+    repository.moveById("id", mover)
+
+    verify(delegate).moveById(eq("id"), any())
+    verify(mover).offerToDestination(
+        Metric.builder("id")
+            .setCdbCallStartTimestamp(42L)
+            .setReadyToSend(true)
+            .build()
+    )
+    assertThat(repository.contains("id")).isFalse
+  }
+
+  @Test
+  fun moveById_GivenWrittenMetricLostByDelegate_OfferItAnyway() {
+    val mover = mock<MetricMover> {
+      on { offerToDestination(any()) } doReturn true
+    }
+    repository.addOrUpdateById("id") { it.setCdbCallStartTimestamp(42L) }
+    repository.flush()
+
+    repository.moveById("id", mover)
+
+    verify(mover).offerToDestination(Metric.builder("id").setCdbCallStartTimestamp(42L).build())
+    assertThat(repository.contains("id")).isFalse
+  }
+
+  @Test
+  fun moveById_GivenRefusedOffer_KeepMetricAsPending() {
+    val mover = mock<MetricMover> {
+      on { offerToDestination(any()) } doReturn false
+    }
+    repository.addOrUpdateById("id") { it.setCdbCallStartTimestamp(42L) }
+
+    repository.moveById("id", mover)
+    repository.flush()
+
+    assertThat(repository.contains("id")).isTrue
+    assertThat(writtenMetric("id")).isEqualTo(Metric.builder("id").setCdbCallStartTimestamp(42L).build())
+  }
+
+  @Test
+  fun moveById_GivenUnknownMetric_DoNothing() {
+    val mover = mock<MetricMover>()
+
+    repository.moveById("id", mover)
+
+    verify(mover, never()).offerToDestination(any())
+    verify(delegate, never()).moveById(any(), any())
+  }
+
+  @Test
+  fun moveAll_GivenNotWrittenMetrics_OfferThemAtOnceWithoutWritingThem() {
+    val destination = mutableListOf<List<Metric>>()
+    repository.addOrUpdateById("id1") { it.setReadyToSend(true) }
+    repository.addOrUpdateById("id2") { it.setCdbCallStartTimestamp(42L) }
+    repository.addOrUpdateById("id3") { it.setCdbCallTimeout(true) }
+
+    repository.moveAll(setOf("id2")) {
+      destination.add(it.toList())
+      it.size
+    }
+    repository.flush()
+
+    assertThat(destination).hasSize(1)
+    assertThat(destination[0]).containsExactlyInAnyOrder(
+        Metric.builder("id1").setReadyToSend(true).build(),
+        Metric.builder("id3").setCdbCallTimeout(true).build()
+    )
+    assertThat(repository.allStoredMetrics).containsExactly(
+        Metric.builder("id2").setCdbCallStartTimestamp(42L).build()
+    )
+    verify(delegate).addOrUpdateById(eq("id2"), any())
+    verify(delegate, never()).addOrUpdateById(eq("id1"), any())
+    verify(delegate, never()).addOrUpdateById(eq("id3"), any())
+  }
+
+  @Test
+  fun moveAll_GivenWrittenMetric_MoveItFromDelegateWithLatestVersionAndOtherMetrics() {
+    val destination = mutableListOf<List<Metric>>()
+    repository.addOrUpdateById("id1") { it.setCdbCallStartTimestamp(42L) }
+    repository.flush()
+    repository.addOrUpdateById("id1") { it.setReadyToSend(true) }
+    repository.addOrUpdateById("id2") { it.setReadyToSend(true) }
+
+    var delegateMovedCount = -1
+    doAnswer {
+      val mover = it.getArgument<MetricBulkMover>(1)
+      delegateMovedCount = mover.offerAllToDestination(listOf(Metric.builder("id1").build()))
+      null
+    }.whenever(delegate).moveAll(any(), any())
+
+    repository.moveAll(emptySet()) {
+      destination.add(it.toList())
+      it.size
+    }
+
+    assertThat(destination).containsExactly(listOf(
+        Metric.builder("id1").setCdbCallStartTimestamp(42L).setReadyToSend(true).build(),
+        Metric.builder("id2").setReadyToSend(true).build()
+    ))
+    assertThat(delegateMovedCount).isEqualTo(1)
+    assertThat(repository.allStoredMetrics).isEmpty()
+  }
+
+  @Test
+  fun moveAll_GivenPartiallyAcceptedMove_KeepNotMovedMetricsAsPending() {
+    repository.addOrUpdateById("id1") { it.setReadyToSend(true) }
+    repository.addOrUpdateById("id2") { it.setReadyToSend(true) }
+    lateinit var notMoved: Metric
+
+    repository.moveAll(emptySet()) {
+      notMoved = it[1]
+      1
+    }
+    repository.flush()
+
+    assertThat(repository.allStoredMetrics).containsExactly(notMoved)
+    assertThat(writtenMetric(notMoved.impressionId)).isEqualTo(notMoved)
+  }
+
+  @Test
+  fun getAllStoredMetrics_GivenMetricsInDelegate_ReadThemOnce() {
+    val storedMetric = Metric.builder("id").setCdbCallStartTimestamp(42L).build()
+    delegate.stub {
+      on { allStoredMetrics } doReturn listOf(storedMetric)
+    }
+
+    assertThat(repository.allStoredMetrics).containsExactly(storedMetric)
+    assertThat(repository.contains("id")).isTrue
+    repository.addOrUpdateById("id") { it.setReadyToSend(true) }
+    assertThat(repository.allStoredMetrics).containsExactly(storedMetric.toBuilder().setReadyToSend(true).build())
+
+    verify(delegate, times(1)).allStoredMetrics
+  }
+
+  @Test
+  fun moveById_GivenMetricInDelegate_MoveItFromDelegate() {
+    val storedMetric = Metric.builder("id").setCdbCallStartTimestamp(42L).build()
+    delegate.stub {
+      on { allStoredMetrics } doReturn listOf(storedMetric)
+    }
+    givenDelegateMovingMetric(storedMetric)
+    val mover = mock<MetricMover> {
+      on { offerToDestination(any()) } doReturn true
+    }
+
+    repository.moveById("id", mover)
+
+    verify(delegate).moveById(eq("id"), any())
+    verify(mover).offerToDestination(storedMetric)
+  }
+
+  @Test
+  fun getTotalSize_GivenDelegate_DelegateToIt() {
+    delegate.stub {
+      on { totalSize } doReturn 42
+    }
+
+    assertThat(repository.totalSize).isEqualTo(42)
+  }
+
+  private fun givenDelegateMovingMetric(storedMetric: Metric) {
+    doAnswer {
+      it.getArgument<MetricMover>(1).offerToDestination(storedMetric)
+      null
+    }.whenever(delegate).moveById(eq(storedMetric.impressionId), any())
+  }
+
+  private fun writtenMetric(impressionId: String): Metric {
+    val updaterCaptor = argumentCaptor<MetricRepository.MetricUpdater>()
+    verify(delegate).addOrUpdateById(eq(impressionId), updaterCaptor.capture())
+
+    val builder = Metric.builder(impressionId)
+    updaterCaptor.firstValue.update(builder)
+    return builder.build()
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.criteo.publisher.logging
+
+import com.criteo.publisher.logging.RemoteLogRecords.RemoteLogContext
+import com.criteo.publisher.logging.RemoteLogRecords.RemoteLogLevel
+import com.criteo.publisher.logging.RemoteLogRecords.RemoteLogRecord
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatCode
+import org.junit.Test
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.IOException
+
+class RemoteLogRecordsQueueCodecTest {
+
+  private val codec = RemoteLogRecordsQueueCodec()
+
+  @Test
+  fun read_GivenWrittenLogsWithAllFields_ReturnSameLogs() {
+    val logs = RemoteLogRecords(
+        RemoteLogContext(
+            "1.2.3",
+            "org.dummy.bundle",
+            "my-device-id",
+            "my-session-id",
+            42,
+            "java.lang.IllegalStateException",
+            "my-log-id",
+            "android-29"
+        ),
+        RemoteLogLevel.values().map {
+          RemoteLogRecord(it, listOf("message1", "message2"))
+        }
+    )
+
+    assertThat(readBack(logs)).isEqualTo(logs)
+  }
+
+  @Test
+  fun read_GivenWrittenLogsWithoutOptionalFields_ReturnSameLogs() {
+    val logs = RemoteLogRecords(
+        RemoteLogContext("1.2.3", "org.dummy.bundle", null, "my-session-id", 0, null, null, null),
+        listOf(RemoteLogRecord(RemoteLogLevel.ERROR, listOf("")))
+    )
+
+    assertThat(readBack(logs)).isEqualTo(logs)
+  }
+
+  @Test
+  fun read_GivenMessageLongerThanModifiedUtf8Limit_ReturnSameLogs() {
+    val stackTrace = "at com.criteo.publisher.Foo.bar(Foo.java:42)\n".repeat(2000)
+    val logs = RemoteLogRecords(
+        RemoteLogContext("1.2.3", "org.dummy.bundle", null, "my-session-id", 0, null, null, null),
+        listOf(RemoteLogRecord(RemoteLogLevel.WARNING, listOf(stackTrace)))
+    )
+
+    assertThat(readBack(logs)).isEqualTo(logs)
+  }
+
+  @Test
+  fun read_GivenUnknownVersion_ThrowIOException() {
+    assertThatCode {
+      codec.read(2, DataInputStream(ByteArrayInputStream(ByteArray(0))))
+    }.isInstanceOf(IOException::class.java)
+  }
+
+  @Test
+  fun read_GivenUnknownLevel_ThrowIOException() {
+    val logs = RemoteLogRecords(
+        RemoteLogContext("", "", null, "", 0, null, null, null),
+        listOf(RemoteLogRecord(RemoteLogLevel.DEBUG, listOf()))
+    )
+    val bytes = write(logs)
+    // Context takes 8 bytes (3 empty strings, the profile ID and 4 absent strings), then comes the record count
+    bytes[9] = 42
+
+    assertThatCode {
+      codec.read(codec.version, DataInputStream(ByteArrayInputStream(bytes)))
+    }.isInstanceOf(IOException::class.java)
+  }
+
+  private fun readBack(logs: RemoteLogRecords): RemoteLogRecords {
+    return codec.read(codec.version, DataInputStream(ByteArrayInputStream(write(logs))))
+  }
+
+  private fun write(logs: RemoteLogRecords): ByteArray {
+    return ByteArrayOutputStream().use {
+      codec.write(logs, DataOutputStream(it))
+      it.toByteArray()
+    }
+  }
+}
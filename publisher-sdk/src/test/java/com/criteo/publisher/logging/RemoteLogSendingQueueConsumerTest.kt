@@ -17,6 +17,7 @@
 package com.criteo.publisher.logging
 
 import com.criteo.publisher.concurrent.DirectMockExecutor
+import com.criteo.publisher.context.ConnectivityMonitor
 import com.criteo.publisher.csm.ConcurrentSendingQueue
 import com.criteo.publisher.mock.MockedDependenciesRule
 import com.criteo.publisher.mock.SpyBean
@@ -57,6 +58,9 @@ class RemoteLogSendingQueueConsumerTest {
   @Mock
   private lateinit var advertisingInfo: AdvertisingInfo
 
+  @Mock
+  private lateinit var connectivityMonitor: ConnectivityMonitor
+
   @SpyBean
   private lateinit var buildConfigWrapper: BuildConfigWrapper
 
@@ -68,15 +72,39 @@ class RemoteLogSendingQueueConsumerTest {
   fun setUp() {
     doReturn(false).whenever(buildConfigWrapper).preconditionThrowsOnException()
 
+    whenever(connectivityMonitor.isConnected).doReturn(true)
+
     consumer = RemoteLogSendingQueueConsumer(
         queue,
         api,
         buildConfigWrapper,
         advertisingInfo,
-        executor
+        executor,
+        connectivityMonitor
     )
   }
 
+  @Test
+  fun sendRemoteLogBatch_GivenOffline_SendASingleBatchOnceNetworkIsBack() {
+    val logs = mock<RemoteLogRecords>()
+    whenever(queue.poll(any())).doReturn(listOf(logs))
+    whenever(connectivityMonitor.isConnected).doReturn(false)
+
+    consumer.sendRemoteLogBatch()
+    consumer.sendRemoteLogBatch()
+    consumer.onConnectivityChanged(false)
+
+    verify(queue, never()).poll(any())
+    verify(api, never()).postLogs(any())
+
+    whenever(connectivityMonitor.isConnected).doReturn(true)
+    consumer.onConnectivityChanged(true)
+    consumer.onConnectivityChanged(true)
+
+    verify(queue).poll(any())
+    verify(api).postLogs(listOf(logs))
+  }
+
   @Test
   fun sendRemoteLogBatch_GivenSomeLogsAndIOException_RollbackLogs() {
     val logs1 = mock<RemoteLogRecords>()
@@ -25,11 +25,13 @@ import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import android.content.SharedPreferences;
+import android.content.res.Configuration;
 import com.criteo.publisher.integration.Integration;
 import com.criteo.publisher.integration.IntegrationRegistry;
 import com.criteo.publisher.util.DeviceUtil;
@@ -52,13 +54,16 @@ public class AdUnitMapperTest {
   @Mock
   private IntegrationRegistry integrationRegistry;
 
+  private CacheAdUnitInterner cacheAdUnitInterner;
+
   private AdUnitMapper mapper;
 
   @Before
   public void setUp() throws Exception {
     when(integrationRegistry.readIntegration()).thenReturn(Integration.FALLBACK);
 
-    mapper = new AdUnitMapper(deviceUtil, integrationRegistry);
+    cacheAdUnitInterner = new CacheAdUnitInterner(deviceUtil);
+    mapper = new AdUnitMapper(cacheAdUnitInterner, integrationRegistry);
   }
 
   @Test
@@ -237,12 +242,8 @@ public class AdUnitMapperTest {
   }
 
   @Test
-  public void convertValidAdUnit_GivenListVersionReturningNothing_ReturnNull() throws Exception {
-    mapper = spy(mapper);
-    AdUnit adUnit = mock(AdUnit.class);
-
-    doReturn(emptyList()).when(mapper)
-        .mapToChunks(singletonList(adUnit));
+  public void convertValidAdUnit_GivenInvalidAdUnit_ReturnNull() throws Exception {
+    AdUnit adUnit = new BannerAdUnit("", new AdSize(1, 1));
 
     CacheAdUnit validAdUnit = mapper.map(adUnit);
 
@@ -250,32 +251,57 @@ public class AdUnitMapperTest {
   }
 
   @Test
-  public void convertValidAdUnit_GivenListVersionReturningChunkOfNothing_ReturnNull()
+  public void convertValidAdUnit_GivenValidAdUnit_ReturnSameCanonicalInstanceThanListVersion()
       throws Exception {
-    mapper = spy(mapper);
-    AdUnit adUnit = mock(AdUnit.class);
-
-    doReturn(singletonList(emptyList())).when(mapper)
-        .mapToChunks(singletonList(adUnit));
+    AdSize size = new AdSize(1, 1);
 
-    CacheAdUnit validAdUnit = mapper.map(adUnit);
+    CacheAdUnit validAdUnit1 = mapper.map(new BannerAdUnit("adUnit", size));
+    CacheAdUnit validAdUnit2 = mapper.map(new BannerAdUnit("adUnit", size));
+    List<List<CacheAdUnit>> validAdUnits = mapper.mapToChunks(singletonList(new BannerAdUnit("adUnit", size)));
 
-    assertThat(validAdUnit).isNull();
+    assertThat(validAdUnit1).isEqualTo(new CacheAdUnit(size, "adUnit", CRITEO_BANNER));
+    assertThat(validAdUnit2).isSameAs(validAdUnit1);
+    assertThat(validAdUnits.get(0).get(0)).isSameAs(validAdUnit1);
   }
 
   @Test
-  public void convertValidAdUnit_GivenListVersionReturningSingleton_ReturnTheSingleElement()
-      throws Exception {
-    mapper = spy(mapper);
-    AdUnit adUnit = mock(AdUnit.class);
-    CacheAdUnit expectedAdUnit = new CacheAdUnit(new AdSize(1, 1), "adUnit", CRITEO_BANNER);
+  public void convertValidAdUnit_CalledTwice_ReadIntegrationAndScreenSizeOnce() throws Exception {
+    when(deviceUtil.getCurrentScreenSize()).thenReturn(new AdSize(10, 30));
+    AdUnit adUnit = new InterstitialAdUnit("adUnit");
+
+    mapper.map(adUnit);
+    mapper.map(adUnit);
+
+    verify(integrationRegistry, times(1)).readIntegration();
+    verify(deviceUtil, times(1)).getCurrentScreenSize();
+  }
 
-    doReturn(singletonList(singletonList(expectedAdUnit))).when(mapper)
-        .mapToChunks(singletonList(adUnit));
+  @Test
+  public void convertValidAdUnit_AfterConfigurationChange_MapWithNewScreenSize() throws Exception {
+    when(deviceUtil.getCurrentScreenSize()).thenReturn(new AdSize(10, 30));
+    AdUnit adUnit = new InterstitialAdUnit("adUnit");
+    mapper.map(adUnit);
 
+    when(deviceUtil.getCurrentScreenSize()).thenReturn(new AdSize(30, 10));
+    cacheAdUnitInterner.onConfigurationChanged(mock(Configuration.class));
     CacheAdUnit validAdUnit = mapper.map(adUnit);
 
-    assertThat(validAdUnit).isSameAs(expectedAdUnit);
+    assertThat(validAdUnit).isEqualTo(new CacheAdUnit(new AdSize(30, 10), "adUnit", CRITEO_INTERSTITIAL));
+  }
+
+  @Test
+  public void convertValidAdUnit_AfterIntegrationChange_ValidateAgain() throws Exception {
+    when(deviceUtil.getCurrentScreenSize()).thenReturn(new AdSize(10, 30));
+    when(integrationRegistry.readIntegration()).thenReturn(Integration.GAM_APP_BIDDING);
+    AdUnit adUnit = new RewardedAdUnit("adUnit");
+    CacheAdUnit validAdUnit1 = mapper.map(adUnit);
+
+    when(integrationRegistry.readIntegration()).thenReturn(Integration.IN_HOUSE);
+    mapper.onSharedPreferenceChanged(mock(SharedPreferences.class), "key");
+    CacheAdUnit validAdUnit2 = mapper.map(adUnit);
+
+    assertThat(validAdUnit1).isNotNull();
+    assertThat(validAdUnit2).isNull();
   }
 
   @Test
@@ -0,0 +1,131 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.model
+
+import android.content.res.Configuration
+import com.criteo.publisher.util.AdUnitType.CRITEO_BANNER
+import com.criteo.publisher.util.AdUnitType.CRITEO_INTERSTITIAL
+import com.criteo.publisher.util.DeviceUtil
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.mockito.Mock
+import org.mockito.junit.MockitoJUnit
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.stub
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.whenever
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+class CacheAdUnitInternerTest {
+
+  @Rule
+  @JvmField
+  val mockitoRule = MockitoJUnit.rule()
+
+  @Mock
+  private lateinit var deviceUtil: DeviceUtil
+
+  private lateinit var interner: CacheAdUnitInterner
+
+  @Before
+  fun setUp() {
+    interner = CacheAdUnitInterner(deviceUtil)
+  }
+
+  @Test
+  fun intern_GivenEqualKeys_ReturnFirstInstance() {
+    val key1 = CacheAdUnit(AdSize(1, 2), "adUnit", CRITEO_BANNER)
+    val key2 = CacheAdUnit(AdSize(1, 2), "adUnit", CRITEO_BANNER)
+
+    assertThat(interner.intern(key1)).isSameAs(key1)
+    assertThat(interner.intern(key2)).isSameAs(key1)
+    assertThat(interner.intern(1, 2, "adUnit", CRITEO_BANNER)).isSameAs(key1)
+  }
+
+  @Test
+  fun intern_GivenDifferentKeysOfSamePlacement_ReturnDistinctInstances() {
+    val banner = interner.intern(1, 2, "adUnit", CRITEO_BANNER)
+    val otherSize = interner.intern(2, 1, "adUnit", CRITEO_BANNER)
+    val otherType = interner.intern(1, 2, "adUnit", CRITEO_INTERSTITIAL)
+    val otherPlacement = interner.intern(1, 2, "otherAdUnit", CRITEO_BANNER)
+
+    assertThat(banner).isEqualTo(CacheAdUnit(AdSize(1, 2), "adUnit", CRITEO_BANNER))
+    assertThat(otherSize).isEqualTo(CacheAdUnit(AdSize(2, 1), "adUnit", CRITEO_BANNER))
+    assertThat(otherType).isEqualTo(CacheAdUnit(AdSize(1, 2), "adUnit", CRITEO_INTERSTITIAL))
+    assertThat(otherPlacement).isEqualTo(CacheAdUnit(AdSize(1, 2), "otherAdUnit", CRITEO_BANNER))
+    assertThat(interner.intern(2, 1, "adUnit", CRITEO_BANNER)).isSameAs(otherSize)
+    assertThat(interner.intern(1, 2, "adUnit", CRITEO_INTERSTITIAL)).isSameAs(otherType)
+  }
+
+  @Test
+  fun intern_GivenConcurrentCalls_ReturnSameInstanceToAll() {
+    val executor = Executors.newFixedThreadPool(8)
+    try {
+      val futures = (1..100).map { i ->
+        executor.submit(Callable { interner.intern(i % 3, 1, "adUnit", CRITEO_BANNER) })
+      }
+
+      val keys = futures.map { it.get() }
+
+      keys.forEach {
+        assertThat(it).isSameAs(interner.intern(it.size.width, 1, "adUnit", CRITEO_BANNER))
+      }
+      assertThat(keys.map { System.identityHashCode(it) }.toSet()).hasSize(3)
+    } finally {
+      executor.shutdownNow()
+    }
+  }
+
+  @Test
+  fun getCurrentScreenSize_CalledTwice_ReadScreenSizeOnce() {
+    whenever(deviceUtil.getCurrentScreenSize()).doReturn(AdSize(10, 30))
+
+    val screenSize1 = interner.getCurrentScreenSize()
+    val screenSize2 = interner.getCurrentScreenSize()
+
+    assertThat(screenSize1).isEqualTo(AdSize(10, 30))
+    assertThat(screenSize2).isSameAs(screenSize1)
+    verify(deviceUtil, times(1)).getCurrentScreenSize()
+  }
+
+  @Test
+  fun getCurrentScreenSize_AfterConfigurationChange_ReadNewScreenSize() {
+    whenever(deviceUtil.getCurrentScreenSize()).doReturn(AdSize(10, 30))
+    interner.getCurrentScreenSize()
+
+    deviceUtil.stub {
+      on { getCurrentScreenSize() } doReturn AdSize(30, 10)
+    }
+    interner.onConfigurationChanged(mock<Configuration>())
+
+    assertThat(interner.getCurrentScreenSize()).isEqualTo(AdSize(30, 10))
+  }
+
+  @Test
+  fun isCurrentScreenSize_GivenSizeInAnyOrientation_ReturnTrue() {
+    whenever(deviceUtil.getCurrentScreenSize()).doReturn(AdSize(10, 30))
+
+    assertThat(interner.isCurrentScreenSize(10, 30)).isTrue
+    assertThat(interner.isCurrentScreenSize(30, 10)).isTrue
+    assertThat(interner.isCurrentScreenSize(10, 10)).isFalse
+  }
+}
@@ -37,6 +37,8 @@ import org.mockito.junit.MockitoJUnit
 import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.mock
 import org.mockito.kotlin.stub
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
 import org.mockito.kotlin.whenever
 import java.util.concurrent.Future
 import java.util.concurrent.atomic.AtomicInteger
@@ -139,16 +141,22 @@ class CdbRequestFactoryTest {
         .thenReturn("myRequestId")
         .thenReturn("impId")
 
-    whenever(contextProvider.fetchUserContext()).thenReturn(
+    whenever(contextProvider.fetchConfigurationUserContext()).thenReturn(
         mapOf(
             "a" to "1",
             "b.a" to "2"
         )
     )
+    whenever(contextProvider.fetchVolatileUserContext()).thenReturn(
+        mapOf(
+            "b.c" to "4"
+        )
+    )
     userDataHolder.set(
         UserData()
             .set("a", "skipped")
             .set("b.b", "3")
+            .set("b.c", "skipped")
     )
 
     val expectedPublisher = Publisher(
@@ -165,6 +173,7 @@ class CdbRequestFactoryTest {
         "a" to "1",
         "b" to mapOf(
             "a" to "2",
+            "c" to "4",
             "b" to "3"
         )
     )
@@ -228,6 +237,7 @@ class CdbRequestFactoryTest {
       on { usPrivacyOptout } doReturn ""
       on { iabUsPrivacyString } doReturn ""
     }
+    factory.onSharedPreferenceChanged(mock(), "IABUSPrivacy_String")
 
     request = factory.createRequest(adUnits, contextData)
 
@@ -235,6 +245,63 @@ class CdbRequestFactoryTest {
     assertThat(request.user.uspOptout).isNull()
   }
 
+  @Test
+  fun createRequest_GivenNoInvalidation_ReuseStaticSectionsAndFetchVolatileOnes() {
+    val expectedGdpr: GdprData = mock()
+    whenever(userPrivacyUtil.gdprData).thenReturn(expectedGdpr)
+    whenever(contextProvider.fetchConfigurationUserContext()).thenReturn(mapOf("device.w" to 42))
+    whenever(contextProvider.fetchVolatileUserContext())
+        .thenReturn(mapOf("data.sessionDuration" to 1))
+        .thenReturn(mapOf("data.sessionDuration" to 2))
+
+    val request1 = factory.createRequest(listOf(createAdUnit()), ContextData())
+    val request2 = factory.createRequest(listOf(createAdUnit()), ContextData())
+
+    assertThat(request1.gdprData).isSameAs(expectedGdpr)
+    assertThat(request2.gdprData).isSameAs(expectedGdpr)
+    assertThat(request1.user.ext).isEqualTo(mapOf(
+        "device" to mapOf("w" to 42),
+        "data" to mapOf("sessionDuration" to 1)
+    ))
+    assertThat(request2.user.ext).isEqualTo(mapOf(
+        "device" to mapOf("w" to 42),
+        "data" to mapOf("sessionDuration" to 2)
+    ))
+    verify(userPrivacyUtil, times(1)).gdprData
+    verify(userPrivacyUtil, times(1)).iabUsPrivacyString
+    verify(userPrivacyUtil, times(1)).usPrivacyOptout
+    verify(contextProvider, times(1)).fetchConfigurationUserContext()
+    verify(contextProvider, times(2)).fetchVolatileUserContext()
+  }
+
+  @Test
+  fun createRequest_GivenConfigurationChange_RebuildStaticSections() {
+    whenever(contextProvider.fetchConfigurationUserContext())
+        .thenReturn(mapOf("data.orientation" to "Portrait"))
+        .thenReturn(mapOf("data.orientation" to "Landscape"))
+
+    val request1 = factory.createRequest(listOf(createAdUnit()), ContextData())
+    factory.onConfigurationChanged(mock())
+    val request2 = factory.createRequest(listOf(createAdUnit()), ContextData())
+
+    assertThat(request1.user.ext).isEqualTo(mapOf("data" to mapOf("orientation" to "Portrait")))
+    assertThat(request2.user.ext).isEqualTo(mapOf("data" to mapOf("orientation" to "Landscape")))
+  }
+
+  @Test
+  fun createRequest_GivenConsentChange_RebuildStaticSections() {
+    val gdpr1: GdprData = mock()
+    val gdpr2: GdprData = mock()
+    whenever(userPrivacyUtil.gdprData).thenReturn(gdpr1).thenReturn(gdpr2)
+
+    val request1 = factory.createRequest(listOf(createAdUnit()), ContextData())
+    factory.onSharedPreferenceChanged(mock(), "IABTCF_TCString")
+    val request2 = factory.createRequest(listOf(createAdUnit()), ContextData())
+
+    assertThat(request1.gdprData).isSameAs(gdpr1)
+    assertThat(request2.gdprData).isSameAs(gdpr2)
+  }
+
   @Test
   fun createRequest_GivenAdUnits_MapThemToRequestSlotWithImpressionId() {
     val adUnit1 = createAdUnit()
@@ -0,0 +1,220 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.model
+
+import com.criteo.publisher.mock.MockedDependenciesRule
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatCode
+import org.json.JSONObject
+import org.junit.Rule
+import org.junit.Test
+import java.io.ByteArrayInputStream
+import java.io.IOException
+import javax.inject.Inject
+
+class CdbResponseReaderTest {
+
+  @Rule
+  @JvmField
+  val mockedDependenciesRule = MockedDependenciesRule()
+
+  @Inject
+  private lateinit var reader: CdbResponseReader
+
+  @Test
+  fun read_GivenEmptyInput_ReturnEmptyResponse() {
+    val response = readFromString("")
+
+    assertThat(response.slots).isEmpty()
+    assertThat(response.timeToNextCall).isEqualTo(0)
+    assertThat(response.consentGiven).isNull()
+  }
+
+  @Test
+  fun read_GivenFullJson_ReturnFullResponse() {
+    val json = """{
+      "slots": [{
+        "impId": "impId1",
+        "placementId": "adUnit1",
+        "cpm": "1.00",
+        "currency": "EUR",
+        "width": 100,
+        "height": 200,
+        "displayUrl": "https://url.com",
+        "ttl": 42
+      }, {
+        "impId": "impId2",
+        "placementId": "adUnit2",
+        "cpm": "0.00",
+        "ttl": 0
+      }],
+      "timeToNextCall": 30,
+      "consentGiven": true,
+      "unknownPropertyThatShouldBeIgnored": {"foo": ["bar"]}
+    }""".trimIndent()
+
+    val response = readFromString(json)
+
+    assertThat(response.slots).containsExactly(
+        CdbResponseSlot(
+            impressionId = "impId1",
+            placementId = "adUnit1",
+            cpm = "1.00",
+            currency = "EUR",
+            width = 100,
+            height = 200,
+            displayUrl = "https://url.com",
+            ttlInSeconds = 42
+        ),
+        CdbResponseSlot(
+            impressionId = "impId2",
+            placementId = "adUnit2",
+            cpm = "0.00",
+            ttlInSeconds = 0
+        )
+    )
+    assertThat(response.timeToNextCall).isEqualTo(30)
+    assertThat(response.consentGiven).isTrue()
+  }
+
+  @Test
+  fun read_GivenInvalidSlot_IgnoreItAndReadOtherOnes() {
+    val json = """{
+      "slots": [
+        {"impId": "impId1", "width": "notAnInt", "native": {"products": 42}},
+        {"impId": "impId2"},
+        null,
+        42
+      ]
+    }""".trimIndent()
+
+    val response = readFromString(json)
+
+    assertThat(response.slots).containsExactly(CdbResponseSlot(impressionId = "impId2"))
+  }
+
+  @Test
+  fun read_GivenSlotWithMalformedNativeUrl_IgnoreItAndReadOtherOnes() {
+    val json = """{
+      "slots": [{
+        "impId": "impId1",
+        "native": {
+          "products": [{
+            "title": "title",
+            "description": "description",
+            "price": "$1",
+            "clickUrl": "https://cat.sv.us.criteo.com/delivery/ckn.php",
+            "callToAction": "",
+            "image": {"url": "not a valid url", "height": 400, "width": 400}
+          }],
+          "advertiser": {
+            "description": "The Company Store",
+            "domain": "thecompanystore.com",
+            "logo": {"url": "https://pix.us.criteo.net/img/img", "height": 200, "width": 200},
+            "logoClickUrl": "https://cat.sv.us.criteo.com/delivery/ckn.php"
+          },
+          "privacy": {
+            "optoutClickUrl": "https://privacy.us.criteo.com/adcenter",
+            "optoutImageUrl": "https://static.criteo.net/flash/icon/nai_small.png",
+            "longLegalText": ""
+          },
+          "impressionPixels": [{"url": "https://cat.sv.us.criteo.com/delivery/lgn.php"}]
+        }
+      }, {
+        "impId": "impId2"
+      }],
+      "timeToNextCall": 30
+    }""".trimIndent()
+
+    val response = readFromString(json)
+
+    assertThat(response.slots).containsExactly(CdbResponseSlot(impressionId = "impId2"))
+    assertThat(response.timeToNextCall).isEqualTo(30)
+  }
+
+  @Test
+  fun read_GivenInvalidFields_IgnoreThem() {
+    val json = """{
+      "slots": {"impId": "impId1"},
+      "timeToNextCall": "xyz",
+      "consentGiven": [true]
+    }""".trimIndent()
+
+    val response = readFromString(json)
+
+    assertThat(response.slots).isEmpty()
+    assertThat(response.timeToNextCall).isEqualTo(0)
+    assertThat(response.consentGiven).isNull()
+  }
+
+  @Test
+  fun read_GivenMalformedJson_ThrowIOException() {
+    assertThatCode {
+      readFromString("""{"slots": [{"impId": """)
+    }.isInstanceOf(IOException::class.java)
+  }
+
+  @Test
+  fun read_GivenSameJsonThanLegacyParser_ReturnSameResponse() {
+    val json = """{
+      "slots": [{
+        "placementId": "/140800857/Endeavour_Native",
+        "cpm": "0.04",
+        "currency": "USD",
+        "width": 2,
+        "height": 2,
+        "ttl": 3600,
+        "native": {
+          "products": [{
+            "title": "\"Stripe Pima Dress\" - $99",
+            "description": "We're All About Comfort.",
+            "price": "$99",
+            "clickUrl": "https://cat.sv.us.criteo.com/delivery/ckn.php",
+            "callToAction": "",
+            "image": {"url": "https://pix.us.criteo.net/img/img?", "height": 400, "width": 400}
+          }],
+          "advertiser": {
+            "description": "The Company Store",
+            "domain": "thecompanystore.com",
+            "logo": {"url": "https://pix.us.criteo.net/img/img", "height": 200, "width": 200},
+            "logoClickUrl": "https://cat.sv.us.criteo.com/delivery/ckn.php"
+          },
+          "privacy": {
+            "optoutClickUrl": "https://privacy.us.criteo.com/adcenter",
+            "optoutImageUrl": "https://static.criteo.net/flash/icon/nai_small.png",
+            "longLegalText": ""
+          },
+          "impressionPixels": [{"url": "https://cat.sv.us.criteo.com/delivery/lgn.php?"}]
+        }
+      }],
+      "timeToNextCall": 10
+    }""".trimIndent()
+
+    val response = readFromString(json)
+    val legacyResponse = CdbResponse.fromJson(JSONObject(json))
+
+    assertThat(response.slots).isEqualTo(legacyResponse.slots)
+    assertThat(response.timeToNextCall).isEqualTo(legacyResponse.timeToNextCall)
+    assertThat(response.consentGiven).isEqualTo(legacyResponse.consentGiven)
+  }
+
+  private fun readFromString(json: String): CdbResponse {
+    ByteArrayInputStream(json.toByteArray()).use {
+      return reader.read(it)
+    }
+  }
+}
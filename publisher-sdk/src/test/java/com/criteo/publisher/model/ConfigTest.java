@@ -234,6 +234,146 @@ public class ConfigTest {
     refreshConfig_assertItIsUnchanged(newConfig, Config::isMraid2Enabled);
   }
 
+  @Test
+  public void refreshConfig_GivenMissingBidCacheDepth_ItIsUnchanged() throws Exception {
+    givenNewConfig();
+
+    RemoteConfigResponse newConfig = givenFullNewPayload(config);
+    when(newConfig.getBidCacheDepth()).thenReturn(null);
+
+    refreshConfig_assertItIsUnchanged(newConfig, Config::getBidCacheDepth);
+  }
+
+  @Test
+  public void refreshConfig_GivenMissingBidRefreshEnabled_ItIsUnchanged() throws Exception {
+    givenNewConfig();
+
+    RemoteConfigResponse newConfig = givenFullNewPayload(config);
+    when(newConfig.isBidRefreshEnabled()).thenReturn(null);
+
+    refreshConfig_assertItIsUnchanged(newConfig, Config::isBidRefreshEnabled);
+  }
+
+  @Test
+  public void refreshConfig_GivenMissingBidCachePersistenceEnabled_ItIsUnchanged() throws Exception {
+    givenNewConfig();
+
+    RemoteConfigResponse newConfig = givenFullNewPayload(config);
+    when(newConfig.isBidCachePersistenceEnabled()).thenReturn(null);
+
+    refreshConfig_assertItIsUnchanged(newConfig, Config::isBidCachePersistenceEnabled);
+  }
+
+  @Test
+  public void refreshConfig_GivenMissingBidRequestBatchingWindow_ItIsUnchanged() throws Exception {
+    givenNewConfig();
+
+    RemoteConfigResponse newConfig = givenFullNewPayload(config);
+    when(newConfig.getBidRequestBatchingWindowInMillis()).thenReturn(null);
+
+    refreshConfig_assertItIsUnchanged(newConfig, Config::getBidRequestBatchingWindowInMillis);
+  }
+
+  @Test
+  public void refreshConfig_GivenMissingOkHttpTransportEnabled_ItIsUnchanged() throws Exception {
+    givenNewConfig();
+
+    RemoteConfigResponse newConfig = givenFullNewPayload(config);
+    when(newConfig.isOkHttpTransportEnabled()).thenReturn(null);
+
+    refreshConfig_assertItIsUnchanged(newConfig, Config::isOkHttpTransportEnabled);
+  }
+
+  @Test
+  public void refreshConfig_GivenMissingGzipCompressionEnabled_ItIsUnchanged() throws Exception {
+    givenNewConfig();
+
+    RemoteConfigResponse newConfig = givenFullNewPayload(config);
+    when(newConfig.isGzipCompressionEnabled()).thenReturn(null);
+
+    refreshConfig_assertItIsUnchanged(newConfig, Config::isGzipCompressionEnabled);
+  }
+
+  @Test
+  public void refreshConfig_GivenMissingBidCacheMaxAdUnitCount_ItIsUnchanged() throws Exception {
+    givenNewConfig();
+
+    RemoteConfigResponse newConfig = givenFullNewPayload(config);
+    when(newConfig.getBidCacheMaxAdUnitCount()).thenReturn(null);
+
+    refreshConfig_assertItIsUnchanged(newConfig, Config::getBidCacheMaxAdUnitCount);
+  }
+
+  @Test
+  public void refreshConfig_GivenMissingAdaptivePrefetchEnabled_ItIsUnchanged() throws Exception {
+    givenNewConfig();
+
+    RemoteConfigResponse newConfig = givenFullNewPayload(config);
+    when(newConfig.isAdaptivePrefetchEnabled()).thenReturn(null);
+
+    refreshConfig_assertItIsUnchanged(newConfig, Config::isAdaptivePrefetchEnabled);
+  }
+
+  @Test
+  public void refreshConfig_GivenMissingPrefetchOnInitMaxAdUnitCount_ItIsUnchanged() throws Exception {
+    givenNewConfig();
+
+    RemoteConfigResponse newConfig = givenFullNewPayload(config);
+    when(newConfig.getPrefetchOnInitMaxAdUnitCount()).thenReturn(null);
+
+    refreshConfig_assertItIsUnchanged(newConfig, Config::getPrefetchOnInitMaxAdUnitCount);
+  }
+
+  @Test
+  public void refreshConfig_GivenMissingAdaptiveNetworkTimeoutsEnabled_ItIsUnchanged() throws Exception {
+    givenNewConfig();
+
+    RemoteConfigResponse newConfig = givenFullNewPayload(config);
+    when(newConfig.isAdaptiveNetworkTimeoutsEnabled()).thenReturn(null);
+
+    refreshConfig_assertItIsUnchanged(newConfig, Config::isAdaptiveNetworkTimeoutsEnabled);
+  }
+
+  @Test
+  public void refreshConfig_GivenMissingCsmJournalEnabled_ItIsUnchanged() throws Exception {
+    givenNewConfig();
+
+    RemoteConfigResponse newConfig = givenFullNewPayload(config);
+    when(newConfig.isCsmJournalEnabled()).thenReturn(null);
+
+    refreshConfig_assertItIsUnchanged(newConfig, Config::isCsmJournalEnabled);
+  }
+
+  @Test
+  public void refreshConfig_GivenMissingCsmWriteBackEnabled_ItIsUnchanged() throws Exception {
+    givenNewConfig();
+
+    RemoteConfigResponse newConfig = givenFullNewPayload(config);
+    when(newConfig.isCsmWriteBackEnabled()).thenReturn(null);
+
+    refreshConfig_assertItIsUnchanged(newConfig, Config::isCsmWriteBackEnabled);
+  }
+
+  @Test
+  public void refreshConfig_GivenMissingCompactQueueEncodingEnabled_ItIsUnchanged() throws Exception {
+    givenNewConfig();
+
+    RemoteConfigResponse newConfig = givenFullNewPayload(config);
+    when(newConfig.isCompactQueueEncodingEnabled()).thenReturn(null);
+
+    refreshConfig_assertItIsUnchanged(newConfig, Config::isCompactQueueEncodingEnabled);
+  }
+
+  @Test
+  public void refreshConfig_GivenMissingConnectionWarmUpEnabled_ItIsUnchanged() throws Exception {
+    givenNewConfig();
+
+    RemoteConfigResponse newConfig = givenFullNewPayload(config);
+    when(newConfig.isConnectionWarmUpEnabled()).thenReturn(null);
+
+    refreshConfig_assertItIsUnchanged(newConfig, Config::isConnectionWarmUpEnabled);
+  }
+
   private <T> void refreshConfig_assertItIsUnchanged(
       RemoteConfigResponse newConfig,
       Function<Config, T> projection
@@ -264,7 +404,21 @@ public class ConfigTest {
         false,
         RemoteLogLevel.ERROR,
         false,
-        false
+        false,
+        3,
+        true,
+        true,
+        10,
+        false,
+        true,
+        32,
+        true,
+        4,
+        true,
+        true,
+        true,
+        true,
+        true
     );
 
     doAnswer(answerVoid((RemoteConfigResponse ignored, OutputStream outputStream) -> {
@@ -349,6 +503,20 @@ public class ConfigTest {
     when(response.getRemoteLogLevel()).thenReturn(otherLogLevel);
     when(response.isMraidEnabled()).thenReturn(!config.isMraidEnabled());
     when(response.isMraid2Enabled()).thenReturn(!config.isMraid2Enabled());
+    when(response.getBidCacheDepth()).thenReturn(1 + config.getBidCacheDepth());
+    when(response.isBidRefreshEnabled()).thenReturn(!config.isBidRefreshEnabled());
+    when(response.isBidCachePersistenceEnabled()).thenReturn(!config.isBidCachePersistenceEnabled());
+    when(response.getBidRequestBatchingWindowInMillis()).thenReturn(1 + config.getBidRequestBatchingWindowInMillis());
+    when(response.isOkHttpTransportEnabled()).thenReturn(!config.isOkHttpTransportEnabled());
+    when(response.isGzipCompressionEnabled()).thenReturn(!config.isGzipCompressionEnabled());
+    when(response.getBidCacheMaxAdUnitCount()).thenReturn(1 + config.getBidCacheMaxAdUnitCount());
+    when(response.isAdaptivePrefetchEnabled()).thenReturn(!config.isAdaptivePrefetchEnabled());
+    when(response.getPrefetchOnInitMaxAdUnitCount()).thenReturn(1 + config.getPrefetchOnInitMaxAdUnitCount());
+    when(response.isAdaptiveNetworkTimeoutsEnabled()).thenReturn(!config.isAdaptiveNetworkTimeoutsEnabled());
+    when(response.isCsmJournalEnabled()).thenReturn(!config.isCsmJournalEnabled());
+    when(response.isCsmWriteBackEnabled()).thenReturn(!config.isCsmWriteBackEnabled());
+    when(response.isCompactQueueEncodingEnabled()).thenReturn(!config.isCompactQueueEncodingEnabled());
+    when(response.isConnectionWarmUpEnabled()).thenReturn(!config.isConnectionWarmUpEnabled());
 
     return response;
   }
@@ -368,6 +536,20 @@ public class ConfigTest {
     assertEquals(8000, config.getLiveBiddingTimeBudgetInMillis());
     assertFalse(config.isMraidEnabled());
     assertFalse(config.isMraid2Enabled());
+    assertEquals(1, config.getBidCacheDepth());
+    assertFalse(config.isBidRefreshEnabled());
+    assertFalse(config.isBidCachePersistenceEnabled());
+    assertEquals(0, config.getBidRequestBatchingWindowInMillis());
+    assertFalse(config.isOkHttpTransportEnabled());
+    assertFalse(config.isGzipCompressionEnabled());
+    assertEquals(64, config.getBidCacheMaxAdUnitCount());
+    assertFalse(config.isAdaptivePrefetchEnabled());
+    assertEquals(8, config.getPrefetchOnInitMaxAdUnitCount());
+    assertFalse(config.isAdaptiveNetworkTimeoutsEnabled());
+    assertFalse(config.isCsmJournalEnabled());
+    assertFalse(config.isCsmWriteBackEnabled());
+    assertFalse(config.isCompactQueueEncodingEnabled());
+    assertFalse(config.isConnectionWarmUpEnabled());
   }
 
 }
\ No newline at end of file
@@ -87,7 +87,21 @@ class RemoteConfigResponseTest {
       "liveBiddingTimeBudgetInMillis": 42,
       "prefetchOnInitEnabled": true,
       "remoteLogLevel": "Warning",
-      "mraidEnabled": true
+      "mraidEnabled": true,
+      "bidCacheDepth": 3,
+      "bidRefreshEnabled": true,
+      "bidCachePersistenceEnabled": true,
+      "bidRequestBatchingWindowInMillis": 10,
+      "okHttpTransportEnabled": false,
+      "gzipCompressionEnabled": true,
+      "bidCacheMaxAdUnitCount": 32,
+      "adaptivePrefetchEnabled": true,
+      "prefetchOnInitMaxAdUnitCount": 4,
+      "adaptiveNetworkTimeoutsEnabled": true,
+      "csmJournalEnabled": true,
+      "csmWriteBackEnabled": true,
+      "compactQueueEncodingEnabled": true,
+      "connectionWarmUpEnabled": true
     }""".trimIndent()
 
     val response = readFromString(json)
@@ -103,6 +117,20 @@ class RemoteConfigResponseTest {
     assertThat(response.prefetchOnInitEnabled).isTrue()
     assertThat(response.remoteLogLevel).isEqualTo(RemoteLogLevel.WARNING)
     assertThat(response.isMraidEnabled).isTrue
+    assertThat(response.bidCacheDepth).isEqualTo(3)
+    assertThat(response.isBidRefreshEnabled).isTrue
+    assertThat(response.isBidCachePersistenceEnabled).isTrue
+    assertThat(response.bidRequestBatchingWindowInMillis).isEqualTo(10)
+    assertThat(response.isOkHttpTransportEnabled).isFalse
+    assertThat(response.isGzipCompressionEnabled).isTrue
+    assertThat(response.bidCacheMaxAdUnitCount).isEqualTo(32)
+    assertThat(response.isAdaptivePrefetchEnabled).isTrue
+    assertThat(response.prefetchOnInitMaxAdUnitCount).isEqualTo(4)
+    assertThat(response.isAdaptiveNetworkTimeoutsEnabled).isTrue
+    assertThat(response.isCsmJournalEnabled).isTrue
+    assertThat(response.isCsmWriteBackEnabled).isTrue
+    assertThat(response.isCompactQueueEncodingEnabled).isTrue
+    assertThat(response.isConnectionWarmUpEnabled).isTrue
   }
 
   @Test
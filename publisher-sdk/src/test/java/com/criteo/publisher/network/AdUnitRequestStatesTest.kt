@@ -0,0 +1,169 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.network
+
+import com.criteo.publisher.Clock
+import com.criteo.publisher.model.AdSize
+import com.criteo.publisher.model.CacheAdUnit
+import com.criteo.publisher.network.AdUnitRequestStates.INITIAL_BACKOFF_IN_MILLIS
+import com.criteo.publisher.network.AdUnitRequestStates.MAX_BACKOFF_IN_MILLIS
+import com.criteo.publisher.util.AdUnitType.CRITEO_BANNER
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.mockito.Mock
+import org.mockito.junit.MockitoJUnit
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.whenever
+import java.util.concurrent.Future
+
+class AdUnitRequestStatesTest {
+
+  @Rule
+  @JvmField
+  val mockitoRule = MockitoJUnit.rule()
+
+  @Mock
+  private lateinit var clock: Clock
+
+  private lateinit var states: AdUnitRequestStates
+
+  private val adUnit1 = CacheAdUnit(AdSize(1, 2), "adUnit1", CRITEO_BANNER)
+  private val adUnit2 = CacheAdUnit(AdSize(1, 2), "adUnit2", CRITEO_BANNER)
+
+  @Before
+  fun setUp() {
+    states = AdUnitRequestStates(clock)
+  }
+
+  @Test
+  fun tryStart_GivenIdleAdUnits_StartThem() {
+    val call = mock<Future<*>>()
+
+    val started = states.tryStart(listOf(adUnit1, adUnit2), call)
+
+    assertThat(started).containsExactly(adUnit1, adUnit2)
+    assertThat(states.inFlightAdUnits).containsExactlyInAnyOrder(adUnit1, adUnit2)
+  }
+
+  @Test
+  fun tryStart_GivenRepeatedAdUnit_KeepAllOccurrences() {
+    val started = states.tryStart(listOf(adUnit1, adUnit1), mock())
+
+    assertThat(started).containsExactly(adUnit1, adUnit1)
+  }
+
+  @Test
+  fun tryStart_GivenAdUnitInFlightForAnotherCall_IgnoreIt() {
+    states.tryStart(listOf(adUnit1), mock())
+
+    val started = states.tryStart(listOf(adUnit1, adUnit2), mock())
+
+    assertThat(started).containsExactly(adUnit2)
+  }
+
+  @Test
+  fun finish_GivenInFlightAdUnit_MakeItIdle() {
+    val call = mock<Future<*>>()
+    states.tryStart(listOf(adUnit1), call)
+
+    states.finish(listOf(adUnit1), call)
+
+    assertThat(states.inFlightAdUnits).isEmpty()
+    assertThat(states.tryStart(listOf(adUnit1), mock())).containsExactly(adUnit1)
+  }
+
+  @Test
+  fun finish_GivenAdUnitInFlightForAnotherCall_DoNothing() {
+    val call = mock<Future<*>>()
+    states.tryStart(listOf(adUnit1), call)
+
+    states.finish(listOf(adUnit1), mock())
+
+    assertThat(states.inFlightAdUnits).containsExactly(adUnit1)
+  }
+
+  @Test
+  fun fail_GivenFirstFailure_AllowRetryRightAway() {
+    val call = mock<Future<*>>()
+    states.tryStart(listOf(adUnit1), call)
+
+    states.fail(listOf(adUnit1), call)
+
+    assertThat(states.inFlightAdUnits).isEmpty()
+    assertThat(states.tryStart(listOf(adUnit1), mock())).containsExactly(adUnit1)
+  }
+
+  @Test
+  fun fail_GivenConsecutiveFailures_BackOffUntilDelayIsElapsed() {
+    givenFailures(adUnit1, 2)
+
+    assertThat(states.tryStart(listOf(adUnit1, adUnit2), mock())).containsExactly(adUnit2)
+
+    whenever(clock.currentTimeInMillis).doReturn(INITIAL_BACKOFF_IN_MILLIS - 1)
+    assertThat(states.tryStart(listOf(adUnit1), mock())).isEmpty()
+
+    whenever(clock.currentTimeInMillis).doReturn(INITIAL_BACKOFF_IN_MILLIS)
+    assertThat(states.tryStart(listOf(adUnit1), mock())).containsExactly(adUnit1)
+  }
+
+  @Test
+  fun fail_GivenFailureAfterSuccess_AllowRetryRightAway() {
+    givenFailures(adUnit1, 1)
+
+    val call = mock<Future<*>>()
+    states.tryStart(listOf(adUnit1), call)
+    states.finish(listOf(adUnit1), call)
+    givenFailures(adUnit1, 1)
+
+    assertThat(states.tryStart(listOf(adUnit1), mock())).containsExactly(adUnit1)
+  }
+
+  @Test
+  fun getBackoffInMillis_GivenConsecutiveFailures_DoubleUntilMaximum() {
+    assertThat(AdUnitRequestStates.getBackoffInMillis(1)).isEqualTo(0)
+    assertThat(AdUnitRequestStates.getBackoffInMillis(2)).isEqualTo(INITIAL_BACKOFF_IN_MILLIS)
+    assertThat(AdUnitRequestStates.getBackoffInMillis(3)).isEqualTo(2 * INITIAL_BACKOFF_IN_MILLIS)
+    assertThat(AdUnitRequestStates.getBackoffInMillis(4)).isEqualTo(4 * INITIAL_BACKOFF_IN_MILLIS)
+    assertThat(AdUnitRequestStates.getBackoffInMillis(100)).isEqualTo(MAX_BACKOFF_IN_MILLIS)
+  }
+
+  @Test
+  fun cancelAll_GivenInFlightAdUnits_CancelTheirCallsAndMakeThemIdle() {
+    val call1 = mock<Future<*>>()
+    val call2 = mock<Future<*>>()
+    states.tryStart(listOf(adUnit1), call1)
+    states.tryStart(listOf(adUnit2), call2)
+
+    states.cancelAll()
+
+    verify(call1).cancel(true)
+    verify(call2).cancel(true)
+    assertThat(states.inFlightAdUnits).isEmpty()
+  }
+
+  private fun givenFailures(adUnit: CacheAdUnit, count: Int) {
+    repeat(count) {
+      val call = mock<Future<*>>()
+      assertThat(states.tryStart(listOf(adUnit), call)).containsExactly(adUnit)
+      states.fail(listOf(adUnit), call)
+    }
+  }
+}
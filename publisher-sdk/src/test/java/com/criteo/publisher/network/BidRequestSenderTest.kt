@@ -19,12 +19,16 @@ package com.criteo.publisher.network
 import com.criteo.publisher.CdbCallListener
 import com.criteo.publisher.Clock
 import com.criteo.publisher.concurrent.DirectMockExecutor
+import com.criteo.publisher.context.ConnectivityMonitor
 import com.criteo.publisher.context.ContextData
 import com.criteo.publisher.model.AdSize
+import com.criteo.publisher.model.AdUnitMapper
 import com.criteo.publisher.model.CacheAdUnit
 import com.criteo.publisher.model.CdbRequest
 import com.criteo.publisher.model.CdbRequestFactory
+import com.criteo.publisher.model.CdbRequestSlot
 import com.criteo.publisher.model.CdbResponse
+import com.criteo.publisher.model.CdbResponseSlot
 import com.criteo.publisher.model.Config
 import com.criteo.publisher.model.RemoteConfigRequest
 import com.criteo.publisher.model.RemoteConfigRequestFactory
@@ -41,9 +45,11 @@ import org.mockito.junit.MockitoJUnit
 import org.mockito.kotlin.any
 import org.mockito.kotlin.anyOrNull
 import org.mockito.kotlin.argumentCaptor
+import org.mockito.kotlin.check
 import org.mockito.kotlin.doAnswer
 import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.doThrow
+import org.mockito.kotlin.eq
 import org.mockito.kotlin.inOrder
 import org.mockito.kotlin.mock
 import org.mockito.kotlin.spy
@@ -58,6 +64,8 @@ import java.util.concurrent.CyclicBarrier
 import java.util.concurrent.Executor
 import java.util.concurrent.Executors
 import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.ScheduledFuture
 import java.util.concurrent.TimeUnit
 import java.util.concurrent.atomic.AtomicInteger
 
@@ -79,6 +87,15 @@ class BidRequestSenderTest {
     @Mock
     private lateinit var api: PubSdkApi
 
+    @Mock
+    private lateinit var scheduledExecutorService: ScheduledExecutorService
+
+    @Mock
+    private lateinit var config: Config
+
+    @Mock
+    private lateinit var connectivityMonitor: ConnectivityMonitor
+
     private var executor = Executor(Runnable::run)
 
     private lateinit var sender: BidRequestSender
@@ -88,6 +105,7 @@ class BidRequestSenderTest {
     @Before
     fun setUp() {
         whenever(cdbRequestFactory.userAgent).doReturn(completedFuture(""))
+        whenever(connectivityMonitor.isConnected).doReturn(true)
 
         givenNewSender()
     }
@@ -98,7 +116,10 @@ class BidRequestSenderTest {
             remoteConfigRequestFactory,
             clock,
             api,
-            executor
+            executor,
+            scheduledExecutorService,
+            config,
+            connectivityMonitor
         )
     }
 
@@ -166,6 +187,19 @@ class BidRequestSenderTest {
         inOrder.verifyNoMoreInteractions()
     }
 
+    @Test
+    fun sendBidRequest_GivenOffline_DoNothing() {
+        val adUnits = listOf(createAdUnit())
+        val listener: CdbCallListener = mock()
+        whenever(connectivityMonitor.isConnected).doReturn(false)
+
+        sender.sendBidRequest(adUnits, mock(), listener)
+
+        verifyNoInteractions(api)
+        verifyNoInteractions(listener)
+        assertThat(sender.pendingTaskAdUnits).isEmpty()
+    }
+
     @Test
     fun sendBidRequest_GivenAdUnitAndError_NotifyListener() {
         val adUnit = createAdUnit()
@@ -297,6 +331,39 @@ class BidRequestSenderTest {
         assertThat(sender.pendingTaskAdUnits).isEmpty()
     }
 
+    @Test
+    fun sendBidRequest_GivenConsecutiveErrorsForAdUnit_BackOffBeforeRequestingItAgain() {
+        whenever(api.loadCdb(anyOrNull(), anyOrNull())).doThrow(IOException::class)
+        val adUnit = createAdUnit()
+
+        sender.sendBidRequest(listOf(adUnit), mock(), mock())
+        sender.sendBidRequest(listOf(adUnit), mock(), mock())
+        sender.sendBidRequest(listOf(adUnit), mock(), mock())
+
+        verify(api, times(2)).loadCdb(anyOrNull(), anyOrNull())
+
+        whenever(clock.currentTimeInMillis).doReturn(AdUnitRequestStates.INITIAL_BACKOFF_IN_MILLIS)
+        sender.sendBidRequest(listOf(adUnit), mock(), mock())
+
+        verify(api, times(3)).loadCdb(anyOrNull(), anyOrNull())
+    }
+
+    @Test
+    fun sendBidRequest_GivenSuccessfulResponseAfterError_DoNotBackOff() {
+        val adUnit = createAdUnit()
+        whenever(api.loadCdb(anyOrNull(), anyOrNull()))
+            .doThrow(IOException::class)
+            .doReturn(CdbResponse(listOf(), 0, null))
+            .doThrow(IOException::class)
+
+        sender.sendBidRequest(listOf(adUnit), mock(), mock())
+        sender.sendBidRequest(listOf(adUnit), mock(), mock())
+        sender.sendBidRequest(listOf(adUnit), mock(), mock())
+        sender.sendBidRequest(listOf(adUnit), mock(), mock())
+
+        verify(api, times(4)).loadCdb(anyOrNull(), anyOrNull())
+    }
+
     @Test
     fun cancelAllPendingTasks_GivenNoTask_DoNothing() {
         assertThatCode {
@@ -333,6 +400,174 @@ class BidRequestSenderTest {
         assertThat(bothCallsAreInterrupted.await(1, TimeUnit.SECONDS)).isTrue()
     }
 
+    @Test
+    fun sendBidRequest_GivenBatchingWindowAndRequestsInIt_SendThemInSingleCall() {
+        givenBatchingWindow(10)
+        val adUnit1 = createAdUnit()
+        val adUnit2 = createAdUnit()
+        val contextData = ContextData()
+        val listener1: CdbCallListener = mock()
+        val listener2: CdbCallListener = mock()
+        val requestSlot1 = createRequestSlot("imp1")
+        val requestSlot2 = createRequestSlot("imp2")
+        val responseSlot1 = CdbResponseSlot(impressionId = "imp1")
+        val responseSlot2 = CdbResponseSlot(impressionId = "imp2")
+
+        cdbRequestFactory.stub {
+            on { createRequest(listOf(adUnit1, adUnit2), contextData) } doReturn
+                createRequest(requestSlot1, requestSlot2)
+        }
+        whenever(api.loadCdb(any(), any())).doReturn(
+            CdbResponse(listOf(responseSlot2, responseSlot1), 0, null)
+        )
+
+        sender.sendBidRequest(listOf(adUnit1), contextData, listener1)
+        sender.sendBidRequest(listOf(adUnit2), ContextData(), listener2)
+
+        verifyNoInteractions(api)
+        flushScheduledBatch()
+
+        verify(api).loadCdb(any(), any())
+        verify(listener1).onCdbRequest(check { assertThat(it.slots).containsExactly(requestSlot1) })
+        verify(listener1).onCdbResponse(any(), check {
+            assertThat(it.slots).containsExactly(responseSlot1)
+        })
+        verify(listener2).onCdbRequest(check { assertThat(it.slots).containsExactly(requestSlot2) })
+        verify(listener2).onCdbResponse(any(), check {
+            assertThat(it.slots).containsExactly(responseSlot2)
+        })
+        assertThat(sender.pendingTaskAdUnits).isEmpty()
+    }
+
+    @Test
+    fun sendBidRequest_GivenBatchingWindowAndThrowingFirstListener_StillNotifyOtherListeners() {
+        givenBatchingWindow(10)
+        val adUnit1 = createAdUnit()
+        val adUnit2 = createAdUnit()
+        val contextData = ContextData()
+        val listener1: CdbCallListener = mock {
+            on { onCdbRequest(any()) } doThrow IllegalStateException()
+            on { onCdbResponse(any(), any()) } doThrow IllegalStateException()
+        }
+        val listener2: CdbCallListener = mock()
+        val responseSlot2 = CdbResponseSlot(impressionId = "imp2")
+
+        cdbRequestFactory.stub {
+            on { createRequest(listOf(adUnit1, adUnit2), contextData) } doReturn
+                createRequest(createRequestSlot("imp1"), createRequestSlot("imp2"))
+        }
+        whenever(api.loadCdb(any(), any())).doReturn(CdbResponse(listOf(responseSlot2), 0, null))
+
+        sender.sendBidRequest(listOf(adUnit1), contextData, listener1)
+        sender.sendBidRequest(listOf(adUnit2), ContextData(), listener2)
+        flushScheduledBatch()
+
+        verify(listener2).onCdbRequest(any())
+        verify(listener2).onCdbResponse(any(), check {
+            assertThat(it.slots).containsExactly(responseSlot2)
+        })
+        assertThat(sender.pendingTaskAdUnits).isEmpty()
+    }
+
+    @Test
+    fun sendBidRequest_GivenBatchingWindowAndThrowingFirstListenerOnError_StillNotifyOtherListeners() {
+        givenBatchingWindow(10)
+        val adUnit1 = createAdUnit()
+        val adUnit2 = createAdUnit()
+        val contextData = ContextData()
+        val exception = IOException()
+        val listener1: CdbCallListener = mock {
+            on { onCdbError(any(), any()) } doThrow IllegalStateException()
+        }
+        val listener2: CdbCallListener = mock()
+
+        cdbRequestFactory.stub {
+            on { createRequest(listOf(adUnit1, adUnit2), contextData) } doReturn
+                createRequest(createRequestSlot("imp1"), createRequestSlot("imp2"))
+        }
+        whenever(api.loadCdb(any(), any())).doThrow(exception)
+
+        sender.sendBidRequest(listOf(adUnit1), contextData, listener1)
+        sender.sendBidRequest(listOf(adUnit2), ContextData(), listener2)
+        flushScheduledBatch()
+
+        verify(listener2).onCdbError(any(), eq(exception))
+    }
+
+    @Test
+    fun sendBidRequest_GivenBatchingWindowAndDifferentContextData_SendThemSeparately() {
+        givenBatchingWindow(10)
+        whenever(scheduledExecutorService.schedule(any<Runnable>(), any(), any())).doReturn(mock())
+
+        sender.sendBidRequest(listOf(createAdUnit()), ContextData().set("key", "value1"), mock())
+        sender.sendBidRequest(listOf(createAdUnit()), ContextData().set("key", "value2"), mock())
+
+        verify(scheduledExecutorService, times(2)).schedule(any<Runnable>(), eq(10L), eq(TimeUnit.MILLISECONDS))
+    }
+
+    @Test
+    fun sendBidRequest_GivenBatchingWindowAndFullBatch_SendItWithoutWaiting() {
+        givenBatchingWindow(10)
+        val trigger = mock<ScheduledFuture<*>>()
+        doReturn(trigger).whenever(scheduledExecutorService).schedule(any<Runnable>(), any(), any())
+        val adUnits = List(AdUnitMapper.CHUNK_SIZE) { createAdUnit() }
+        val requestSlots = adUnits.map { createRequestSlot(it.placementId) }
+        whenever(cdbRequestFactory.createRequest(any(), any())).doReturn(createRequest(*requestSlots.toTypedArray()))
+
+        adUnits.forEach {
+            sender.sendBidRequest(listOf(it), ContextData(), mock())
+        }
+
+        verify(cdbRequestFactory).createRequest(eq(adUnits), any())
+        verify(trigger).cancel(false)
+    }
+
+    @Test
+    fun sendBidRequest_GivenBatchingWindowAndPendingAdUnit_IgnoreIt() {
+        givenBatchingWindow(10)
+        val adUnit = createAdUnit()
+
+        sender.sendBidRequest(listOf(adUnit), ContextData(), mock())
+        sender.sendBidRequest(listOf(adUnit), ContextData(), mock())
+
+        verify(scheduledExecutorService, times(1)).schedule(any<Runnable>(), any(), any())
+        assertThat(sender.pendingTaskAdUnits).containsExactly(adUnit)
+    }
+
+    @Test
+    fun cancelAllPendingTasks_GivenBatchingWindowAndOpenBatch_DropIt() {
+        givenBatchingWindow(10)
+        val trigger = mock<ScheduledFuture<*>>()
+        doReturn(trigger).whenever(scheduledExecutorService).schedule(any<Runnable>(), any(), any())
+
+        sender.sendBidRequest(listOf(createAdUnit()), ContextData(), mock())
+        sender.cancelAllPendingTasks()
+        flushScheduledBatch()
+
+        verify(trigger).cancel(false)
+        verifyNoInteractions(api)
+        assertThat(sender.pendingTaskAdUnits).isEmpty()
+    }
+
+    private fun givenBatchingWindow(windowInMillis: Int) {
+        whenever(config.bidRequestBatchingWindowInMillis).doReturn(windowInMillis)
+    }
+
+    private fun flushScheduledBatch() {
+        argumentCaptor<Runnable> {
+            verify(scheduledExecutorService).schedule(capture(), any(), any())
+            firstValue.run()
+        }
+    }
+
+    private fun createRequestSlot(impressionId: String): CdbRequestSlot {
+        return CdbRequestSlot(impressionId, "placementId", CRITEO_BANNER, AdSize(1, 2), emptyList())
+    }
+
+    private fun createRequest(vararg slots: CdbRequestSlot): CdbRequest {
+        return CdbRequest("id", mock(), mock(), "1.0", 0, null, slots.asList(), null)
+    }
+
     private fun createAdUnit(): CacheAdUnit {
         val id = "id" + adUnitId.incrementAndGet()
         return CacheAdUnit(AdSize(1, 2), id, CRITEO_BANNER)
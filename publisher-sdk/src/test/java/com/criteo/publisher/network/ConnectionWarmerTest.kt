@@ -0,0 +1,173 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.network
+
+import com.criteo.publisher.Clock
+import com.criteo.publisher.context.ConnectivityMonitor
+import com.criteo.publisher.logging.LogMessage
+import com.criteo.publisher.logging.Logger
+import com.criteo.publisher.mock.MockedDependenciesRule
+import com.criteo.publisher.mock.SpyBean
+import com.criteo.publisher.model.Config
+import com.criteo.publisher.util.BuildConfigWrapper
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.mockito.Mock
+import org.mockito.kotlin.any
+import org.mockito.kotlin.doThrow
+import org.mockito.kotlin.inOrder
+import org.mockito.kotlin.never
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.whenever
+import java.io.IOException
+import java.net.URL
+import java.util.concurrent.Executor
+
+class ConnectionWarmerTest {
+
+  @Rule
+  @JvmField
+  val mockedDependenciesRule = MockedDependenciesRule().withSpiedLogger()
+
+  @Mock
+  private lateinit var buildConfigWrapper: BuildConfigWrapper
+
+  @Mock
+  private lateinit var httpTransport: HttpTransport
+
+  @Mock
+  private lateinit var config: Config
+
+  @Mock
+  private lateinit var connectivityMonitor: ConnectivityMonitor
+
+  @Mock
+  private lateinit var clock: Clock
+
+  @SpyBean
+  private lateinit var logger: Logger
+
+  private val tasks = mutableListOf<Runnable>()
+
+  private lateinit var warmer: ConnectionWarmer
+
+  @Before
+  fun setUp() {
+    whenever(buildConfigWrapper.cdbUrl).thenReturn("http://localhost:1234")
+    whenever(buildConfigWrapper.eventUrl).thenReturn("http://localhost:5678")
+    whenever(connectivityMonitor.isConnected).thenReturn(true)
+    whenever(config.isConnectionWarmUpEnabled).thenReturn(true)
+
+    warmer = ConnectionWarmer(
+        buildConfigWrapper,
+        httpTransport,
+        config,
+        connectivityMonitor,
+        clock,
+        Executor { tasks.add(it) }
+    )
+  }
+
+  @Test
+  fun warmUp_GivenConnected_WarmUpCdbHostThenEventHost() {
+    warmer.warmUp()
+    tasks.forEach { it.run() }
+
+    inOrder(httpTransport) {
+      verify(httpTransport).warmUp(URL("http://localhost:1234/"))
+      verify(httpTransport).warmUp(URL("http://localhost:5678/"))
+    }
+  }
+
+  @Test
+  fun warmUp_CalledTwice_WarmUpOnlyOnce() {
+    warmer.warmUp()
+    warmer.warmUp()
+
+    assertThat(tasks).hasSize(1)
+  }
+
+  @Test
+  fun warmUp_GivenOffline_DoNothing() {
+    whenever(connectivityMonitor.isConnected).thenReturn(false)
+
+    warmer.warmUp()
+
+    assertThat(tasks).isEmpty()
+  }
+
+  @Test
+  fun warmUp_GivenWarmUpDisabled_DoNothing() {
+    whenever(config.isConnectionWarmUpEnabled).thenReturn(false)
+
+    warmer.warmUp()
+
+    assertThat(tasks).isEmpty()
+  }
+
+  @Test
+  fun warmUp_GivenKillSwitchEnabled_DoNothing() {
+    whenever(config.isKillSwitchEnabled).thenReturn(true)
+
+    warmer.warmUp()
+
+    assertThat(tasks).isEmpty()
+  }
+
+  @Test
+  fun warmUp_GivenErrorOnCdbHost_StillWarmUpEventHost() {
+    doThrow(IOException::class).whenever(httpTransport).warmUp(URL("http://localhost:1234/"))
+
+    warmer.warmUp()
+    tasks.forEach { it.run() }
+
+    verify(httpTransport).warmUp(URL("http://localhost:5678/"))
+  }
+
+  @Test
+  fun onCdbCallFinished_GivenCdbHostWarmedUpBeforeCall_LogStartupTimingsOnce() {
+    whenever(clock.currentTimeInMillis).thenReturn(1000L, 1000L, 1010L, 1040L, 2000L)
+
+    warmer.warmUp()
+    tasks.single().run()
+    warmer.onCdbCallFinished(1500, 100)
+    warmer.onCdbCallFinished(1500, 100)
+
+    verify(logger).log(NetworkLogMessage.onHostWarmedUp("localhost", 10, 30))
+    verify(logger).log(NetworkLogMessage.onStartupTimings(40, 40, 100, true))
+  }
+
+  @Test
+  fun onCdbCallFinished_GivenCdbCallStartedBeforeWarmUpEnd_LogIt() {
+    whenever(clock.currentTimeInMillis).thenReturn(1000L, 1000L, 1010L, 1040L, 2000L)
+
+    warmer.warmUp()
+    tasks.single().run()
+    warmer.onCdbCallFinished(1020, 100)
+
+    verify(logger).log(NetworkLogMessage.onStartupTimings(40, 40, 100, false))
+  }
+
+  @Test
+  fun onCdbCallFinished_GivenNoWarmUp_LogNothing() {
+    warmer.onCdbCallFinished(1000, 100)
+
+    verify(logger, never()).log(any<LogMessage>())
+  }
+}
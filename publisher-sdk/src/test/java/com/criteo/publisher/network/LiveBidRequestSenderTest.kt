@@ -18,30 +18,48 @@ package com.criteo.publisher.network
 
 import com.criteo.publisher.Clock
 import com.criteo.publisher.LiveCdbCallListener
+import com.criteo.publisher.cache.SdkCache
+import com.criteo.publisher.context.ConnectivityMonitor
 import com.criteo.publisher.context.ContextData
+import com.criteo.publisher.logging.Logger
+import com.criteo.publisher.mock.MockedDependenciesRule
+import com.criteo.publisher.mock.SpyBean
 import com.criteo.publisher.model.CacheAdUnit
 import com.criteo.publisher.model.CdbRequest
 import com.criteo.publisher.model.CdbRequestFactory
 import com.criteo.publisher.model.CdbResponse
-import com.criteo.publisher.model.Config
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
-import org.mockito.ArgumentMatchers.any
-import org.mockito.ArgumentMatchers.eq
 import org.mockito.Mock
 import org.mockito.junit.MockitoJUnit
+import org.mockito.kotlin.any
+import org.mockito.kotlin.argThat
+import org.mockito.kotlin.eq
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.times
 import org.mockito.kotlin.verify
 import org.mockito.kotlin.whenever
 import java.util.concurrent.Executor
 import java.util.concurrent.Executors
 import java.util.concurrent.Future
+import java.util.concurrent.ScheduledExecutorService
 
 class LiveBidRequestSenderTest {
 
+  @Rule
+  @JvmField
+  val mockedDependenciesRule = MockedDependenciesRule().withSpiedLogger()
+
   @Rule
   @JvmField
   val mockitoRule = MockitoJUnit.rule()
 
+  @SpyBean
+  private lateinit var logger: Logger
+
   @Mock
   private lateinit var pubSdkApi: PubSdkApi
 
@@ -49,7 +67,7 @@ class LiveBidRequestSenderTest {
   private lateinit var cdbRequestFactory: CdbRequestFactory
 
   @Mock
-  private lateinit var config: Config
+  private lateinit var networkQualityEstimator: NetworkQualityEstimator
 
   @Mock
   private lateinit var cacheAdUnit: CacheAdUnit
@@ -72,21 +90,35 @@ class LiveBidRequestSenderTest {
   @Mock
   private lateinit var clock: Clock
 
+  @Mock
+  private lateinit var connectivityMonitor: ConnectivityMonitor
+
+  @Mock
+  private lateinit var sdkCache: SdkCache
+
+  @Before
+  fun setUp() {
+    whenever(connectivityMonitor.isConnected).thenReturn(true)
+  }
+
   @Test
   fun timeBudgetTimerKicksOff_ThenTimeBudgetExceededTrigger() {
     whenever(cdbRequestFactory.userAgent).thenReturn(userAgentFuture)
     whenever(userAgentFuture.get()).thenReturn("fake_user_agent")
     whenever(cdbRequestFactory.createRequest(eq(listOf(cacheAdUnit)), eq(contextData))).thenReturn(cdbRequest)
     whenever(pubSdkApi.loadCdb(eq(cdbRequest), any())).thenReturn(cdbResponse)
-    whenever(config.liveBiddingTimeBudgetInMillis).thenReturn(1)
+    whenever(networkQualityEstimator.liveBiddingTimeBudgetInMillis).thenReturn(1)
 
     val liveBidRequestSender = LiveBidRequestSender(
         pubSdkApi,
         cdbRequestFactory,
         clock,
-        getDelayedExecutor(config.liveBiddingTimeBudgetInMillis.toLong() + 100),
+        getDelayedExecutor(networkQualityEstimator.liveBiddingTimeBudgetInMillis.toLong() + 100),
         getScheduledExecutorService(),
-        config
+        networkQualityEstimator,
+        LiveBiddingStats(),
+        connectivityMonitor,
+        sdkCache
     )
 
     liveBidRequestSender.sendLiveBidRequest(
@@ -98,6 +130,247 @@ class LiveBidRequestSenderTest {
     verify(liveCdbCallListener).onTimeBudgetExceeded()
   }
 
+  @Test
+  fun sendLiveBidRequest_GivenCallInFlightForSameAdUnitAndCachedBid_JoinItAndServeJoinerFromCacheAtTheEnd() {
+    givenCdbAnswers()
+    whenever(sdkCache.countSlots(cacheAdUnit)).thenReturn(1)
+    val otherListener = mock<LiveCdbCallListener>()
+    val executor = ManualExecutor()
+    val stats = LiveBiddingStats()
+    val sender = createSender(executor, stats)
+
+    sender.sendLiveBidRequest(cacheAdUnit, contextData, liveCdbCallListener)
+    sender.sendLiveBidRequest(cacheAdUnit, contextData, otherListener)
+    executor.runAll()
+
+    verify(pubSdkApi, times(1)).loadCdb(eq(cdbRequest), any())
+    verify(liveCdbCallListener).onCdbResponse(cdbRequest, cdbResponse)
+    verify(otherListener, never()).onCdbResponse(any(), any())
+    verify(otherListener).onTimeBudgetExceeded()
+    assertThat(stats.startedCallCount).isEqualTo(1)
+    assertThat(stats.sharedRequestCount).isEqualTo(1)
+  }
+
+  @Test
+  fun sendLiveBidRequest_GivenCallInFlightForSameAdUnitAndNoCachedBid_SendNewCall() {
+    givenCdbAnswers()
+    whenever(sdkCache.countSlots(cacheAdUnit)).thenReturn(0)
+    val otherListener = mock<LiveCdbCallListener>()
+    val executor = ManualExecutor()
+    val stats = LiveBiddingStats()
+    val sender = createSender(executor, stats)
+
+    sender.sendLiveBidRequest(cacheAdUnit, contextData, liveCdbCallListener)
+    sender.sendLiveBidRequest(cacheAdUnit, contextData, otherListener)
+    executor.runAll()
+
+    verify(pubSdkApi, times(2)).loadCdb(eq(cdbRequest), any())
+    verify(liveCdbCallListener).onCdbResponse(cdbRequest, cdbResponse)
+    verify(otherListener).onCdbResponse(cdbRequest, cdbResponse)
+    assertThat(stats.sharedRequestCount).isEqualTo(0)
+  }
+
+  @Test
+  fun sendLiveBidRequest_GivenMoreJoinersThanCachedBids_SendNewCallForExtraOne() {
+    givenCdbAnswers()
+    whenever(sdkCache.countSlots(cacheAdUnit)).thenReturn(1)
+    val joiningListener = mock<LiveCdbCallListener>()
+    val extraListener = mock<LiveCdbCallListener>()
+    val executor = ManualExecutor()
+    val stats = LiveBiddingStats()
+    val sender = createSender(executor, stats)
+
+    sender.sendLiveBidRequest(cacheAdUnit, contextData, liveCdbCallListener)
+    sender.sendLiveBidRequest(cacheAdUnit, contextData, joiningListener)
+    sender.sendLiveBidRequest(cacheAdUnit, contextData, extraListener)
+    executor.runAll()
+
+    verify(pubSdkApi, times(2)).loadCdb(eq(cdbRequest), any())
+    verify(joiningListener, never()).onCdbResponse(any(), any())
+    verify(joiningListener).onTimeBudgetExceeded()
+    verify(extraListener).onCdbResponse(cdbRequest, cdbResponse)
+    assertThat(stats.sharedRequestCount).isEqualTo(1)
+  }
+
+  @Test
+  fun sendLiveBidRequest_GivenCallInFlightForOtherContext_SendNewCall() {
+    givenCdbAnswers()
+    val otherContextData = mock<ContextData>()
+    val otherListener = mock<LiveCdbCallListener>()
+    whenever(cdbRequestFactory.createRequest(eq(listOf(cacheAdUnit)), eq(otherContextData))).thenReturn(cdbRequest)
+    val executor = ManualExecutor()
+    val sender = createSender(executor, LiveBiddingStats())
+
+    sender.sendLiveBidRequest(cacheAdUnit, contextData, liveCdbCallListener)
+    sender.sendLiveBidRequest(cacheAdUnit, otherContextData, otherListener)
+    executor.runAll()
+
+    verify(pubSdkApi, times(2)).loadCdb(eq(cdbRequest), any())
+    verify(liveCdbCallListener).onCdbResponse(cdbRequest, cdbResponse)
+    verify(otherListener).onCdbResponse(cdbRequest, cdbResponse)
+  }
+
+  @Test
+  fun sendLiveBidRequest_GivenPreviousCallEnded_SendNewCall() {
+    givenCdbAnswers()
+    val otherListener = mock<LiveCdbCallListener>()
+    val executor = ManualExecutor()
+    val sender = createSender(executor, LiveBiddingStats())
+
+    sender.sendLiveBidRequest(cacheAdUnit, contextData, liveCdbCallListener)
+    executor.runAll()
+    sender.sendLiveBidRequest(cacheAdUnit, contextData, otherListener)
+    executor.runAll()
+
+    verify(pubSdkApi, times(2)).loadCdb(eq(cdbRequest), any())
+    verify(otherListener).onCdbResponse(cdbRequest, cdbResponse)
+  }
+
+  @Test
+  fun cancelAllPendingTasks_GivenCallInFlight_CancelItAndServeAllCallersFromCache() {
+    givenCdbAnswers()
+    whenever(sdkCache.countSlots(cacheAdUnit)).thenReturn(1)
+    val otherListener = mock<LiveCdbCallListener>()
+    val executor = ManualExecutor()
+    val stats = LiveBiddingStats()
+    val sender = createSender(executor, stats)
+
+    sender.sendLiveBidRequest(cacheAdUnit, contextData, liveCdbCallListener)
+    sender.sendLiveBidRequest(cacheAdUnit, contextData, otherListener)
+    sender.cancelAllPendingTasks()
+    executor.runAll()
+
+    verify(pubSdkApi, never()).loadCdb(any(), any())
+    verify(liveCdbCallListener).onTimeBudgetExceeded()
+    verify(otherListener).onTimeBudgetExceeded()
+    assertThat(stats.cancelledCallCount).isEqualTo(1)
+  }
+
+  @Test
+  fun cancelAllPendingTasks_GivenCallsNotJoinable_CancelAllOfThem() {
+    givenCdbAnswers()
+    whenever(sdkCache.countSlots(cacheAdUnit)).thenReturn(0)
+    val otherListener = mock<LiveCdbCallListener>()
+    val executor = ManualExecutor()
+    val stats = LiveBiddingStats()
+    val sender = createSender(executor, stats)
+
+    sender.sendLiveBidRequest(cacheAdUnit, contextData, liveCdbCallListener)
+    sender.sendLiveBidRequest(cacheAdUnit, contextData, otherListener)
+    sender.cancelAllPendingTasks()
+    executor.runAll()
+
+    verify(pubSdkApi, never()).loadCdb(any(), any())
+    verify(liveCdbCallListener).onTimeBudgetExceeded()
+    verify(otherListener).onTimeBudgetExceeded()
+    assertThat(stats.cancelledCallCount).isEqualTo(2)
+  }
+
+  @Test
+  fun cancelAllPendingTasks_GivenPreviousCalls_LogStats() {
+    givenCdbAnswers()
+    val executor = ManualExecutor()
+    val sender = createSender(executor, LiveBiddingStats())
+
+    sender.sendLiveBidRequest(cacheAdUnit, contextData, liveCdbCallListener)
+    executor.runAll()
+    sender.cancelAllPendingTasks()
+
+    verify(logger).log(argThat { message.orEmpty().startsWith("Live bidding: 1 calls sent") })
+  }
+
+  @Test
+  fun cancelAllPendingTasks_GivenNoPreviousCall_DoNotLogStats() {
+    val sender = createSender(ManualExecutor(), LiveBiddingStats())
+
+    sender.cancelAllPendingTasks()
+
+    verify(logger, never()).log(argThat { message.orEmpty().startsWith("Live bidding") })
+  }
+
+  @Test
+  fun cancelAllPendingTasks_GivenCanceledCall_NextRequestSendNewCall() {
+    givenCdbAnswers()
+    val otherListener = mock<LiveCdbCallListener>()
+    val executor = ManualExecutor()
+    val sender = createSender(executor, LiveBiddingStats())
+
+    sender.sendLiveBidRequest(cacheAdUnit, contextData, liveCdbCallListener)
+    sender.cancelAllPendingTasks()
+    sender.sendLiveBidRequest(cacheAdUnit, contextData, otherListener)
+    executor.runAll()
+
+    verify(pubSdkApi, times(1)).loadCdb(eq(cdbRequest), any())
+    verify(otherListener).onCdbResponse(cdbRequest, cdbResponse)
+  }
+
+  @Test
+  fun sendLiveBidRequest_GivenOffline_ServeFromCacheWithoutCall() {
+    whenever(connectivityMonitor.isConnected).thenReturn(false)
+    val executor = ManualExecutor()
+    val stats = LiveBiddingStats()
+    val sender = createSender(executor, stats)
+
+    sender.sendLiveBidRequest(cacheAdUnit, contextData, liveCdbCallListener)
+    executor.runAll()
+
+    verify(pubSdkApi, never()).loadCdb(any(), any())
+    verify(liveCdbCallListener).onTimeBudgetExceeded()
+    assertThat(stats.startedCallCount).isEqualTo(0)
+  }
+
+  @Test
+  fun sendLiveBidRequest_GivenLateCall_RecordItInStats() {
+    givenCdbAnswers()
+    whenever(networkQualityEstimator.liveBiddingTimeBudgetInMillis).thenReturn(100)
+    whenever(clock.currentTimeInMillis).thenReturn(1000, 1150)
+    val executor = ManualExecutor()
+    val stats = LiveBiddingStats()
+    val sender = createSender(executor, stats)
+
+    sender.sendLiveBidRequest(cacheAdUnit, contextData, liveCdbCallListener)
+    executor.runAll()
+
+    assertThat(stats.lateCallCount).isEqualTo(1)
+    assertThat(stats.getLatencyPercentileInMillis(50.0)).isEqualTo(150)
+  }
+
+  private fun givenCdbAnswers() {
+    whenever(cdbRequestFactory.userAgent).thenReturn(userAgentFuture)
+    whenever(userAgentFuture.get()).thenReturn("fake_user_agent")
+    whenever(cdbRequestFactory.createRequest(eq(listOf(cacheAdUnit)), eq(contextData))).thenReturn(cdbRequest)
+    whenever(pubSdkApi.loadCdb(eq(cdbRequest), any())).thenReturn(cdbResponse)
+  }
+
+  private fun createSender(executor: Executor, stats: LiveBiddingStats) = LiveBidRequestSender(
+      pubSdkApi,
+      cdbRequestFactory,
+      clock,
+      executor,
+      mock<ScheduledExecutorService>(),
+      networkQualityEstimator,
+      stats,
+      connectivityMonitor,
+      sdkCache
+  )
+
+  /**
+   * Executor running the submitted commands only when asked to.
+   */
+  private class ManualExecutor : Executor {
+    private val commands = mutableListOf<Runnable>()
+
+    override fun execute(command: Runnable) {
+      commands.add(command)
+    }
+
+    fun runAll() {
+      val toRun = commands.toList()
+      commands.clear()
+      toRun.forEach { it.run() }
+    }
+  }
+
   private fun getDelayedExecutor(delayInMillis: Long) =
       Executor {
         Thread.sleep(delayInMillis)
@@ -0,0 +1,66 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.criteo.publisher.network
+
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatCode
+import org.junit.Test
+
+class LiveBiddingStatsTest {
+
+  private val stats = LiveBiddingStats()
+
+  @Test
+  fun getLatencyPercentileInMillis_GivenNoCall_ReturnNull() {
+    assertThat(stats.getLatencyPercentileInMillis(50.0)).isNull()
+  }
+
+  @Test
+  fun getLatencyPercentileInMillis_GivenInvalidPercentile_Throw() {
+    assertThatCode { stats.getLatencyPercentileInMillis(0.0) }.isInstanceOf(IllegalArgumentException::class.java)
+    assertThatCode { stats.getLatencyPercentileInMillis(101.0) }.isInstanceOf(IllegalArgumentException::class.java)
+  }
+
+  @Test
+  fun getLatencyPercentileInMillis_GivenSomeCalls_ReturnNearestRank() {
+    for (latency in 100L downTo 1L) {
+      stats.onCallFinished(latency, 1000)
+    }
+
+    assertThat(stats.getLatencyPercentileInMillis(50.0)).isEqualTo(50)
+    assertThat(stats.getLatencyPercentileInMillis(90.0)).isEqualTo(90)
+    assertThat(stats.getLatencyPercentileInMillis(99.0)).isEqualTo(99)
+    assertThat(stats.getLatencyPercentileInMillis(100.0)).isEqualTo(100)
+  }
+
+  @Test
+  fun getLatencyPercentileInMillis_GivenMoreCallsThanCapacity_OnlyKeepRecentOnes() {
+    repeat(256) { stats.onCallFinished(1000, 2000) }
+    repeat(256) { stats.onCallFinished(10, 2000) }
+
+    assertThat(stats.getLatencyPercentileInMillis(100.0)).isEqualTo(10)
+  }
+
+  @Test
+  fun onCallFinished_GivenLatencyOverTimeBudget_CountLateCall() {
+    stats.onCallFinished(100, 100)
+    stats.onCallFinished(101, 100)
+
+    assertThat(stats.lateCallCount).isEqualTo(1)
+  }
+}
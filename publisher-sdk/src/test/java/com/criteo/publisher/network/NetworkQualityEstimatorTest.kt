@@ -0,0 +1,233 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.criteo.publisher.network
+
+import com.criteo.publisher.context.ConnectionTypeFetcher
+import com.criteo.publisher.context.ConnectionTypeFetcher.ConnectionType
+import com.criteo.publisher.logging.Logger
+import com.criteo.publisher.mock.MockedDependenciesRule
+import com.criteo.publisher.mock.SpyBean
+import com.criteo.publisher.model.Config
+import com.criteo.publisher.network.NetworkQualityEstimator.LatencyEstimate
+import com.criteo.publisher.util.BuildConfigWrapper
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.mockito.Mock
+import org.mockito.junit.MockitoJUnit
+import org.mockito.kotlin.any
+import org.mockito.kotlin.argThat
+import org.mockito.kotlin.never
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.whenever
+
+class NetworkQualityEstimatorTest {
+
+  @Rule
+  @JvmField
+  val mockitoRule = MockitoJUnit.rule()
+
+  @Rule
+  @JvmField
+  val mockedDependenciesRule = MockedDependenciesRule().withSpiedLogger()
+
+  @SpyBean
+  private lateinit var logger: Logger
+
+  @Mock
+  private lateinit var connectionTypeFetcher: ConnectionTypeFetcher
+
+  @Mock
+  private lateinit var buildConfigWrapper: BuildConfigWrapper
+
+  @Mock
+  private lateinit var config: Config
+
+  private lateinit var estimator: NetworkQualityEstimator
+
+  @Before
+  fun setUp() {
+    whenever(buildConfigWrapper.networkTimeoutInMillis).thenReturn(60_000)
+    whenever(config.liveBiddingTimeBudgetInMillis).thenReturn(8_000)
+    whenever(config.isAdaptiveNetworkTimeoutsEnabled).thenReturn(true)
+    whenever(connectionTypeFetcher.fetchConnectionType()).thenReturn(ConnectionType.WIFI)
+
+    estimator = NetworkQualityEstimator(connectionTypeFetcher, buildConfigWrapper, config)
+  }
+
+  @Test
+  fun networkTimeout_GivenAdaptiveTimeoutsDisabled_ReturnStaticTimeout() {
+    whenever(config.isAdaptiveNetworkTimeoutsEnabled).thenReturn(false)
+    givenLatencies(20, 1_000)
+
+    assertThat(estimator.networkTimeoutInMillis).isEqualTo(60_000)
+  }
+
+  @Test
+  fun networkTimeout_GivenTooFewSamples_ReturnStaticTimeout() {
+    givenLatencies(9, 1_000)
+
+    assertThat(estimator.networkTimeoutInMillis).isEqualTo(60_000)
+  }
+
+  @Test
+  fun networkTimeout_GivenEnoughSamples_ReturnMarginOverHighPercentile() {
+    givenLatencies(19, 1_000)
+    givenLatencies(1, 10_000)
+
+    assertThat(estimator.networkTimeoutInMillis).isEqualTo(4_000)
+  }
+
+  @Test
+  fun networkTimeout_GivenVeryFastNetwork_ReturnLowerBound() {
+    givenLatencies(20, 100)
+
+    assertThat(estimator.networkTimeoutInMillis).isEqualTo(2_000)
+  }
+
+  @Test
+  fun networkTimeout_GivenVerySlowNetwork_ReturnStaticTimeout() {
+    givenLatencies(20, 30_000)
+
+    assertThat(estimator.networkTimeoutInMillis).isEqualTo(60_000)
+  }
+
+  @Test
+  fun networkTimeout_GivenRecentTimeouts_GrowBack() {
+    givenLatencies(20, 500)
+    assertThat(estimator.networkTimeoutInMillis).isEqualTo(2_000)
+
+    givenLatencies(NetworkQualityEstimator.SAMPLE_CAPACITY, 2_000)
+
+    assertThat(estimator.networkTimeoutInMillis).isEqualTo(8_000)
+  }
+
+  @Test
+  fun liveBiddingTimeBudget_GivenAdaptiveTimeoutsDisabled_ReturnRemoteBudget() {
+    whenever(config.isAdaptiveNetworkTimeoutsEnabled).thenReturn(false)
+    givenLatencies(20, 100)
+
+    assertThat(estimator.liveBiddingTimeBudgetInMillis).isEqualTo(8_000)
+  }
+
+  @Test
+  fun liveBiddingTimeBudget_GivenTooFewSamples_ReturnRemoteBudget() {
+    givenLatencies(9, 100)
+
+    assertThat(estimator.liveBiddingTimeBudgetInMillis).isEqualTo(8_000)
+  }
+
+  @Test
+  fun liveBiddingTimeBudget_GivenEnoughSamples_ReturnBudgetWithinBounds() {
+    givenLatencies(20, 1_000)
+    assertThat(estimator.liveBiddingTimeBudgetInMillis).isEqualTo(2_000)
+
+    whenever(config.liveBiddingTimeBudgetInMillis).thenReturn(1_500)
+    assertThat(estimator.liveBiddingTimeBudgetInMillis).isEqualTo(1_500)
+
+    givenLatencies(NetworkQualityEstimator.SAMPLE_CAPACITY, 100)
+    assertThat(estimator.liveBiddingTimeBudgetInMillis).isEqualTo(500)
+  }
+
+  @Test
+  fun networkTimeout_GivenSamplesOnOtherConnectionType_ReturnStaticTimeout() {
+    givenLatencies(20, 100)
+    assertThat(estimator.networkTimeoutInMillis).isEqualTo(2_000)
+
+    whenever(connectionTypeFetcher.fetchConnectionType()).thenReturn(ConnectionType.CELLULAR_3G)
+    estimator.onConnectivityChanged(true)
+    assertThat(estimator.networkTimeoutInMillis).isEqualTo(60_000)
+
+    whenever(connectionTypeFetcher.fetchConnectionType()).thenReturn(ConnectionType.WIFI)
+    estimator.onConnectivityChanged(true)
+    assertThat(estimator.networkTimeoutInMillis).isEqualTo(2_000)
+  }
+
+  @Test
+  fun networkTimeout_GivenUnknownConnectionType_UseItsOwnSamples() {
+    whenever(connectionTypeFetcher.fetchConnectionType()).thenReturn(null)
+    givenLatencies(20, 1_000)
+
+    assertThat(estimator.networkTimeoutInMillis).isEqualTo(4_000)
+  }
+
+  @Test
+  fun connectionType_GivenNoConnectivityChange_FetchItOnlyOnce() {
+    givenLatencies(20, 1_000)
+    estimator.networkTimeoutInMillis
+    estimator.liveBiddingTimeBudgetInMillis
+
+    verify(connectionTypeFetcher, times(1)).fetchConnectionType()
+
+    estimator.onConnectivityChanged(true)
+    estimator.networkTimeoutInMillis
+
+    verify(connectionTypeFetcher, times(2)).fetchConnectionType()
+  }
+
+  @Test
+  fun getEstimates_GivenSamples_ReturnSnapshot() {
+    givenLatencies(10, 100)
+    givenLatencies(10, 1_000)
+    whenever(connectionTypeFetcher.fetchConnectionType()).thenReturn(ConnectionType.CELLULAR_4G)
+    estimator.onConnectivityChanged(true)
+    givenLatencies(1, 300)
+
+    val estimates = estimator.getEstimates()
+
+    assertThat(estimates.connectionType).isEqualTo("CELLULAR_4G")
+    assertThat(estimates.networkTimeoutInMillis).isEqualTo(60_000)
+    assertThat(estimates.liveBiddingTimeBudgetInMillis).isEqualTo(8_000)
+    assertThat(estimates.latencies).containsExactlyInAnyOrder(
+        LatencyEstimate("WIFI", 20, 100, 1_000),
+        LatencyEstimate("CELLULAR_4G", 1, 300, 300)
+    )
+  }
+
+  @Test
+  fun onConnectivityChanged_GivenSamples_LogEstimatesOfPreviousConnectionType() {
+    givenLatencies(20, 1_000)
+    estimator.networkTimeoutInMillis
+    whenever(connectionTypeFetcher.fetchConnectionType()).thenReturn(ConnectionType.CELLULAR_4G)
+
+    estimator.onConnectivityChanged(true)
+
+    verify(logger).log(argThat {
+      message.orEmpty().startsWith("Network quality estimated before the connectivity change") &&
+          message.orEmpty().contains("connectionType=WIFI, networkTimeoutInMillis=4000")
+    })
+    verify(connectionTypeFetcher, times(1)).fetchConnectionType()
+  }
+
+  @Test
+  fun onConnectivityChanged_GivenNoSample_DoNotLog() {
+    estimator.networkTimeoutInMillis
+
+    estimator.onConnectivityChanged(true)
+
+    verify(logger, never()).log(any())
+  }
+
+  private fun givenLatencies(count: Int, latencyInMillis: Long) {
+    repeat(count) {
+      estimator.onCdbCallFinished(latencyInMillis)
+    }
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.criteo.publisher.network
+
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatCode
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.mockito.Mock
+import org.mockito.junit.MockitoJUnit
+import org.mockito.kotlin.argumentCaptor
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.whenever
+import java.io.IOException
+import java.net.URL
+
+class OkHttpTransportTest {
+
+  @Rule
+  @JvmField
+  val mockitoRule = MockitoJUnit.rule()
+
+  @Rule
+  @JvmField
+  val mockWebServer = MockWebServer()
+
+  @Mock
+  private lateinit var networkQualityEstimator: NetworkQualityEstimator
+
+  @Mock
+  private lateinit var timingsListener: HttpCallTimingsListener
+
+  private lateinit var transport: OkHttpTransport
+
+  @Before
+  fun setUp() {
+    whenever(networkQualityEstimator.networkTimeoutInMillis).thenReturn(5000)
+
+    transport = OkHttpTransport(networkQualityEstimator, timingsListener)
+  }
+
+  @Test
+  fun execute_GivenSuccessfulCall_NotifyTimings() {
+    mockWebServer.enqueue(MockResponse().setBody("body"))
+
+    transport.execute("GET", serverUrl(), null, null, false).use {
+      assertThat(it.reader().readText()).isEqualTo("body")
+    }
+
+    val captor = argumentCaptor<HttpCallTimings>()
+    verify(timingsListener).onCallFinished(captor.capture())
+    assertThat(captor.firstValue.host).isEqualTo(mockWebServer.hostName)
+    assertThat(captor.firstValue.isSuccessful).isTrue
+    assertThat(captor.firstValue.connectInMillis).isNotNull
+    assertThat(captor.firstValue.timeToFirstByteInMillis).isNotNull
+    assertThat(captor.firstValue.tlsInMillis).isNull()
+  }
+
+  @Test
+  fun execute_GivenTwoCallsToSameHost_ReuseConnection() {
+    mockWebServer.enqueue(MockResponse().setBody("first"))
+    mockWebServer.enqueue(MockResponse().setBody("second"))
+
+    transport.execute("GET", serverUrl(), null, null, false).close()
+    transport.execute("POST", serverUrl(), null, HttpTransport.Body { it.write(42) }, false).close()
+
+    val captor = argumentCaptor<HttpCallTimings>()
+    verify(timingsListener, times(2)).onCallFinished(captor.capture())
+    assertThat(captor.firstValue.isConnectionReused).isFalse
+    assertThat(captor.secondValue.isConnectionReused).isTrue
+    assertThat(mockWebServer.takeRequest().sequenceNumber).isEqualTo(0)
+    assertThat(mockWebServer.takeRequest().sequenceNumber).isEqualTo(1)
+  }
+
+  @Test
+  fun execute_GivenHttpError_ThrowHttpResponseException() {
+    mockWebServer.enqueue(MockResponse().setResponseCode(500))
+
+    assertThatCode {
+      transport.execute("GET", serverUrl(), null, null, false)
+    }.isInstanceOf(HttpResponseException::class.java)
+  }
+
+  @Test
+  fun execute_GivenConnectionError_NotifyFailedCall() {
+    mockWebServer.shutdown()
+
+    assertThatCode {
+      transport.execute("GET", serverUrl(), null, null, false)
+    }.isInstanceOf(IOException::class.java)
+
+    val captor = argumentCaptor<HttpCallTimings>()
+    verify(timingsListener).onCallFinished(captor.capture())
+    assertThat(captor.firstValue.isSuccessful).isFalse
+  }
+
+  @Test
+  fun warmUp_GivenNextCallToSameHost_ReuseWarmedUpConnection() {
+    mockWebServer.enqueue(MockResponse().setResponseCode(404))
+    mockWebServer.enqueue(MockResponse().setBody("body"))
+
+    transport.warmUp(serverUrl())
+    transport.execute("GET", serverUrl(), null, null, false).close()
+
+    val warmUpRequest = mockWebServer.takeRequest()
+    assertThat(warmUpRequest.method).isEqualTo("HEAD")
+    assertThat(warmUpRequest.sequenceNumber).isEqualTo(0)
+    assertThat(mockWebServer.takeRequest().sequenceNumber).isEqualTo(1)
+  }
+
+  private fun serverUrl() = URL("http://${mockWebServer.hostName}:${mockWebServer.port}/path")
+}
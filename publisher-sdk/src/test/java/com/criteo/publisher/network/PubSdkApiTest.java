@@ -20,12 +20,16 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.mockito.AdditionalAnswers.answerVoid;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import androidx.annotation.NonNull;
+import com.criteo.publisher.Clock;
 import com.criteo.publisher.csm.Metric;
 import com.criteo.publisher.csm.MetricRequest;
 import com.criteo.publisher.logging.RemoteLogRecords;
@@ -33,6 +37,8 @@ import com.criteo.publisher.mock.MockedDependenciesRule;
 import com.criteo.publisher.mock.SpyBean;
 import com.criteo.publisher.model.CdbRequest;
 import com.criteo.publisher.model.CdbResponse;
+import com.criteo.publisher.model.CdbResponseReader;
+import com.criteo.publisher.model.Config;
 import com.criteo.publisher.model.RemoteConfigRequest;
 import com.criteo.publisher.privacy.gdpr.GdprData;
 import com.criteo.publisher.util.BuildConfigWrapper;
@@ -46,9 +52,16 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.GzipSink;
+import okio.GzipSource;
+import okio.Okio;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -78,6 +91,21 @@ public class PubSdkApiTest {
   @SpyBean
   private JsonSerializer serializer;
 
+  @SpyBean
+  private Config config;
+
+  @Inject
+  private CdbResponseReader cdbResponseReader;
+
+  @Inject
+  private Clock clock;
+
+  @SpyBean
+  private NetworkQualityEstimator networkQualityEstimator;
+
+  @SpyBean
+  private ConnectionWarmer connectionWarmer;
+
   private PubSdkApi api;
 
   @Before
@@ -91,7 +119,21 @@ public class PubSdkApiTest {
     when(gdprData.getGdprApplies()).thenReturn(false);
     when(gdprData.getVersion()).thenReturn(1);
 
-    api = new PubSdkApi(buildConfigWrapper, serializer);
+    api = new PubSdkApi(
+        buildConfigWrapper,
+        serializer,
+        cdbResponseReader,
+        createTransport(networkQualityEstimator),
+        config,
+        clock,
+        networkQualityEstimator,
+        connectionWarmer
+    );
+  }
+
+  @NonNull
+  protected HttpTransport createTransport(@NonNull NetworkQualityEstimator networkQualityEstimator) {
+    return new OkHttpTransport(networkQualityEstimator, mock(HttpCallTimingsListener.class));
   }
 
   @Test
@@ -281,6 +323,97 @@ public class PubSdkApiTest {
     assertThat(webRequest.getBody().snapshot().utf8()).isEqualTo(json);
   }
 
+  @Test
+  public void loadCdb_GivenGzipEnabled_SendCompressedPayload() throws Exception {
+    String json = "{\"payload\":\"my awesome payload\"}";
+    CdbRequest cdbRequest = mock(CdbRequest.class);
+    givenSerializerWriting(cdbRequest, json);
+    when(config.isGzipCompressionEnabled()).thenReturn(true);
+
+    mockWebServer.enqueue(new MockResponse().setResponseCode(204));
+
+    api.loadCdb(cdbRequest, "");
+
+    RecordedRequest webRequest = mockWebServer.takeRequest();
+    assertThat(webRequest.getHeader("Content-Encoding")).isEqualTo("gzip");
+    assertThat(gunzip(webRequest.getBody())).isEqualTo(json);
+  }
+
+  @Test
+  public void loadCdb_GivenGzipDisabled_SendPlainPayload() throws Exception {
+    CdbRequest cdbRequest = givenEmptyCdbRequest();
+    when(config.isGzipCompressionEnabled()).thenReturn(false);
+
+    mockWebServer.enqueue(new MockResponse().setResponseCode(204));
+
+    api.loadCdb(cdbRequest, "");
+
+    RecordedRequest webRequest = mockWebServer.takeRequest();
+    assertThat(webRequest.getHeader("Content-Encoding")).isNull();
+    assertThat(webRequest.getBody().snapshot().utf8()).isEqualTo("{}");
+  }
+
+  @Test
+  public void loadCdb_GivenGzipRejectedByServer_SendAgainWithoutCompression() throws Exception {
+    CdbRequest cdbRequest = givenEmptyCdbRequest();
+    when(config.isGzipCompressionEnabled()).thenReturn(true);
+
+    mockWebServer.enqueue(new MockResponse().setResponseCode(415));
+    mockWebServer.enqueue(new MockResponse().setResponseCode(204));
+
+    api.loadCdb(cdbRequest, "");
+
+    assertThat(mockWebServer.takeRequest().getHeader("Content-Encoding")).isEqualTo("gzip");
+    RecordedRequest retriedRequest = mockWebServer.takeRequest();
+    assertThat(retriedRequest.getHeader("Content-Encoding")).isNull();
+    assertThat(retriedRequest.getBody().snapshot().utf8()).isEqualTo("{}");
+  }
+
+  @Test
+  public void loadCdb_GivenCompressedResponse_DecompressIt() throws Exception {
+    CdbRequest cdbRequest = givenEmptyCdbRequest();
+
+    mockWebServer.enqueue(new MockResponse()
+        .setHeader("Content-Encoding", "gzip")
+        .setBody(gzip("{\"timeToNextCall\":42}")));
+
+    CdbResponse cdbResponse = api.loadCdb(cdbRequest, "");
+
+    assertThat(cdbResponse.getTimeToNextCall()).isEqualTo(42);
+    assertThat(mockWebServer.takeRequest().getHeader("Accept-Encoding")).isEqualTo("gzip");
+  }
+
+  @Test
+  public void postLogs_GivenGzipEnabled_SendCompressedPayload() throws Exception {
+    List<RemoteLogRecords> request = new ArrayList<>();
+    String json = "{\"expectedJson\": 42}";
+    givenSerializerWriting(request, json);
+    when(config.isGzipCompressionEnabled()).thenReturn(true);
+
+    mockWebServer.enqueue(new MockResponse().setResponseCode(204));
+
+    api.postLogs(request);
+
+    RecordedRequest webRequest = mockWebServer.takeRequest();
+    assertThat(webRequest.getHeader("Content-Encoding")).isEqualTo("gzip");
+    assertThat(gunzip(webRequest.getBody())).isEqualTo(json);
+  }
+
+  @Test
+  public void loadConfig_GivenGzipEnabled_SendPlainPayload() throws Exception {
+    RemoteConfigRequest request = mock(RemoteConfigRequest.class);
+    givenSerializerWriting(request, "{}");
+    when(config.isGzipCompressionEnabled()).thenReturn(true);
+
+    mockWebServer.enqueue(new MockResponse().setBody("{}"));
+
+    api.loadConfig(request);
+
+    RecordedRequest webRequest = mockWebServer.takeRequest();
+    assertThat(webRequest.getHeader("Content-Encoding")).isNull();
+    assertThat(webRequest.getBody().snapshot().utf8()).isEqualTo("{}");
+  }
+
   @Test
   public void loadCdb_GivenBids_ReturnResponseWithBids() throws Exception {
     CdbRequest cdbRequest = givenEmptyCdbRequest();
@@ -396,6 +529,52 @@ public class PubSdkApiTest {
         .isInstanceOf(IOException.class);
   }
 
+  @Test
+  public void loadCdb_GivenResponse_RecordLatency() throws Exception {
+    CdbRequest cdbRequest = givenEmptyCdbRequest();
+
+    mockWebServer.enqueue(new MockResponse().setResponseCode(204));
+
+    api.loadCdb(cdbRequest, "");
+
+    verify(networkQualityEstimator).onCdbCallFinished(anyLong());
+  }
+
+  @Test
+  public void loadCdb_GivenTimeout_RecordLatencyAndThrowTimeoutError() throws Exception {
+    when(buildConfigWrapper.getNetworkTimeoutInMillis()).thenReturn(10);
+    CdbRequest cdbRequest = givenEmptyCdbRequest();
+
+    mockWebServer.enqueue(new MockResponse()
+        .setBody("{}")
+        .throttleBody(1, 100, TimeUnit.MILLISECONDS)
+        .setResponseCode(200));
+
+    assertThatCode(() -> api.loadCdb(cdbRequest, "")).isInstanceOf(SocketTimeoutException.class);
+    verify(networkQualityEstimator).onCdbCallFinished(anyLong());
+  }
+
+  @Test
+  public void loadCdb_GivenHttpError_DoNotRecordLatency() throws Exception {
+    CdbRequest cdbRequest = givenEmptyCdbRequest();
+
+    mockWebServer.enqueue(new MockResponse().setResponseCode(400));
+
+    assertThatCode(() -> api.loadCdb(cdbRequest, "")).isInstanceOf(IOException.class);
+    verify(networkQualityEstimator, never()).onCdbCallFinished(anyLong());
+  }
+
+  @Test
+  public void loadCdb_GivenSuccess_NotifyConnectionWarmer() throws Exception {
+    CdbRequest cdbRequest = givenEmptyCdbRequest();
+
+    mockWebServer.enqueue(new MockResponse().setResponseCode(204));
+
+    api.loadCdb(cdbRequest, "");
+
+    verify(connectionWarmer).onCdbCallFinished(anyLong(), anyLong());
+  }
+
   @Test
   public void loadConfig_GivenInput_SendGetRequestWithQueryParameters() throws Exception {
     RemoteConfigRequest request = new RemoteConfigRequest(
@@ -495,6 +674,22 @@ public class PubSdkApiTest {
     })).when(serializer).write(eq(expected), any());
   }
 
+  @NonNull
+  private static Buffer gzip(@NonNull String content) throws IOException {
+    Buffer buffer = new Buffer();
+    try (BufferedSink gzipSink = Okio.buffer(new GzipSink(buffer))) {
+      gzipSink.writeUtf8(content);
+    }
+    return buffer;
+  }
+
+  @NonNull
+  private static String gunzip(@NonNull Buffer buffer) throws IOException {
+    try (BufferedSource gzipSource = Okio.buffer(new GzipSource(buffer.clone()))) {
+      return gzipSource.readUtf8();
+    }
+  }
+
   private void givenConnectionError() throws IOException {
     mockWebServer.shutdown();
   }
@@ -0,0 +1,77 @@
+/*
+ *    Copyright 2020 Criteo
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.criteo.publisher.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import androidx.annotation.NonNull;
+import org.junit.Test;
+
+public class VersionedMemoTest {
+
+  private int computeCount = 0;
+
+  private boolean isStillValid = true;
+
+  private final VersionedMemo<Object> memo = new VersionedMemo<Object>() {
+    @NonNull
+    @Override
+    protected Object compute() {
+      computeCount++;
+      return new Object();
+    }
+
+    @Override
+    protected boolean isStillValid(@NonNull Object value) {
+      return isStillValid;
+    }
+  };
+
+  @Test
+  public void get_GivenNoInvalidation_ComputeOnlyOnce() throws Exception {
+    Object first = memo.get();
+    Object second = memo.get();
+
+    assertThat(second).isSameAs(first);
+    assertThat(computeCount).isEqualTo(1);
+  }
+
+  @Test
+  public void get_AfterInvalidation_ComputeAgain() throws Exception {
+    Object first = memo.get();
+
+    memo.invalidate();
+    Object second = memo.get();
+    Object third = memo.get();
+
+    assertThat(second).isNotSameAs(first);
+    assertThat(third).isSameAs(second);
+    assertThat(computeCount).isEqualTo(2);
+  }
+
+  @Test
+  public void get_GivenValueNotValidAnymore_ComputeAgain() throws Exception {
+    Object first = memo.get();
+
+    isStillValid = false;
+    Object second = memo.get();
+
+    assertThat(second).isNotSameAs(first);
+    assertThat(computeCount).isEqualTo(2);
+  }
+}
@@ -25,6 +25,8 @@ import com.criteo.publisher.application.InstrumentationUtil;
 import com.criteo.publisher.mock.DependencyProviderRef;
 import com.criteo.publisher.mock.TestDependencyProvider;
 import com.criteo.publisher.mock.TestResource;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.concurrent.Executor;
 
 public class MultiThreadResource implements TestResource {
@@ -54,6 +56,17 @@ public class MultiThreadResource implements TestResource {
     trackingCommandsExecutor = new TrackingCommandsExecutor(oldExecutor);
 
     dependencyProvider.inject(Executor.class, trackingCommandsExecutor);
+
+    LaneExecutors oldLaneExecutors = dependencyProvider.provideLaneExecutors();
+    Map<TaskLane, Executor> trackedLaneExecutors = new EnumMap<>(TaskLane.class);
+    for (TaskLane lane : TaskLane.values()) {
+      if (lane == TaskLane.USER_FACING) {
+        trackedLaneExecutors.put(lane, trackingCommandsExecutor);
+      } else {
+        trackedLaneExecutors.put(lane, trackingCommandsExecutor.tracking(oldLaneExecutors.get(lane)));
+      }
+    }
+    dependencyProvider.inject(LaneExecutors.class, new LaneExecutors(trackedLaneExecutors));
     dependencyProvider.inject(AsyncResources.class, trackingCommandsExecutor.asAsyncResources());
     if (!InstrumentationUtil.isRunningInInstrumentationTest()) {
       // Main Lopper is not available in unit tests, so just execute code on current thread
@@ -34,6 +34,20 @@ public class TrackingCommandsExecutor implements Executor {
 
   @Override
   public void execute(@NonNull Runnable command) {
+    execute(command, delegate);
+  }
+
+  /**
+   * Return an executor delegating to the given one, but whose commands are tracked by this executor.
+   * <p>
+   * This allows {@link #waitCommands()} to wait for commands spread over many executors.
+   */
+  @NonNull
+  public Executor tracking(@NonNull Executor otherDelegate) {
+    return command -> execute(command, otherDelegate);
+  }
+
+  private void execute(@NonNull Runnable command, @NonNull Executor delegate) {
     CountDownLatch latch = new CountDownLatch(1);
     commandLatches.add(latch);
 
@@ -48,9 +48,14 @@ import okhttp3.mockwebserver.RecordedRequest
 import okhttp3.tls.HandshakeCertificates
 import okhttp3.tls.HeldCertificate
 import okio.Buffer
+import okio.GzipSink
+import okio.GzipSource
+import okio.buffer
+import java.io.IOException
 import java.net.HttpURLConnection
 import java.util.concurrent.TimeUnit
 import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
 
 @Suppress("TooManyFunctions")
 class CdbMock(private val jsonSerializer: JsonSerializer) {
@@ -65,11 +70,28 @@ class CdbMock(private val jsonSerializer: JsonSerializer) {
     private const val PREPROD_CURRENCY = "EUR"
 
     private const val CONTENT_TYPE = "content-type"
+    private const val CONTENT_ENCODING = "content-encoding"
+    private const val ACCEPT_ENCODING = "accept-encoding"
+    private const val GZIP = "gzip"
     private const val TEXT_PLAIN = "text/plain; charset=utf-8"
   }
 
   private val mockWebServer = MockWebServer()
   private var simulateSlowNetwork = AtomicBoolean(false)
+  private val compressedRequestCount = AtomicInteger()
+  private val compressedResponseCount = AtomicInteger()
+
+  /**
+   * Number of received requests whose body was compressed with gzip, and successfully decompressed.
+   */
+  val receivedCompressedRequests: Int
+    get() = compressedRequestCount.get()
+
+  /**
+   * Number of responses sent compressed with gzip, because the client indicated it accepts them.
+   */
+  val sentCompressedResponses: Int
+    get() = compressedResponseCount.get()
 
   val url: String
     get() = mockWebServer.url("").toString().let {
@@ -145,10 +167,17 @@ class CdbMock(private val jsonSerializer: JsonSerializer) {
     override fun dispatch(request: RecordedRequest): MockResponse {
       Log.i("CdbMock", request.toString())
 
+      val body = try {
+        request.decodedBody()
+      } catch (e: IOException) {
+        Log.w("CdbMock", "Invalid compressed body", e)
+        return MockResponse().setResponseCode(HttpURLConnection.HTTP_BAD_REQUEST)
+      }
+
       return when (request.requestUrl?.encodedPath) {
         "/csm" -> handleCsmRequest()
         "/config/app" -> handleConfigRequest()
-        "/inapp/v2" -> handleBidRequest(request.body)
+        "/inapp/v2" -> handleBidRequest(body)
         "/inapp/logs" -> handleLogsRequest()
         "/delivery/ajs.php" -> handleCasperRequest(request)
         "/delivery/vast.php" -> handleWrappingVastCasperRequest(request)
@@ -157,6 +186,10 @@ class CdbMock(private val jsonSerializer: JsonSerializer) {
         "/pixel" -> handlePixel()
         else -> MockResponse().setResponseCode(HttpURLConnection.HTTP_NOT_FOUND)
       }.also {
+        if (request.acceptsGzip()) {
+          it.compressBody()
+        }
+
         if (simulateSlowNetwork.compareAndSet(true, false)) {
           it.throttleBody(1, 1, TimeUnit.SECONDS)
         }
@@ -169,6 +202,34 @@ class CdbMock(private val jsonSerializer: JsonSerializer) {
       }
     }
 
+    private fun RecordedRequest.decodedBody(): Buffer {
+      if (!GZIP.equals(getHeader(CONTENT_ENCODING), ignoreCase = true)) {
+        return body
+      }
+
+      val decoded = Buffer()
+      decoded.writeAll(GzipSource(body.clone()))
+      compressedRequestCount.incrementAndGet()
+      return decoded
+    }
+
+    private fun RecordedRequest.acceptsGzip(): Boolean {
+      return getHeader(ACCEPT_ENCODING)?.split(",")?.any { it.trim().equals(GZIP, ignoreCase = true) } ?: false
+    }
+
+    private fun MockResponse.compressBody() {
+      val plainBody = getBody()
+      if (plainBody == null || plainBody.size == 0L) {
+        return
+      }
+
+      val compressedBody = Buffer()
+      GzipSink(compressedBody).buffer().use { it.writeAll(plainBody) }
+      setBody(compressedBody)
+      setHeader(CONTENT_ENCODING, GZIP)
+      compressedResponseCount.incrementAndGet()
+    }
+
     private fun handleBearcatRequest(): MockResponse {
       return MockResponse().setHeader(CONTENT_TYPE, "text/html")
     }